@@ -0,0 +1,124 @@
+package com.rhytham.redisapi.bench;
+
+import com.rhytham.redisapi.RedisapiApplication;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.repository.KeyValueRepository;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import com.rhytham.redisapi.store.JpaKeyValueStore;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link RedisService} wired to one of the storage setups under test:
+ * <ul>
+ *     <li>{@code stub} - JPA engine over an in-memory stand-in repository (service overhead only)</li>
+ *     <li>{@code memory} - the sharded in-memory engine</li>
+ *     <li>{@code h2} - full Spring context, JPA engine on in-memory H2</li>
+ *     <li>{@code postgres} - full Spring context, JPA engine on an embedded PostgreSQL</li>
+ * </ul>
+ */
+final class Backend implements AutoCloseable {
+
+    private static final int LOAD_BATCH = 1000;
+
+    final RedisService service;
+    private final KeyValueRepository repository;
+    private final ConfigurableApplicationContext context;
+    private final EmbeddedPostgres postgres;
+
+    private Backend(RedisService service, KeyValueRepository repository,
+                    ConfigurableApplicationContext context, EmbeddedPostgres postgres) {
+        this.service = service;
+        this.repository = repository;
+        this.context = context;
+        this.postgres = postgres;
+    }
+
+    static Backend open(String name) throws IOException {
+        switch (name) {
+            case "stub" -> {
+                return new Backend(new RedisService(new JpaKeyValueStore(StandInRepository.create())), null, null, null);
+            }
+            case "memory" -> {
+                return new Backend(new RedisService(new InMemoryKeyValueStore(1024)), null, null, null);
+            }
+            case "h2" -> {
+                Map<String, Object> properties = new HashMap<>();
+                //VALUE and KEY are keywords in H2 but plain column names here
+                properties.put("spring.datasource.url",
+                        "jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=KEY,VALUE;DB_CLOSE_DELAY=-1");
+                properties.put("spring.datasource.username", "sa");
+                properties.put("spring.datasource.password", "");
+                properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+                properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+                return boot(properties, null);
+            }
+            case "postgres" -> {
+                EmbeddedPostgres postgres = EmbeddedPostgres.start();
+                Map<String, Object> properties = new HashMap<>();
+                properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+                properties.put("spring.datasource.username", "postgres");
+                properties.put("spring.datasource.password", "postgres");
+                return boot(properties, postgres);
+            }
+            default -> throw new IllegalArgumentException("Unknown backend " + name);
+        }
+    }
+
+    private static Backend boot(Map<String, Object> properties, EmbeddedPostgres postgres) {
+        properties.put("redisapi.store.engine", "jpa");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        //Command-line arguments so they win over application.properties
+        String[] args = properties.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RedisapiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+        return new Backend(context.getBean(RedisService.class), context.getBean(KeyValueRepository.class),
+                context, postgres);
+    }
+
+    /**
+     * Inserts {@code keys} entries; database backends load in JPA batches rather than one call per key.
+     */
+    void populate(String[] keys, String[] values, Long[] ttls) {
+        if (repository == null) {
+            for (int i = 0; i < keys.length; i++) {
+                service.set(keys[i], values[i % values.length], ttls[i]);
+            }
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<KeyValueEntry> batch = new ArrayList<>(LOAD_BATCH);
+        for (int i = 0; i < keys.length; i++) {
+            Long expiry = ttls[i] == null ? null : now + ttls[i] * 1000;
+            batch.add(new KeyValueEntry(keys[i], values[i % values.length], expiry));
+            if (batch.size() == LOAD_BATCH) {
+                repository.saveAll(batch);
+                batch = new ArrayList<>(LOAD_BATCH);
+            }
+        }
+        repository.saveAll(batch);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.rhytham.redisapi.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}.
+ * <pre>
+ * java -jar benchmarks.jar [--threads 1,4,16] [--out results] [JMH options, e.g. -p backend=memory]
+ * java -jar benchmarks.jar http [load generator options]
+ * </pre>
+ * JMH is run once per thread count and each run is written to {@code <out>/jmh-<timestamp>-t<threads>.json}.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("http")) {
+            HttpLoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        List<Integer> threadCounts = List.of(1, 4, 16);
+        Path out = Path.of("results");
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threadCounts = Arrays.stream(args[++i].split(",")).map(Integer::parseInt).toList();
+                case "--out" -> out = Path.of(args[++i]);
+                default -> jmhArgs.add(args[i]);
+            }
+        }
+        Files.createDirectories(out);
+        CommandLineOptions cli = new CommandLineOptions(jmhArgs.toArray(String[]::new));
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .parent(cli)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(out.resolve("jmh-" + stamp + "-t" + threads + ".json").toString())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
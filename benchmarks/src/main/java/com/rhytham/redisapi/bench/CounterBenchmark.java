@@ -0,0 +1,80 @@
+package com.rhytham.redisapi.bench;
+
+import com.rhytham.redisapi.service.RedisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Atomic counter updates with every thread hammering the same few keys. {@code counters=1} is the
+ * worst case: all increments serialize on one key. H2 is left out because it has no
+ * {@code ON CONFLICT DO UPDATE}, which the jpa engine's INCRBY relies on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CounterBenchmark {
+
+    @Param({"stub", "memory", "postgres"})
+    public String backend;
+
+    @Param({"1", "16"})
+    public int counters;
+
+    private Backend store;
+    private RedisService service;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        keys = new String[counters];
+        for (int i = 0; i < counters; i++) {
+            keys[i] = "counter:" + i;
+        }
+        store = Backend.open(backend);
+        service = store.service;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Benchmark
+    public long incr() {
+        return service.incrBy(keys[ThreadLocalRandom.current().nextInt(counters)], 1);
+    }
+
+    //The optimistic alternative to incr: read, then compare-and-set until no other thread got in between
+    @Benchmark
+    public boolean compareAndSet() {
+        String key = keys[ThreadLocalRandom.current().nextInt(counters)];
+        while (true) {
+            String current = service.find(key).orElse(null);
+            if (current == null) {
+                if (service.setnx(key, "1", null)) {
+                    return true;
+                }
+            } else if (service.compareAndSet(key, current, Long.toString(Long.parseLong(current) + 1))) {
+                return true;
+            }
+        }
+    }
+}
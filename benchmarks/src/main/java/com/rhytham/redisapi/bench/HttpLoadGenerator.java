@@ -0,0 +1,262 @@
+package com.rhytham.redisapi.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rhytham.redisapi.RedisapiApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator for the {@code RedisController} endpoints. Each worker thread
+ * issues one request at a time and records its latency in a per-operation HdrHistogram. A 503
+ * counts as an error and the worker waits out its {@code Retry-After} before the next request.
+ * <pre>
+ * --url http://localhost:8081   target instance, or --embedded to boot the app in-process on the memory engine
+ * --threads 16 --duration 30 --warmup 5 (seconds)
+ * --client-threads virtual      run the workers on virtual threads (Java 21), needed for thousands of clients
+ * --keys 10000 --value-size 64
+ * --mix get=60,set=25,exists=10,expire=5
+ * --out results                 writes http-&lt;timestamp&gt;.json
+ * </pre>
+ */
+public class HttpLoadGenerator {
+
+    private static final long MAX_TRACKED_NANOS = Duration.ofSeconds(60).toNanos();
+    private static final int POPULATE_BATCH = 1000;
+
+    private enum Op { GET, SET, EXISTS, EXPIRE }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("url", "http://localhost:8081");
+        options.put("threads", "16");
+        options.put("duration", "30");
+        options.put("warmup", "5");
+        options.put("keys", "10000");
+        options.put("value-size", "64");
+        options.put("mix", "get=60,set=25,exists=10,expire=5");
+        options.put("out", "results");
+        options.put("client-threads", "platform");
+        boolean embedded = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--embedded")) {
+                embedded = true;
+            } else if (args[i].startsWith("--")) {
+                options.put(args[i].substring(2), args[++i]);
+            }
+        }
+
+        ConfigurableApplicationContext context = null;
+        String url = options.get("url");
+        if (embedded) {
+            context = new SpringApplicationBuilder(RedisapiApplication.class).run(
+                    "--server.port=0",
+                    "--spring.profiles.active=aof",
+                    "--redisapi.store.persistence=none",
+                    "--logging.level.root=WARN");
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            Map<String, Object> report = new HttpLoadGenerator(url, options).run();
+            Path out = Path.of(options.get("out"));
+            Files.createDirectories(out);
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            Path file = out.resolve("http-" + stamp + ".json");
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+            System.out.println("Results written to " + file);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private final String url;
+    private final int threads;
+    private final long durationMs;
+    private final long warmupMs;
+    private final int keyCount;
+    private final String value;
+    private final Op[] mix;
+    private final Map<String, String> options;
+    private final ThreadFactory workerFactory;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper json = new ObjectMapper();
+    private final Map<Op, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<Op, AtomicLong> errors = new LinkedHashMap<>();
+
+    HttpLoadGenerator(String url, Map<String, String> options) {
+        this.url = url;
+        this.options = options;
+        this.threads = Integer.parseInt(options.get("threads"));
+        this.durationMs = Long.parseLong(options.get("duration")) * 1000;
+        this.warmupMs = Long.parseLong(options.get("warmup")) * 1000;
+        this.keyCount = Integer.parseInt(options.get("keys"));
+        this.value = "v".repeat(Integer.parseInt(options.get("value-size")));
+        this.mix = parseMix(options.get("mix"));
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workerFactory = "virtual".equals(options.get("client-threads"))
+                ? new VirtualThreadTaskExecutor("load-").getVirtualThreadFactory()
+                : runnable -> new Thread(runnable, "load-" + workerCount.getAndIncrement());
+        for (Op op : Op.values()) {
+            recorders.put(op, new Recorder(MAX_TRACKED_NANOS, 3));
+            errors.put(op, new AtomicLong());
+        }
+    }
+
+    //Weighted op table with 100 slots, e.g. get=60 fills 60 of them
+    private static Op[] parseMix(String mix) {
+        List<Op> table = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.split("=");
+            Op op = Op.valueOf(pair[0].trim().toUpperCase());
+            for (int i = 0; i < Integer.parseInt(pair[1].trim()); i++) {
+                table.add(op);
+            }
+        }
+        return table.toArray(Op[]::new);
+    }
+
+    Map<String, Object> run() throws Exception {
+        populate();
+        System.out.printf("Warming up %d threads against %s for %d s%n", threads, url, warmupMs / 1000);
+        drive(warmupMs);
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(counter -> counter.set(0));
+        System.out.printf("Measuring for %d s%n", durationMs / 1000);
+        long start = System.nanoTime();
+        drive(durationMs);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("url", url);
+        report.put("options", options);
+        Map<String, Object> operations = new LinkedHashMap<>();
+        System.out.printf("%-7s %10s %10s %9s %9s %9s %9s %9s %7s%n",
+                "op", "count", "ops/s", "p50 us", "p90 us", "p99 us", "p999 us", "max us", "errors");
+        for (Op op : Op.values()) {
+            Histogram histogram = recorders.get(op).getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getTotalCount());
+            stats.put("opsPerSecond", histogram.getTotalCount() / seconds);
+            stats.put("p50Micros", micros(histogram, 50));
+            stats.put("p90Micros", micros(histogram, 90));
+            stats.put("p99Micros", micros(histogram, 99));
+            stats.put("p999Micros", micros(histogram, 99.9));
+            stats.put("maxMicros", histogram.getMaxValue() / 1000.0);
+            stats.put("errors", errors.get(op).get());
+            operations.put(op.name(), stats);
+            System.out.printf("%-7s %10d %10.0f %9.1f %9.1f %9.1f %9.1f %9.1f %7d%n", op, histogram.getTotalCount(),
+                    histogram.getTotalCount() / seconds, micros(histogram, 50), micros(histogram, 90),
+                    micros(histogram, 99), micros(histogram, 99.9), histogram.getMaxValue() / 1000.0, errors.get(op).get());
+        }
+        report.put("operations", operations);
+        return report;
+    }
+
+    private static double micros(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private void populate() throws Exception {
+        for (int start = 0; start < keyCount; start += POPULATE_BATCH) {
+            List<Map<String, Object>> entries = new ArrayList<>();
+            for (int i = start; i < Math.min(keyCount, start + POPULATE_BATCH); i++) {
+                entries.add(Map.of("key", "key:" + i, "value", value));
+            }
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + "/mset"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json.writeValueAsString(Map.of("entries", entries))))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Populating keys failed: " + response.statusCode() + " " + response.body());
+            }
+        }
+    }
+
+    private void drive(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = workerFactory.newThread(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    Op op = mix[random.nextInt(mix.length)];
+                    String key = "key:" + random.nextInt(keyCount);
+                    long start = System.nanoTime();
+                    boolean ok;
+                    long retryAfterMs = 0;
+                    try {
+                        HttpResponse<Void> response = client.send(request(op, key), HttpResponse.BodyHandlers.discarding());
+                        ok = response.statusCode() < 300;
+                        if (response.statusCode() == 503) {
+                            retryAfterMs = response.headers().firstValueAsLong("Retry-After").orElse(0) * 1000;
+                        }
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    recorders.get(op).recordValue(Math.min(System.nanoTime() - start, MAX_TRACKED_NANOS));
+                    if (!ok) {
+                        errors.get(op).incrementAndGet();
+                    }
+                    //Back off like a well-behaved client instead of retrying a shedding server in a tight loop
+                    if (retryAfterMs > 0 && !sleep(Math.min(retryAfterMs, deadline - System.currentTimeMillis()))) {
+                        return;
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest request(Op op, String key) throws Exception {
+        return switch (op) {
+            case GET -> HttpRequest.newBuilder(URI.create(url + "/get/" + key)).GET().build();
+            case EXISTS -> HttpRequest.newBuilder(URI.create(url + "/exists/" + key)).GET().build();
+            case EXPIRE -> HttpRequest.newBuilder(URI.create(url + "/expire/" + key + "/3600"))
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody()).build();
+            case SET -> HttpRequest.newBuilder(URI.create(url + "/set"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json.writeValueAsString(Map.of("key", key, "value", value))))
+                    .build();
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package com.rhytham.redisapi.bench;
+
+import com.rhytham.redisapi.service.RedisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and sampled latency of the {@link RedisService} operations.
+ * Thread counts are varied by {@link BenchmarkMain} (or JMH's {@code -t}).
+ * <p>
+ * TTLs are long enough that nothing expires during a run, so the {@code ttlMix} parameter measures
+ * the bookkeeping cost of volatile keys rather than expiry itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RedisServiceBenchmark {
+
+    private static final int VALUE_VARIANTS = 64;
+    private static final long LONG_TTL_SECONDS = 3600;
+
+    @Param({"stub", "memory", "h2", "postgres"})
+    public String backend;
+
+    @Param({"1000", "100000"})
+    public int keyCount;
+
+    @Param({"16", "1024"})
+    public int valueSize;
+
+    /**
+     * Share of keys that carry a TTL: "none", "half" or "all".
+     */
+    @Param({"none", "half"})
+    public String ttlMix;
+
+    private Backend store;
+    private RedisService service;
+    private String[] keys;
+    private String[] missingKeys;
+    private String[] values;
+    private Long[] ttls;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        keys = new String[keyCount];
+        missingKeys = new String[keyCount];
+        ttls = new Long[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key:" + i;
+            missingKeys[i] = "missing:" + i;
+            ttls[i] = switch (ttlMix) {
+                case "all" -> LONG_TTL_SECONDS;
+                case "half" -> i % 2 == 0 ? LONG_TTL_SECONDS : null;
+                default -> null;
+            };
+        }
+        values = new String[VALUE_VARIANTS];
+        for (int i = 0; i < VALUE_VARIANTS; i++) {
+            StringBuilder value = new StringBuilder(valueSize);
+            for (int j = 0; j < valueSize; j++) {
+                value.append((char) ('a' + random.nextInt(26)));
+            }
+            values[i] = value.toString();
+        }
+        store = Backend.open(backend);
+        service = store.service;
+        store.populate(keys, values, ttls);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Benchmark
+    public String get() {
+        return service.get(keys[ThreadLocalRandom.current().nextInt(keyCount)]);
+    }
+
+    @Benchmark
+    public void set() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(keyCount);
+        service.set(keys[i], values[random.nextInt(VALUE_VARIANTS)], ttls[i]);
+    }
+
+    //Half hits, half misses
+    @Benchmark
+    public boolean exists() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(keyCount);
+        return service.exists(random.nextBoolean() ? keys[i] : missingKeys[i]);
+    }
+
+    @Benchmark
+    public boolean expire() {
+        return service.expire(keys[ThreadLocalRandom.current().nextInt(keyCount)], LONG_TTL_SECONDS);
+    }
+}
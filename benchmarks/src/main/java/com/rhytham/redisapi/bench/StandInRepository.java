@@ -0,0 +1,123 @@
+package com.rhytham.redisapi.bench;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.repository.KeyValueRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link KeyValueRepository} backed by a ConcurrentHashMap, so the JPA engine's service path can be
+ * measured without a database. Only the methods the benchmarked operations reach are implemented.
+ */
+final class StandInRepository {
+
+    private StandInRepository() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static KeyValueRepository create() {
+        Map<String, KeyValueEntry> rows = new ConcurrentHashMap<>();
+        return (KeyValueRepository) Proxy.newProxyInstance(KeyValueRepository.class.getClassLoader(),
+                new Class<?>[]{KeyValueRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(copy(rows.get((String) args[0])));
+                    case "existsById" -> rows.containsKey((String) args[0]);
+                    case "save" -> {
+                        KeyValueEntry entry = (KeyValueEntry) args[0];
+                        rows.put(entry.getKey(), copy(entry));
+                        yield entry;
+                    }
+                    case "upsertAll", "saveAll" -> {
+                        for (KeyValueEntry entry : (Iterable<KeyValueEntry>) args[0]) {
+                            rows.put(entry.getKey(), copy(entry));
+                        }
+                        yield method.getReturnType() == void.class ? null : args[0];
+                    }
+                    case "findAllById" -> {
+                        List<KeyValueEntry> found = new ArrayList<>();
+                        for (String key : (Iterable<String>) args[0]) {
+                            KeyValueEntry entry = rows.get(key);
+                            if (entry != null) {
+                                found.add(copy(entry));
+                            }
+                        }
+                        yield found;
+                    }
+                    case "incrementBy" -> {
+                        String key = (String) args[0];
+                        long delta = (Long) args[1];
+                        //Integer values only, like the SQL; anything else comes back empty
+                        KeyValueEntry updated = rows.compute(key, (k, current) -> current == null
+                                ? new KeyValueEntry(k, Long.toString(delta), null)
+                                : new KeyValueEntry(k, Long.toString(Long.parseLong(current.getValue()) + delta), current.getExpiryTime()));
+                        yield Optional.of(copy(updated));
+                    }
+                    case "insertIfAbsent" -> {
+                        KeyValueEntry entry = (KeyValueEntry) args[0];
+                        long now = (Long) args[1];
+                        boolean[] inserted = new boolean[1];
+                        rows.compute(entry.getKey(), (k, current) -> {
+                            inserted[0] = current == null || current.getExpiryTime() != null && current.getExpiryTime() <= now;
+                            return inserted[0] ? copy(entry) : current;
+                        });
+                        yield inserted[0];
+                    }
+                    case "compareAndSet" -> {
+                        String key = (String) args[0];
+                        KeyValueEntry[] updated = new KeyValueEntry[1];
+                        rows.computeIfPresent(key, (k, current) -> {
+                            if (!current.getValue().equals(args[1])) {
+                                return current;
+                            }
+                            updated[0] = new KeyValueEntry(k, (String) args[2], current.getExpiryTime());
+                            return updated[0];
+                        });
+                        yield Optional.ofNullable(copy(updated[0]));
+                    }
+                    case "updateExpiry" -> {
+                        long expiryTime = (Long) args[1];
+                        long now = (Long) args[2];
+                        KeyValueEntry updated = rows.computeIfPresent((String) args[0], (k, current) ->
+                                current.getExpiryTime() != null && current.getExpiryTime() <= now
+                                        ? current : current.withExpiryTime(expiryTime));
+                        yield Optional.ofNullable(updated != null && updated.getExpiryTime() == expiryTime
+                                ? copy(updated) : null);
+                    }
+                    case "deleteById" -> {
+                        rows.remove((String) args[0]);
+                        yield null;
+                    }
+                    case "deleteExpiredReturningKeys" -> {
+                        long now = (Long) args[1];
+                        List<String> deleted = new ArrayList<>();
+                        for (String key : (Collection<String>) args[0]) {
+                            KeyValueEntry entry = rows.get(key);
+                            if (entry != null && entry.getExpiryTime() != null && entry.getExpiryTime() <= now
+                                    && rows.remove(key, entry)) {
+                                deleted.add(key);
+                            }
+                        }
+                        yield deleted;
+                    }
+                    case "count" -> (long) rows.size();
+                    case "deleteAll" -> {
+                        rows.clear();
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StandInRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    //Mimic the detached copies a real repository hands out
+    private static KeyValueEntry copy(KeyValueEntry entry) {
+        return entry == null ? null : entry.copy();
+    }
+}
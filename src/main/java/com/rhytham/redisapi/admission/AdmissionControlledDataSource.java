@@ -0,0 +1,100 @@
+package com.rhytham.redisapi.admission;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control in front of the connection pool. Hikari parks every caller that finds the pool
+ * empty for up to its connection timeout, 30 s by default, with no bound on how many wait. On platform
+ * threads Tomcat's thread pool caps that queue; on virtual threads nothing does, so a burst of slow
+ * queries turns into thousands of callers parked on ten connections that all time out together. Here
+ * callers pass an {@link AdmissionGate} sized to the pool first, and those it turns away get a
+ * {@link SQLTransientConnectionException}, which the API answers with 503.
+ */
+public class AdmissionControlledDataSource extends DelegatingDataSource {
+
+    private final AdmissionGate gate;
+
+    public AdmissionControlledDataSource(DataSource target, AdmissionGate gate) {
+        super(target);
+        this.gate = gate;
+    }
+
+    public AdmissionGate getGate() {
+        return gate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        admit();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            gate.exit();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        admit();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            gate.exit();
+            throw e;
+        }
+    }
+
+    private void admit() throws SQLException {
+        try {
+            if (!gate.tryEnter()) {
+                throw new SQLTransientConnectionException("No database connection available within "
+                        + gate.getTimeoutMs() + " ms or too many callers already waiting");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    //The permit goes back exactly once, on the first close
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "close" -> {
+                            if (released.compareAndSet(false, true)) {
+                                try {
+                                    connection.close();
+                                } finally {
+                                    gate.exit();
+                                }
+                            }
+                            return null;
+                        }
+                        default -> {
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
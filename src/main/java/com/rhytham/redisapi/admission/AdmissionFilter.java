@@ -0,0 +1,63 @@
+package com.rhytham.redisapi.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Caps the requests being worked on at once. On platform threads Tomcat's thread pool does this; a
+ * virtual thread per request removes the cap, and once the CPU is saturated every runnable request
+ * takes turns on the carrier threads, so one that holds a database connection waits behind all the
+ * others after each round trip and the pool drains slowly. Requests past the cap park cheaply in the
+ * {@link AdmissionGate} instead, and those it turns away get 503 with a {@code Retry-After}.
+ * Actuator endpoints bypass it so health checks and metrics still answer under overload.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private final AdmissionGate gate;
+
+    public AdmissionFilter(AdmissionGate gate) {
+        this.gate = gate;
+    }
+
+    public AdmissionGate getGate() {
+        return gate;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = gate.tryEnter();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            //Written directly: sendError would dispatch to the error page and spend the CPU being shed
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Server busy");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            gate.exit();
+        }
+    }
+}
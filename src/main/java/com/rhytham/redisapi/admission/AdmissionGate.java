@@ -0,0 +1,79 @@
+package com.rhytham.redisapi.admission;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets at most {@code maxConcurrent} callers in at once. Up to {@code maxQueued} more wait for a
+ * turn, in arrival order, for at most {@code timeoutMs}; anyone beyond that is turned away at once,
+ * so an overloaded server answers quickly instead of piling up callers that will time out anyway.
+ */
+public class AdmissionGate {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long timeoutMs;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public AdmissionGate(int maxConcurrent, int maxQueued, long timeoutMs) {
+        //Fair, so a caller that just arrived cannot overtake the ones already queued
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Waits for a turn and returns true once the caller is in; false if it was turned away.
+     * Every successful call must be paired with one {@link #exit()}.
+     */
+    public boolean tryEnter() throws InterruptedException {
+        //tryAcquire() without a timeout would barge past the queue
+        if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            rejected.increment();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public void exit() {
+        permits.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public int activeCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int queuedCount() {
+        return queued.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
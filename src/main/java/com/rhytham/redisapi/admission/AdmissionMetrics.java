@@ -0,0 +1,37 @@
+package com.rhytham.redisapi.admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes an {@link AdmissionGate} under {@code redisapi.admission.*}, tagged with what it guards.
+ */
+@RequiredArgsConstructor
+public class AdmissionMetrics implements MeterBinder {
+
+    private final AdmissionGate gate;
+    private final String name;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("redisapi.admission.active", gate, AdmissionGate::activeCount)
+                .tag("gate", name)
+                .description("Callers currently admitted")
+                .register(registry);
+        Gauge.builder("redisapi.admission.queued", gate, AdmissionGate::queuedCount)
+                .tag("gate", name)
+                .description("Callers waiting to be admitted")
+                .register(registry);
+        Gauge.builder("redisapi.admission.limit", gate, AdmissionGate::getMaxConcurrent)
+                .tag("gate", name)
+                .description("Callers admitted at once at most")
+                .register(registry);
+        FunctionCounter.builder("redisapi.admission.rejected", gate, AdmissionGate::rejectedCount)
+                .tag("gate", name)
+                .description("Callers turned away because the queue was full or the wait timed out")
+                .register(registry);
+    }
+}
@@ -0,0 +1,153 @@
+package com.rhytham.redisapi.cluster;
+
+import com.rhytham.redisapi.cluster.ClusterRouter.Lease;
+import com.rhytham.redisapi.cluster.ClusterRouter.Route;
+import com.rhytham.redisapi.dto.KeyValueRequest;
+import com.rhytham.redisapi.dto.PipelineCommand;
+import com.rhytham.redisapi.dto.PipelineResult;
+import com.rhytham.redisapi.exception.MisdirectedRequestException;
+import com.rhytham.redisapi.service.PipelineService;
+import com.rhytham.redisapi.service.RedisService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs the multi-key REST commands across the cluster: the keys are grouped by the node that serves
+ * them, this node's share runs locally and every other node gets one request with its share, so a
+ * batch costs one round trip per node involved rather than one per key. Results are put back in
+ * request order.
+ * <p>
+ * A pipeline is split by command: each command goes to the node serving its keys, and a command whose
+ * keys are served by different nodes fails with CROSSSLOT, as in Redis Cluster. Commands sent to the
+ * same node keep their relative order. FLUSHALL only flushes this node.
+ * <p>
+ * A batch another node sent on here ({@code forwarded}) is never sent on again: a key not served
+ * here fails the batch with a MOVED error, which the sender reports.
+ */
+public class ClusterBatchExecutor {
+
+    private static final String CROSSSLOT = "CROSSSLOT Keys in request don't hash to the same slot";
+
+    //Where a share of the batch goes; asking when the node only takes it after an ASK
+    private record Target(ClusterNode node, boolean asking) {
+    }
+
+    private final ClusterRouter router;
+    private final RedisService redisService;
+    private final PipelineService pipelineService;
+    private final NodeClient client;
+
+    public ClusterBatchExecutor(ClusterRouter router, RedisService redisService, PipelineService pipelineService,
+                                NodeClient client) {
+        this.router = router;
+        this.redisService = redisService;
+        this.pipelineService = pipelineService;
+        this.client = client;
+    }
+
+    public void mset(List<KeyValueRequest> entries, boolean asking, boolean forwarded) {
+        Map<Target, List<KeyValueRequest>> remote = split(entries, KeyValueRequest::getKey, asking, forwarded,
+                redisService::mset);
+        remote.forEach((target, share) -> client.mset(target.node(), share, target.asking()));
+    }
+
+    //Missing keys map to null, in request order, as on a single node
+    public Map<String, String> mget(List<String> keys, boolean asking, boolean forwarded) {
+        Map<String, String> values = new LinkedHashMap<>();
+        keys.forEach(key -> values.put(key, null));
+        Map<Target, List<String>> remote = split(keys, Function.identity(), asking, forwarded,
+                share -> values.putAll(redisService.mget(share)));
+        remote.forEach((target, share) -> values.putAll(client.mget(target.node(), share, target.asking())));
+        return values;
+    }
+
+    public int mdel(List<String> keys, boolean asking, boolean forwarded) {
+        int[] deleted = new int[1];
+        Map<Target, List<String>> remote = split(new ArrayList<>(new LinkedHashSet<>(keys)), Function.identity(), asking,
+                forwarded, share -> deleted[0] += redisService.mdel(share));
+        for (Map.Entry<Target, List<String>> share : remote.entrySet()) {
+            deleted[0] += client.mdel(share.getKey().node(), share.getValue(), share.getKey().asking());
+        }
+        return deleted[0];
+    }
+
+    public List<PipelineResult> pipeline(List<PipelineCommand> commands, boolean asking, boolean forwarded) {
+        PipelineResult[] results = new PipelineResult[commands.size()];
+        Map<Target, List<Integer>> groups = new LinkedHashMap<>();
+        Target local = new Target(router.self(), false);
+        List<String> allKeys = commands.stream().flatMap(command -> PipelineService.keys(command).stream()).toList();
+        try (Lease ignored = router.lease(allKeys)) {
+            for (int i = 0; i < commands.size(); i++) {
+                Target target = null;
+                boolean crossSlot = false;
+                for (String key : PipelineService.keys(commands.get(i))) {
+                    Target keyTarget = target(router.route(key, asking), forwarded);
+                    if (target != null && !target.equals(keyTarget)) {
+                        crossSlot = true;
+                        break;
+                    }
+                    target = keyTarget;
+                }
+                if (crossSlot) {
+                    results[i] = PipelineResult.error(CROSSSLOT);
+                } else {
+                    groups.computeIfAbsent(target == null ? local : target, t -> new ArrayList<>()).add(i);
+                }
+            }
+            List<Integer> mine = groups.remove(local);
+            if (mine != null) {
+                fill(results, mine, pipelineService.execute(select(commands, mine)));
+            }
+        }
+        groups.forEach((target, indexes) ->
+                fill(results, indexes, client.pipeline(target.node(), select(commands, indexes), target.asking())));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Groups the items by where their key is served and runs this node's share under the lease;
+     * returns the other shares.
+     */
+    private <T> Map<Target, List<T>> split(List<T> items, Function<T, String> key, boolean asking, boolean forwarded,
+                                           Consumer<List<T>> runLocally) {
+        Map<Target, List<T>> groups = new LinkedHashMap<>();
+        Target local = new Target(router.self(), false);
+        try (Lease ignored = router.lease(items.stream().map(key).toList())) {
+            for (T item : items) {
+                groups.computeIfAbsent(target(router.route(key.apply(item), asking), forwarded), t -> new ArrayList<>()).add(item);
+            }
+            List<T> mine = groups.remove(local);
+            if (mine != null) {
+                runLocally.accept(mine);
+            }
+        }
+        return groups;
+    }
+
+    private Target target(Route route, boolean forwarded) {
+        if (route.isLocal()) {
+            return new Target(router.self(), false);
+        }
+        if (forwarded) {
+            throw new MisdirectedRequestException(route);
+        }
+        return new Target(route.node(), route.kind() == ClusterRouter.Kind.ASK);
+    }
+
+    private static List<PipelineCommand> select(List<PipelineCommand> commands, List<Integer> indexes) {
+        return indexes.stream().map(commands::get).toList();
+    }
+
+    private static void fill(PipelineResult[] results, List<Integer> indexes, List<PipelineResult> replies) {
+        for (int i = 0; i < indexes.size(); i++) {
+            results[indexes.get(i)] = replies.get(i);
+        }
+    }
+}
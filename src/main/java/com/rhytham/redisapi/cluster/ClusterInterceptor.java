@@ -0,0 +1,151 @@
+package com.rhytham.redisapi.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhytham.redisapi.cluster.ClusterRouter.Lease;
+import com.rhytham.redisapi.cluster.ClusterRouter.Route;
+import com.rhytham.redisapi.dto.CompareAndSetRequest;
+import com.rhytham.redisapi.dto.KeyValueRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Routes single-key HTTP requests. The key comes from the {@code {key}} path variable or the
+ * {@code key} field of a {@link KeyValueRequest} or {@link CompareAndSetRequest} body. A request
+ * for a key served here runs under a {@link Lease} released when it completes; any other is
+ * redirected with 307, which keeps method and body, or forwarded, depending on
+ * {@code redisapi.cluster.routing}. A request another node sent on is never sent on again: it gets
+ * 421 instead. Requests without a key (the batch endpoints route themselves) and the node-local
+ * controllers pass through.
+ */
+public class ClusterInterceptor implements HandlerInterceptor {
+
+    private static final String LEASE = ClusterInterceptor.class.getName() + ".lease";
+
+    private final ClusterRouter router;
+    private final HttpNodeClient client;
+    private final ObjectMapper objectMapper;
+    private final boolean forward;
+    private final Class<?>[] nodeLocal;
+
+    /**
+     * @param nodeLocal controllers whose requests are never routed
+     */
+    public ClusterInterceptor(ClusterRouter router, HttpNodeClient client, ObjectMapper objectMapper, boolean forward,
+                              Class<?>... nodeLocal) {
+        this.router = router;
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.forward = forward;
+        this.nodeLocal = nodeLocal;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod method) || isNodeLocal(method)) {
+            return true;
+        }
+        String key = key(request, method);
+        if (key == null) {
+            return true;
+        }
+        boolean asking = asking(request);
+        Lease lease = router.lease(key);
+        Route route = router.route(key, asking);
+        if (route.isLocal()) {
+            request.setAttribute(LEASE, lease);
+            return true;
+        }
+        lease.close();
+        if (request.getHeader(HttpNodeClient.FORWARDED_HEADER) != null) {
+            response.sendError(421, route.kind() + " " + route.slot() + " " + route.node().url());
+        } else if (forward) {
+            relay(request, response, route);
+        } else {
+            redirect(request, response, route);
+        }
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(LEASE) instanceof Lease lease) {
+            lease.close();
+        }
+    }
+
+    public static boolean asking(HttpServletRequest request) {
+        return "true".equalsIgnoreCase(request.getHeader(HttpNodeClient.ASKING_HEADER))
+                || "true".equalsIgnoreCase(request.getParameter("asking"));
+    }
+
+    private boolean isNodeLocal(HandlerMethod method) {
+        for (Class<?> type : nodeLocal) {
+            if (type.isAssignableFrom(method.getBeanType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String key(HttpServletRequest request, HandlerMethod method) throws IOException {
+        if (request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables
+                && variables.get("key") instanceof String key) {
+            return key;
+        }
+        for (MethodParameter parameter : method.getMethodParameters()) {
+            Class<?> type = parameter.getParameterType();
+            if (parameter.hasParameterAnnotation(RequestBody.class)
+                    && (type == KeyValueRequest.class || type == CompareAndSetRequest.class)) {
+                byte[] body = ClusterRequestFilter.body(request);
+                if (body.length == 0) {
+                    return null;
+                }
+                //Leave a malformed body to the controller's validation
+                JsonNode key;
+                try {
+                    key = objectMapper.readTree(body).get("key");
+                } catch (IOException e) {
+                    return null;
+                }
+                return key != null && key.isTextual() ? key.asText() : null;
+            }
+        }
+        return null;
+    }
+
+    private static void redirect(HttpServletRequest request, HttpServletResponse response, Route route) {
+        StringBuilder location = new StringBuilder(route.node().url()).append(request.getRequestURI());
+        String query = request.getQueryString();
+        if (query != null) {
+            location.append('?').append(query);
+        }
+        if (route.kind() == ClusterRouter.Kind.ASK) {
+            location.append(query != null ? '&' : '?').append("asking=true");
+        }
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.LOCATION, location.toString());
+    }
+
+    private void relay(HttpServletRequest request, HttpServletResponse response, Route route) throws IOException {
+        String pathAndQuery = request.getQueryString() == null ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+        HttpNodeClient.Forwarded answer = client.forward(route.node(), request.getMethod(), pathAndQuery,
+                request.getContentType(), ClusterRequestFilter.body(request), route.kind() == ClusterRouter.Kind.ASK);
+        response.setStatus(answer.status());
+        if (answer.contentType() != null) {
+            response.setContentType(answer.contentType());
+        }
+        response.getOutputStream().write(answer.body());
+    }
+}
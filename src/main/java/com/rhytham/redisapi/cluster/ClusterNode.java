@@ -0,0 +1,11 @@
+package com.rhytham.redisapi.cluster;
+
+/**
+ * A member of the cluster.
+ *
+ * @param id          name used in the slot table and in replies such as {@code CLUSTER SLOTS}
+ * @param url         base URL of its HTTP API, e.g. {@code http://10.0.0.2:8080}
+ * @param respAddress {@code host:port} of its RESP listener, given to clients in MOVED and ASK replies
+ */
+public record ClusterNode(String id, String url, String respAddress) {
+}
@@ -0,0 +1,118 @@
+package com.rhytham.redisapi.cluster;
+
+import com.rhytham.redisapi.store.KeyValueStore;
+
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Decides where a key's command runs, with Redis Cluster's rules:
+ * <ul>
+ *   <li>a slot this node owns runs here, unless it is migrating and the key is no longer here, in
+ *   which case the client is sent to the target with ASK, for this one command;</li>
+ *   <li>a slot another node owns is answered with MOVED, unless this node is importing it and the
+ *   command was sent on after an ASK.</li>
+ * </ul>
+ * Decisions must be taken inside a {@link Lease} on the keys and the command run before the lease
+ * is closed; see {@link SlotTable}.
+ */
+public class ClusterRouter {
+
+    public enum Kind {
+        LOCAL, MOVED, ASK
+    }
+
+    /**
+     * @param node where the command runs; this node for {@link Kind#LOCAL}
+     */
+    public record Route(Kind kind, int slot, ClusterNode node) {
+
+        public boolean isLocal() {
+            return kind == Kind.LOCAL;
+        }
+
+        /**
+         * Redis's error text for the redirect, e.g. {@code MOVED 3999 127.0.0.1:6381}.
+         */
+        public String redirect() {
+            return kind + " " + slot + " " + node.respAddress();
+        }
+    }
+
+    private final SlotTable table;
+    private final KeyValueStore store;
+
+    public ClusterRouter(SlotTable table, KeyValueStore store) {
+        this.table = table;
+        this.store = store;
+    }
+
+    public SlotTable table() {
+        return table;
+    }
+
+    public ClusterNode self() {
+        return table.self();
+    }
+
+    /**
+     * @param asking the command was sent on by a node that answered ASK, or after the RESP ASKING command
+     */
+    public Route route(String key, boolean asking) {
+        int slot = HashSlots.slot(key);
+        ClusterNode owner = table.owner(slot);
+        if (owner == table.self()) {
+            ClusterNode target = table.migratingTo(slot);
+            if (target != null && !exists(key)) {
+                return new Route(Kind.ASK, slot, target);
+            }
+            return new Route(Kind.LOCAL, slot, owner);
+        }
+        if (asking && table.importingFrom(slot) != null) {
+            return new Route(Kind.LOCAL, slot, table.self());
+        }
+        return new Route(Kind.MOVED, slot, owner);
+    }
+
+    private boolean exists(String key) {
+        return store.findById(key).filter(entry -> !entry.isExpired()).isPresent();
+    }
+
+    /**
+     * Read-locks the stripes of the keys' slots, so none of them changes owner until the lease is closed.
+     */
+    public Lease lease(Collection<String> keys) {
+        return new Lease(keys.stream().mapToInt(key -> SlotTable.stripe(HashSlots.slot(key))).distinct().sorted().toArray());
+    }
+
+    public Lease lease(String key) {
+        return new Lease(new int[]{SlotTable.stripe(HashSlots.slot(key))});
+    }
+
+    public final class Lease implements AutoCloseable {
+
+        private final Lock[] locks;
+        private boolean closed;
+
+        //Ascending stripe order, as SlotTable takes write locks
+        private Lease(int[] sortedStripes) {
+            locks = new Lock[sortedStripes.length];
+            for (int i = 0; i < sortedStripes.length; i++) {
+                Lock lock = table.lock(sortedStripes[i]).readLock();
+                lock.lock();
+                locks[i] = lock;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+}
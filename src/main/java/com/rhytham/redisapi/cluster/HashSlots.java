@@ -0,0 +1,60 @@
+package com.rhytham.redisapi.cluster;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Redis Cluster's key to slot mapping: CRC16 (XMODEM) of the key modulo 16384. When the key holds a
+ * non-empty {@code {...}} hash tag only the tag is hashed, so keys such as {@code {user1}.name} and
+ * {@code {user1}.email} land in the same slot and can be used together in one multi-key command.
+ */
+public final class HashSlots {
+
+    public static final int SLOTS = 16384;
+
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private HashSlots() {
+    }
+
+    public static int slot(String key) {
+        return slot(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int slot(byte[] key) {
+        int start = 0;
+        int end = key.length;
+        for (int open = 0; open < key.length; open++) {
+            if (key[open] == '{') {
+                for (int close = open + 1; close < key.length; close++) {
+                    if (key[close] == '}') {
+                        if (close > open + 1) {
+                            start = open + 1;
+                            end = close;
+                        }
+                        break;
+                    }
+                }
+                break; //only the first '{' counts, as in Redis
+            }
+        }
+        return crc16(key, start, end) & (SLOTS - 1);
+    }
+
+    static int crc16(byte[] bytes, int from, int to) {
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc = ((crc << 8) ^ TABLE[((crc >>> 8) ^ bytes[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc;
+    }
+}
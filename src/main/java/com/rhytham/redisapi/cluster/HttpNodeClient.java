@@ -0,0 +1,151 @@
+package com.rhytham.redisapi.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhytham.redisapi.dto.KeyValueRequest;
+import com.rhytham.redisapi.dto.PipelineCommand;
+import com.rhytham.redisapi.dto.PipelineResult;
+import com.rhytham.redisapi.exception.ClusterNodeException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link NodeClient} over the other nodes' HTTP API, plus raw forwarding of single-key requests. Every
+ * call names this node in {@link #FORWARDED_HEADER}, and a node never sends such a request on again,
+ * so a stale slot table costs one extra hop at most.
+ */
+public class HttpNodeClient implements NodeClient {
+
+    public static final String FORWARDED_HEADER = "X-Redisapi-Forwarded-By";
+    public static final String ASKING_HEADER = "X-Redisapi-Asking";
+
+    /**
+     * What the node that ran a forwarded request answered.
+     */
+    public record Forwarded(int status, String contentType, byte[] body) {
+    }
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final ClusterNode self;
+    private final Duration timeout;
+
+    public HttpNodeClient(ObjectMapper objectMapper, ClusterNode self, Duration timeout) {
+        this.http = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.objectMapper = objectMapper;
+        this.self = self;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void mset(ClusterNode node, List<KeyValueRequest> entries, boolean asking) {
+        send(node, "POST", "/mset", json(Map.of("entries", entries)), asking);
+    }
+
+    @Override
+    public Map<String, String> mget(ClusterNode node, List<String> keys, boolean asking) {
+        return read(node, send(node, "POST", "/mget", json(Map.of("keys", keys)), asking), new TypeReference<>() {
+        });
+    }
+
+    @Override
+    public int mdel(ClusterNode node, List<String> keys, boolean asking) {
+        return read(node, send(node, "POST", "/mdel", json(Map.of("keys", keys)), asking), new TypeReference<Integer>() {
+        });
+    }
+
+    //PipelineResult has no creator for Jackson, so results are read as maps
+    @Override
+    public List<PipelineResult> pipeline(ClusterNode node, List<PipelineCommand> commands, boolean asking) {
+        List<Map<String, Object>> replies = read(node, send(node, "POST", "/pipeline", json(Map.of("commands", commands)), asking),
+                new TypeReference<>() {
+                });
+        List<PipelineResult> results = new ArrayList<>(replies.size());
+        for (Map<String, Object> reply : replies) {
+            Object error = reply.get("error");
+            results.add(error != null ? PipelineResult.error(error.toString()) : PipelineResult.ok(reply.get("result")));
+        }
+        return results;
+    }
+
+    @Override
+    public void importing(ClusterNode node, int from, int to, ClusterNode source) {
+        send(node, "PUT", "/cluster/slots/importing", json(Map.of("from", from, "to", to, "node", source.id())), false);
+    }
+
+    @Override
+    public void importEntries(ClusterNode node, List<MigratedEntry> entries) {
+        send(node, "POST", "/cluster/import", json(entries), false);
+    }
+
+    @Override
+    public void assign(ClusterNode node, int from, int to, ClusterNode owner) {
+        send(node, "PUT", "/cluster/slots/owner", json(Map.of("from", from, "to", to, "node", owner.id())), false);
+    }
+
+    /**
+     * Sends a request on unchanged and returns whatever the node answered, errors included.
+     */
+    public Forwarded forward(ClusterNode node, String method, String pathAndQuery, String contentType, byte[] body,
+                             boolean asking) {
+        HttpResponse<byte[]> response = exchange(node, method, pathAndQuery, contentType, body, asking);
+        return new Forwarded(response.statusCode(), response.headers().firstValue("Content-Type").orElse(null), response.body());
+    }
+
+    private byte[] send(ClusterNode node, String method, String path, byte[] body, boolean asking) {
+        HttpResponse<byte[]> response = exchange(node, method, path, "application/json", body, asking);
+        if (response.statusCode() / 100 != 2) {
+            throw new ClusterNodeException(node.id(), response.statusCode(), new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return response.body();
+    }
+
+    private HttpResponse<byte[]> exchange(ClusterNode node, String method, String pathAndQuery, String contentType,
+                                          byte[] body, boolean asking) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node.url() + pathAndQuery))
+                .timeout(timeout)
+                .header(FORWARDED_HEADER, self.id())
+                .method(method, body == null || body.length == 0 ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (contentType != null) {
+            request.header("Content-Type", contentType);
+        }
+        if (asking) {
+            request.header(ASKING_HEADER, "true");
+        }
+        try {
+            return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new ClusterNodeException(node.id(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClusterNodeException(node.id(), e);
+        }
+    }
+
+    private byte[] json(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(ClusterNode node, byte[] body, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new ClusterNodeException(node.id(), e);
+        }
+    }
+}
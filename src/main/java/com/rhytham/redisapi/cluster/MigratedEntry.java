@@ -0,0 +1,19 @@
+package com.rhytham.redisapi.cluster;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+
+/**
+ * A key as it travels to the node importing its slot: the encoded value is copied as is (Base64 in
+ * JSON), with the absolute expiry time, so nothing is decoded or re-compressed on the way.
+ */
+public record MigratedEntry(String key, byte[] value, Long expiryTime, ValueType type) {
+
+    public static MigratedEntry of(KeyValueEntry entry) {
+        return new MigratedEntry(entry.getKey(), entry.getEncoded(), entry.getExpiryTime(), entry.getType());
+    }
+
+    public KeyValueEntry toEntry() {
+        return KeyValueEntry.fromEncoded(key, value, expiryTime, type);
+    }
+}
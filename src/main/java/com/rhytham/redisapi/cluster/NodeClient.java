@@ -0,0 +1,35 @@
+package com.rhytham.redisapi.cluster;
+
+import com.rhytham.redisapi.dto.KeyValueRequest;
+import com.rhytham.redisapi.dto.PipelineCommand;
+import com.rhytham.redisapi.dto.PipelineResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calls on another cluster node: the batch commands a node sends on for the keys it does not
+ * serve, and the slot migration steps. {@code asking} marks a call that follows an ASK.
+ */
+public interface NodeClient {
+
+    void mset(ClusterNode node, List<KeyValueRequest> entries, boolean asking);
+
+    Map<String, String> mget(ClusterNode node, List<String> keys, boolean asking);
+
+    int mdel(ClusterNode node, List<String> keys, boolean asking);
+
+    List<PipelineResult> pipeline(ClusterNode node, List<PipelineCommand> commands, boolean asking);
+
+    /**
+     * Tells {@code node} to accept ASK-ed commands for the range while {@code source} moves it there.
+     */
+    void importing(ClusterNode node, int from, int to, ClusterNode source);
+
+    void importEntries(ClusterNode node, List<MigratedEntry> entries);
+
+    /**
+     * Tells {@code node} that {@code owner} now serves the range.
+     */
+    void assign(ClusterNode node, int from, int to, ClusterNode owner);
+}
@@ -0,0 +1,131 @@
+package com.rhytham.redisapi.cluster;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.ScanPage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves a range of slots from this node to another while both keep serving them, the way
+ * {@code redis-cli --cluster reshard} drives Redis Cluster:
+ * <ol>
+ *   <li>the target is told it is importing the range, and the range is marked migrating here, so
+ *   commands for keys that are no longer here are sent to the target with ASK;</li>
+ *   <li>one walk of the keyspace moves the range's keys in batches of keys sharing a lock stripe; like
+ *   MIGRATE, a batch is copied and deleted here under the stripe's write lock, so no command sees a
+ *   key on both nodes or on neither;</li>
+ *   <li>the target is told it owns the range, then this node and every other node record it.</li>
+ * </ol>
+ * A key missing here is never created here again while its slot migrates (it is ASK-ed away), so the
+ * walk finds every key of the range. A failure leaves the range migrating, which still serves every
+ * key correctly; running the same migration again finishes it.
+ */
+@Slf4j
+public class SlotMigrator {
+
+    public record Result(int from, int to, String target, long keys, long millis) {
+    }
+
+    private final SlotTable table;
+    private final KeyValueStore store;
+    private final NodeClient client;
+    private final int batchSize;
+    private final ReentrantLock running = new ReentrantLock();
+
+    public SlotMigrator(SlotTable table, KeyValueStore store, NodeClient client, int batchSize) {
+        this.table = table;
+        this.store = store;
+        this.client = client;
+        this.batchSize = batchSize;
+    }
+
+    public Result migrate(int from, int to, String targetId) {
+        ClusterNode target = table.node(targetId);
+        if (target == table.self()) {
+            throw new IllegalArgumentException("slots are already served by " + targetId);
+        }
+        if (!running.tryLock()) {
+            throw new IllegalStateException("a slot migration is already running");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            client.importing(target, from, to, table.self());
+            table.setMigrating(from, to, target);
+            long keys = sweep(from, to, target);
+
+            //The target learns first, as with CLUSTER SETSLOT NODE, or each node would send clients to the other;
+            //the write locks hold back commands here until both agree
+            int[] stripes = SlotTable.stripesOf(from, to);
+            table.lockWrite(stripes);
+            try {
+                client.assign(target, from, to, target);
+                table.assignLocked(from, to, target);
+            } finally {
+                table.unlockWrite(stripes);
+            }
+            for (ClusterNode node : table.nodes()) {
+                if (node != table.self() && node != target) {
+                    try {
+                        client.assign(node, from, to, target);
+                    } catch (RuntimeException e) {
+                        //It learns on its next request for the range, which this node answers with MOVED
+                        log.warn("Could not tell node {} that slots {}-{} moved to {}: {}", node.id(), from, to, target.id(),
+                                e.getMessage());
+                    }
+                }
+            }
+            Result result = new Result(from, to, target.id(), keys, System.currentTimeMillis() - start);
+            log.info("Migrated slots {}-{} to {}: {} keys in {} ms", from, to, target.id(), result.keys(), result.millis());
+            return result;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private long sweep(int from, int to, ClusterNode target) {
+        long moved = 0;
+        Map<Integer, List<String>> batches = new LinkedHashMap<>();
+        String cursor = ScanPage.START;
+        do {
+            ScanPage page = store.scan(cursor, batchSize);
+            for (KeyValueEntry entry : page.entries()) {
+                int slot = HashSlots.slot(entry.getKey());
+                if (slot >= from && slot <= to) {
+                    List<String> batch = batches.computeIfAbsent(SlotTable.stripe(slot), s -> new ArrayList<>());
+                    batch.add(entry.getKey());
+                    if (batch.size() == batchSize) {
+                        moved += move(SlotTable.stripe(slot), batches.remove(SlotTable.stripe(slot)), target);
+                    }
+                }
+            }
+            cursor = page.cursor();
+        } while (!ScanPage.START.equals(cursor));
+        for (Map.Entry<Integer, List<String>> batch : batches.entrySet()) {
+            moved += move(batch.getKey(), batch.getValue(), target);
+        }
+        return moved;
+    }
+
+    //Reads the keys again under the lock: the scanned copies may be stale
+    private int move(int stripe, List<String> keys, ClusterNode target) {
+        int[] locked = {stripe};
+        table.lockWrite(locked);
+        try {
+            List<KeyValueEntry> entries = store.findAllById(keys).stream().filter(entry -> !entry.isExpired()).toList();
+            if (!entries.isEmpty()) {
+                client.importEntries(target, entries.stream().map(MigratedEntry::of).toList());
+            }
+            //Expired ones go too, or they would shadow the target's keys until the sweeper removes them
+            store.deleteAllById(keys);
+            return entries.size();
+        } finally {
+            table.unlockWrite(locked);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.rhytham.redisapi.cluster;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * This node's view of which node owns each of the {@link HashSlots#SLOTS} slots, and of the slots
+ * being moved in or out. Initially the slots are split into equal ranges in the order the nodes are
+ * configured, so every node starts with the same table; migrations then change it on the nodes
+ * involved and are announced to the others.
+ * <p>
+ * Slots map onto a fixed number of read-write lock stripes. A command holds the read lock of its
+ * keys' stripes from the routing decision until it has run, and ownership only changes under the
+ * write lock, so no command runs against a slot this node has just given away.
+ */
+public class SlotTable {
+
+    public record SlotRange(int from, int to, ClusterNode node) {
+    }
+
+    private static final int STRIPES = 64;
+
+    private final Map<String, ClusterNode> nodes = new LinkedHashMap<>();
+    private final ClusterNode self;
+    private final Path configFile;
+
+    private final ClusterNode[] owners = new ClusterNode[HashSlots.SLOTS];
+    private final ClusterNode[] migrating = new ClusterNode[HashSlots.SLOTS];
+    private final ClusterNode[] importing = new ClusterNode[HashSlots.SLOTS];
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+
+    /**
+     * @param configFile where assignments are kept across restarts, or null to start from the even split
+     */
+    public SlotTable(List<ClusterNode> members, String selfId, Path configFile) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("a cluster needs at least one node");
+        }
+        for (ClusterNode node : members) {
+            if (nodes.put(node.id(), node) != null) {
+                throw new IllegalArgumentException("duplicate cluster node " + node.id());
+            }
+        }
+        this.self = nodes.get(selfId);
+        if (self == null) {
+            throw new IllegalArgumentException("node id " + selfId + " is not one of the cluster nodes");
+        }
+        this.configFile = configFile;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        for (int i = 0; i < members.size(); i++) {
+            Arrays.fill(owners, i * HashSlots.SLOTS / members.size(), (i + 1) * HashSlots.SLOTS / members.size(),
+                    members.get(i));
+        }
+        if (configFile != null && Files.exists(configFile)) {
+            load(configFile);
+        }
+    }
+
+    public ClusterNode self() {
+        return self;
+    }
+
+    public List<ClusterNode> nodes() {
+        return List.copyOf(nodes.values());
+    }
+
+    public ClusterNode node(String id) {
+        ClusterNode node = nodes.get(id);
+        if (node == null) {
+            throw new IllegalArgumentException("unknown cluster node " + id);
+        }
+        return node;
+    }
+
+    //Read without a monitor: every change is made under the write locks of its slots, so a caller holding
+    //the slot's stripe read lock sees the current value and anyone else at worst a stale one
+
+    public ClusterNode owner(int slot) {
+        return owners[slot];
+    }
+
+    public ClusterNode migratingTo(int slot) {
+        return migrating[slot];
+    }
+
+    public ClusterNode importingFrom(int slot) {
+        return importing[slot];
+    }
+
+    public void setImporting(int from, int to, ClusterNode source) {
+        update(from, to, () -> Arrays.fill(importing, from, to + 1, source));
+    }
+
+    /**
+     * Starts moving slots this node owns to {@code target}; from now on keys missing here are sent there.
+     * Commands routed before the call have finished when it returns.
+     */
+    public void setMigrating(int from, int to, ClusterNode target) {
+        update(from, to, () -> {
+            for (int slot = from; slot <= to; slot++) {
+                if (owners[slot] != self) {
+                    throw new IllegalArgumentException("slot " + slot + " is served by " + owners[slot].id() + ", not this node");
+                }
+            }
+            Arrays.fill(migrating, from, to + 1, target);
+        });
+    }
+
+    /**
+     * Records {@code owner} as the owner of the range and ends any migration or import of it. Commands
+     * already routed here finish first.
+     */
+    public void assign(int from, int to, ClusterNode owner) {
+        update(from, to, () -> setOwner(from, to, owner));
+        if (configFile != null) {
+            save(configFile);
+        }
+    }
+
+    /**
+     * Same as {@link #assign} for a caller that already holds the write locks of the range.
+     */
+    void assignLocked(int from, int to, ClusterNode owner) {
+        synchronized (this) {
+            setOwner(from, to, owner);
+        }
+        if (configFile != null) {
+            save(configFile);
+        }
+    }
+
+    private void setOwner(int from, int to, ClusterNode owner) {
+        Arrays.fill(owners, from, to + 1, owner);
+        Arrays.fill(migrating, from, to + 1, null);
+        Arrays.fill(importing, from, to + 1, null);
+    }
+
+    private void update(int from, int to, Runnable change) {
+        checkRange(from, to);
+        int[] locked = stripesOf(from, to);
+        lockWrite(locked);
+        try {
+            synchronized (this) {
+                change.run();
+            }
+        } finally {
+            unlockWrite(locked);
+        }
+    }
+
+    /**
+     * Contiguous runs of slots with the same owner, in slot order.
+     */
+    public synchronized List<SlotRange> ranges() {
+        List<SlotRange> ranges = new ArrayList<>();
+        int start = 0;
+        for (int slot = 1; slot <= HashSlots.SLOTS; slot++) {
+            if (slot == HashSlots.SLOTS || owners[slot] != owners[start]) {
+                ranges.add(new SlotRange(start, slot - 1, owners[start]));
+                start = slot;
+            }
+        }
+        return ranges;
+    }
+
+    static int stripe(int slot) {
+        return slot & (STRIPES - 1);
+    }
+
+    ReentrantReadWriteLock lock(int stripe) {
+        return stripes[stripe];
+    }
+
+    static int[] stripesOf(int from, int to) {
+        return to - from + 1 >= STRIPES ? IntStream.range(0, STRIPES).toArray()
+                : IntStream.rangeClosed(from, to).map(SlotTable::stripe).distinct().sorted().toArray();
+    }
+
+    //Always in ascending stripe order, as readers take them, so a reader and a writer never wait on each other in a cycle
+    void lockWrite(int[] sortedStripes) {
+        for (int stripe : sortedStripes) {
+            stripes[stripe].writeLock().lock();
+        }
+    }
+
+    void unlockWrite(int[] sortedStripes) {
+        for (int i = sortedStripes.length - 1; i >= 0; i--) {
+            stripes[sortedStripes[i]].writeLock().unlock();
+        }
+    }
+
+    private static void checkRange(int from, int to) {
+        if (from < 0 || to >= HashSlots.SLOTS || from > to) {
+            throw new IllegalArgumentException("slot range must be within 0-" + (HashSlots.SLOTS - 1));
+        }
+    }
+
+    //One "from-to node" line per range, written to a temporary file and moved into place
+    private void save(Path file) {
+        StringBuilder lines = new StringBuilder();
+        for (SlotRange range : ranges()) {
+            lines.append(range.from()).append('-').append(range.to()).append(' ').append(range.node().id()).append('\n');
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            Files.writeString(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write cluster config " + file, e);
+        }
+    }
+
+    private void load(Path file) {
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] parts = line.trim().split("[- ]");
+                int from = Integer.parseInt(parts[0]);
+                int to = Integer.parseInt(parts[1]);
+                checkRange(from, to);
+                Arrays.fill(owners, from, to + 1, node(parts[2]));
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Could not read cluster config " + file, e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.rhytham.redisapi.codec;
+
+import com.github.luben.zstd.Zstd;
+import com.rhytham.redisapi.datatype.SetValue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Turns values into the compact form every engine stores: one {@link ValueEncoding} tag byte, then
+ * the payload. Canonical integers become 1 to 8 byte numbers, values of at least
+ * {@code compressThreshold} bytes are compressed when that saves at least an eighth, and everything
+ * else is kept as raw bytes, so binary values round-trip unchanged.
+ * <p>
+ * Decoding only looks at the tag, so it is static and values written under other settings stay
+ * readable. Encoding is deterministic for given settings, which lets the jpa engine compare encoded
+ * values in SQL. Encoded arrays are shared between entries and must never be modified.
+ */
+public final class ValueCodec {
+
+    public enum Compression {
+        NONE, ZSTD;
+
+        public static Compression parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public static final ValueCodec DEFAULT = new ValueCodec(Compression.ZSTD, 1024, 3);
+
+    //Tag plus original length
+    private static final int ZSTD_HEADER_BYTES = 5;
+
+    //Set once at startup from the store settings; entries are created where no bean can be injected
+    private static volatile ValueCodec installed = DEFAULT;
+
+    private final Compression compression;
+    private final int compressThreshold;
+    private final int level;
+
+    public ValueCodec(Compression compression, int compressThreshold, int level) {
+        this.compression = compression;
+        this.compressThreshold = compressThreshold;
+        this.level = level;
+    }
+
+    public static ValueCodec current() {
+        return installed;
+    }
+
+    public static void install(ValueCodec codec) {
+        installed = codec;
+    }
+
+    public byte[] encode(String value) {
+        Long integer = SetValue.integer(value);
+        return integer != null ? encodeInt(integer) : encodeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public byte[] encode(byte[] value) {
+        Long integer = integer(value);
+        return integer != null ? encodeInt(integer) : encodeBytes(value);
+    }
+
+    private byte[] encodeBytes(byte[] bytes) {
+        if (compression == Compression.ZSTD && bytes.length >= compressThreshold) {
+            byte[] compressed = compress(bytes);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        return raw(bytes);
+    }
+
+    /**
+     * The raw form of a text value, whatever its length or content. Rows converted from the old text
+     * column, and values written with compression off, hold this form.
+     */
+    public static byte[] encodeRaw(String value) {
+        return raw(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] raw(byte[] bytes) {
+        byte[] encoded = new byte[bytes.length + 1];
+        encoded[0] = ValueEncoding.RAW.tag();
+        System.arraycopy(bytes, 0, encoded, 1, bytes.length);
+        return encoded;
+    }
+
+    //Null when the saving is under an eighth: not worth a decompression on every read
+    private byte[] compress(byte[] bytes) {
+        byte[] frame = new byte[ZSTD_HEADER_BYTES + (int) Zstd.compressBound(bytes.length)];
+        long size = Zstd.compressByteArray(frame, ZSTD_HEADER_BYTES, frame.length - ZSTD_HEADER_BYTES,
+                bytes, 0, bytes.length, level);
+        if (Zstd.isError(size) || ZSTD_HEADER_BYTES + size > bytes.length - bytes.length / 8) {
+            return null;
+        }
+        frame[0] = ValueEncoding.ZSTD.tag();
+        ByteBuffer.wrap(frame, 1, 4).putInt(bytes.length);
+        return Arrays.copyOf(frame, ZSTD_HEADER_BYTES + (int) size);
+    }
+
+    //Smallest of 1, 2, 4 or 8 bytes; the kv_encode_int function of the schema produces the same bytes
+    static byte[] encodeInt(long value) {
+        int width = value == (byte) value ? 1 : value == (short) value ? 2 : value == (int) value ? 4 : 8;
+        byte[] encoded = new byte[width + 1];
+        encoded[0] = ValueEncoding.INT.tag();
+        for (int i = width; i > 0; i--) {
+            encoded[i] = (byte) value;
+            value >>= 8;
+        }
+        return encoded;
+    }
+
+    private static Long integer(byte[] value) {
+        if (value.length == 0 || value.length > 20 || (value[0] != '-' && (value[0] < '0' || value[0] > '9'))) {
+            return null;
+        }
+        return SetValue.integer(new String(value, StandardCharsets.ISO_8859_1));
+    }
+
+    public static ValueEncoding encoding(byte[] encoded) {
+        return ValueEncoding.ofTag(encoded[0]);
+    }
+
+    /**
+     * The original bytes of an encoded value.
+     */
+    public static byte[] decode(byte[] encoded) {
+        return switch (encoding(encoded)) {
+            case RAW -> Arrays.copyOfRange(encoded, 1, encoded.length);
+            case INT -> Long.toString(decodeInt(encoded)).getBytes(StandardCharsets.US_ASCII);
+            case ZSTD -> decompress(encoded);
+        };
+    }
+
+    /**
+     * The original bytes of an encoded value as UTF-8 text.
+     */
+    public static String decodeString(byte[] encoded) {
+        return switch (encoding(encoded)) {
+            case RAW -> new String(encoded, 1, encoded.length - 1, StandardCharsets.UTF_8);
+            case INT -> Long.toString(decodeInt(encoded));
+            case ZSTD -> new String(decompress(encoded), StandardCharsets.UTF_8);
+        };
+    }
+
+    /**
+     * Length of the original bytes, without decompressing.
+     */
+    public static int decodedLength(byte[] encoded) {
+        return switch (encoding(encoded)) {
+            case RAW -> encoded.length - 1;
+            case INT -> Long.toString(decodeInt(encoded)).length();
+            case ZSTD -> ByteBuffer.wrap(encoded, 1, 4).getInt();
+        };
+    }
+
+    private static long decodeInt(byte[] encoded) {
+        long value = encoded[1]; //sign-extended
+        for (int i = 2; i < encoded.length; i++) {
+            value = value << 8 | (encoded[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static byte[] decompress(byte[] encoded) {
+        byte[] bytes = new byte[decodedLength(encoded)];
+        long size = Zstd.decompressByteArray(bytes, 0, bytes.length, encoded, ZSTD_HEADER_BYTES,
+                encoded.length - ZSTD_HEADER_BYTES);
+        if (Zstd.isError(size) || size != bytes.length) {
+            throw new IllegalStateException("Corrupt compressed value");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,42 @@
+package com.rhytham.redisapi.codec;
+
+/**
+ * How a stored value is laid out, named by the first byte of its encoded form. The tags are
+ * persisted in the {@code value} column, snapshots and the append-only file, so they never change.
+ */
+public enum ValueEncoding {
+    /** The bytes as given. */
+    RAW(0, "raw"),
+    /** A canonical decimal integer as a 1, 2, 4 or 8 byte big-endian two's complement number. */
+    INT(1, "int"),
+    /** Zstandard frame preceded by the 4-byte length of the original bytes. */
+    ZSTD(2, "zstd");
+
+    private final byte tag;
+    private final String label;
+
+    ValueEncoding(int tag, String label) {
+        this.tag = (byte) tag;
+        this.label = label;
+    }
+
+    public byte tag() {
+        return tag;
+    }
+
+    /**
+     * Name used by MEMORY STATS and the metrics.
+     */
+    public String label() {
+        return label;
+    }
+
+    public static ValueEncoding ofTag(byte tag) {
+        return switch (tag) {
+            case 0 -> RAW;
+            case 1 -> INT;
+            case 2 -> ZSTD;
+            default -> throw new IllegalStateException("Unknown value encoding " + tag);
+        };
+    }
+}
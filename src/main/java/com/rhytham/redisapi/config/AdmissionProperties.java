@@ -0,0 +1,49 @@
+package com.rhytham.redisapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "redisapi.admission")
+public class AdmissionProperties {
+
+    /**
+     * Whether requests and database connections pass through admission control.
+     */
+    private boolean enabled;
+
+    private Gate requests = new Gate(20, 10_000, 30_000);
+
+    private Gate connections = new Gate(0, 2_000, 5_000);
+
+    @Getter
+    @Setter
+    public static class Gate {
+
+        /**
+         * Callers admitted at once; 0 for connections uses the pool's maximum size.
+         */
+        private int maxConcurrent;
+
+        /**
+         * Callers allowed to wait for a turn; beyond that they are rejected at once.
+         */
+        private int maxQueued;
+
+        /**
+         * How long a waiting caller may wait before it is rejected.
+         */
+        private long timeoutMs;
+
+        public Gate() {
+        }
+
+        Gate(int maxConcurrent, int maxQueued, long timeoutMs) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueued = maxQueued;
+            this.timeoutMs = timeoutMs;
+        }
+    }
+}
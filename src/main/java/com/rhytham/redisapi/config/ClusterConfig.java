@@ -0,0 +1,91 @@
+package com.rhytham.redisapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhytham.redisapi.cluster.ClusterBatchExecutor;
+import com.rhytham.redisapi.cluster.ClusterInterceptor;
+import com.rhytham.redisapi.cluster.ClusterNode;
+import com.rhytham.redisapi.cluster.ClusterRequestFilter;
+import com.rhytham.redisapi.cluster.ClusterRouter;
+import com.rhytham.redisapi.cluster.HttpNodeClient;
+import com.rhytham.redisapi.cluster.SlotMigrator;
+import com.rhytham.redisapi.cluster.SlotTable;
+import com.rhytham.redisapi.controller.AdminController;
+import com.rhytham.redisapi.controller.ClusterController;
+import com.rhytham.redisapi.controller.PubSubController;
+import com.rhytham.redisapi.service.PipelineService;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.KeyValueStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cluster mode, switched on with {@code redisapi.cluster.enabled}: every node runs its own store and
+ * serves the hash slots it owns, and routes or redirects requests for the others.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "redisapi.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    @Bean
+    public SlotTable slotTable(ClusterProperties properties) {
+        List<ClusterNode> nodes = properties.getNodes().stream()
+                .map(node -> new ClusterNode(node.getId(), node.getUrl(), node.getRespAddress()))
+                .toList();
+        String configFile = properties.getConfigFile();
+        return new SlotTable(nodes, properties.getNodeId(), configFile == null || configFile.isBlank() ? null : Path.of(configFile));
+    }
+
+    @Bean
+    public ClusterRouter clusterRouter(SlotTable slotTable, KeyValueStore store) {
+        return new ClusterRouter(slotTable, store);
+    }
+
+    @Bean
+    public HttpNodeClient httpNodeClient(ObjectMapper objectMapper, SlotTable slotTable, ClusterProperties properties) {
+        return new HttpNodeClient(objectMapper, slotTable.self(), Duration.ofMillis(properties.getTimeoutMs()));
+    }
+
+    @Bean
+    public ClusterBatchExecutor clusterBatchExecutor(ClusterRouter clusterRouter, RedisService redisService,
+                                                     PipelineService pipelineService, HttpNodeClient httpNodeClient) {
+        return new ClusterBatchExecutor(clusterRouter, redisService, pipelineService, httpNodeClient);
+    }
+
+    @Bean
+    public SlotMigrator slotMigrator(SlotTable slotTable, KeyValueStore store, HttpNodeClient httpNodeClient,
+                                     ClusterProperties properties) {
+        return new SlotMigrator(slotTable, store, httpNodeClient, properties.getMigrationBatchSize());
+    }
+
+    @Bean
+    public ClusterRequestFilter clusterRequestFilter() {
+        return new ClusterRequestFilter();
+    }
+
+    @Bean
+    public WebMvcConfigurer clusterRouting(ClusterRouter clusterRouter, HttpNodeClient httpNodeClient,
+                                           ObjectMapper objectMapper, ClusterProperties properties) {
+        boolean forward = switch (properties.getRouting()) {
+            case "forward" -> true;
+            case "redirect" -> false;
+            default -> throw new IllegalArgumentException("redisapi.cluster.routing must be redirect or forward");
+        };
+        ClusterInterceptor interceptor = new ClusterInterceptor(clusterRouter, httpNodeClient, objectMapper, forward,
+                ClusterController.class, AdminController.class, PubSubController.class);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor);
+            }
+        };
+    }
+}
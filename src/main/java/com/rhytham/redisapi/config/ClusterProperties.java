@@ -0,0 +1,67 @@
+package com.rhytham.redisapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "redisapi.cluster")
+public class ClusterProperties {
+
+    /**
+     * Shard the keyspace over the configured nodes by hash slot.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Which of the nodes this process is.
+     */
+    private String nodeId;
+
+    /**
+     * Every node of the cluster, in the same order on all of them; the initial slot split follows it.
+     */
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * What an HTTP request for a key served elsewhere gets: "redirect" (307 to the serving node) or "forward"
+     * (this node sends it on and relays the answer). RESP clients always get MOVED or ASK.
+     */
+    private String routing = "redirect";
+
+    /**
+     * Keys moved per round trip during a slot migration.
+     */
+    private int migrationBatchSize = 100;
+
+    /**
+     * Timeout of calls to other nodes.
+     */
+    private long timeoutMs = 5000;
+
+    /**
+     * File where this node keeps its slot assignments across restarts; empty to start from the even split every time.
+     */
+    private String configFile = "";
+
+    @Getter
+    @Setter
+    public static class Node {
+
+        private String id;
+
+        /**
+         * Base URL of the node's HTTP API, e.g. http://127.0.0.1:8081.
+         */
+        private String url;
+
+        /**
+         * host:port of its RESP listener, given to RESP clients in MOVED and ASK.
+         */
+        private String respAddress;
+    }
+}
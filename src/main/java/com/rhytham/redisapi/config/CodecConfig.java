@@ -0,0 +1,23 @@
+package com.rhytham.redisapi.config;
+
+import com.rhytham.redisapi.codec.ValueCodec;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Value encoding for both stacks. Entries are created in many places without access to beans, so
+ * the configured codec is installed as {@link ValueCodec#current()}; the engines and the R2DBC
+ * repository depend on this bean so nothing is encoded before it is in place.
+ */
+@Configuration
+public class CodecConfig {
+
+    @Bean
+    public ValueCodec valueCodec(StoreProperties properties) {
+        StoreProperties.Codec codec = properties.getCodec();
+        ValueCodec valueCodec = new ValueCodec(ValueCodec.Compression.parse(codec.getCompression()),
+                codec.getCompressThresholdBytes(), codec.getLevel());
+        ValueCodec.install(valueCodec);
+        return valueCodec;
+    }
+}
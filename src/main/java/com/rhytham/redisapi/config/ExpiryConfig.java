@@ -0,0 +1,39 @@
+package com.rhytham.redisapi.config;
+
+import com.rhytham.redisapi.expiry.ExpiryStrategy;
+import com.rhytham.redisapi.expiry.SamplingExpiryStrategy;
+import com.rhytham.redisapi.expiry.SweepExpiryStrategy;
+import com.rhytham.redisapi.expiry.TimingWheelExpiryStrategy;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.KeyValueStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ExpiryConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.expiry.mode", havingValue = "sweep", matchIfMissing = true)
+    public ExpiryStrategy sweepExpiryStrategy(RedisService redisService, ExpiryProperties properties) {
+        return new SweepExpiryStrategy(redisService, properties.getSweepIntervalMs());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.expiry.mode", havingValue = "wheel")
+    public ExpiryStrategy timingWheelExpiryStrategy(KeyValueStore store, ExpiryProperties properties) {
+        ExpiryProperties.Wheel wheel = properties.getWheel();
+        return new TimingWheelExpiryStrategy(store, wheel.getTickMs(), wheel.getSlots(), wheel.getLevels(),
+                properties.getBatchSize(), properties.getMaxKeysPerCycle());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.expiry.mode", havingValue = "sampling")
+    public ExpiryStrategy samplingExpiryStrategy(KeyValueStore store, ExpiryProperties properties) {
+        ExpiryProperties.Sampling sampling = properties.getSampling();
+        return new SamplingExpiryStrategy(store, sampling.getIntervalMs(), sampling.getSampleSize(),
+                sampling.getThreshold(), sampling.getTimeBudgetMs());
+    }
+}
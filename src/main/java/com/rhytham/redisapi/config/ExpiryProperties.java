@@ -0,0 +1,69 @@
+package com.rhytham.redisapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "redisapi.expiry")
+public class ExpiryProperties {
+
+    /**
+     * Active expiry mode: "sweep" (periodic bulk delete), "wheel" (deadline-indexed timing wheel)
+     * or "sampling" (Redis-style adaptive sampling).
+     */
+    private String mode = "sweep";
+
+    private long sweepIntervalMs = 10_000;
+
+    /**
+     * Keys deleted per store call.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Upper bound on keys deleted in one cycle; the rest carry over to the next cycle.
+     */
+    private int maxKeysPerCycle = 10_000;
+
+    private Wheel wheel = new Wheel();
+
+    private Sampling sampling = new Sampling();
+
+    @Getter
+    @Setter
+    public static class Wheel {
+
+        private long tickMs = 100;
+
+        /**
+         * Buckets per level, must be a power of two.
+         */
+        private int slots = 512;
+
+        private int levels = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class Sampling {
+
+        private long intervalMs = 100;
+
+        /**
+         * Keys with a TTL inspected per sample.
+         */
+        private int sampleSize = 20;
+
+        /**
+         * Take another sample in the same cycle while more than this fraction of the last one was expired.
+         */
+        private double threshold = 0.10;
+
+        /**
+         * Maximum time one cycle may spend sampling.
+         */
+        private long timeBudgetMs = 25;
+    }
+}
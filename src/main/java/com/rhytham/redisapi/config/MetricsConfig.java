@@ -0,0 +1,31 @@
+package com.rhytham.redisapi.config;
+
+import com.rhytham.redisapi.metrics.CommandMetrics;
+import com.rhytham.redisapi.metrics.ExpiryMetrics;
+import com.rhytham.redisapi.metrics.KeyspaceMetrics;
+import com.rhytham.redisapi.store.KeyValueStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public CommandMetrics commandMetrics(MeterRegistry registry) {
+        return new CommandMetrics(registry);
+    }
+
+    //Reads through KeyValueStore, which only the servlet stack has
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public KeyspaceMetrics keyspaceMetrics(KeyValueStore store, MetricsProperties properties) {
+        return new KeyspaceMetrics(store, properties.getKeyspaceRefreshMs());
+    }
+
+    @Bean
+    public ExpiryMetrics expiryMetrics(MeterRegistry registry) {
+        return new ExpiryMetrics(registry);
+    }
+}
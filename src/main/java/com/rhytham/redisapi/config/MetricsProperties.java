@@ -0,0 +1,16 @@
+package com.rhytham.redisapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "redisapi.metrics")
+public class MetricsProperties {
+
+    /**
+     * How long keyspace gauges reuse one scan of the keyspace before computing it again.
+     */
+    private long keyspaceRefreshMs = 5_000;
+}
@@ -0,0 +1,57 @@
+package com.rhytham.redisapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhytham.redisapi.pubsub.DeliveryPool;
+import com.rhytham.redisapi.pubsub.KeyspaceEvents;
+import com.rhytham.redisapi.pubsub.PubSubBroker;
+import com.rhytham.redisapi.pubsub.PubSubMetrics;
+import com.rhytham.redisapi.pubsub.PubSubWebSocketHandler;
+import com.rhytham.redisapi.pubsub.Subscriber;
+import com.rhytham.redisapi.store.KeyValueStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+
+/**
+ * Publish/subscribe and keyspace notifications. Subscribers connect over RESP, Server-Sent Events
+ * ({@code GET /pubsub/subscribe}) or WebSocket ({@code /pubsub/ws}); all of them share one broker, so a
+ * message published on any transport reaches every subscriber.
+ */
+@Configuration
+@EnableWebSocket
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PubSubConfig {
+
+    @Bean
+    public PubSubBroker pubSubBroker(PubSubProperties properties) {
+        return new PubSubBroker(properties.getBufferSize(), Subscriber.Overflow.parse(properties.getOverflow()));
+    }
+
+    @Bean
+    public KeyspaceEvents keyspaceEvents(PubSubBroker pubSubBroker, KeyValueStore store, PubSubProperties properties) {
+        KeyspaceEvents events = new KeyspaceEvents(pubSubBroker, properties.getNotifyKeyspaceEvents());
+        if (events.isEnabled(KeyspaceEvents.EXPIRED)) {
+            store.addListener(events);
+        }
+        return events;
+    }
+
+    @Bean
+    public DeliveryPool deliveryPool(PubSubBroker pubSubBroker, PubSubProperties properties) {
+        return new DeliveryPool(pubSubBroker, properties.getDeliveryThreads());
+    }
+
+    @Bean
+    public PubSubMetrics pubSubMetrics(PubSubBroker pubSubBroker) {
+        return new PubSubMetrics(pubSubBroker);
+    }
+
+    @Bean
+    public WebSocketConfigurer pubSubWebSocket(DeliveryPool deliveryPool, ObjectMapper objectMapper,
+                                               PubSubProperties properties) {
+        PubSubWebSocketHandler handler = new PubSubWebSocketHandler(deliveryPool, objectMapper, properties.getSendTimeoutMs());
+        return registry -> registry.addHandler(handler, "/pubsub/ws");
+    }
+}
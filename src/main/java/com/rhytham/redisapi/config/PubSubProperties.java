@@ -0,0 +1,37 @@
+package com.rhytham.redisapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "redisapi.pubsub")
+public class PubSubProperties {
+
+    /**
+     * Messages each subscriber may have waiting before the overflow policy applies.
+     */
+    private int bufferSize = 1024;
+
+    /**
+     * What a full ring does: "disconnect" closes the subscriber, as Redis does for pubsub clients over
+     * their output buffer limit, "drop" overwrites its oldest message.
+     */
+    private String overflow = "disconnect";
+
+    /**
+     * Threads writing messages to SSE and WebSocket subscribers; RESP subscribers are served by their event loop.
+     */
+    private int deliveryThreads = 2;
+
+    /**
+     * A WebSocket send blocked for this long closes the session.
+     */
+    private int sendTimeoutMs = 10_000;
+
+    /**
+     * Keyspace notifications, with Redis's notify-keyspace-events flags, e.g. "KEA" or "Ex"; empty for none.
+     */
+    private String notifyKeyspaceEvents = "";
+}
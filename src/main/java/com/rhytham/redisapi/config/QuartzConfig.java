@@ -1,11 +1,17 @@
 package com.rhytham.redisapi.config;
 
+import com.rhytham.redisapi.expiry.ExpiryStrategy;
 import com.rhytham.redisapi.jobs.CleanupExpiredKeysJob;
+import com.rhytham.redisapi.jobs.SnapshotJob;
+import com.rhytham.redisapi.jobs.WriteBehindFlushJob;
 import org.quartz.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class QuartzConfig {
 
     @Bean
@@ -17,9 +23,9 @@ public class QuartzConfig {
     }
 
     @Bean
-    public Trigger jobTrigger(){
+    public Trigger jobTrigger(ExpiryStrategy expiryStrategy){
         SimpleScheduleBuilder scheduleBuilder = SimpleScheduleBuilder.simpleSchedule()
-                .withIntervalInSeconds(10)
+                .withIntervalInMilliseconds(expiryStrategy.getIntervalMs())
                 .repeatForever();
 
         return TriggerBuilder.newTrigger()
@@ -28,4 +34,50 @@ public class QuartzConfig {
                 .withSchedule(scheduleBuilder)
                 .build();
     }
+
+    @Bean
+    @ConditionalOnExpression(StoreConfig.WRITE_BEHIND_ENABLED)
+    public JobDetail writeBehindJobDetail(){
+        return JobBuilder.newJob(WriteBehindFlushJob.class)
+                .withIdentity("writeBehindFlush")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnExpression(StoreConfig.WRITE_BEHIND_ENABLED)
+    public Trigger writeBehindTrigger(StoreProperties properties){
+        SimpleScheduleBuilder scheduleBuilder = SimpleScheduleBuilder.simpleSchedule()
+                .withIntervalInMilliseconds(properties.getWriteBehind().getFlushIntervalMs())
+                .repeatForever();
+
+        return TriggerBuilder.newTrigger()
+                .forJob(writeBehindJobDetail())
+                .withIdentity("writeBehindFlushTrigger")
+                .withSchedule(scheduleBuilder)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnExpression(StoreConfig.SNAPSHOT_PERSISTENCE)
+    public JobDetail snapshotJobDetail(){
+        return JobBuilder.newJob(SnapshotJob.class)
+                .withIdentity("snapshot")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnExpression(StoreConfig.SNAPSHOT_PERSISTENCE)
+    public Trigger snapshotTrigger(StoreProperties properties){
+        SimpleScheduleBuilder scheduleBuilder = SimpleScheduleBuilder.simpleSchedule()
+                .withIntervalInMilliseconds(properties.getSnapshot().getIntervalMs())
+                .repeatForever();
+
+        return TriggerBuilder.newTrigger()
+                .forJob(snapshotJobDetail())
+                .withIdentity("snapshotTrigger")
+                .withSchedule(scheduleBuilder)
+                .build();
+    }
 }
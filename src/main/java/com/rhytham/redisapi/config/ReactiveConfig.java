@@ -0,0 +1,47 @@
+package com.rhytham.redisapi.config;
+
+import com.rhytham.redisapi.expiry.ReactiveSweeper;
+import com.rhytham.redisapi.metrics.CommandMetrics;
+import com.rhytham.redisapi.metrics.ExpiryMetrics;
+import com.rhytham.redisapi.repository.ReactiveKeyValueRepository;
+import com.rhytham.redisapi.service.ReactiveRedisService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * The reactive stack, active when the {@code reactive} profile makes this a WebFlux application:
+ * R2DBC repository, reactive service and the Quartz-free expiry sweep. The blocking stack (engines,
+ * Quartz jobs, RESP listener, MVC controllers) is only built for a servlet application.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+    //Tomcat is on the classpath for the servlet stack and would otherwise be picked as the reactive server too
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    @DependsOn("valueCodec")
+    public ReactiveKeyValueRepository reactiveKeyValueRepository(DatabaseClient databaseClient) {
+        return new ReactiveKeyValueRepository(databaseClient);
+    }
+
+    @Bean
+    public ReactiveRedisService reactiveRedisService(ReactiveKeyValueRepository repository, CommandMetrics commandMetrics,
+                                                     StoreProperties properties) {
+        return new ReactiveRedisService(repository, commandMetrics, properties.getDeleteChunkSize());
+    }
+
+    @Bean
+    public ReactiveSweeper reactiveSweeper(ReactiveRedisService redisService, ExpiryMetrics expiryMetrics,
+                                           ExpiryProperties properties) {
+        return new ReactiveSweeper(redisService, expiryMetrics, properties.getSweepIntervalMs());
+    }
+}
@@ -0,0 +1,61 @@
+package com.rhytham.redisapi.config;
+
+import com.rhytham.redisapi.replication.ReadOnlyReplicaFilter;
+import com.rhytham.redisapi.replication.ReplicationMetrics;
+import com.rhytham.redisapi.replication.ReplicationPrimary;
+import com.rhytham.redisapi.replication.ReplicationReplica;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.LocalKeyValueStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Asynchronous primary/replica replication, chosen with {@code redisapi.replication.role}. Any engine can
+ * be a primary; a replica keeps its copy in the memory or offheap engine and is read-only.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicationConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.replication.role", havingValue = "primary")
+    public ReplicationPrimary replicationPrimary(KeyValueStore store, ReplicationProperties properties) {
+        return new ReplicationPrimary(store, properties.getBind(), properties.getPort(), properties.getBacklogBytes(),
+                properties.getPingIntervalMs(), properties.getTimeoutMs(), properties.getSyncBatchSize());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.replication.role", havingValue = "primary")
+    public ReplicationMetrics primaryReplicationMetrics(ReplicationPrimary replicationPrimary) {
+        return new ReplicationMetrics(replicationPrimary);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.replication.role", havingValue = "replica")
+    public ReplicationReplica replicationReplica(KeyValueStore store, StoreProperties storeProperties,
+                                                 ReplicationProperties properties) {
+        if (!(store instanceof LocalKeyValueStore)) {
+            throw new IllegalStateException("A replica serves reads from memory: set redisapi.store.engine to memory or offheap");
+        }
+        if ("jpa".equalsIgnoreCase(storeProperties.getPersistence())) {
+            //Write-behind would load from and write to the primary's database
+            throw new IllegalStateException("A replica must not persist to the database: set redisapi.store.persistence to none, aof or snapshot");
+        }
+        return new ReplicationReplica(store, properties.getPrimaryHost(), properties.getPrimaryPort(),
+                properties.getAckIntervalMs(), properties.getTimeoutMs());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.replication.role", havingValue = "replica")
+    public ReplicationMetrics replicaReplicationMetrics(ReplicationReplica replicationReplica) {
+        return new ReplicationMetrics(replicationReplica);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.replication.role", havingValue = "replica")
+    public ReadOnlyReplicaFilter readOnlyReplicaFilter(ReplicationProperties properties) {
+        return new ReadOnlyReplicaFilter(properties.getPrimaryUrl());
+    }
+}
@@ -0,0 +1,67 @@
+package com.rhytham.redisapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "redisapi.replication")
+public class ReplicationProperties {
+
+    /**
+     * "none", "primary" (stream every write to replicas) or "replica" (follow a primary and serve reads from memory).
+     */
+    private String role = "none";
+
+    /**
+     * Address the primary listens on for replicas.
+     */
+    private String bind = "0.0.0.0";
+
+    /**
+     * Port the primary listens on for replicas.
+     */
+    private int port = 6390;
+
+    /**
+     * Size of the primary's ring of recent stream bytes; a replica that was away for less than this
+     * resumes where it stopped instead of copying the whole keyspace again.
+     */
+    private int backlogBytes = 1024 * 1024;
+
+    /**
+     * How often the primary pings an idle link.
+     */
+    private long pingIntervalMs = 1000;
+
+    /**
+     * Keys read per page when sending the keyspace to a replica.
+     */
+    private int syncBatchSize = 1000;
+
+    /**
+     * A link silent for this long is dropped, by the primary and by the replica.
+     */
+    private int timeoutMs = 10_000;
+
+    /**
+     * Host of the primary's replication listener, on a replica.
+     */
+    private String primaryHost = "127.0.0.1";
+
+    /**
+     * Port of the primary's replication listener, on a replica.
+     */
+    private int primaryPort = 6390;
+
+    /**
+     * Base URL of the primary's HTTP API, where a replica redirects writes; empty to refuse them with 403.
+     */
+    private String primaryUrl = "";
+
+    /**
+     * How often a replica reports the offset it applied.
+     */
+    private long ackIntervalMs = 1000;
+}
@@ -0,0 +1,67 @@
+package com.rhytham.redisapi.config;
+
+import com.rhytham.redisapi.cluster.ClusterRouter;
+import com.rhytham.redisapi.pubsub.PubSubBroker;
+import com.rhytham.redisapi.replication.ReplicationReplica;
+import com.rhytham.redisapi.resp.RespCommandHandler;
+import com.rhytham.redisapi.resp.RespServer;
+import com.rhytham.redisapi.resp.ScriptEngine;
+import com.rhytham.redisapi.service.InfoService;
+import com.rhytham.redisapi.service.RedisService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//The command handler also serves MULTI/EXEC and EVAL over HTTP, so only the listener depends on redisapi.resp.enabled
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RespConfig {
+
+    @Bean
+    public ScriptEngine scriptEngine(ScriptingProperties properties) {
+        return new ScriptEngine(properties.getCacheSize(), properties.getTimeLimitMs());
+    }
+
+    @Bean
+    public RespCommandHandler respCommandHandler(RedisService redisService, InfoService infoService,
+                                                 ObjectProvider<ClusterRouter> clusterRouter,
+                                                 ObjectProvider<ReplicationReplica> replicationReplica,
+                                                 PubSubBroker pubSubBroker, ScriptEngine scriptEngine) {
+        return new RespCommandHandler(redisService, infoService, clusterRouter.getIfAvailable(),
+                replicationReplica.getIfAvailable() != null, pubSubBroker, scriptEngine);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.resp.enabled", havingValue = "true")
+    public RespServer respServer(RespCommandHandler respCommandHandler, RespProperties properties, Environment environment) {
+        return new RespServer(respCommandHandler, properties.getBind(), properties.getPort(), properties.getIoThreads(),
+                workers(properties, Threading.VIRTUAL.isActive(environment)));
+    }
+
+    //Null runs commands on the event loops
+    private static Executor workers(RespProperties properties, boolean virtual) {
+        if (virtual) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("resp-worker-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        if (properties.getWorkerThreads() <= 0) {
+            return null;
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(properties.getWorkerThreads(), task -> {
+            Thread thread = new Thread(task, "resp-worker-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.rhytham.redisapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "redisapi.resp")
+public class RespProperties {
+
+    /**
+     * Start the RESP (Redis protocol) TCP listener next to the HTTP API.
+     */
+    private boolean enabled = false;
+
+    private String bind = "0.0.0.0";
+
+    private int port = 6380;
+
+    /**
+     * Event loop threads, which parse commands and write replies.
+     */
+    private int ioThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Threads running commands, which may block on the database, key locks or a Lua script. Ignored with
+     * virtual threads, where each batch gets its own. 0 runs commands on the event loops, which only suits
+     * the memory and offheap engines.
+     */
+    private int workerThreads = 32;
+}
@@ -0,0 +1,21 @@
+package com.rhytham.redisapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "redisapi.scripting")
+public class ScriptingProperties {
+
+    /**
+     * Compiled scripts kept for EVALSHA; past this the least recently used is dropped and gets NOSCRIPT.
+     */
+    private int cacheSize = 1000;
+
+    /**
+     * A script running longer is stopped with an error; what it wrote before stays written.
+     */
+    private long timeLimitMs = 5000;
+}
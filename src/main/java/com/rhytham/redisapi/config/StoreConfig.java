@@ -0,0 +1,139 @@
+package com.rhytham.redisapi.config;
+
+import com.rhytham.redisapi.repository.KeyValueRepository;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import com.rhytham.redisapi.store.JpaKeyValueStore;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.LocalKeyValueStore;
+import com.rhytham.redisapi.store.WriteBehindPersister;
+import com.rhytham.redisapi.store.aof.AppendOnlyFile;
+import com.rhytham.redisapi.store.cache.CachingKeyValueStore;
+import com.rhytham.redisapi.store.cache.LruNearCache;
+import com.rhytham.redisapi.store.cache.NearCache;
+import com.rhytham.redisapi.store.cache.NearCacheMetrics;
+import com.rhytham.redisapi.store.cache.TinyLfuNearCache;
+import com.rhytham.redisapi.store.coalesce.CoalescingKeyValueStore;
+import com.rhytham.redisapi.store.coalesce.CoalescingMetrics;
+import com.rhytham.redisapi.store.offheap.OffHeapKeyValueStore;
+import com.rhytham.redisapi.store.offheap.OffHeapMetrics;
+import com.rhytham.redisapi.store.snapshot.SnapshotManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StoreConfig {
+
+    static final String LOCAL_ENGINE =
+            "('${redisapi.store.engine:jpa}' == 'memory' or '${redisapi.store.engine:jpa}' == 'offheap')";
+
+    static final String WRITE_BEHIND_ENABLED =
+            LOCAL_ENGINE + " and '${redisapi.store.persistence:jpa}' == 'jpa'";
+
+    static final String COALESCING_ENABLED =
+            "'${redisapi.store.engine:jpa}' == 'jpa' and '${redisapi.store.coalescing.enabled:false}' == 'true'";
+
+    static final String SNAPSHOT_PERSISTENCE =
+            LOCAL_ENGINE + " and '${redisapi.store.persistence:jpa}' == 'snapshot'";
+
+    static final String AOF_ENABLED =
+            LOCAL_ENGINE + " and '${redisapi.store.persistence:jpa}' == 'aof'";
+
+    @Bean
+    @DependsOn("valueCodec")
+    @ConditionalOnProperty(name = "redisapi.store.engine", havingValue = "jpa", matchIfMissing = true)
+    public KeyValueStore jpaKeyValueStore(KeyValueRepository repository, ObjectProvider<NearCache> nearCache,
+                                          StoreProperties properties) {
+        KeyValueStore store = new JpaKeyValueStore(repository, properties.getDeleteChunkSize());
+        NearCache cache = nearCache.getIfAvailable();
+        if (cache != null) {
+            store = new CachingKeyValueStore(store, cache);
+        }
+        StoreProperties.Coalescing coalescing = properties.getCoalescing();
+        if (!coalescing.isEnabled()) {
+            return store;
+        }
+        //Outermost, so this bean is the pipeline and its flusher is started and drained with the context
+        return new CoalescingKeyValueStore(store, CoalescingKeyValueStore.Ack.parse(coalescing.getAck()),
+                coalescing.getWindowMs(), coalescing.getBatchSize(), coalescing.getMaxPending());
+    }
+
+    @Bean
+    @ConditionalOnExpression(COALESCING_ENABLED)
+    public CoalescingMetrics coalescingMetrics(KeyValueStore store) {
+        return new CoalescingMetrics((CoalescingKeyValueStore) store);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.store.cache.enabled", havingValue = "true")
+    public NearCache nearCache(StoreProperties properties) {
+        StoreProperties.Cache cache = properties.getCache();
+        if ("lru".equalsIgnoreCase(cache.getPolicy())) {
+            return new LruNearCache(cache.getMaxEntries(), cache.getMaxBytes());
+        }
+        return new TinyLfuNearCache(cache.getMaxEntries(), cache.getMaxBytes());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.store.cache.enabled", havingValue = "true")
+    public NearCacheMetrics nearCacheMetrics(NearCache nearCache, StoreProperties properties) {
+        return new NearCacheMetrics(nearCache, properties.getCache().getPolicy().toLowerCase());
+    }
+
+    @Bean
+    @DependsOn("valueCodec")
+    @ConditionalOnProperty(name = "redisapi.store.engine", havingValue = "memory")
+    public InMemoryKeyValueStore inMemoryKeyValueStore(StoreProperties properties) {
+        return new InMemoryKeyValueStore(properties.getShards());
+    }
+
+    @Bean
+    @DependsOn("valueCodec")
+    @ConditionalOnProperty(name = "redisapi.store.engine", havingValue = "offheap")
+    public OffHeapKeyValueStore offHeapKeyValueStore(StoreProperties properties) {
+        StoreProperties.Offheap offheap = properties.getOffheap();
+        return new OffHeapKeyValueStore(properties.getShards(), offheap.getPageSizeBytes(), offheap.getMaxMemoryBytes(),
+                OffHeapKeyValueStore.EvictionPolicy.parse(offheap.getEvictionPolicy()), offheap.getEvictionSamples());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "redisapi.store.engine", havingValue = "offheap")
+    public OffHeapMetrics offHeapMetrics(OffHeapKeyValueStore store) {
+        return new OffHeapMetrics(store);
+    }
+
+    @Bean
+    @ConditionalOnExpression(WRITE_BEHIND_ENABLED)
+    public WriteBehindPersister writeBehindPersister(LocalKeyValueStore store, KeyValueRepository repository,
+                                                     PlatformTransactionManager transactionManager,
+                                                     StoreProperties properties) {
+        return new WriteBehindPersister(store, repository, new TransactionTemplate(transactionManager),
+                properties.getWriteBehind().getBatchSize());
+    }
+
+    @Bean
+    @ConditionalOnExpression(AOF_ENABLED)
+    public AppendOnlyFile appendOnlyFile(LocalKeyValueStore store, StoreProperties properties) {
+        StoreProperties.Aof aof = properties.getAof();
+        return new AppendOnlyFile(store, Path.of(aof.getPath()), AppendOnlyFile.FsyncPolicy.parse(aof.getFsync()),
+                aof.getRewriteMinSizeBytes(), aof.getRewritePercentage());
+    }
+
+    //Available with every memory and offheap persistence mode for on-demand SAVE/BGSAVE, loaded on startup only in snapshot mode
+    @Bean
+    @ConditionalOnExpression(LOCAL_ENGINE)
+    public SnapshotManager snapshotManager(LocalKeyValueStore store, StoreProperties properties) {
+        StoreProperties.Snapshot snapshot = properties.getSnapshot();
+        return new SnapshotManager(store, Path.of(snapshot.getPath()), snapshot.getLoadThreads(),
+                "snapshot".equalsIgnoreCase(properties.getPersistence()));
+    }
+}
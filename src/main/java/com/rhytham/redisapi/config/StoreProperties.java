@@ -0,0 +1,202 @@
+package com.rhytham.redisapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "redisapi.store")
+public class StoreProperties {
+
+    /**
+     * Storage engine: "jpa" reads and writes Postgres directly, "memory" keeps the keyspace on the heap,
+     * "offheap" keeps it in direct memory slabs.
+     */
+    private String engine = "jpa";
+
+    /**
+     * Where the memory and offheap engines persist to: "jpa" (write-behind to Postgres), "aof" (local append-only file),
+     * "snapshot" (periodic binary snapshots) or "none".
+     */
+    private String persistence = "jpa";
+
+    /**
+     * Number of shards of the memory and offheap engines, rounded up to a power of two.
+     */
+    private int shards = 1024;
+
+    /**
+     * Rows per DELETE when the jpa engine removes expired keys; each chunk is its own short transaction.
+     */
+    private int deleteChunkSize = 1000;
+
+    private Codec codec = new Codec();
+
+    private WriteBehind writeBehind = new WriteBehind();
+
+    private Coalescing coalescing = new Coalescing();
+
+    private Cache cache = new Cache();
+
+    private Aof aof = new Aof();
+
+    private Snapshot snapshot = new Snapshot();
+
+    private Offheap offheap = new Offheap();
+
+    @Getter
+    @Setter
+    public static class Codec {
+
+        /**
+         * Compression for large values: "zstd" or "none". Values are always readable whatever this is set to.
+         */
+        private String compression = "zstd";
+
+        /**
+         * Values at least this long are compressed, and kept compressed only if that saves an eighth or more.
+         */
+        private int compressThresholdBytes = 1024;
+
+        /**
+         * Zstandard level; higher levels compress better but slow every write of a large value.
+         */
+        private int level = 3;
+    }
+
+    @Getter
+    @Setter
+    public static class WriteBehind {
+
+        private long flushIntervalMs = 1000;
+
+        private int batchSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Coalescing {
+
+        /**
+         * Queue the jpa engine's blind writes (SET, MSET) and flush them as batched upserts, one row per key per batch.
+         * Off by default: with ack=flush every write then waits up to {@code windowMs} for its batch, which raises the
+         * latency of a lone SET in exchange for throughput under many concurrent writers.
+         */
+        private boolean enabled = false;
+
+        /**
+         * When a write returns: "flush" (after its batch is committed) or "enqueue" (once queued; lost on a crash).
+         */
+        private String ack = "flush";
+
+        /**
+         * How long a batch stays open for more writes after the first one. 0 flushes whenever the flusher is free.
+         */
+        private long windowMs = 2;
+
+        /**
+         * Rows per JDBC batch; a batch this full is flushed without waiting for the window.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Keys an open batch may hold before writers wait for the flusher.
+         */
+        private int maxPending = 50_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * Put a bounded near-cache in front of the jpa engine.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Eviction policy: "lru" or "tinylfu" (W-TinyLFU).
+         */
+        private String policy = "tinylfu";
+
+        /**
+         * Maximum cached entries, ignored when max-bytes is set. 0 means unbounded.
+         */
+        private long maxEntries = 100_000;
+
+        /**
+         * Maximum estimated heap footprint of cached entries. 0 disables the byte limit.
+         */
+        private long maxBytes = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class Aof {
+
+        private String path = "data/appendonly.aof";
+
+        /**
+         * When to fsync: "always" (before each write returns), "everysec" or "no" (left to the OS).
+         */
+        private String fsync = "everysec";
+
+        /**
+         * Rewrite once the file has grown by this percentage since the last rewrite. 0 disables automatic rewrites.
+         */
+        private int rewritePercentage = 100;
+
+        /**
+         * Never rewrite automatically below this size.
+         */
+        private long rewriteMinSizeBytes = 64L * 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Snapshot {
+
+        private String path = "data/dump.snap";
+
+        /**
+         * How often the snapshot persistence mode checks whether to take a background snapshot.
+         */
+        private long intervalMs = 60_000;
+
+        /**
+         * Writes since the last snapshot needed before a periodic snapshot is taken.
+         */
+        private long minChanges = 1;
+
+        /**
+         * Threads decoding snapshot chunks on startup.
+         */
+        private int loadThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Getter
+    @Setter
+    public static class Offheap {
+
+        /**
+         * Direct buffer size the slab allocator carves into chunks; records over an eighth of it get a buffer of their own.
+         */
+        private int pageSizeBytes = 1024 * 1024;
+
+        /**
+         * Limit on chunk and index bytes; writes evict or fail above it. 0 means unlimited.
+         */
+        private long maxMemoryBytes = 0;
+
+        /**
+         * What happens at the limit: "noeviction" (writes fail), "allkeys-lru" or "volatile-ttl".
+         */
+        private String evictionPolicy = "noeviction";
+
+        /**
+         * Keys sampled per eviction; more samples approximate the policy better at the cost of each write.
+         */
+        private int evictionSamples = 5;
+    }
+}
@@ -0,0 +1,90 @@
+package com.rhytham.redisapi.config;
+
+import com.rhytham.redisapi.admission.AdmissionControlledDataSource;
+import com.rhytham.redisapi.admission.AdmissionFilter;
+import com.rhytham.redisapi.admission.AdmissionGate;
+import com.rhytham.redisapi.admission.AdmissionMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import javax.sql.DataSource;
+
+/**
+ * Virtual-thread mode, switched on with {@code spring.threads.virtual.enabled}. Spring Boot then serves
+ * requests on virtual threads; this config also moves the Quartz jobs onto them and, with admission
+ * enabled, puts back the limits the platform thread pool used to impose: on requests worked on at once
+ * and on callers queueing for the connection pool.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ThreadingConfig {
+
+    static final String ADMISSION_ENABLED = "redisapi.admission.enabled";
+
+    //Without an executor Quartz starts its own pool of ten platform threads
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SchedulerFactoryBeanCustomizer virtualThreadQuartz() {
+        return schedulerFactoryBean -> {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("quartz-");
+            executor.setVirtualThreads(true);
+            schedulerFactoryBean.setTaskExecutor(executor);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = ADMISSION_ENABLED, havingValue = "true")
+    public AdmissionFilter admissionFilter(AdmissionProperties properties) {
+        AdmissionProperties.Gate requests = properties.getRequests();
+        return new AdmissionFilter(new AdmissionGate(requests.getMaxConcurrent(), requests.getMaxQueued(),
+                requests.getTimeoutMs()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = ADMISSION_ENABLED, havingValue = "true")
+    public AdmissionMetrics requestAdmissionMetrics(AdmissionFilter admissionFilter) {
+        return new AdmissionMetrics(admissionFilter.getGate(), "requests");
+    }
+
+    //Static, so the post-processor is registered before the data source it wraps is created
+    @Bean
+    @ConditionalOnProperty(name = ADMISSION_ENABLED, havingValue = "true")
+    public static BeanPostProcessor connectionAdmission(ObjectProvider<AdmissionProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof AdmissionControlledDataSource) {
+                    return bean;
+                }
+                AdmissionProperties.Gate connections = properties.getObject().getConnections();
+                int maxConcurrent = connections.getMaxConcurrent();
+                if (maxConcurrent <= 0) {
+                    maxConcurrent = bean instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                }
+                return new AdmissionControlledDataSource(dataSource, new AdmissionGate(maxConcurrent,
+                        connections.getMaxQueued(), connections.getTimeoutMs()));
+            }
+        };
+    }
+
+    //The aof profile runs without a data source, so there may be nothing to measure
+    @Bean
+    @ConditionalOnProperty(name = ADMISSION_ENABLED, havingValue = "true")
+    public MeterBinder connectionAdmissionMetrics(ObjectProvider<DataSource> dataSource) {
+        return registry -> {
+            if (dataSource.getIfAvailable() instanceof AdmissionControlledDataSource admission) {
+                new AdmissionMetrics(admission.getGate(), "connections").bindTo(registry);
+            }
+        };
+    }
+}
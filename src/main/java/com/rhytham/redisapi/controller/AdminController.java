@@ -0,0 +1,109 @@
+package com.rhytham.redisapi.controller;
+
+import com.rhytham.redisapi.service.InfoService;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.MemoryStats;
+import com.rhytham.redisapi.store.snapshot.SnapshotManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@AllArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/admin")
+@Tag(name = "Admin Controller", description = "Server statistics and persistence operations of the memory engine")
+public class AdminController {
+
+    private final ObjectProvider<SnapshotManager> snapshotManager;
+    private final InfoService infoService;
+    private final RedisService redisService;
+
+    @Operation(summary = "Server statistics", description = "Keyspace counters, per-command latency percentiles and expiry job runs, like Redis INFO.")
+    @GetMapping("/info")
+    public ResponseEntity<Map<String, Map<String, Object>>> info() {
+        return ResponseEntity.ok(infoService.info());
+    }
+
+    @Operation(summary = "Memory report", description = "MEMORY STATS: keys and bytes per type and value encoding, with the stored (encoded) and original sizes. Scans the whole keyspace.")
+    @GetMapping("/memory")
+    public ResponseEntity<MemoryStats> memory() {
+        return ResponseEntity.ok(redisService.memoryStats());
+    }
+
+    @Operation(summary = "Take a snapshot now", description = "Writes a snapshot of the memory engine on the request thread, like Redis SAVE.")
+    @PostMapping("/save")
+    public ResponseEntity<?> save() {
+        SnapshotManager manager = snapshotManager.getIfAvailable();
+        if (manager == null) {
+            return unavailable();
+        }
+        SnapshotManager.SaveResult result;
+        try {
+            result = manager.save();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        return result.ok() ? ResponseEntity.ok(describe(manager))
+                : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(describe(manager));
+    }
+
+    @Operation(summary = "Take a snapshot in the background", description = "Starts writing a snapshot on a background thread, like Redis BGSAVE.")
+    @PostMapping("/bgsave")
+    public ResponseEntity<?> bgsave() {
+        SnapshotManager manager = snapshotManager.getIfAvailable();
+        if (manager == null) {
+            return unavailable();
+        }
+        if (!manager.bgsave()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Background save already in progress");
+        }
+        return ResponseEntity.accepted().body("Background saving started");
+    }
+
+    @Operation(summary = "Last snapshot", description = "Reports when the last snapshot finished, how long it took and whether one is running.")
+    @GetMapping("/lastsave")
+    public ResponseEntity<?> lastSave() {
+        SnapshotManager manager = snapshotManager.getIfAvailable();
+        if (manager == null) {
+            return unavailable();
+        }
+        return ResponseEntity.ok(describe(manager));
+    }
+
+    private static Map<String, Object> describe(SnapshotManager manager) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        SnapshotManager.SaveResult last = manager.getLastSave();
+        if (last != null) {
+            status.put("lastSaveTime", Instant.ofEpochMilli(last.finishedAt()).toString());
+            status.put("lastSaveDurationMs", last.durationMs());
+            status.put("lastSaveStatus", last.ok() ? "ok" : "err");
+            status.put("keys", last.keys());
+            status.put("bytes", last.bytes());
+            if (last.error() != null) {
+                status.put("error", last.error());
+            }
+        } else {
+            status.put("lastSaveTime", null);
+        }
+        status.put("inProgress", manager.isSaving());
+        status.put("changesSinceLastSave", manager.changesSinceLastSave());
+        return status;
+    }
+
+    private static ResponseEntity<String> unavailable() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Snapshots require redisapi.store.engine=memory");
+    }
+}
@@ -0,0 +1,93 @@
+package com.rhytham.redisapi.controller;
+
+import com.rhytham.redisapi.cluster.ClusterNode;
+import com.rhytham.redisapi.cluster.HashSlots;
+import com.rhytham.redisapi.cluster.MigratedEntry;
+import com.rhytham.redisapi.cluster.SlotMigrator;
+import com.rhytham.redisapi.cluster.SlotTable;
+import com.rhytham.redisapi.dto.SlotRangeRequest;
+import com.rhytham.redisapi.store.KeyValueStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@AllArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "redisapi.cluster.enabled", havingValue = "true")
+@RequestMapping("/cluster")
+@Tag(name = "Cluster Controller", description = "Slot assignments and slot migration of cluster mode")
+public class ClusterController {
+
+    private final SlotTable slotTable;
+    private final SlotMigrator slotMigrator;
+    private final KeyValueStore store;
+
+    @Operation(summary = "Slot assignments", description = "CLUSTER SLOTS: the ranges of hash slots and the node serving each, as this node sees them.")
+    @GetMapping("/slots")
+    public ResponseEntity<List<SlotTable.SlotRange>> slots() {
+        return ResponseEntity.ok(slotTable.ranges());
+    }
+
+    @Operation(summary = "Cluster nodes", description = "Every configured node, and which one answered.")
+    @GetMapping("/nodes")
+    public ResponseEntity<Map<String, Object>> nodes() {
+        return ResponseEntity.ok(Map.of("self", slotTable.self().id(), "nodes", slotTable.nodes()));
+    }
+
+    @Operation(summary = "Hash slot of a key", description = "CLUSTER KEYSLOT: the slot a key maps to, honouring {hash tags}, and the node serving it.")
+    @GetMapping("/keyslot/{key}")
+    public ResponseEntity<Map<String, Object>> keySlot(@PathVariable String key) {
+        int slot = HashSlots.slot(key);
+        return ResponseEntity.ok(Map.of("slot", slot, "node", slotTable.owner(slot).id()));
+    }
+
+    @Operation(summary = "Move slots to another node", description = "Migrates a range of slots this node serves to the given node while both keep serving them, then announces the new owner. Runs on the request thread; rerun it if it fails.")
+    @PostMapping("/migrate")
+    public ResponseEntity<?> migrate(@Valid @RequestBody SlotRangeRequest request) {
+        try {
+            return ResponseEntity.ok(slotMigrator.migrate(request.getFrom(), request.getTo(), request.getNode()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    //The steps below are called by the node driving a migration
+
+    @Operation(summary = "Start importing slots", description = "Accepts ASK-ed commands for the range while the given node moves it here.")
+    @PutMapping("/slots/importing")
+    public ResponseEntity<String> importing(@Valid @RequestBody SlotRangeRequest request) {
+        slotTable.setImporting(request.getFrom(), request.getTo(), slotTable.node(request.getNode()));
+        return ResponseEntity.ok("Importing slots " + request.getFrom() + "-" + request.getTo());
+    }
+
+    @Operation(summary = "Record a slot owner", description = "Records the given node as the owner of the range and ends any migration of it here.")
+    @PutMapping("/slots/owner")
+    public ResponseEntity<String> assign(@Valid @RequestBody SlotRangeRequest request) {
+        ClusterNode owner = slotTable.node(request.getNode());
+        slotTable.assign(request.getFrom(), request.getTo(), owner);
+        return ResponseEntity.ok("Slots " + request.getFrom() + "-" + request.getTo() + " served by " + owner.id());
+    }
+
+    @Operation(summary = "Import migrated keys", description = "Stores keys sent by the node migrating their slots here, with their encoded values and expiry times.")
+    @PostMapping("/import")
+    public ResponseEntity<Integer> importEntries(@RequestBody List<MigratedEntry> entries) {
+        store.saveAll(entries.stream().map(MigratedEntry::toEntry).toList());
+        return ResponseEntity.ok(entries.size());
+    }
+}
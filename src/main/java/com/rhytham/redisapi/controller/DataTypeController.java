@@ -0,0 +1,160 @@
+package com.rhytham.redisapi.controller;
+
+import com.rhytham.redisapi.datatype.ScoredMember;
+import com.rhytham.redisapi.exception.KeyNotFoundException;
+import com.rhytham.redisapi.service.RedisService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@AllArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Tag(name = "Data Type Controller", description = "Hash, list, set and sorted-set commands")
+public class DataTypeController {
+
+    private final RedisService redisService;
+
+    @Operation(summary = "Type and encoding of a key", description = "Redis TYPE and OBJECT ENCODING: string, hash, list, set, zset or none, and how the value is currently stored.")
+    @GetMapping("/type/{key}")
+    public ResponseEntity<Map<String, String>> type(@PathVariable String key) {
+        Map<String, String> type = new LinkedHashMap<>();
+        type.put("type", redisService.type(key));
+        type.put("encoding", redisService.encoding(key));
+        return ResponseEntity.ok(type);
+    }
+
+    @Operation(summary = "Set hash fields", description = "HSET: sets every field of the JSON object, creating the hash if needed. Returns how many fields are new.")
+    @PostMapping("/hashes/{key}")
+    public ResponseEntity<Integer> hset(@PathVariable String key, @RequestBody Map<String, String> fields) {
+        return ResponseEntity.ok(redisService.hset(key, fields));
+    }
+
+    @Operation(summary = "Get all hash fields", description = "HGETALL: every field and value; empty when the key does not exist.")
+    @GetMapping("/hashes/{key}")
+    public ResponseEntity<Map<String, String>> hgetAll(@PathVariable String key) {
+        return ResponseEntity.ok(redisService.hgetAll(key));
+    }
+
+    @Operation(summary = "Get a hash field", description = "HGET: the value of one field.")
+    @GetMapping("/hashes/{key}/{field}")
+    public ResponseEntity<String> hget(@PathVariable String key, @PathVariable String field) {
+        String value = redisService.hget(key, field);
+        if (value == null) {
+            throw new KeyNotFoundException("Field " + field + " not found in hash " + key);
+        }
+        return ResponseEntity.ok(value);
+    }
+
+    @Operation(summary = "Delete a hash field", description = "HDEL: returns 1 if the field existed; the hash is deleted with its last field.")
+    @DeleteMapping("/hashes/{key}/{field}")
+    public ResponseEntity<Integer> hdel(@PathVariable String key, @PathVariable String field) {
+        return ResponseEntity.ok(redisService.hdel(key, List.of(field)));
+    }
+
+    @Operation(summary = "Increment a hash field", description = "HINCRBY: adds the increment to an integer field, starting from 0, and returns the new value.")
+    @PatchMapping("/hashes/{key}/{field}/incr/{increment}")
+    public ResponseEntity<Long> hincrBy(@PathVariable String key, @PathVariable String field, @PathVariable long increment) {
+        return ResponseEntity.ok(redisService.hincrBy(key, field, increment));
+    }
+
+    @Operation(summary = "Push to the head of a list", description = "LPUSH: pushes the values one after another, so the last one ends up first. Returns the new length.")
+    @PostMapping("/lists/{key}/lpush")
+    public ResponseEntity<Integer> lpush(@PathVariable String key, @RequestBody List<String> values) {
+        return ResponseEntity.ok(redisService.lpush(key, values));
+    }
+
+    @Operation(summary = "Push to the tail of a list", description = "RPUSH: appends the values in order and returns the new length.")
+    @PostMapping("/lists/{key}/rpush")
+    public ResponseEntity<Integer> rpush(@PathVariable String key, @RequestBody List<String> values) {
+        return ResponseEntity.ok(redisService.rpush(key, values));
+    }
+
+    @Operation(summary = "Pop from the head of a list", description = "LPOP: removes and returns the first value; the list is deleted with its last value.")
+    @PostMapping("/lists/{key}/lpop")
+    public ResponseEntity<String> lpop(@PathVariable String key) {
+        return ResponseEntity.ok(popped(key, redisService.lpop(key)));
+    }
+
+    @Operation(summary = "Pop from the tail of a list", description = "RPOP: removes and returns the last value; the list is deleted with its last value.")
+    @PostMapping("/lists/{key}/rpop")
+    public ResponseEntity<String> rpop(@PathVariable String key) {
+        return ResponseEntity.ok(popped(key, redisService.rpop(key)));
+    }
+
+    private static String popped(String key, String value) {
+        if (value == null) {
+            throw new KeyNotFoundException("List " + key + " not found or has expired");
+        }
+        return value;
+    }
+
+    @Operation(summary = "Range of a list", description = "LRANGE: values from start to stop inclusive; negative indexes count from the tail, so 0 and -1 return the whole list.")
+    @GetMapping("/lists/{key}")
+    public ResponseEntity<List<String>> lrange(@PathVariable String key,
+                                               @RequestParam(defaultValue = "0") long start,
+                                               @RequestParam(defaultValue = "-1") long stop) {
+        return ResponseEntity.ok(redisService.lrange(key, start, stop));
+    }
+
+    @Operation(summary = "Add set members", description = "SADD: adds the members and returns how many were new.")
+    @PostMapping("/sets/{key}")
+    public ResponseEntity<Integer> sadd(@PathVariable String key, @RequestBody List<String> members) {
+        return ResponseEntity.ok(redisService.sadd(key, members));
+    }
+
+    @Operation(summary = "Set members", description = "SMEMBERS: every member, in no particular order.")
+    @GetMapping("/sets/{key}")
+    public ResponseEntity<List<String>> smembers(@PathVariable String key) {
+        return ResponseEntity.ok(redisService.smembers(key));
+    }
+
+    @Operation(summary = "Check set membership", description = "SISMEMBER: whether the member is in the set.")
+    @GetMapping("/sets/{key}/{member}")
+    public ResponseEntity<Boolean> sismember(@PathVariable String key, @PathVariable String member) {
+        return ResponseEntity.ok(redisService.sismember(key, member));
+    }
+
+    @Operation(summary = "Remove a set member", description = "SREM: returns 1 if the member was in the set.")
+    @DeleteMapping("/sets/{key}/{member}")
+    public ResponseEntity<Integer> srem(@PathVariable String key, @PathVariable String member) {
+        return ResponseEntity.ok(redisService.srem(key, List.of(member)));
+    }
+
+    @Operation(summary = "Add sorted-set members", description = "ZADD: takes a JSON object of member to score, updates the scores of existing members and returns how many were new.")
+    @PostMapping("/zsets/{key}")
+    public ResponseEntity<Integer> zadd(@PathVariable String key, @RequestBody Map<String, Double> members) {
+        return ResponseEntity.ok(redisService.zadd(key, members));
+    }
+
+    @Operation(summary = "Sorted-set members by score", description = "ZRANGEBYSCORE: members with min <= score <= max in score order. Prefix a bound with ( to make it exclusive; -inf and inf are open ends.")
+    @GetMapping("/zsets/{key}")
+    public ResponseEntity<List<ScoredMember>> zrangeByScore(@PathVariable String key,
+                                                            @RequestParam(defaultValue = "-inf") String min,
+                                                            @RequestParam(defaultValue = "inf") String max) {
+        return ResponseEntity.ok(redisService.zrangeByScore(key, min, max));
+    }
+
+    @Operation(summary = "Score of a sorted-set member", description = "ZSCORE: the member's score.")
+    @GetMapping("/zsets/{key}/{member}")
+    public ResponseEntity<Double> zscore(@PathVariable String key, @PathVariable String member) {
+        Double score = redisService.zscore(key, member);
+        if (score == null) {
+            throw new KeyNotFoundException("Member " + member + " not found in sorted set " + key);
+        }
+        return ResponseEntity.ok(score);
+    }
+
+    @Operation(summary = "Remove a sorted-set member", description = "ZREM: returns 1 if the member was in the sorted set.")
+    @DeleteMapping("/zsets/{key}/{member}")
+    public ResponseEntity<Integer> zrem(@PathVariable String key, @PathVariable String member) {
+        return ResponseEntity.ok(redisService.zrem(key, List.of(member)));
+    }
+}
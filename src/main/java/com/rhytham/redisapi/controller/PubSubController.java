@@ -0,0 +1,116 @@
+package com.rhytham.redisapi.controller;
+
+import com.rhytham.redisapi.dto.PublishRequest;
+import com.rhytham.redisapi.pubsub.DeliveryPool;
+import com.rhytham.redisapi.pubsub.PubSubBroker;
+import com.rhytham.redisapi.pubsub.PubSubMessage;
+import com.rhytham.redisapi.pubsub.PushDelivery;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@AllArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/pubsub")
+@Tag(name = "PubSub Controller", description = "Publish/subscribe channels and keyspace notifications")
+public class PubSubController {
+
+    private final PubSubBroker broker;
+    private final DeliveryPool deliveryPool;
+
+    @Operation(summary = "Publish a message", description = "PUBLISH: sends the message to every subscriber of the channel and of each matching pattern, and returns how many received it. Never waits for a subscriber.")
+    @PostMapping("/publish")
+    public ResponseEntity<Map<String, Integer>> publish(@Valid @RequestBody PublishRequest request) {
+        return ResponseEntity.ok(Map.of("receivers", broker.publish(request.getChannel(), request.getMessage())));
+    }
+
+    @Operation(summary = "Subscribe over Server-Sent Events", description = "SUBSCRIBE and PSUBSCRIBE: streams a 'subscribe' or 'psubscribe' event per subscription, then a 'message' or 'pmessage' event per message. Keyspace notifications arrive on __keyspace@0__:<key> and __keyevent@0__:<event>. A client that falls a full buffer behind is dropped or loses its oldest messages, per redisapi.pubsub.overflow.")
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(required = false) List<String> channel,
+                                @RequestParam(required = false) List<String> pattern,
+                                HttpServletRequest request) throws IOException {
+        List<String> channels = channel == null ? List.of() : channel;
+        List<String> patterns = pattern == null ? List.of() : pattern;
+        if (channels.isEmpty() && patterns.isEmpty()) {
+            throw new IllegalArgumentException("At least one channel or pattern is required");
+        }
+        //No timeout: the stream lasts until the client leaves or is dropped for falling behind
+        SseEmitter emitter = new SseEmitter(0L);
+        PushDelivery delivery = deliveryPool.open("sse " + request.getRemoteAddr() + ":" + request.getRemotePort(),
+                new PushDelivery.Sink() {
+                    @Override
+                    public void send(List<PubSubMessage> messages) throws IOException {
+                        for (PubSubMessage message : messages) {
+                            emitter.send(SseEmitter.event()
+                                    .name(message.pattern() == null ? "message" : "pmessage")
+                                    .data(describe(message), MediaType.APPLICATION_JSON));
+                        }
+                    }
+
+                    @Override
+                    public void close() {
+                        emitter.complete();
+                    }
+                });
+        emitter.onCompletion(delivery::close);
+        emitter.onTimeout(delivery::close);
+        emitter.onError(e -> delivery.close());
+        for (String name : channels) {
+            confirm(emitter, "subscribe", name, broker.subscribe(delivery.getSubscriber(), name));
+        }
+        for (String name : patterns) {
+            confirm(emitter, "psubscribe", name, broker.psubscribe(delivery.getSubscriber(), name));
+        }
+        return emitter;
+    }
+
+    private static void confirm(SseEmitter emitter, String kind, String name, int count) throws IOException {
+        emitter.send(SseEmitter.event().name(kind).data(Map.of("channel", name, "count", count), MediaType.APPLICATION_JSON));
+    }
+
+    static Map<String, Object> describe(PubSubMessage message) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        if (message.pattern() != null) {
+            event.put("pattern", message.pattern());
+        }
+        event.put("channel", message.channel());
+        event.put("message", message.text());
+        return event;
+    }
+
+    @Operation(summary = "Active channels", description = "PUBSUB CHANNELS: channels with at least one subscriber, optionally filtered by a glob pattern.")
+    @GetMapping("/channels")
+    public ResponseEntity<List<String>> channels(@RequestParam(required = false) String pattern) {
+        return ResponseEntity.ok(broker.activeChannels(pattern));
+    }
+
+    @Operation(summary = "Subscribers per channel", description = "PUBSUB NUMSUB: channel subscribers of each given channel; pattern subscribers are not counted.")
+    @GetMapping("/numsub")
+    public ResponseEntity<Map<String, Integer>> numsub(@RequestParam(required = false) List<String> channel) {
+        return ResponseEntity.ok(broker.numsub(channel == null ? List.of() : channel));
+    }
+
+    @Operation(summary = "Pattern subscriptions", description = "PUBSUB NUMPAT: number of patterns subscribed to.")
+    @GetMapping("/numpat")
+    public ResponseEntity<Map<String, Integer>> numpat() {
+        return ResponseEntity.ok(Map.of("numpat", broker.numpat()));
+    }
+}
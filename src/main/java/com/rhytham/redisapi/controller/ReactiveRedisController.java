@@ -0,0 +1,147 @@
+package com.rhytham.redisapi.controller;
+
+import com.rhytham.redisapi.dto.CompareAndSetRequest;
+import com.rhytham.redisapi.dto.KeyValueRequest;
+import com.rhytham.redisapi.dto.MultiKeyRequest;
+import com.rhytham.redisapi.dto.MultiSetRequest;
+import com.rhytham.redisapi.service.ReactiveRedisService;
+import com.rhytham.redisapi.service.RedisService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * The string commands of {@link RedisController} on WebFlux, for the reactive profile. Paths and
+ * response bodies are the same, so clients do not need to know which stack they talk to.
+ */
+@AllArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Tag(name = "Redis Controller", description = "CRUD operations for Redis-like key-value store")
+public class ReactiveRedisController {
+
+    private final ReactiveRedisService redisService;
+
+    @Operation(summary = "Set a key with value and optional TTL", description = "Stores a key-value pair in the store. TTL (Time-To-Live) is optional and specified in seconds.")
+    @PostMapping("/set")
+    public Mono<String> setKey(@Valid @RequestBody KeyValueRequest request) {
+        return redisService.set(request.getKey(), request.getValue(), request.getTtl()).thenReturn("Key stored successfully");
+    }
+
+    @Operation(summary = "Get value for a key", description = "Retrieves the value of a key. Throws an error if key is not found or has expired.")
+    @GetMapping("/get/{key}")
+    public Mono<String> getKey(@PathVariable String key) {
+        return redisService.get(key);
+    }
+
+    @Operation(summary = "Get key details with TTL", description = "Retrieves the key, value, and remaining TTL (if any) for a given key.")
+    @GetMapping("/get/details/{key}")
+    public Mono<Map<String, Object>> getKeyWithTTL(@PathVariable String key) {
+        return redisService.getEntry(key);
+    }
+
+    @Operation(summary = "Delete a key", description = "Deletes the specified key from the store, whether expired or not.")
+    @DeleteMapping("/delete/{key}")
+    public Mono<Boolean> deleteKey(@PathVariable String key) {
+        return redisService.delete(key);
+    }
+
+    @Operation(summary = "Check if a key exists", description = "Checks whether the given key exists and is not expired.")
+    @GetMapping("/exists/{key}")
+    public Mono<Boolean> keyExists(@PathVariable String key) {
+        return redisService.exists(key);
+    }
+
+    //A JSON array written element by element; rows are read only as fast as the client takes them
+    @Operation(summary = "List all unexpired keys", description = "Returns a list of all keys with their values and remaining TTLs, excluding expired keys.")
+    @GetMapping("/keys")
+    public Mono<ResponseEntity<?>> listAllKeys() {
+        return redisService.hasKeys().map(any -> any
+                ? ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(redisService.entries(null))
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.TEXT_PLAIN).body("No keys present"));
+    }
+
+    @Operation(summary = "Stream unexpired keys as NDJSON", description = "Writes one JSON object per line (key, value, ttl) while walking the keyspace, so memory use stays flat. Optional glob pattern in match.")
+    @GetMapping(value = "/keys/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Map<String, Object>> streamKeys(@RequestParam(required = false) String match) {
+        return redisService.entries(match);
+    }
+
+    @Operation(summary = "Incrementally iterate keys", description = "Redis SCAN: start with cursor 0 and pass the returned cursor back until it is 0 again. Count is a hint; match filters after the page is read, so a step may return no keys.")
+    @GetMapping("/scan")
+    public Mono<RedisService.ScanResult> scan(@RequestParam(defaultValue = "0") String cursor,
+                                              @RequestParam(required = false) String match,
+                                              @RequestParam(defaultValue = "" + RedisService.DEFAULT_SCAN_COUNT) int count) {
+        return redisService.scan(cursor, match, count);
+    }
+
+    @Operation(summary = "Set TTL for a key", description = "Updates or sets the TTL (in seconds) for an existing key.")
+    @PatchMapping("expire/{key}/{ttl}")
+    public Mono<Boolean> expireKey(@PathVariable String key, @PathVariable long ttl) {
+        return redisService.expire(key, ttl);
+    }
+
+    @Operation(summary = "Get TTL of a key", description = "Returns the remaining time-to-live for the given key in seconds.")
+    @GetMapping("/ttl/{key}")
+    public Mono<String> getKeyTTL(@PathVariable String key) {
+        return redisService.getTTL(key);
+    }
+
+    @Operation(summary = "Increment a counter", description = "INCRBY: atomically adds the increment to an integer value, starting from 0 for a missing key, and returns the new value. The key keeps its TTL.")
+    @PatchMapping("/incr/{key}/{increment}")
+    public Mono<Long> incrBy(@PathVariable String key, @PathVariable long increment) {
+        return redisService.incrBy(key, increment);
+    }
+
+    @Operation(summary = "Decrement a counter", description = "DECRBY: atomically subtracts the decrement from an integer value and returns the new value.")
+    @PatchMapping("/decr/{key}/{decrement}")
+    public Mono<Long> decrBy(@PathVariable String key, @PathVariable long decrement) {
+        return redisService.decrBy(key, decrement);
+    }
+
+    @Operation(summary = "Set a key if it does not exist", description = "SETNX: stores the pair only if the key is missing or expired. Returns whether it was stored.")
+    @PostMapping("/setnx")
+    public Mono<Boolean> setIfAbsent(@Valid @RequestBody KeyValueRequest request) {
+        return redisService.setnx(request.getKey(), request.getValue(), request.getTtl());
+    }
+
+    @Operation(summary = "Compare and set", description = "Replaces the value only if the key currently holds the expected value, keeping its TTL. Returns whether it was replaced.")
+    @PostMapping("/cas")
+    public Mono<Boolean> compareAndSet(@Valid @RequestBody CompareAndSetRequest request) {
+        return redisService.compareAndSet(request.getKey(), request.getExpected(), request.getValue());
+    }
+
+    @Operation(summary = "Set several keys", description = "Stores all key-value pairs with a single batch write. Each entry may carry its own TTL in seconds.")
+    @PostMapping("/mset")
+    public Mono<String> setKeys(@Valid @RequestBody MultiSetRequest request) {
+        return redisService.mset(request.getEntries()).thenReturn(request.getEntries().size() + " keys stored successfully");
+    }
+
+    @Operation(summary = "Get several keys", description = "Returns the values of all given keys in request order, with null for keys that are missing or expired.")
+    @PostMapping("/mget")
+    public Mono<Map<String, String>> getKeys(@Valid @RequestBody MultiKeyRequest request) {
+        return redisService.mget(request.getKeys());
+    }
+
+    @Operation(summary = "Delete several keys", description = "Deletes all given keys in one batch and returns how many of them existed.")
+    @PostMapping("/mdel")
+    public Mono<Integer> deleteKeys(@Valid @RequestBody MultiKeyRequest request) {
+        return redisService.mdel(request.getKeys());
+    }
+
+    @Operation(summary = "Delete all keys", description = "Flushes the entire key-value store, removing all keys.")
+    @DeleteMapping("/flushall")
+    public Mono<String> flushAllKeys() {
+        return redisService.flushAll().thenReturn("All keys have been permanently deleted");
+    }
+}
@@ -1,25 +1,47 @@
 package com.rhytham.redisapi.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhytham.redisapi.cluster.ClusterBatchExecutor;
+import com.rhytham.redisapi.cluster.ClusterInterceptor;
+import com.rhytham.redisapi.cluster.HttpNodeClient;
+import com.rhytham.redisapi.dto.CompareAndSetRequest;
 import com.rhytham.redisapi.dto.KeyValueRequest;
+import com.rhytham.redisapi.dto.MultiKeyRequest;
+import com.rhytham.redisapi.dto.MultiSetRequest;
+import com.rhytham.redisapi.dto.PipelineRequest;
+import com.rhytham.redisapi.dto.PipelineResult;
 import com.rhytham.redisapi.exception.KeyNotFoundException;
 import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.service.PipelineService;
 import com.rhytham.redisapi.service.RedisService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @AllArgsConstructor
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Tag(name = "Redis Controller", description = "CRUD operations for Redis-like key-value store")
 public class RedisController {
 
     private final RedisService redisService;
+    private final PipelineService pipelineService;
+    private final ObjectMapper objectMapper;
+    //Present in cluster mode, where batches are split by the node serving each key
+    private final ObjectProvider<ClusterBatchExecutor> cluster;
 
     @Operation(summary = "Set a key with value and optional TTL", description = "Stores a key-value pair in the store. TTL (Time-To-Live) is optional and specified in seconds.")
     @PostMapping("/set")
@@ -35,6 +57,30 @@ public class RedisController {
         return value;
     }
 
+    @Operation(summary = "Set a key to a binary value", description = "Stores the request body as given, without Base64 or a JSON wrapper, so any bytes round-trip. TTL in seconds is optional.")
+    @PutMapping(value = "/binary/{key}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<String> setBinary(@PathVariable String key, @RequestBody byte[] value,
+                                            @RequestParam(required = false) Long ttl) {
+        redisService.set(key, value, ttl, TimeUnit.SECONDS);
+        return ResponseEntity.ok("Key stored successfully");
+    }
+
+    @Operation(summary = "Get the bytes of a key", description = "Returns the value exactly as stored, as application/octet-stream.")
+    @GetMapping(value = "/binary/{key}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] getBinary(@PathVariable String key) {
+        return redisService.getBytes(key);
+    }
+
+    @Operation(summary = "Memory used by a key", description = "MEMORY USAGE: estimated bytes the key and its value take in the store.")
+    @GetMapping("/memory/usage/{key}")
+    public ResponseEntity<Long> memoryUsage(@PathVariable String key) {
+        Long usage = redisService.memoryUsage(key);
+        if (usage == null) {
+            throw new KeyNotFoundException("Key " + key + " not found or has expired.");
+        }
+        return ResponseEntity.ok(usage);
+    }
+
     //GET key with TTL info
     @Operation(summary = "Get key details with TTL", description = "Retrieves the key, value, and remaining TTL (if any) for a given key.")
     @GetMapping("/get/details/{key}")
@@ -60,13 +106,47 @@ public class RedisController {
     //Return a list of all entries with TTL
     @Operation(summary = "List all unexpired keys", description = "Returns a list of all keys with their values and remaining TTLs, excluding expired keys.")
     @GetMapping("/keys")
-    public ResponseEntity<?> listAllKeys() {
-        List<Map<String, Object>> listOfKeys = redisService.getAllEntries();
-        if (listOfKeys.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No keys present");
-        } else {
-            return ResponseEntity.ok(listOfKeys);
+    public ResponseEntity<StreamingResponseBody> listAllKeys() {
+        //Same JSON array as before, but written page by page while the keyspace is walked
+        Iterator<Map<String, Object>> entries = redisService.entries(null);
+        if (!entries.hasNext()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write("No keys present".getBytes(StandardCharsets.UTF_8)));
         }
+        StreamingResponseBody body = out -> {
+            out.write('[');
+            boolean first = true;
+            while (entries.hasNext()) {
+                if (!first) {
+                    out.write(',');
+                }
+                out.write(objectMapper.writeValueAsBytes(entries.next()));
+                first = false;
+            }
+            out.write(']');
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @Operation(summary = "Stream unexpired keys as NDJSON", description = "Writes one JSON object per line (key, value, ttl) while walking the keyspace, so memory use stays flat. Optional glob pattern in match.")
+    @GetMapping("/keys/stream")
+    public ResponseEntity<StreamingResponseBody> streamKeys(@RequestParam(required = false) String match) {
+        Iterator<Map<String, Object>> entries = redisService.entries(match);
+        StreamingResponseBody body = out -> {
+            while (entries.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(entries.next()));
+                out.write('\n');
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(summary = "Incrementally iterate keys", description = "Redis SCAN: start with cursor 0 and pass the returned cursor back until it is 0 again. Count is a hint; match filters after the page is read, so a step may return no keys.")
+    @GetMapping("/scan")
+    public ResponseEntity<RedisService.ScanResult> scan(@RequestParam(defaultValue = "0") String cursor,
+                                                       @RequestParam(required = false) String match,
+                                                       @RequestParam(defaultValue = "" + RedisService.DEFAULT_SCAN_COUNT) int count) {
+        return ResponseEntity.ok(redisService.scan(cursor, match, count));
     }
 
     @Operation(summary = "Set TTL for a key", description = "Updates or sets the TTL (in seconds) for an existing key.")
@@ -83,6 +163,78 @@ public class RedisController {
        return ResponseEntity.ok(result);
     }
 
+    @Operation(summary = "Increment a counter", description = "INCRBY: atomically adds the increment to an integer value, starting from 0 for a missing key, and returns the new value. The key keeps its TTL.")
+    @PatchMapping("/incr/{key}/{increment}")
+    public ResponseEntity<Long> incrBy(@PathVariable String key, @PathVariable long increment) {
+        return ResponseEntity.ok(redisService.incrBy(key, increment));
+    }
+
+    @Operation(summary = "Decrement a counter", description = "DECRBY: atomically subtracts the decrement from an integer value and returns the new value.")
+    @PatchMapping("/decr/{key}/{decrement}")
+    public ResponseEntity<Long> decrBy(@PathVariable String key, @PathVariable long decrement) {
+        return ResponseEntity.ok(redisService.decrBy(key, decrement));
+    }
+
+    @Operation(summary = "Increment by a float", description = "INCRBYFLOAT: atomically adds a floating point increment and returns the new value as a string.")
+    @PatchMapping("/incrbyfloat/{key}/{increment}")
+    public ResponseEntity<String> incrByFloat(@PathVariable String key, @PathVariable double increment) {
+        return ResponseEntity.ok(redisService.incrByFloat(key, increment));
+    }
+
+    @Operation(summary = "Set a key if it does not exist", description = "SETNX: stores the pair only if the key is missing or expired. Returns whether it was stored.")
+    @PostMapping("/setnx")
+    public ResponseEntity<Boolean> setIfAbsent(@Valid @RequestBody KeyValueRequest request) {
+        return ResponseEntity.ok(redisService.setnx(request.getKey(), request.getValue(), request.getTtl()));
+    }
+
+    @Operation(summary = "Set a key and return its old value", description = "GETSET: stores the pair, with the given TTL or none, and returns the previous value; empty when the key did not exist.")
+    @PostMapping("/getset")
+    public ResponseEntity<String> getSet(@Valid @RequestBody KeyValueRequest request) {
+        return ResponseEntity.ok(redisService.getSet(request.getKey(), request.getValue(), request.getTtl()));
+    }
+
+    @Operation(summary = "Compare and set", description = "Replaces the value only if the key currently holds the expected value, keeping its TTL. Returns whether it was replaced.")
+    @PostMapping("/cas")
+    public ResponseEntity<Boolean> compareAndSet(@Valid @RequestBody CompareAndSetRequest request) {
+        return ResponseEntity.ok(redisService.compareAndSet(request.getKey(), request.getExpected(), request.getValue()));
+    }
+
+    @Operation(summary = "Set several keys", description = "Stores all key-value pairs with a single batch write. Each entry may carry its own TTL in seconds.")
+    @PostMapping("/mset")
+    public ResponseEntity<String> setKeys(@Valid @RequestBody MultiSetRequest request, HttpServletRequest http) {
+        ClusterBatchExecutor executor = cluster.getIfAvailable();
+        if (executor != null) {
+            executor.mset(request.getEntries(), ClusterInterceptor.asking(http), forwarded(http));
+        } else {
+            redisService.mset(request.getEntries());
+        }
+        return ResponseEntity.ok(request.getEntries().size() + " keys stored successfully");
+    }
+
+    @Operation(summary = "Get several keys", description = "Returns the values of all given keys in request order, with null for keys that are missing or expired.")
+    @PostMapping("/mget")
+    public ResponseEntity<Map<String, String>> getKeys(@Valid @RequestBody MultiKeyRequest request, HttpServletRequest http) {
+        ClusterBatchExecutor executor = cluster.getIfAvailable();
+        return ResponseEntity.ok(executor != null ? executor.mget(request.getKeys(), ClusterInterceptor.asking(http), forwarded(http))
+                : redisService.mget(request.getKeys()));
+    }
+
+    @Operation(summary = "Delete several keys", description = "Deletes all given keys in one batch and returns how many of them existed.")
+    @PostMapping("/mdel")
+    public ResponseEntity<Integer> deleteKeys(@Valid @RequestBody MultiKeyRequest request, HttpServletRequest http) {
+        ClusterBatchExecutor executor = cluster.getIfAvailable();
+        return ResponseEntity.ok(executor != null ? executor.mdel(request.getKeys(), ClusterInterceptor.asking(http), forwarded(http))
+                : redisService.mdel(request.getKeys()));
+    }
+
+    @Operation(summary = "Run a pipelined command batch", description = "Executes an ordered list of commands (GET, SET, DEL, EXISTS, EXPIRE, TTL, MGET, MSET, FLUSHALL) and returns their results in the same order. The batch reads all keys it touches once and writes all changes back in one batch.")
+    @PostMapping("/pipeline")
+    public ResponseEntity<List<PipelineResult>> pipeline(@Valid @RequestBody PipelineRequest request, HttpServletRequest http) {
+        ClusterBatchExecutor executor = cluster.getIfAvailable();
+        return ResponseEntity.ok(executor != null ? executor.pipeline(request.getCommands(), ClusterInterceptor.asking(http), forwarded(http))
+                : pipelineService.execute(request.getCommands()));
+    }
+
     @Operation(summary = "Delete all keys", description = "Flushes the entire key-value store, removing all keys.")
     @DeleteMapping("/flushall")
     public ResponseEntity<String> flushAllKeys(){
@@ -90,6 +242,10 @@ public class RedisController {
         return ResponseEntity.ok("All keys have been permanently deleted");
     }
 
+    private static boolean forwarded(HttpServletRequest http) {
+        return http.getHeader(HttpNodeClient.FORWARDED_HEADER) != null;
+    }
+
     }
 
 
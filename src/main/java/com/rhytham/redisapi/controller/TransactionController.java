@@ -0,0 +1,121 @@
+package com.rhytham.redisapi.controller;
+
+import com.rhytham.redisapi.dto.EvalRequest;
+import com.rhytham.redisapi.dto.PipelineCommand;
+import com.rhytham.redisapi.dto.PipelineResult;
+import com.rhytham.redisapi.dto.TransactionRequest;
+import com.rhytham.redisapi.resp.RespCommandHandler;
+import com.rhytham.redisapi.resp.ScriptEngine;
+import com.rhytham.redisapi.service.RedisService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MULTI/EXEC and Lua scripting over HTTP, run by the RESP command handler so both APIs share one
+ * implementation. HTTP has no connection to hold a WATCH, so it is optimistic and stateless: read a
+ * key's version, read the key, then send the version with the transaction, which is aborted with 409
+ * if the key changed in between.
+ */
+@AllArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Tag(name = "Transaction Controller", description = "MULTI/EXEC transactions with WATCH, and Lua scripts")
+public class TransactionController {
+
+    private final RespCommandHandler handler;
+    private final RedisService redisService;
+
+    @Operation(summary = "Run commands as a transaction", description = "MULTI/EXEC: runs any RESP command as one step that no other command interleaves with, and returns their results in order. A failing command does not undo the others, as in Redis. Returns 409 without running anything if a watched key changed since its version was read.")
+    @PostMapping("/transaction")
+    public ResponseEntity<List<PipelineResult>> transaction(@Valid @RequestBody TransactionRequest request) {
+        List<List<byte[]>> commands = new ArrayList<>(request.getCommands().size());
+        for (PipelineCommand command : request.getCommands()) {
+            commands.add(command(command.getCommand(), command.getArgs()));
+        }
+        List<PipelineResult> results = handler.transaction(request.getWatch(), commands);
+        return results == null ? ResponseEntity.status(HttpStatus.CONFLICT).build() : ResponseEntity.ok(results);
+    }
+
+    @Operation(summary = "Version of a key for WATCH", description = "Changes whenever the key is written, deleted or expires. Send it in a transaction's watch map to abort the transaction if the key changed.")
+    @GetMapping("/watch/{key}")
+    public ResponseEntity<Map<String, Object>> version(@PathVariable String key) {
+        Map<String, Object> version = new LinkedHashMap<>();
+        version.put("key", key);
+        version.put("version", redisService.version(key));
+        return ResponseEntity.ok(version);
+    }
+
+    @Operation(summary = "Run a Lua script", description = "EVAL or EVALSHA: runs the script with KEYS and ARGV as one step, and returns what it returns, converted as Redis does. The script may only touch the keys it is given. Errors raised by the script or a redis.call are returned as 400.")
+    @PostMapping("/eval")
+    public ResponseEntity<PipelineResult> eval(@RequestBody EvalRequest request) {
+        List<String> args = new ArrayList<>();
+        if (request.getScript() != null) {
+            args.add(request.getScript());
+        } else if (request.getSha() != null) {
+            args.add(request.getSha());
+        } else {
+            throw new IllegalArgumentException("Either script or sha is required");
+        }
+        args.add(String.valueOf(request.getKeys().size()));
+        args.addAll(request.getKeys());
+        args.addAll(request.getArgs());
+        PipelineResult result = handler.call(List.of(command(request.getScript() != null ? "EVAL" : "EVALSHA", args))).get(0);
+        if (result.getError() != null) {
+            throw new IllegalArgumentException(result.getError());
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Load a Lua script", description = "SCRIPT LOAD: compiles and caches the script without running it, and returns the SHA1 to run it by with /eval.")
+    @PostMapping("/script/load")
+    public ResponseEntity<Map<String, String>> load(@RequestBody String script) {
+        return ResponseEntity.ok(Map.of("sha", scripts().load(script.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Operation(summary = "Check for loaded scripts", description = "SCRIPT EXISTS: whether each SHA1 is in the script cache.")
+    @GetMapping("/script/exists")
+    public ResponseEntity<Map<String, Boolean>> exists(@RequestParam List<String> sha) {
+        Map<String, Boolean> exists = new LinkedHashMap<>();
+        for (String each : sha) {
+            exists.put(each, scripts().exists(each));
+        }
+        return ResponseEntity.ok(exists);
+    }
+
+    @Operation(summary = "Empty the script cache", description = "SCRIPT FLUSH: drops every loaded script.")
+    @PostMapping("/script/flush")
+    public ResponseEntity<String> flush() {
+        scripts().flush();
+        return ResponseEntity.ok("Script cache flushed");
+    }
+
+    private ScriptEngine scripts() {
+        return handler.getScripts();
+    }
+
+    private static List<byte[]> command(String name, List<String> args) {
+        List<byte[]> command = new ArrayList<>(args.size() + 1);
+        command.add(name.getBytes(StandardCharsets.UTF_8));
+        for (String arg : args) {
+            command.add(arg.getBytes(StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+}
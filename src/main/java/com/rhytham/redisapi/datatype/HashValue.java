@@ -0,0 +1,157 @@
+package com.rhytham.redisapi.datatype;
+
+import com.rhytham.redisapi.model.ValueType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Redis hash. Small hashes are a listpack: one flat array of alternating fields and values that
+ * is scanned linearly, costing two references per pair instead of a map node. Past
+ * {@link #MAX_LISTPACK_ENTRIES} pairs, or once a field or value is longer than
+ * {@link #MAX_LISTPACK_VALUE} characters, the hash converts to a HashMap with O(1) field access.
+ */
+public class HashValue implements TypedValue {
+
+    //Redis defaults of hash-max-listpack-entries and hash-max-listpack-value
+    public static final int MAX_LISTPACK_ENTRIES = 128;
+    public static final int MAX_LISTPACK_VALUE = 64;
+
+    private String[] pack = new String[8];
+    private int packed;
+    private HashMap<String, String> table;
+
+    private long chars;
+
+    @Override
+    public ValueType type() {
+        return ValueType.HASH;
+    }
+
+    @Override
+    public synchronized String encoding() {
+        return table == null ? "listpack" : "hashtable";
+    }
+
+    @Override
+    public synchronized int size() {
+        return table == null ? packed : table.size();
+    }
+
+    public synchronized String get(String field) {
+        if (table != null) {
+            return table.get(field);
+        }
+        int index = indexOf(field);
+        return index < 0 ? null : pack[index + 1];
+    }
+
+    /**
+     * Sets a field and returns true if it did not exist before.
+     */
+    public synchronized boolean put(String field, String value) {
+        if (table == null && (field.length() > MAX_LISTPACK_VALUE || value.length() > MAX_LISTPACK_VALUE
+                || packed == MAX_LISTPACK_ENTRIES && indexOf(field) < 0)) {
+            convert();
+        }
+        if (table != null) {
+            String previous = table.put(field, value);
+            chars += previous == null ? field.length() + value.length() : value.length() - previous.length();
+            return previous == null;
+        }
+        int index = indexOf(field);
+        if (index >= 0) {
+            chars += value.length() - pack[index + 1].length();
+            pack[index + 1] = value;
+            return false;
+        }
+        if (packed * 2 == pack.length) {
+            pack = Arrays.copyOf(pack, pack.length * 2);
+        }
+        pack[packed * 2] = field;
+        pack[packed * 2 + 1] = value;
+        packed++;
+        chars += field.length() + value.length();
+        return true;
+    }
+
+    public synchronized boolean remove(String field) {
+        if (table != null) {
+            String previous = table.remove(field);
+            if (previous != null) {
+                chars -= field.length() + previous.length();
+            }
+            return previous != null;
+        }
+        int index = indexOf(field);
+        if (index < 0) {
+            return false;
+        }
+        chars -= field.length() + pack[index + 1].length();
+        System.arraycopy(pack, index + 2, pack, index, packed * 2 - index - 2);
+        packed--;
+        pack[packed * 2] = null;
+        pack[packed * 2 + 1] = null;
+        return true;
+    }
+
+    /**
+     * Adds {@code delta} to an integer field, treating a missing field as 0, and returns the new value.
+     */
+    public synchronized long incrBy(String field, long delta) {
+        String current = get(field);
+        long value;
+        try {
+            value = current == null ? 0 : Long.parseLong(current);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("hash value is not an integer");
+        }
+        try {
+            value = Math.addExact(value, delta);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("increment or decrement would overflow");
+        }
+        put(field, Long.toString(value));
+        return value;
+    }
+
+    @Override
+    public synchronized Map<String, String> contents() {
+        if (table != null) {
+            return new LinkedHashMap<>(table);
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < packed * 2; i += 2) {
+            fields.put(pack[i], pack[i + 1]);
+        }
+        return fields;
+    }
+
+    @Override
+    public synchronized long estimatedBytes() {
+        //Two Strings per pair, plus two array slots or one map node
+        int pairs = size();
+        long perPair = table == null ? 8 : 48;
+        return 32 + pairs * (80 + perPair) + 2 * chars;
+    }
+
+    private int indexOf(String field) {
+        for (int i = 0; i < packed * 2; i += 2) {
+            if (pack[i].equals(field)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void convert() {
+        table = new HashMap<>(packed * 4);
+        for (int i = 0; i < packed * 2; i += 2) {
+            table.put(pack[i], pack[i + 1]);
+        }
+        pack = null;
+        packed = 0;
+    }
+}
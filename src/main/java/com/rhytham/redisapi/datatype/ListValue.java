@@ -0,0 +1,118 @@
+package com.rhytham.redisapi.datatype;
+
+import com.rhytham.redisapi.model.ValueType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis list as a growable ring buffer: O(1) push and pop at both ends and O(1) access by index.
+ * A ring buffer is already as compact as a listpack, so unlike the other types a list never
+ * changes encoding; OBJECT ENCODING reports Redis's name for general lists.
+ */
+public class ListValue implements TypedValue {
+
+    private String[] items = new String[8];
+    private int head;
+    private int size;
+
+    private long chars;
+
+    @Override
+    public ValueType type() {
+        return ValueType.LIST;
+    }
+
+    @Override
+    public String encoding() {
+        return "quicklist";
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void pushFirst(String item) {
+        grow();
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+        chars += item.length();
+    }
+
+    public synchronized void pushLast(String item) {
+        grow();
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+        chars += item.length();
+    }
+
+    public synchronized String popFirst() {
+        if (size == 0) {
+            return null;
+        }
+        String item = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size--;
+        chars -= item.length();
+        return item;
+    }
+
+    public synchronized String popLast() {
+        if (size == 0) {
+            return null;
+        }
+        int tail = (head + size - 1) & (items.length - 1);
+        String item = items[tail];
+        items[tail] = null;
+        size--;
+        chars -= item.length();
+        return item;
+    }
+
+    /**
+     * Items from {@code start} to {@code stop} inclusive; negative indexes count from the tail, like LRANGE.
+     */
+    public synchronized List<String> range(long start, long stop) {
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (stop < 0) {
+            stop = size + stop;
+        }
+        stop = Math.min(stop, size - 1);
+        if (start > stop) {
+            return List.of();
+        }
+        List<String> range = new ArrayList<>((int) (stop - start + 1));
+        for (long i = start; i <= stop; i++) {
+            range.add(items[(head + (int) i) & (items.length - 1)]);
+        }
+        return range;
+    }
+
+    @Override
+    public synchronized List<String> contents() {
+        return range(0, -1);
+    }
+
+    @Override
+    public synchronized long estimatedBytes() {
+        return 32 + 4L * items.length + size * 40L + 2 * chars;
+    }
+
+    //Capacity stays a power of two so wrapping is a mask
+    private void grow() {
+        if (size < items.length) {
+            return;
+        }
+        String[] grown = new String[items.length * 2];
+        for (int i = 0; i < size; i++) {
+            grown[i] = items[(head + i) & (items.length - 1)];
+        }
+        items = grown;
+        head = 0;
+    }
+}
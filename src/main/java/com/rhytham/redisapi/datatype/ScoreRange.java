@@ -0,0 +1,54 @@
+package com.rhytham.redisapi.datatype;
+
+import java.util.Locale;
+
+/**
+ * Score interval of ZRANGEBYSCORE. Bounds are inclusive unless written with a leading {@code (},
+ * and {@code -inf} / {@code +inf} are open ends.
+ */
+public record ScoreRange(double min, boolean minExclusive, double max, boolean maxExclusive) {
+
+    public static ScoreRange parse(String min, String max) {
+        boolean minExclusive = min.startsWith("(");
+        boolean maxExclusive = max.startsWith("(");
+        try {
+            return new ScoreRange(parseScore(minExclusive ? min.substring(1) : min), minExclusive,
+                    parseScore(maxExclusive ? max.substring(1) : max), maxExclusive);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("min or max is not a float");
+        }
+    }
+
+    /**
+     * Parses a score the way ZADD does: any finite double or {@code inf}, {@code +inf}, {@code -inf}.
+     */
+    public static double parseScore(String text) {
+        switch (text.toLowerCase(Locale.ROOT)) {
+            case "inf", "+inf" -> {
+                return Double.POSITIVE_INFINITY;
+            }
+            case "-inf" -> {
+                return Double.NEGATIVE_INFINITY;
+            }
+            default -> {
+                try {
+                    double score = Double.parseDouble(text);
+                    //parseDouble also takes "NaN", "Infinity" and suffixes like "1d", which Redis rejects
+                    if (Double.isFinite(score) && !Character.isLetter(text.charAt(text.length() - 1))) {
+                        return score;
+                    }
+                } catch (NumberFormatException ignored) {
+                }
+                throw new IllegalArgumentException("value is not a valid float");
+            }
+        }
+    }
+
+    public boolean aboveMin(double score) {
+        return minExclusive ? score > min : score >= min;
+    }
+
+    public boolean belowMax(double score) {
+        return maxExclusive ? score < max : score <= max;
+    }
+}
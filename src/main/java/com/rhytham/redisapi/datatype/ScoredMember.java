@@ -0,0 +1,13 @@
+package com.rhytham.redisapi.datatype;
+
+import java.util.Comparator;
+
+/**
+ * One sorted-set member with its score.
+ */
+public record ScoredMember(String member, double score) {
+
+    //Sorted-set order: by score, ties broken by member
+    public static final Comparator<ScoredMember> ORDER =
+            Comparator.comparingDouble(ScoredMember::score).thenComparing(ScoredMember::member);
+}
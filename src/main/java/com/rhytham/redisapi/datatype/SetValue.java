@@ -0,0 +1,219 @@
+package com.rhytham.redisapi.datatype;
+
+import com.rhytham.redisapi.model.ValueType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Redis set with three encodings:
+ * <ul>
+ *     <li>intset - members that are all canonical integers, as a sorted {@code long[]} searched in O(log n)</li>
+ *     <li>listpack - small sets of short strings, as a flat array scanned linearly</li>
+ *     <li>hashtable - a HashSet, once the set outgrows the compact encodings</li>
+ * </ul>
+ */
+public class SetValue implements TypedValue {
+
+    //Redis defaults of set-max-intset-entries, set-max-listpack-entries and set-max-listpack-value
+    public static final int MAX_INTSET_ENTRIES = 512;
+    public static final int MAX_LISTPACK_ENTRIES = 128;
+    public static final int MAX_LISTPACK_VALUE = 64;
+
+    private enum Encoding { INTSET, LISTPACK, HASHTABLE }
+
+    private Encoding encoding = Encoding.INTSET;
+    private long[] ints = new long[4];
+    private String[] pack;
+    private int count;
+    private HashSet<String> table;
+
+    private long chars;
+
+    @Override
+    public ValueType type() {
+        return ValueType.SET;
+    }
+
+    @Override
+    public synchronized String encoding() {
+        return encoding.name().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public synchronized int size() {
+        return encoding == Encoding.HASHTABLE ? table.size() : count;
+    }
+
+    public synchronized boolean contains(String member) {
+        return switch (encoding) {
+            case INTSET -> {
+                Long value = integer(member);
+                yield value != null && Arrays.binarySearch(ints, 0, count, value) >= 0;
+            }
+            case LISTPACK -> indexOf(member) >= 0;
+            case HASHTABLE -> table.contains(member);
+        };
+    }
+
+    /**
+     * Adds a member and returns true if it was not present.
+     */
+    public synchronized boolean add(String member) {
+        switch (encoding) {
+            case INTSET -> {
+                Long value = integer(member);
+                if (value != null) {
+                    int position = Arrays.binarySearch(ints, 0, count, value);
+                    if (position >= 0) {
+                        return false;
+                    }
+                    if (count < MAX_INTSET_ENTRIES) {
+                        insertInt(-position - 1, value);
+                        chars += member.length();
+                        return true;
+                    }
+                }
+                convert(value == null && count < MAX_LISTPACK_ENTRIES && member.length() <= MAX_LISTPACK_VALUE
+                        ? Encoding.LISTPACK : Encoding.HASHTABLE);
+                return add(member);
+            }
+            case LISTPACK -> {
+                if (indexOf(member) >= 0) {
+                    return false;
+                }
+                if (count == MAX_LISTPACK_ENTRIES || member.length() > MAX_LISTPACK_VALUE) {
+                    convert(Encoding.HASHTABLE);
+                    return add(member);
+                }
+                if (count == pack.length) {
+                    pack = Arrays.copyOf(pack, pack.length * 2);
+                }
+                pack[count++] = member;
+                chars += member.length();
+                return true;
+            }
+            default -> {
+                if (table.add(member)) {
+                    chars += member.length();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    public synchronized boolean remove(String member) {
+        switch (encoding) {
+            case INTSET -> {
+                Long value = integer(member);
+                int position = value == null ? -1 : Arrays.binarySearch(ints, 0, count, value);
+                if (position < 0) {
+                    return false;
+                }
+                System.arraycopy(ints, position + 1, ints, position, count - position - 1);
+                count--;
+            }
+            case LISTPACK -> {
+                int index = indexOf(member);
+                if (index < 0) {
+                    return false;
+                }
+                //Order does not matter in a set, so the last member fills the gap
+                pack[index] = pack[--count];
+                pack[count] = null;
+            }
+            default -> {
+                if (!table.remove(member)) {
+                    return false;
+                }
+            }
+        }
+        chars -= member.length();
+        return true;
+    }
+
+    public synchronized List<String> members() {
+        List<String> members = new ArrayList<>(size());
+        switch (encoding) {
+            case INTSET -> {
+                for (int i = 0; i < count; i++) {
+                    members.add(Long.toString(ints[i]));
+                }
+            }
+            case LISTPACK -> members.addAll(Arrays.asList(pack).subList(0, count));
+            default -> members.addAll(table);
+        }
+        return members;
+    }
+
+    @Override
+    public synchronized List<String> contents() {
+        return members();
+    }
+
+    @Override
+    public synchronized long estimatedBytes() {
+        return switch (encoding) {
+            case INTSET -> 32 + 8L * ints.length;
+            case LISTPACK -> 32 + 4L * pack.length + count * 40L + 2 * chars;
+            case HASHTABLE -> 48 + table.size() * 88L + 2 * chars;
+        };
+    }
+
+    private void insertInt(int position, long value) {
+        if (count == ints.length) {
+            ints = Arrays.copyOf(ints, ints.length * 2);
+        }
+        System.arraycopy(ints, position, ints, position + 1, count - position);
+        ints[position] = value;
+        count++;
+    }
+
+    private int indexOf(String member) {
+        for (int i = 0; i < count; i++) {
+            if (pack[i].equals(member)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void convert(Encoding target) {
+        List<String> members = members();
+        if (target == Encoding.LISTPACK) {
+            pack = members.toArray(new String[Math.max(8, Integer.highestOneBit(members.size()) << 1)]);
+        } else {
+            table = new HashSet<>(members);
+            pack = null;
+        }
+        ints = null;
+        encoding = target;
+    }
+
+    /**
+     * The value of a canonical decimal integer, null for anything else. Only the canonical form counts, so
+     * "007" or "+7" stay strings and members round-trip unchanged through the intset.
+     */
+    public static Long integer(String member) {
+        int length = member.length();
+        if (length == 0 || length > 20) {
+            return null;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = member.charAt(i);
+            if ((c < '0' || c > '9') && !(i == 0 && c == '-' && length > 1)) {
+                return null;
+            }
+        }
+        try {
+            long value = Long.parseLong(member);
+            return Long.toString(value).equals(member) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.rhytham.redisapi.datatype;
+
+import com.rhytham.redisapi.model.ValueType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Redis sorted set. Small sets are a listpack: parallel member and score arrays kept in score
+ * order and scanned linearly. Past {@link #MAX_LISTPACK_ENTRIES} members, or once a member is
+ * longer than {@link #MAX_LISTPACK_VALUE} characters, the set converts to Redis's pairing of a
+ * member-to-score map for O(1) ZSCORE with an ordered index for O(log n) updates and range seeks.
+ * The index is a TreeSet, which has the same bounds as Redis's skiplist for the commands served
+ * here; OBJECT ENCODING reports Redis's name for it.
+ */
+public class SortedSetValue implements TypedValue {
+
+    //Redis defaults of zset-max-listpack-entries and zset-max-listpack-value
+    public static final int MAX_LISTPACK_ENTRIES = 128;
+    public static final int MAX_LISTPACK_VALUE = 64;
+
+    private String[] members = new String[8];
+    private double[] scores = new double[8];
+    private int packed;
+
+    private HashMap<String, Double> dict;
+    private TreeSet<ScoredMember> index;
+
+    private long chars;
+
+    @Override
+    public ValueType type() {
+        return ValueType.ZSET;
+    }
+
+    @Override
+    public synchronized String encoding() {
+        return dict == null ? "listpack" : "skiplist";
+    }
+
+    @Override
+    public synchronized int size() {
+        return dict == null ? packed : dict.size();
+    }
+
+    public synchronized Double score(String member) {
+        if (dict != null) {
+            return dict.get(member);
+        }
+        int position = indexOf(member);
+        return position < 0 ? null : scores[position];
+    }
+
+    /**
+     * Adds a member or updates its score; returns true if the member is new.
+     */
+    public synchronized boolean add(String member, double score) {
+        if (dict == null && (member.length() > MAX_LISTPACK_VALUE
+                || packed == MAX_LISTPACK_ENTRIES && indexOf(member) < 0)) {
+            convert();
+        }
+        if (dict != null) {
+            Double previous = dict.put(member, score);
+            if (previous != null) {
+                index.remove(new ScoredMember(member, previous));
+            } else {
+                chars += member.length();
+            }
+            index.add(new ScoredMember(member, score));
+            return previous == null;
+        }
+        boolean added = removePacked(member) < 0;
+        if (added) {
+            chars += member.length();
+        }
+        if (packed == members.length) {
+            members = Arrays.copyOf(members, packed * 2);
+            scores = Arrays.copyOf(scores, packed * 2);
+        }
+        int position = 0;
+        while (position < packed && compare(scores[position], members[position], score, member) < 0) {
+            position++;
+        }
+        System.arraycopy(members, position, members, position + 1, packed - position);
+        System.arraycopy(scores, position, scores, position + 1, packed - position);
+        members[position] = member;
+        scores[position] = score;
+        packed++;
+        return added;
+    }
+
+    public synchronized boolean remove(String member) {
+        boolean removed;
+        if (dict != null) {
+            Double previous = dict.remove(member);
+            removed = previous != null && index.remove(new ScoredMember(member, previous));
+        } else {
+            removed = removePacked(member) >= 0;
+        }
+        if (removed) {
+            chars -= member.length();
+        }
+        return removed;
+    }
+
+    /**
+     * Members whose score lies in the range, in sorted-set order.
+     */
+    public synchronized List<ScoredMember> rangeByScore(ScoreRange range) {
+        List<ScoredMember> found = new ArrayList<>();
+        if (dict != null) {
+            //"" sorts before every member, so the seek lands on the first member with the minimum score
+            for (ScoredMember entry : index.tailSet(new ScoredMember("", range.min()), true)) {
+                if (!range.belowMax(entry.score())) {
+                    break;
+                }
+                if (range.aboveMin(entry.score())) {
+                    found.add(entry);
+                }
+            }
+            return found;
+        }
+        for (int i = 0; i < packed && range.belowMax(scores[i]); i++) {
+            if (range.aboveMin(scores[i])) {
+                found.add(new ScoredMember(members[i], scores[i]));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized Map<String, Double> contents() {
+        Map<String, Double> contents = new LinkedHashMap<>();
+        if (dict != null) {
+            index.forEach(entry -> contents.put(entry.member(), entry.score()));
+        } else {
+            for (int i = 0; i < packed; i++) {
+                contents.put(members[i], scores[i]);
+            }
+        }
+        return contents;
+    }
+
+    @Override
+    public synchronized long estimatedBytes() {
+        if (dict == null) {
+            return 48 + 12L * members.length + packed * 40L + 2 * chars;
+        }
+        //Map node, boxed score, tree node and record per member
+        return 96 + dict.size() * 168L + 2 * chars;
+    }
+
+    private int indexOf(String member) {
+        for (int i = 0; i < packed; i++) {
+            if (members[i].equals(member)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int removePacked(String member) {
+        int position = indexOf(member);
+        if (position >= 0) {
+            System.arraycopy(members, position + 1, members, position, packed - position - 1);
+            System.arraycopy(scores, position + 1, scores, position, packed - position - 1);
+            members[--packed] = null;
+        }
+        return position;
+    }
+
+    private static int compare(double score, String member, double otherScore, String otherMember) {
+        int byScore = Double.compare(score, otherScore);
+        return byScore != 0 ? byScore : member.compareTo(otherMember);
+    }
+
+    private void convert() {
+        dict = new HashMap<>(packed * 4);
+        index = new TreeSet<>(ScoredMember.ORDER);
+        for (int i = 0; i < packed; i++) {
+            dict.put(members[i], scores[i]);
+            index.add(new ScoredMember(members[i], scores[i]));
+        }
+        members = null;
+        scores = null;
+        packed = 0;
+    }
+}
@@ -0,0 +1,38 @@
+package com.rhytham.redisapi.datatype;
+
+import com.rhytham.redisapi.model.ValueType;
+
+/**
+ * Decoded value of a hash, list, set or sorted-set key. Each implementation starts in a compact
+ * encoding and converts itself to a hash table or ordered index once it outgrows it, the way Redis
+ * does; the conversion is one-way.
+ * <p>
+ * The memory engine shares one instance between readers and writers, so implementations
+ * synchronize every method on the instance. A change made of several calls holds that monitor
+ * across all of them.
+ */
+public interface TypedValue {
+
+    ValueType type();
+
+    /**
+     * Name of the current encoding, as reported by OBJECT ENCODING.
+     */
+    String encoding();
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Copy of the contents as plain collections, used for JSON replies and for persistence.
+     */
+    Object contents();
+
+    /**
+     * Rough heap footprint, kept up to date on every change rather than computed by walking the contents.
+     */
+    long estimatedBytes();
+}
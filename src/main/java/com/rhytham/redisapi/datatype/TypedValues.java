@@ -0,0 +1,70 @@
+package com.rhytham.redisapi.datatype;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhytham.redisapi.model.ValueType;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text form of typed values for the {@code value} column, snapshots and the append-only file:
+ * a JSON object of fields for hashes, an array for lists and sets, and an object of member to
+ * score for sorted sets.
+ */
+public final class TypedValues {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<LinkedHashMap<String, String>> FIELDS = new TypeReference<>() {
+    };
+    private static final TypeReference<List<String>> ELEMENTS = new TypeReference<>() {
+    };
+    private static final TypeReference<LinkedHashMap<String, Double>> SCORES = new TypeReference<>() {
+    };
+
+    private TypedValues() {
+    }
+
+    public static String encode(TypedValue value) {
+        try {
+            return MAPPER.writeValueAsString(value.contents());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static TypedValue decode(ValueType type, String text) {
+        try {
+            return switch (type) {
+                case HASH -> {
+                    HashValue hash = new HashValue();
+                    MAPPER.readValue(text, FIELDS).forEach(hash::put);
+                    yield hash;
+                }
+                case LIST -> {
+                    ListValue list = new ListValue();
+                    MAPPER.readValue(text, ELEMENTS).forEach(list::pushLast);
+                    yield list;
+                }
+                case SET -> {
+                    SetValue set = new SetValue();
+                    MAPPER.readValue(text, ELEMENTS).forEach(set::add);
+                    yield set;
+                }
+                case ZSET -> {
+                    SortedSetValue zset = new SortedSetValue();
+                    for (Map.Entry<String, Double> member : MAPPER.readValue(text, SCORES).entrySet()) {
+                        zset.add(member.getKey(), member.getValue());
+                    }
+                    yield zset;
+                }
+                case STRING -> throw new IllegalArgumentException("Strings are not typed values");
+            };
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt " + type.typeName() + " value", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.rhytham.redisapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Schema(description = "Request payload to replace a value only if it still holds the expected one")
+public class CompareAndSetRequest {
+
+    @NotBlank(message = "Key must not be blank")
+    @Schema(description = "The key to update", example = "config:version")
+    private String key;
+
+    @NotNull(message = "Expected value must not be null")
+    @Schema(description = "The value the key must currently hold", example = "41")
+    private String expected;
+
+    @NotBlank(message = "Value must not be blank")
+    @Schema(description = "The new value", example = "42")
+    private String value;
+}
@@ -0,0 +1,27 @@
+package com.rhytham.redisapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Schema(description = "A Lua script to run, given as source (EVAL) or by the SHA1 it was loaded under (EVALSHA)")
+public class EvalRequest {
+
+    @Schema(description = "Lua source; leave out when sha is given",
+            example = "return redis.call('INCRBY', KEYS[1], ARGV[1])")
+    private String script;
+
+    @Schema(description = "SHA1 of a loaded script; used when script is left out")
+    private String sha;
+
+    @Schema(description = "Every key the script touches, as KEYS", example = "[\"counter\"]")
+    private List<String> keys = new ArrayList<>();
+
+    @Schema(description = "Other arguments, as ARGV", example = "[\"5\"]")
+    private List<String> args = new ArrayList<>();
+}
@@ -1,11 +1,14 @@
 package com.rhytham.redisapi.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.charset.StandardCharsets;
+
 @Getter
 @Setter
 @Schema(description = "Request payload to set a key-value pair with optional TTL")
@@ -19,7 +22,16 @@ public class KeyValueRequest {
     @Schema(description = "The associated value", example = "Hello123")
     private String value;
 
+    //Set instead of value by binary protocols such as RESP, whose payloads need not be UTF-8 text
+    @JsonIgnore
+    @Schema(hidden = true)
+    private byte[] binaryValue;
+
     @Min(value = 1,message = "TTL must be greater than 0")
     @Schema(description = "Time to live in seconds (optional)", example = "60", nullable = true)
     private Long ttl;
+
+    public byte[] valueBytes() {
+        return binaryValue != null ? binaryValue : value.getBytes(StandardCharsets.UTF_8);
+    }
 }
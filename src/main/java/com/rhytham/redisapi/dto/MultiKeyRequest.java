@@ -0,0 +1,19 @@
+package com.rhytham.redisapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Schema(description = "Request payload naming several keys")
+public class MultiKeyRequest {
+
+    @NotEmpty(message = "Keys must not be empty")
+    @Schema(description = "The keys to operate on", example = "[\"username\", \"email\"]")
+    private List<@NotBlank(message = "Key must not be blank") String> keys;
+}
@@ -0,0 +1,20 @@
+package com.rhytham.redisapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Schema(description = "Request payload to set several key-value pairs in one batch")
+public class MultiSetRequest {
+
+    @Valid
+    @NotEmpty(message = "Entries must not be empty")
+    @Schema(description = "Key-value pairs to store, each with an optional TTL")
+    private List<KeyValueRequest> entries;
+}
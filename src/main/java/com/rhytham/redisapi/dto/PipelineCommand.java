@@ -0,0 +1,27 @@
+package com.rhytham.redisapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A single command inside a pipelined batch")
+public class PipelineCommand {
+
+    @NotBlank(message = "Command must not be blank")
+    @Schema(description = "Command name: GET, SET, DEL, EXISTS, EXPIRE, TTL, MGET, MSET or FLUSHALL", example = "SET")
+    private String command;
+
+    @Schema(description = "Command arguments in Redis order, e.g. key, value and optional TTL seconds for SET",
+            example = "[\"username\", \"Hello123\", \"60\"]")
+    private List<String> args = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package com.rhytham.redisapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Schema(description = "An ordered batch of commands executed with one read and one write round trip")
+public class PipelineRequest {
+
+    @Valid
+    @NotEmpty(message = "Commands must not be empty")
+    private List<PipelineCommand> commands;
+}
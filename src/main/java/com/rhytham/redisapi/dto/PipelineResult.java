@@ -0,0 +1,25 @@
+package com.rhytham.redisapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Result of one pipelined command; error is only present when the command failed")
+public class PipelineResult {
+
+    private final Object result;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String error;
+
+    public static PipelineResult ok(Object result) {
+        return new PipelineResult(result, null);
+    }
+
+    public static PipelineResult error(String message) {
+        return new PipelineResult(null, message);
+    }
+}
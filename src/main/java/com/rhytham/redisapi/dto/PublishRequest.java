@@ -0,0 +1,21 @@
+package com.rhytham.redisapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Schema(description = "Request payload to publish a message on a channel")
+public class PublishRequest {
+
+    @NotBlank(message = "Channel must not be blank")
+    @Schema(description = "The channel to publish on", example = "orders")
+    private String channel;
+
+    @NotNull(message = "Message must not be null")
+    @Schema(description = "The message text", example = "order 42 shipped")
+    private String message;
+}
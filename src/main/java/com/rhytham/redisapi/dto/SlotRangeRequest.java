@@ -0,0 +1,28 @@
+package com.rhytham.redisapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Schema(description = "Request payload naming a range of hash slots and a cluster node")
+public class SlotRangeRequest {
+
+    @Min(value = 0, message = "Slot must be between 0 and 16383")
+    @Max(value = 16383, message = "Slot must be between 0 and 16383")
+    @Schema(description = "First slot of the range", example = "0")
+    private int from;
+
+    @Min(value = 0, message = "Slot must be between 0 and 16383")
+    @Max(value = 16383, message = "Slot must be between 0 and 16383")
+    @Schema(description = "Last slot of the range, inclusive", example = "99")
+    private int to;
+
+    @NotBlank(message = "Node must not be blank")
+    @Schema(description = "Id of the cluster node", example = "node-2")
+    private String node;
+}
@@ -0,0 +1,25 @@
+package com.rhytham.redisapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Schema(description = "Commands run as one MULTI/EXEC transaction, aborted if a watched key changed")
+public class TransactionRequest {
+
+    @Schema(description = "Keys to WATCH, each with the version read from GET /watch/{key} before reading the key",
+            example = "{\"balance\": 7}")
+    private Map<String, Long> watch = new LinkedHashMap<>();
+
+    @Valid
+    @NotEmpty(message = "Commands must not be empty")
+    private List<PipelineCommand> commands;
+}
@@ -0,0 +1,16 @@
+package com.rhytham.redisapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Another cluster node could not be reached or refused a request sent on to it
+@ResponseStatus(HttpStatus.BAD_GATEWAY)
+public class ClusterNodeException extends RuntimeException{
+    public ClusterNodeException(String node, int status, String body){
+        super("Cluster node " + node + " answered " + status + ": " + body);
+    }
+
+    public ClusterNodeException(String node, Exception cause){
+        super("Cluster node " + node + " is unreachable: " + cause.getMessage(), cause);
+    }
+}
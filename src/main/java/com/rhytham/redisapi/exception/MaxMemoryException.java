@@ -0,0 +1,12 @@
+package com.rhytham.redisapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Same text as Redis, which RESP clients match on
+@ResponseStatus(HttpStatus.INSUFFICIENT_STORAGE)
+public class MaxMemoryException extends RuntimeException{
+    public MaxMemoryException(){
+        super("OOM command not allowed when used memory > 'maxmemory'.");
+    }
+}
@@ -0,0 +1,11 @@
+package com.rhytham.redisapi.exception;
+
+import com.rhytham.redisapi.cluster.ClusterRouter;
+
+//A request another cluster node sent on names a key this node does not serve either; never sent on a second time.
+//Answered with 421 by GlobalExceptionHandler, as HttpStatus has no constant for it
+public class MisdirectedRequestException extends RuntimeException{
+    public MisdirectedRequestException(ClusterRouter.Route route){
+        super(route.kind() + " " + route.slot() + " " + route.node().url());
+    }
+}
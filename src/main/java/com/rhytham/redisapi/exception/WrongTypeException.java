@@ -0,0 +1,12 @@
+package com.rhytham.redisapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Same text as Redis, which RESP clients match on
+@ResponseStatus(HttpStatus.CONFLICT)
+public class WrongTypeException extends RuntimeException{
+    public WrongTypeException(){
+        super("WRONGTYPE Operation against a key holding the wrong kind of value");
+    }
+}
@@ -0,0 +1,18 @@
+package com.rhytham.redisapi.expiry;
+
+/**
+ * Active expiration run by {@link com.rhytham.redisapi.jobs.CleanupExpiredKeysJob}.
+ * Reads still expire keys lazily regardless of the strategy.
+ */
+public interface ExpiryStrategy {
+
+    /**
+     * How often the cleanup job should call {@link #runCycle()}.
+     */
+    long getIntervalMs();
+
+    /**
+     * Runs one expiry cycle and returns how many keys it deleted.
+     */
+    int runCycle();
+}
@@ -0,0 +1,117 @@
+package com.rhytham.redisapi.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel indexing keys by deadline. Level {@code L} has {@code slots}
+ * buckets, each {@code slots^L} ticks wide; a bucket is cascaded down to the finer levels
+ * when the clock reaches it, and level 0 buckets fire. Advancing the clock costs one bucket
+ * visit per elapsed tick plus the entries that actually fall due, independent of how many
+ * keys are indexed.
+ * <p>
+ * Not thread-safe: it is owned by the expiry cycle thread.
+ */
+public class HierarchicalTimingWheel {
+
+    private final long tickMs;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final List<Timer>[][] buckets;
+    private long currentTick;
+    private long size;
+
+    record Timer(String key, long deadline) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int slots, int levels, long startTimeMs) {
+        if (Integer.bitCount(slots) != 1 || slots < 2) {
+            throw new IllegalArgumentException("Wheel slots must be a power of two, got " + slots);
+        }
+        if (levels < 1 || (long) Integer.numberOfTrailingZeros(slots) * levels > 62) {
+            throw new IllegalArgumentException("Unsupported number of wheel levels: " + levels);
+        }
+        this.tickMs = tickMs;
+        this.bits = Integer.numberOfTrailingZeros(slots);
+        this.mask = slots - 1;
+        this.levels = levels;
+        this.buckets = new List[levels][slots];
+        this.currentTick = startTimeMs / tickMs;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Indexes a key by its absolute deadline in epoch millis. Deadlines inside the current
+     * tick are placed in the next one, so they fire on the following {@link #advance}.
+     */
+    public void add(String key, long deadline) {
+        place(new Timer(key, deadline), currentTick + 1);
+        size++;
+    }
+
+    private void place(Timer timer, long earliestTick) {
+        long deadlineTick = Math.max(ceilTick(timer.deadline()), earliestTick);
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (bits * (level + 1))) {
+            //Beyond the top level's horizon: park it in the farthest bucket and re-place on cascade
+            deadlineTick = currentTick + (1L << (bits * (level + 1))) - 1;
+        }
+        int slot = (int) ((deadlineTick >>> (bits * level)) & mask);
+        List<Timer> bucket = buckets[level][slot];
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            buckets[level][slot] = bucket;
+        }
+        bucket.add(timer);
+    }
+
+    private long ceilTick(long timeMs) {
+        return (timeMs + tickMs - 1) / tickMs;
+    }
+
+    /**
+     * Moves the clock forward to {@code nowMs}, handing every timer whose deadline has
+     * passed to {@code due}.
+     */
+    public void advance(long nowMs, Consumer<String> due) {
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = levels - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (bits * level)) & mask));
+                }
+            }
+            int slot = (int) (currentTick & mask);
+            List<Timer> bucket = buckets[0][slot];
+            if (bucket != null) {
+                buckets[0][slot] = null;
+                size -= bucket.size();
+                for (Timer timer : bucket) {
+                    due.accept(timer.key());
+                }
+            }
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        List<Timer> bucket = buckets[level][slot];
+        if (bucket != null) {
+            buckets[level][slot] = null;
+            //The level 0 bucket of the current tick has not fired yet, so timers due now still land in time
+            for (Timer timer : bucket) {
+                place(timer, currentTick);
+            }
+        }
+    }
+}
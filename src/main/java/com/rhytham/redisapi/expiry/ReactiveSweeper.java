@@ -0,0 +1,65 @@
+package com.rhytham.redisapi.expiry;
+
+import com.rhytham.redisapi.metrics.ExpiryMetrics;
+import com.rhytham.redisapi.service.ReactiveRedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * The sweep expiry mode for the reactive profile, which runs without Quartz: one bulk delete of
+ * every expired key per interval, driven by a Reactor timer. A cycle that overruns the interval
+ * skips the ticks it missed rather than queueing them.
+ */
+@Slf4j
+public class ReactiveSweeper implements SmartLifecycle {
+
+    private final ReactiveRedisService redisService;
+    private final ExpiryMetrics expiryMetrics;
+    private final long intervalMs;
+
+    private volatile Disposable cycles;
+
+    public ReactiveSweeper(ReactiveRedisService redisService, ExpiryMetrics expiryMetrics, long intervalMs) {
+        this.redisService = redisService;
+        this.expiryMetrics = expiryMetrics;
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public void start() {
+        cycles = Flux.interval(Duration.ofMillis(intervalMs))
+                .onBackpressureDrop()
+                .concatMap(tick -> runCycle(), 0)
+                .subscribe();
+    }
+
+    Mono<Long> runCycle() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return redisService.cleanupExpiredKeys()
+                    .doOnNext(deleted -> expiryMetrics.record(System.nanoTime() - start, deleted.intValue()));
+        }).onErrorResume(e -> {
+            log.warn("Expiry sweep failed, will retry next cycle", e);
+            return Mono.empty();
+        });
+    }
+
+    @Override
+    public void stop() {
+        Disposable running = cycles;
+        if (running != null) {
+            running.dispose();
+        }
+        cycles = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return cycles != null;
+    }
+}
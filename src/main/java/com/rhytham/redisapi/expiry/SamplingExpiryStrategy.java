@@ -0,0 +1,68 @@
+package com.rhytham.redisapi.expiry;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.KeyValueStore;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis-style active expiry: each cycle samples keys that carry a TTL and deletes the
+ * expired ones, and keeps going only while the expired fraction of a sample stays above
+ * the threshold and the time budget is not spent. Keys the sampler misses are still
+ * removed lazily when read.
+ */
+public class SamplingExpiryStrategy implements ExpiryStrategy {
+
+    private final KeyValueStore store;
+    @Getter
+    private final long intervalMs;
+    private final int sampleSize;
+    private final double threshold;
+    private final long timeBudgetNanos;
+
+    @Getter
+    private volatile int lastCycleDeleted;
+    @Getter
+    private volatile int lastCycleSamples;
+
+    public SamplingExpiryStrategy(KeyValueStore store, long intervalMs, int sampleSize,
+                                  double threshold, long timeBudgetMs) {
+        this.store = store;
+        this.intervalMs = intervalMs;
+        this.sampleSize = sampleSize;
+        this.threshold = threshold;
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+    }
+
+    @Override
+    public int runCycle() {
+        long start = System.nanoTime();
+        int deleted = 0;
+        int samples = 0;
+        double expiredFraction;
+        do {
+            long now = System.currentTimeMillis();
+            List<KeyValueEntry> sample = store.sampleWithExpiry(sampleSize);
+            if (sample.isEmpty()) {
+                break;
+            }
+            List<String> expired = new ArrayList<>();
+            for (KeyValueEntry entry : sample) {
+                if (entry.getExpiryTime() != null && entry.getExpiryTime() <= now) {
+                    expired.add(entry.getKey());
+                }
+            }
+            if (!expired.isEmpty()) {
+                deleted += store.deleteExpired(expired, now);
+            }
+            samples++;
+            expiredFraction = (double) expired.size() / sample.size();
+        } while (expiredFraction > threshold && System.nanoTime() - start < timeBudgetNanos);
+        lastCycleDeleted = deleted;
+        lastCycleSamples = samples;
+        return deleted;
+    }
+}
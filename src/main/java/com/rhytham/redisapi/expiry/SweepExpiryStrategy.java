@@ -0,0 +1,22 @@
+package com.rhytham.redisapi.expiry;
+
+import com.rhytham.redisapi.service.RedisService;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Original behaviour: one bulk delete of every expired key per cycle.
+ */
+@RequiredArgsConstructor
+public class SweepExpiryStrategy implements ExpiryStrategy {
+
+    private final RedisService redisService;
+
+    @Getter
+    private final long intervalMs;
+
+    @Override
+    public int runCycle() {
+        return redisService.cleanupExpiredKeys();
+    }
+}
@@ -0,0 +1,125 @@
+package com.rhytham.redisapi.expiry;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.StoreListener;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Deadline-indexed expiry. Writers only enqueue (key, deadline) pairs; each cycle moves
+ * them into a {@link HierarchicalTimingWheel}, advances it to the current time and deletes
+ * the keys that fell due in bounded batches. Deadlines made stale by a later SET or EXPIRE
+ * are harmless because the store only deletes keys that are still expired.
+ */
+@Slf4j
+public class TimingWheelExpiryStrategy implements ExpiryStrategy, StoreListener {
+
+    private final KeyValueStore store;
+    private final HierarchicalTimingWheel wheel;
+    @Getter
+    private final long intervalMs;
+    private final int batchSize;
+    private final int maxKeysPerCycle;
+
+    private final Queue<HierarchicalTimingWheel.Timer> pending = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<String> due = new ArrayDeque<>();
+    //Guards wheel and due; a lock rather than a monitor because a cycle deletes from the store while holding it
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Getter
+    private volatile int lastCycleDeleted;
+
+    public TimingWheelExpiryStrategy(KeyValueStore store, long tickMs, int slots, int levels,
+                                     int batchSize, int maxKeysPerCycle) {
+        this.store = store;
+        this.wheel = new HierarchicalTimingWheel(tickMs, slots, levels, System.currentTimeMillis());
+        this.intervalMs = tickMs;
+        this.batchSize = batchSize;
+        this.maxKeysPerCycle = maxKeysPerCycle;
+        store.addListener(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexExistingKeys() {
+        store.forEachWithExpiry(entry -> schedule(entry.getKey(), entry.getExpiryTime()));
+        log.info("Timing wheel indexed existing keys with a TTL, {} pending", pending.size());
+    }
+
+    private void schedule(String key, long deadline) {
+        pending.offer(new HierarchicalTimingWheel.Timer(key, deadline));
+    }
+
+    @Override
+    public void onSave(KeyValueEntry entry) {
+        if (entry.getExpiryTime() != null) {
+            schedule(entry.getKey(), entry.getExpiryTime());
+        }
+    }
+
+    @Override
+    public void onDelete(String key) {
+    }
+
+    @Override
+    public void onDeleteAll() {
+    }
+
+    public long indexedCount() {
+        lock.lock();
+        try {
+            return wheel.size() + due.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int runCycle() {
+        lock.lock();
+        try {
+            return runCycleLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int runCycleLocked() {
+        long now = System.currentTimeMillis();
+        HierarchicalTimingWheel.Timer timer;
+        while ((timer = pending.poll()) != null) {
+            wheel.add(timer.key(), timer.deadline());
+        }
+        wheel.advance(now, due::add);
+
+        int deleted = 0;
+        int budget = maxKeysPerCycle;
+        List<String> batch = new ArrayList<>(batchSize);
+        while (budget > 0 && !due.isEmpty()) {
+            batch.add(due.poll());
+            budget--;
+            if (batch.size() == batchSize || budget == 0 || due.isEmpty()) {
+                try {
+                    deleted += store.deleteExpired(batch, now);
+                } catch (RuntimeException e) {
+                    //Retry on the next cycle rather than dropping the deadlines
+                    due.addAll(batch);
+                    log.error("Expiry batch of {} keys failed", batch.size(), e);
+                    break;
+                }
+                batch.clear();
+            }
+        }
+        lastCycleDeleted = deleted;
+        return deleted;
+    }
+}
@@ -1,19 +1,27 @@
 package com.rhytham.redisapi.jobs;
 
-import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.expiry.ExpiryStrategy;
+import com.rhytham.redisapi.metrics.ExpiryMetrics;
 import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
+@DisallowConcurrentExecution
 public class CleanupExpiredKeysJob implements Job {
 
-    private final RedisService redisService;
+    private final ExpiryStrategy expiryStrategy;
+    private final ExpiryMetrics expiryMetrics;
 
     @Override
     public void execute(JobExecutionContext context){
-        redisService.cleanupExpiredKeys();
+        long start = System.nanoTime();
+        int deleted = expiryStrategy.runCycle();
+        expiryMetrics.record(System.nanoTime() - start, deleted);
     }
 }
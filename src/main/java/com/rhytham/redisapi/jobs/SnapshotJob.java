@@ -0,0 +1,21 @@
+package com.rhytham.redisapi.jobs;
+
+import com.rhytham.redisapi.config.StoreProperties;
+import com.rhytham.redisapi.store.snapshot.SnapshotManager;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class SnapshotJob implements Job {
+
+    private final SnapshotManager snapshotManager;
+    private final StoreProperties storeProperties;
+
+    @Override
+    public void execute(JobExecutionContext context){
+        snapshotManager.bgsaveIfChanged(storeProperties.getSnapshot().getMinChanges());
+    }
+}
@@ -0,0 +1,19 @@
+package com.rhytham.redisapi.jobs;
+
+import com.rhytham.redisapi.store.WriteBehindPersister;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class WriteBehindFlushJob implements Job {
+
+    private final WriteBehindPersister writeBehindPersister;
+
+    @Override
+    public void execute(JobExecutionContext context){
+        writeBehindPersister.flush();
+    }
+}
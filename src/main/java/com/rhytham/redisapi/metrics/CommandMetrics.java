@@ -0,0 +1,92 @@
+package com.rhytham.redisapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-command latency timers published as {@code redisapi.commands} with a {@code command} tag.
+ * <p>
+ * Percentiles come from Micrometer's HdrHistogram ring buffers. Recording a sample is wait-free
+ * (adders plus an HdrHistogram {@code Recorder}), and the timers are resolved once up front,
+ * so the request path takes no lock and does no registry lookup.
+ */
+public class CommandMetrics {
+
+    public enum Command {
+        GET, SET, DEL, EXISTS, EXPIRE, TTL, KEYS, SCAN, MGET, MSET, FLUSHALL, TYPE, OBJECT, MEMORY,
+        INCRBY, INCRBYFLOAT, SETNX, GETSET, CAS,
+        HSET, HGET, HDEL, HGETALL, HINCRBY,
+        LPUSH, RPUSH, LPOP, RPOP, LRANGE,
+        SADD, SREM, SISMEMBER, SMEMBERS,
+        ZADD, ZREM, ZSCORE, ZRANGEBYSCORE
+    }
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final Timer[] timers = new Timer[Command.values().length];
+
+    public CommandMetrics(MeterRegistry registry) {
+        for (Command command : Command.values()) {
+            timers[command.ordinal()] = Timer.builder("redisapi.commands")
+                    .tag("command", command.name().toLowerCase(Locale.ROOT))
+                    .description("Latency of RedisService commands")
+                    .publishPercentiles(PERCENTILES)
+                    .percentilePrecision(2)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Timers that record nothing, for services built outside Spring.
+     */
+    public static CommandMetrics noop() {
+        return new CommandMetrics(new CompositeMeterRegistry());
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stop(Command command, long startNanos) {
+        timers[command.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Timer timer(Command command) {
+        return timers[command.ordinal()];
+    }
+
+    /**
+     * Call counts and p50/p99/p999/max in microseconds for each command that has been called.
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> commands = new LinkedHashMap<>();
+        for (Command command : Command.values()) {
+            HistogramSnapshot snapshot = timers[command.ordinal()].takeSnapshot();
+            if (snapshot.count() == 0) {
+                continue;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("calls", snapshot.count());
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                stats.put("p" + label(percentile.percentile()) + "Micros", percentile.value(TimeUnit.MICROSECONDS));
+            }
+            stats.put("maxMicros", snapshot.max(TimeUnit.MICROSECONDS));
+            commands.put(command.name().toLowerCase(Locale.ROOT), stats);
+        }
+        return commands;
+    }
+
+    //0.5 -> 50, 0.99 -> 99, 0.999 -> 999
+    private static String label(double percentile) {
+        String digits = Double.toString(percentile).substring(2);
+        return digits.length() == 1 ? digits + "0" : digits;
+    }
+}
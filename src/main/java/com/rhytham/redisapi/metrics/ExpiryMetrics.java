@@ -0,0 +1,57 @@
+package com.rhytham.redisapi.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duration and deleted-key count of each run of the expiry cleanup job, under {@code redisapi.expiry.*}.
+ */
+public class ExpiryMetrics {
+
+    private final Timer cycles;
+    private final Counter deleted;
+
+    @Getter
+    private volatile long lastRunAt;
+    @Getter
+    private volatile long lastDurationNanos;
+    @Getter
+    private volatile int lastDeleted;
+
+    public ExpiryMetrics(MeterRegistry registry) {
+        this.cycles = Timer.builder("redisapi.expiry.cycle")
+                .description("Duration of one expiry job run")
+                .register(registry);
+        this.deleted = Counter.builder("redisapi.expiry.deleted")
+                .description("Keys deleted by the expiry job")
+                .register(registry);
+        Gauge.builder("redisapi.expiry.last.duration", this, metrics -> metrics.lastDurationNanos / 1e9)
+                .baseUnit("seconds")
+                .description("Duration of the most recent expiry job run")
+                .register(registry);
+        Gauge.builder("redisapi.expiry.last.deleted", this, ExpiryMetrics::getLastDeleted)
+                .description("Keys deleted by the most recent expiry job run")
+                .register(registry);
+    }
+
+    public void record(long durationNanos, int deletedKeys) {
+        cycles.record(durationNanos, TimeUnit.NANOSECONDS);
+        deleted.increment(deletedKeys);
+        lastDurationNanos = durationNanos;
+        lastDeleted = deletedKeys;
+        lastRunAt = System.currentTimeMillis();
+    }
+
+    public long runs() {
+        return cycles.count();
+    }
+
+    public double totalDeleted() {
+        return deleted.count();
+    }
+}
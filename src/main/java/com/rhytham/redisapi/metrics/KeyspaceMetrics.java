@@ -0,0 +1,62 @@
+package com.rhytham.redisapi.metrics;
+
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.KeyspaceStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keyspace gauges under {@code redisapi.keyspace.*}. Computing them scans the keyspace (or the table),
+ * so the result is cached for {@code refreshMs} and shared by all gauges and the INFO endpoint.
+ */
+public class KeyspaceMetrics implements MeterBinder {
+
+    private final KeyValueStore store;
+    private final long refreshMs;
+    //Not a monitor: the jpa engine runs a query while holding it, which would pin a virtual thread's carrier
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile KeyspaceStats stats;
+    private volatile long refreshedAt;
+
+    public KeyspaceMetrics(KeyValueStore store, long refreshMs) {
+        this.store = store;
+        this.refreshMs = refreshMs;
+    }
+
+    public KeyspaceStats stats() {
+        long now = System.currentTimeMillis();
+        if (stats == null || now - refreshedAt >= refreshMs) {
+            refreshLock.lock();
+            try {
+                if (stats == null || now - refreshedAt >= refreshMs) {
+                    stats = store.stats(now);
+                    refreshedAt = now;
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("redisapi.keyspace.keys", this, metrics -> metrics.stats().keys())
+                .description("Stored keys, including expired ones not yet removed")
+                .register(registry);
+        Gauge.builder("redisapi.keyspace.keys.with.expiry", this, metrics -> metrics.stats().keysWithExpiry())
+                .description("Keys that carry a TTL")
+                .register(registry);
+        Gauge.builder("redisapi.keyspace.expired.pending", this, metrics -> metrics.stats().expiredPending())
+                .description("Keys past their expiry time that have not been removed yet")
+                .register(registry);
+        Gauge.builder("redisapi.keyspace.bytes", this, metrics -> metrics.stats().bytesUsed())
+                .baseUnit("bytes")
+                .description("Estimated memory (memory engine), memory counted against maxmemory (offheap engine) or stored key and value bytes (jpa engine)")
+                .register(registry);
+    }
+}
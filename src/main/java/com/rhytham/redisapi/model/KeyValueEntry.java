@@ -1,18 +1,28 @@
 package com.rhytham.redisapi.model;
 
+import com.rhytham.redisapi.codec.ValueCodec;
+import com.rhytham.redisapi.codec.ValueEncoding;
+import com.rhytham.redisapi.datatype.TypedValue;
+import com.rhytham.redisapi.datatype.TypedValues;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.nio.charset.StandardCharsets;
 
 @Getter
 @Setter
 @Entity
-@AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "key_value_store")
 public class KeyValueEntry {
@@ -20,11 +30,169 @@ public class KeyValueEntry {
     @Id
     private String key;
 
+    //bytea on Postgres, as encoded by ValueCodec: a tag byte, then raw bytes, a compact integer or a
+    //compressed frame. Hashes, lists and sets are stored as their JSON text
     @Column(nullable = false)
-    private String value;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private byte[] value;
 
     private Long expiryTime;
 
+    //Bumped by every write, so the jpa engine can detect a concurrent writer without locking the row.
+    //The default fills the column for rows written before it existed
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    //Null for strings, so rows written before typed values existed read back unchanged
+    @Enumerated(EnumType.STRING)
+    @Column(name = "value_type")
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ValueType type;
+
+    //Decoded hash, list, set or sorted set. The memory engine keeps it and changes it in place;
+    //value is only re-encoded when the entry is persisted
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile TypedValue data;
+
+    public KeyValueEntry(String key, String value, Long expiryTime) {
+        this.key = key;
+        this.value = value == null ? null : ValueCodec.current().encode(value);
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * A string holding arbitrary bytes.
+     */
+    public KeyValueEntry(String key, byte[] value, Long expiryTime) {
+        this.key = key;
+        this.value = ValueCodec.current().encode(value);
+        this.expiryTime = expiryTime;
+    }
+
+    public KeyValueEntry(String key, String value, Long expiryTime, ValueType type) {
+        this(key, value, expiryTime);
+        this.type = type == ValueType.STRING ? null : type;
+    }
+
+    public KeyValueEntry(String key, TypedValue data, Long expiryTime) {
+        this(key, (String) null, expiryTime, data.type());
+        this.data = data;
+    }
+
+    /**
+     * An entry from its stored form, as read back from a file or a statement.
+     */
+    public static KeyValueEntry fromEncoded(String key, byte[] encoded, Long expiryTime, ValueType type) {
+        KeyValueEntry entry = new KeyValueEntry(key, (String) null, expiryTime, type);
+        entry.value = encoded;
+        return entry;
+    }
+
+    public ValueType getType() {
+        return type == null ? ValueType.STRING : type;
+    }
+
+    public String getValue() {
+        TypedValue current = data;
+        if (current != null) {
+            return TypedValues.encode(current);
+        }
+        return value == null ? null : ValueCodec.decodeString(value);
+    }
+
+    public void setValue(String value) {
+        this.value = ValueCodec.current().encode(value);
+        this.data = null;
+    }
+
+    /**
+     * The value as bytes; a string stored from text comes back as its UTF-8 form.
+     */
+    public byte[] getBytes() {
+        TypedValue current = data;
+        if (current != null) {
+            return TypedValues.encode(current).getBytes(StandardCharsets.UTF_8);
+        }
+        return ValueCodec.decode(value);
+    }
+
+    /**
+     * The stored form of the value, shared rather than copied.
+     */
+    public byte[] getEncoded() {
+        TypedValue current = data;
+        return current != null ? ValueCodec.current().encode(TypedValues.encode(current)) : value;
+    }
+
+    /**
+     * Encoding of the stored form; a decoded typed value reports the encoding it would be stored with.
+     */
+    public ValueEncoding getEncoding() {
+        return ValueCodec.encoding(getEncoded());
+    }
+
+    /**
+     * The decoded value of a typed entry, decoded from {@code value} on first use; null for strings.
+     */
+    public TypedValue getData() {
+        TypedValue current = data;
+        if (current == null && type != null) {
+            synchronized (this) {
+                current = data;
+                if (current == null) {
+                    current = TypedValues.decode(type, ValueCodec.decodeString(value));
+                    data = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Whether a typed value is held decoded, in which case {@link #getData()} is its storage and nothing
+     * is encoded until the entry is persisted.
+     */
+    public boolean isDecoded() {
+        return data != null;
+    }
+
+    /**
+     * Copies the decoded value back into the {@code value} field, which JPA reads directly.
+     */
+    public void syncValue() {
+        TypedValue current = data;
+        if (current != null) {
+            value = ValueCodec.current().encode(TypedValues.encode(current));
+        }
+    }
+
+    /**
+     * Detached copy sharing no mutable state with this entry.
+     */
+    public KeyValueEntry copy() {
+        KeyValueEntry copy = fromEncoded(key, getEncoded(), expiryTime, type);
+        copy.version = version;
+        return copy;
+    }
+
+    /**
+     * The same value under another expiry time; a decoded value is shared rather than re-encoded.
+     */
+    public KeyValueEntry withExpiryTime(Long newExpiryTime) {
+        TypedValue current = data;
+        KeyValueEntry entry = current != null
+                ? new KeyValueEntry(key, current, newExpiryTime)
+                : fromEncoded(key, value, newExpiryTime, type);
+        entry.version = version;
+        return entry;
+    }
+
     public void setnewExpiryTime(long newExpiryTime){
         this.expiryTime = newExpiryTime;
     }
@@ -32,4 +200,13 @@ public class KeyValueEntry {
         return expiryTime != null && System.currentTimeMillis() > expiryTime;
     }
 
+    public long estimatedBytes(){
+        //Object headers + key String (UTF-16 worst case) + boxed expiry, then the decoded collection or the encoded array
+        TypedValue current = data;
+        if (current != null) {
+            return 96L + 2L * key.length() + current.estimatedBytes();
+        }
+        return 112L + 2L * key.length() + value.length;
+    }
+
 }
@@ -0,0 +1,18 @@
+package com.rhytham.redisapi.model;
+
+import java.util.Locale;
+
+/**
+ * Kind of value a key holds. Snapshot and append-only files store the ordinal, so new
+ * constants may only be appended.
+ */
+public enum ValueType {
+    STRING, HASH, LIST, SET, ZSET;
+
+    /**
+     * Name as reported by the TYPE command.
+     */
+    public String typeName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,38 @@
+package com.rhytham.redisapi.pubsub;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The shared threads that run {@link PushDelivery} tasks for the SSE and WebSocket subscribers. A few
+ * threads are enough: a task only runs while its subscriber has messages waiting.
+ */
+public class DeliveryPool implements AutoCloseable {
+
+    private final PubSubBroker broker;
+    private final ExecutorService executor;
+
+    public DeliveryPool(PubSubBroker broker, int threads) {
+        this.broker = broker;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+            Thread thread = new Thread(task, "pubsub-delivery-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public PushDelivery open(String name, PushDelivery.Sink sink) {
+        return new PushDelivery(broker, executor, name, sink);
+    }
+
+    public PubSubBroker getBroker() {
+        return broker;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
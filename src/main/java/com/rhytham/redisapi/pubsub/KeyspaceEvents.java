@@ -0,0 +1,100 @@
+package com.rhytham.redisapi.pubsub;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.StoreListener;
+
+/**
+ * Keyspace notifications, configured like Redis's {@code notify-keyspace-events}: {@code K} publishes
+ * {@code __keyspace@0__:<key>} with the event name as message, {@code E} publishes {@code __keyevent@0__:<event>}
+ * with the key, and the class flags pick the events ({@code g} generic, {@code $} string, {@code l} list,
+ * {@code s} set, {@code h} hash, {@code z} sorted set, {@code x} expired, {@code A} all of them). There is one
+ * logical database, so it is always {@code @0}.
+ * <p>
+ * Expirations come from the store, whichever path removed the key, so this registers as a
+ * {@link StoreListener} for {@code x}.
+ */
+public class KeyspaceEvents implements StoreListener {
+
+    public static final char GENERIC = 'g';
+    public static final char STRING = '$';
+    public static final char LIST = 'l';
+    public static final char SET = 's';
+    public static final char HASH = 'h';
+    public static final char ZSET = 'z';
+    public static final char EXPIRED = 'x';
+
+    private static final String ALL = "g$lshzx";
+
+    //Accepted for compatibility with Redis configs; this server raises none of these events
+    private static final String IGNORED = "etmnd";
+
+    private final PubSubBroker broker;
+    private final boolean keyspace;
+    private final boolean keyevent;
+    private final String classes;
+
+    public KeyspaceEvents(PubSubBroker broker, String flags) {
+        boolean keyspace = false;
+        boolean keyevent = false;
+        StringBuilder classes = new StringBuilder();
+        for (char flag : flags.toCharArray()) {
+            if (flag == 'K') {
+                keyspace = true;
+            } else if (flag == 'E') {
+                keyevent = true;
+            } else if (flag == 'A') {
+                classes.append(ALL);
+            } else if (ALL.indexOf(flag) >= 0) {
+                classes.append(flag);
+            } else if (IGNORED.indexOf(flag) < 0) {
+                throw new IllegalArgumentException("Invalid notify-keyspace-events flag: " + flag);
+            }
+        }
+        this.broker = broker;
+        this.keyspace = keyspace;
+        this.keyevent = keyevent;
+        //As in Redis, nothing is published unless K or E is given along with a class
+        this.classes = keyspace || keyevent ? classes.toString() : "";
+    }
+
+    /**
+     * Publishes nothing, for services built outside Spring.
+     */
+    public static KeyspaceEvents disabled() {
+        return new KeyspaceEvents(null, "");
+    }
+
+    public boolean isEnabled(char type) {
+        return classes.indexOf(type) >= 0;
+    }
+
+    public void notify(char type, String event, String key) {
+        if (!isEnabled(type) || !broker.hasSubscriptions()) {
+            return;
+        }
+        if (keyspace) {
+            broker.publish("__keyspace@0__:" + key, event);
+        }
+        if (keyevent) {
+            broker.publish("__keyevent@0__:" + event, key);
+        }
+    }
+
+    @Override
+    public void onExpire(String key) {
+        notify(EXPIRED, "expired", key);
+    }
+
+    //Writes and deletes are raised by RedisService, which knows the command behind them
+    @Override
+    public void onSave(KeyValueEntry entry) {
+    }
+
+    @Override
+    public void onDelete(String key) {
+    }
+
+    @Override
+    public void onDeleteAll() {
+    }
+}
@@ -0,0 +1,215 @@
+package com.rhytham.redisapi.pubsub;
+
+import com.rhytham.redisapi.util.GlobMatcher;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Channel and pattern subscriptions, with Redis PUBLISH/SUBSCRIBE/PSUBSCRIBE semantics. Publishing only
+ * appends to each receiver's {@link Subscriber} ring and never waits for a delivery, so one slow
+ * subscriber costs the publisher nothing beyond its own ring's overflow policy.
+ * <p>
+ * Subscription sets are copy-on-write: a publish reads them without a lock, while (un)subscribing,
+ * which is rare next to publishing, pays for the copy.
+ */
+@Slf4j
+public class PubSubBroker {
+
+    private final Map<String, Set<Subscriber>> channels = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> patterns = new ConcurrentHashMap<>();
+    private final int bufferSize;
+    private final Subscriber.Overflow overflow;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    public PubSubBroker(int bufferSize, Subscriber.Overflow overflow) {
+        this.bufferSize = bufferSize;
+        this.overflow = overflow;
+    }
+
+    /**
+     * A new subscriber with this broker's ring size and overflow policy, not yet subscribed to anything.
+     */
+    public Subscriber subscriber(String name, Runnable signal) {
+        return new Subscriber(name, bufferSize, overflow, signal);
+    }
+
+    //Each returns the subscriber's subscription count afterwards, as the Redis reply does
+    public int subscribe(Subscriber subscriber, String channel) {
+        return add(channels, subscriber.channels, subscriber, channel);
+    }
+
+    public int psubscribe(Subscriber subscriber, String pattern) {
+        return add(patterns, subscriber.patterns, subscriber, pattern);
+    }
+
+    public int unsubscribe(Subscriber subscriber, String channel) {
+        return remove(channels, subscriber.channels, subscriber, channel);
+    }
+
+    public int punsubscribe(Subscriber subscriber, String pattern) {
+        return remove(patterns, subscriber.patterns, subscriber, pattern);
+    }
+
+    //Drops every subscription, when the subscriber's connection goes away
+    public void unsubscribeAll(Subscriber subscriber) {
+        for (String channel : subscriber.channels()) {
+            unsubscribe(subscriber, channel);
+        }
+        for (String pattern : subscriber.patterns()) {
+            punsubscribe(subscriber, pattern);
+        }
+    }
+
+    private int add(Map<String, Set<Subscriber>> index, Set<String> own, Subscriber subscriber, String name) {
+        boolean first = subscriber.subscriptionCount() == 0;
+        if (own.add(name)) {
+            //Added inside compute, so it can not land in a set a concurrent unsubscribe is dropping
+            index.compute(name, (n, set) -> {
+                Set<Subscriber> updated = set == null ? new CopyOnWriteArraySet<>() : set;
+                updated.add(subscriber);
+                return updated;
+            });
+            if (first) {
+                subscribers.incrementAndGet();
+            }
+        }
+        return subscriber.subscriptionCount();
+    }
+
+    private int remove(Map<String, Set<Subscriber>> index, Set<String> own, Subscriber subscriber, String name) {
+        if (own.remove(name)) {
+            //Removing the last subscriber and dropping the empty set is one step, so a racing subscribe is never lost
+            index.computeIfPresent(name, (n, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+            if (subscriber.subscriptionCount() == 0) {
+                subscribers.decrementAndGet();
+            }
+        }
+        return subscriber.subscriptionCount();
+    }
+
+    public int publish(String channel, String message) {
+        return publish(channel, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Queues the message for every subscriber of the channel and of each matching pattern; returns how
+     * many received it, counting a subscriber once per matching subscription as Redis does.
+     */
+    public int publish(String channel, byte[] payload) {
+        published.increment();
+        int receivers = 0;
+        Set<Subscriber> direct = channels.get(channel);
+        if (direct != null) {
+            PubSubMessage message = new PubSubMessage(null, channel, payload);
+            for (Subscriber subscriber : direct) {
+                receivers += deliver(subscriber, message);
+            }
+        }
+        if (!patterns.isEmpty()) {
+            for (Map.Entry<String, Set<Subscriber>> pattern : patterns.entrySet()) {
+                if (GlobMatcher.matches(pattern.getKey(), channel)) {
+                    PubSubMessage message = new PubSubMessage(pattern.getKey(), channel, payload);
+                    for (Subscriber subscriber : pattern.getValue()) {
+                        receivers += deliver(subscriber, message);
+                    }
+                }
+            }
+        }
+        return receivers;
+    }
+
+    private int deliver(Subscriber subscriber, PubSubMessage message) {
+        switch (subscriber.offer(message)) {
+            case QUEUED -> delivered.increment();
+            case DROPPED_OLDEST -> {
+                delivered.increment();
+                dropped.increment();
+            }
+            case DISCONNECTED -> {
+                dropped.increment();
+                disconnected.increment();
+                log.warn("Disconnecting subscriber {}: its ring of {} messages is full", subscriber.getName(), bufferSize);
+                unsubscribeAll(subscriber);
+                return 0;
+            }
+            case CLOSED -> {
+                return 0;
+            }
+        }
+        return 1;
+    }
+
+    //Cheap check that lets keyspace notifications skip building channel names when nobody listens
+    public boolean hasSubscriptions() {
+        return !channels.isEmpty() || !patterns.isEmpty();
+    }
+
+    //PUBSUB CHANNELS: channels with at least one subscriber, matching the pattern when given
+    public List<String> activeChannels(String pattern) {
+        List<String> active = new ArrayList<>();
+        for (String channel : channels.keySet()) {
+            if (pattern == null || GlobMatcher.matches(pattern, channel)) {
+                active.add(channel);
+            }
+        }
+        return active;
+    }
+
+    //PUBSUB NUMSUB: channel subscribers only, pattern subscriptions are not counted
+    public Map<String, Integer> numsub(Collection<String> names) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String channel : names) {
+            Set<Subscriber> set = channels.get(channel);
+            counts.put(channel, set == null ? 0 : set.size());
+        }
+        return counts;
+    }
+
+    public int channelCount() {
+        return channels.size();
+    }
+
+    //PUBSUB NUMPAT: patterns subscribed to, by anyone
+    public int numpat() {
+        return patterns.size();
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    public long publishedCount() {
+        return published.sum();
+    }
+
+    public long deliveredCount() {
+        return delivered.sum();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public long disconnectedCount() {
+        return disconnected.sum();
+    }
+}
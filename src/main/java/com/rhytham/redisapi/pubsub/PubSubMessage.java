@@ -0,0 +1,14 @@
+package com.rhytham.redisapi.pubsub;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One published message as a subscriber receives it. {@code pattern} is the PSUBSCRIBE pattern it
+ * matched, null for a plain channel subscription. The payload is kept as bytes, binary-safe like SET.
+ */
+public record PubSubMessage(String pattern, String channel, byte[] payload) {
+
+    public String text() {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package com.rhytham.redisapi.pubsub;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the broker's counters under {@code redisapi.pubsub.*}. {@code dropped} counts messages a
+ * subscriber lost to a full ring, {@code disconnected} the subscribers closed for it.
+ */
+public class PubSubMetrics implements MeterBinder {
+
+    private final PubSubBroker broker;
+
+    public PubSubMetrics(PubSubBroker broker) {
+        this.broker = broker;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("redisapi.pubsub.subscribers", broker, PubSubBroker::subscriberCount)
+                .description("Connections with at least one subscription")
+                .register(registry);
+        Gauge.builder("redisapi.pubsub.channels", broker, PubSubBroker::channelCount)
+                .description("Channels with at least one subscriber")
+                .register(registry);
+        Gauge.builder("redisapi.pubsub.patterns", broker, PubSubBroker::numpat)
+                .description("Patterns subscribed to")
+                .register(registry);
+        FunctionCounter.builder("redisapi.pubsub.published", broker, PubSubBroker::publishedCount)
+                .description("Messages published, keyspace notifications included")
+                .register(registry);
+        FunctionCounter.builder("redisapi.pubsub.delivered", broker, PubSubBroker::deliveredCount)
+                .description("Messages queued for a subscriber")
+                .register(registry);
+        FunctionCounter.builder("redisapi.pubsub.dropped", broker, PubSubBroker::droppedCount)
+                .description("Messages lost because a subscriber's ring was full")
+                .register(registry);
+        FunctionCounter.builder("redisapi.pubsub.disconnected", broker, PubSubBroker::disconnectedCount)
+                .description("Subscribers closed because they fell a full ring behind")
+                .register(registry);
+    }
+}
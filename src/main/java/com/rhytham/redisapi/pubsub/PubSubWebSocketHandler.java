@@ -0,0 +1,154 @@
+package com.rhytham.redisapi.pubsub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pubsub over WebSocket with JSON frames. A client sends
+ * {@code {"op":"subscribe","channels":[...]}}, {@code psubscribe} with {@code patterns}, their
+ * {@code unsubscribe} and {@code punsubscribe} forms (all subscriptions when the list is left out),
+ * {@code {"op":"publish","channel":...,"message":...}} or {@code ping}, and receives replies and messages
+ * as objects with a {@code type}: {@code subscribe}, {@code message}, {@code pmessage}, {@code published},
+ * {@code pong} or {@code error}.
+ */
+public class PubSubWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String STATE = PubSubWebSocketHandler.class.getName();
+
+    //Bytes a session may have waiting behind a blocked send before it is closed
+    private static final int SEND_BUFFER_LIMIT = 512 * 1024;
+
+    private final DeliveryPool deliveryPool;
+    private final ObjectMapper objectMapper;
+    private final int sendTimeoutMs;
+
+    public PubSubWebSocketHandler(DeliveryPool deliveryPool, ObjectMapper objectMapper, int sendTimeoutMs) {
+        this.deliveryPool = deliveryPool;
+        this.objectMapper = objectMapper;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        //Replies go out on the session's thread and messages on a delivery thread, so sends are serialized here
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(session, sendTimeoutMs, SEND_BUFFER_LIMIT);
+        PushDelivery delivery = deliveryPool.open("ws " + session.getRemoteAddress(), new PushDelivery.Sink() {
+            @Override
+            public void send(List<PubSubMessage> messages) throws IOException {
+                for (PubSubMessage message : messages) {
+                    Map<String, Object> frame = new LinkedHashMap<>();
+                    frame.put("type", message.pattern() == null ? "message" : "pmessage");
+                    if (message.pattern() != null) {
+                        frame.put("pattern", message.pattern());
+                    }
+                    frame.put("channel", message.channel());
+                    frame.put("message", message.text());
+                    write(concurrent, frame);
+                }
+            }
+
+            @Override
+            public void close() {
+                try {
+                    concurrent.close(CloseStatus.POLICY_VIOLATION.withReason("subscriber fell too far behind"));
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        session.getAttributes().put(STATE, new State(concurrent, delivery));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        State state = (State) session.getAttributes().get(STATE);
+        PubSubBroker broker = deliveryPool.getBroker();
+        Subscriber subscriber = state.delivery().getSubscriber();
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(message.getPayload());
+        } catch (IOException e) {
+            error(state, "invalid JSON");
+            return;
+        }
+        String op = request.path("op").asText("");
+        switch (op) {
+            case "subscribe" -> {
+                for (String channel : names(request, "channels")) {
+                    confirm(state, op, channel, broker.subscribe(subscriber, channel));
+                }
+            }
+            case "psubscribe" -> {
+                for (String pattern : names(request, "patterns")) {
+                    confirm(state, op, pattern, broker.psubscribe(subscriber, pattern));
+                }
+            }
+            case "unsubscribe" -> {
+                List<String> channels = names(request, "channels");
+                for (String channel : channels.isEmpty() ? subscriber.channels() : channels) {
+                    confirm(state, op, channel, broker.unsubscribe(subscriber, channel));
+                }
+            }
+            case "punsubscribe" -> {
+                List<String> patterns = names(request, "patterns");
+                for (String pattern : patterns.isEmpty() ? subscriber.patterns() : patterns) {
+                    confirm(state, op, pattern, broker.punsubscribe(subscriber, pattern));
+                }
+            }
+            case "publish" -> {
+                JsonNode channel = request.get("channel");
+                JsonNode payload = request.get("message");
+                if (channel == null || !channel.isTextual() || payload == null || payload.isNull()) {
+                    error(state, "publish needs a channel and a message");
+                } else {
+                    write(state.session(), Map.of("type", "published",
+                            "receivers", broker.publish(channel.asText(), payload.asText())));
+                }
+            }
+            case "ping" -> write(state.session(), Map.of("type", "pong"));
+            default -> error(state, "unknown op '" + op + "'");
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        if (session.getAttributes().get(STATE) instanceof State state) {
+            state.delivery().close();
+        }
+    }
+
+    private static List<String> names(JsonNode request, String field) {
+        List<String> names = new ArrayList<>();
+        for (JsonNode name : request.path(field)) {
+            if (name.isTextual()) {
+                names.add(name.asText());
+            }
+        }
+        return names;
+    }
+
+    private void confirm(State state, String kind, String name, int count) throws IOException {
+        write(state.session(), Map.of("type", kind, "channel", name, "count", count));
+    }
+
+    private void error(State state, String message) throws IOException {
+        write(state.session(), Map.of("type", "error", "message", message));
+    }
+
+    private void write(WebSocketSession session, Map<String, Object> frame) throws IOException {
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(frame)));
+    }
+
+    private record State(WebSocketSession session, PushDelivery delivery) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.rhytham.redisapi.pubsub;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds one subscriber to a transport whose send blocks, such as an SSE stream or a WebSocket session.
+ * Sends run on a small shared pool, one task per subscriber at a time, scheduled by the subscriber's
+ * signal: a slow client ties up a pool thread for its own batch only, and publishers never wait for it.
+ * A failed send or an overflow disconnect closes the transport and drops the subscriptions.
+ */
+@Slf4j
+public class PushDelivery implements Runnable {
+
+    //Messages handed to the sink per send
+    private static final int BATCH = 64;
+
+    /**
+     * The transport side of a subscription.
+     */
+    public interface Sink {
+
+        void send(List<PubSubMessage> messages) throws IOException;
+
+        //Ends the stream because the subscriber was disconnected or a send failed
+        void close();
+    }
+
+    private final PubSubBroker broker;
+    private final Executor executor;
+    private final Sink sink;
+    private final Subscriber subscriber;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public PushDelivery(PubSubBroker broker, Executor executor, String name, Sink sink) {
+        this.broker = broker;
+        this.executor = executor;
+        this.sink = sink;
+        this.subscriber = broker.subscriber(name, this::schedule);
+    }
+
+    public Subscriber getSubscriber() {
+        return subscriber;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (subscriber.isClosed()) {
+                log.debug("Closing subscriber {}: it was disconnected", subscriber.getName());
+                close(true);
+                return;
+            }
+            List<PubSubMessage> batch;
+            while (!(batch = subscriber.poll(BATCH)).isEmpty()) {
+                sink.send(batch);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Closing subscriber {}: {}", subscriber.getName(), e.toString());
+            close(true);
+        } finally {
+            scheduled.set(false);
+        }
+        //A message queued, or a disconnect, after the last poll signalled while this task was still marked scheduled
+        if (!closed.get() && (subscriber.isClosed() || subscriber.hasPending())) {
+            schedule();
+        }
+    }
+
+    /**
+     * Drops the subscriptions, when the client went away; idempotent.
+     */
+    public void close() {
+        close(false);
+    }
+
+    private void close(boolean closeSink) {
+        if (closed.compareAndSet(false, true)) {
+            broker.unsubscribeAll(subscriber);
+            subscriber.close();
+            if (closeSink) {
+                sink.close();
+            }
+        }
+    }
+}
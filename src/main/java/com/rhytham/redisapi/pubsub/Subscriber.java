@@ -0,0 +1,168 @@
+package com.rhytham.redisapi.pubsub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One subscriber's mailbox: a bounded ring filled by publishers and drained by the connection that owns it.
+ * A publisher only ever takes the ring's lock for an array store, so a slow reader can not hold it up; when
+ * the ring is full the {@link Overflow} policy decides whether the oldest message is dropped or the
+ * subscriber is closed, as Redis does with its pubsub client-output-buffer-limit.
+ * <p>
+ * {@code signal} runs, outside the lock, when the ring goes from empty to non-empty and when the subscriber
+ * is closed, so the owner only has to be woken once per batch.
+ */
+public class Subscriber {
+
+    public enum Overflow {
+        DROP, DISCONNECT;
+
+        public static Overflow parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    //What became of an offered message
+    enum Offer {
+        QUEUED, DROPPED_OLDEST, DISCONNECTED, CLOSED
+    }
+
+    private final String name;
+    private final PubSubMessage[] ring;
+    private final Overflow overflow;
+    private final Runnable signal;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //Written by the broker under subscribe and unsubscribe, read from any thread
+    final Set<String> channels = ConcurrentHashMap.newKeySet();
+    final Set<String> patterns = ConcurrentHashMap.newKeySet();
+
+    private int head;
+    private int size;
+    private long dropped;
+    private volatile boolean closed;
+
+    public Subscriber(String name, int capacity, Overflow overflow, Runnable signal) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.name = name;
+        this.ring = new PubSubMessage[capacity];
+        this.overflow = overflow;
+        this.signal = signal;
+    }
+
+    Offer offer(PubSubMessage message) {
+        Offer result;
+        boolean wake;
+        lock.lock();
+        try {
+            if (closed) {
+                return Offer.CLOSED;
+            }
+            if (size < ring.length) {
+                ring[(head + size) % ring.length] = message;
+                size++;
+                result = Offer.QUEUED;
+                wake = size == 1;
+            } else if (overflow == Overflow.DROP) {
+                dropped++;
+                ring[head] = message; //overwrite the oldest
+                head = (head + 1) % ring.length;
+                result = Offer.DROPPED_OLDEST;
+                wake = false;
+            } else {
+                dropped++;
+                closeLocked();
+                result = Offer.DISCONNECTED;
+                wake = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (wake) {
+            signal.run();
+        }
+        return result;
+    }
+
+    /**
+     * Takes up to {@code max} messages, oldest first; empty when there are none.
+     */
+    public List<PubSubMessage> poll(int max) {
+        lock.lock();
+        try {
+            int count = Math.min(max, size);
+            List<PubSubMessage> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                messages.add(ring[head]);
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+            }
+            size -= count;
+            return messages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean hasPending() {
+        lock.lock();
+        try {
+            return size > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void close() {
+        lock.lock();
+        try {
+            closeLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeLocked() {
+        closed = true;
+        Arrays.fill(ring, null);
+        head = 0;
+        size = 0;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public long droppedCount() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Channels plus patterns, the count Redis returns with every (un)subscribe reply
+    public int subscriptionCount() {
+        return channels.size() + patterns.size();
+    }
+
+    public Set<String> channels() {
+        return Set.copyOf(channels);
+    }
+
+    public Set<String> patterns() {
+        return Set.copyOf(patterns);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,56 @@
+package com.rhytham.redisapi.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Keeps a replica read-only over HTTP. Reads are served from the replica's own keyspace; a request
+ * that could write is redirected to the primary with 307, which keeps method and body, or refused
+ * with 403 when no primary URL is configured. Admin and actuator endpoints are node-local and
+ * pass through.
+ */
+public class ReadOnlyReplicaFilter extends OncePerRequestFilter {
+
+    public static final String READONLY_ERROR = "READONLY You can't write against a read only replica.";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    //POST endpoints that do not write the keyspace; pubsub is node-local, as in Redis
+    private static final Set<String> READ_POSTS = Set.of("/mget", "/pubsub/publish");
+
+    private final String primaryUrl;
+
+    public ReadOnlyReplicaFilter(String primaryUrl) {
+        this.primaryUrl = primaryUrl;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return READ_METHODS.contains(request.getMethod()) || READ_POSTS.contains(uri)
+                || uri.startsWith("/admin") || uri.startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (primaryUrl == null || primaryUrl.isBlank()) {
+            response.sendError(HttpStatus.FORBIDDEN.value(), READONLY_ERROR);
+            return;
+        }
+        StringBuilder location = new StringBuilder(primaryUrl).append(request.getRequestURI());
+        if (request.getQueryString() != null) {
+            location.append('?').append(request.getQueryString());
+        }
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.LOCATION, location.toString());
+    }
+}
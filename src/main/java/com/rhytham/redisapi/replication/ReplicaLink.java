@@ -0,0 +1,70 @@
+package com.rhytham.redisapi.replication;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * A connected replica as the primary sees it.
+ */
+public class ReplicaLink {
+
+    public enum State {
+        /** Receiving the keyspace of a full resynchronization. */
+        SYNC,
+        /** Receiving the stream. */
+        ONLINE
+    }
+
+    private final String name;
+    private final Socket socket;
+    private volatile State state = State.SYNC;
+    private volatile long ackOffset = -1;
+    private volatile long lastAckAt = System.currentTimeMillis();
+
+    ReplicaLink(String name, Socket socket) {
+        this.name = name;
+        this.socket = socket;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * The offset the replica last reported as applied, or -1 before its first report.
+     */
+    public long getAckOffset() {
+        return ackOffset;
+    }
+
+    public long getLastAckAt() {
+        return lastAckAt;
+    }
+
+    void online(long offset) {
+        ackOffset = offset;
+        lastAckAt = System.currentTimeMillis();
+        state = State.ONLINE;
+    }
+
+    void ack(long offset) {
+        ackOffset = offset;
+        lastAckAt = System.currentTimeMillis();
+    }
+
+    boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            //Closing anyway
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.rhytham.redisapi.replication;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ring buffer holding the tail of the replication stream, addressed by replication offset: the number
+ * of stream bytes the primary has produced. A replica that reconnects with an offset still held here
+ * resumes from it; an older one needs a full resynchronization.
+ */
+public class ReplicationBacklog {
+
+    private final byte[] ring;
+
+    //Guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private long offset;
+
+    public ReplicationBacklog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("backlog capacity must be positive");
+        }
+        this.ring = new byte[capacity];
+    }
+
+    public void append(ByteBuffer records) {
+        lock.lock();
+        try {
+            int length = records.remaining();
+            if (length > ring.length) {
+                //Only the tail fits; the head is already overwritten
+                records.position(records.position() + length - ring.length);
+                offset += length - ring.length;
+                length = ring.length;
+            }
+            int start = (int) (offset % ring.length);
+            int first = Math.min(length, ring.length - start);
+            records.get(ring, start, first);
+            records.get(ring, 0, length - first);
+            offset += length;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Offset of the next byte to be appended.
+     */
+    public long offset() {
+        lock.lock();
+        try {
+            return offset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Offset of the oldest byte still held.
+     */
+    public long firstOffset() {
+        lock.lock();
+        try {
+            return Math.max(0, offset - ring.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean holds(long from) {
+        lock.lock();
+        try {
+            return from >= Math.max(0, offset - ring.length) && from <= offset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies the bytes from {@code from} on into {@code into}, waiting up to {@code waitMs} for any to be
+     * appended. Returns how many were copied, 0 if none came in time, or -1 if {@code from} is no longer held.
+     */
+    public int read(long from, byte[] into, long waitMs) throws InterruptedException {
+        lock.lock();
+        try {
+            long left = TimeUnit.MILLISECONDS.toNanos(waitMs);
+            while (offset == from && left > 0) {
+                left = appended.awaitNanos(left);
+            }
+            if (from < Math.max(0, offset - ring.length) || from > offset) {
+                return -1;
+            }
+            int length = (int) Math.min(into.length, offset - from);
+            int start = (int) (from % ring.length);
+            int first = Math.min(length, ring.length - start);
+            System.arraycopy(ring, start, into, 0, first);
+            System.arraycopy(ring, 0, into, first, length - first);
+            return length;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.rhytham.redisapi.replication;
+
+import java.util.Map;
+
+/**
+ * The replication role of this process, reported as the INFO replication section.
+ */
+public interface ReplicationInfo {
+
+    Map<String, Object> describe();
+}
@@ -0,0 +1,90 @@
+package com.rhytham.redisapi.replication;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes replication state under {@code redisapi.replication.*}. On a primary every connected replica
+ * gets its own {@code lag.bytes} (stream bytes it has not acknowledged) and {@code lag.seconds} (time since
+ * its last acknowledgement) gauges, tagged with its address and removed when it disconnects.
+ */
+public class ReplicationMetrics implements MeterBinder {
+
+    private final ReplicationPrimary primary;
+    private final ReplicationReplica replica;
+
+    public ReplicationMetrics(ReplicationPrimary primary) {
+        this.primary = primary;
+        this.replica = null;
+    }
+
+    public ReplicationMetrics(ReplicationReplica replica) {
+        this.primary = null;
+        this.replica = replica;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (primary != null) {
+            bindPrimary(registry);
+        } else {
+            bindReplica(registry);
+        }
+    }
+
+    private void bindPrimary(MeterRegistry registry) {
+        Gauge.builder("redisapi.replication.offset", primary, ReplicationPrimary::offset)
+                .description("Bytes of replication stream produced")
+                .register(registry);
+        Gauge.builder("redisapi.replication.replicas", primary, p -> p.links().size())
+                .description("Connected replicas")
+                .register(registry);
+        Map<ReplicaLink, List<Meter>> meters = new ConcurrentHashMap<>();
+        primary.addLinkListener(new ReplicationPrimary.LinkListener() {
+            @Override
+            public void connected(ReplicaLink link) {
+                meters.put(link, List.of(
+                        Gauge.builder("redisapi.replication.lag.bytes", link,
+                                        l -> l.getAckOffset() < 0 ? 0 : primary.offset() - l.getAckOffset())
+                                .tag("replica", link.getName())
+                                .description("Replication stream bytes the replica has not acknowledged")
+                                .register(registry),
+                        Gauge.builder("redisapi.replication.lag.seconds", link,
+                                        l -> (System.currentTimeMillis() - l.getLastAckAt()) / 1000.0)
+                                .tag("replica", link.getName())
+                                .description("Time since the replica last acknowledged")
+                                .register(registry)));
+            }
+
+            @Override
+            public void disconnected(ReplicaLink link) {
+                List<Meter> removed = meters.remove(link);
+                if (removed != null) {
+                    removed.forEach(registry::remove);
+                }
+            }
+        });
+    }
+
+    private void bindReplica(MeterRegistry registry) {
+        Gauge.builder("redisapi.replication.offset", replica, ReplicationReplica::offset)
+                .description("Offset of the primary's replication stream applied here")
+                .register(registry);
+        Gauge.builder("redisapi.replication.link.up", replica, r -> r.isLinkUp() ? 1 : 0)
+                .description("1 while streaming from the primary")
+                .register(registry);
+        Gauge.builder("redisapi.replication.lag.seconds", replica, ReplicationReplica::secondsSinceLastIo)
+                .description("Time since anything arrived from the primary")
+                .register(registry);
+        FunctionCounter.builder("redisapi.replication.full.syncs", replica, ReplicationReplica::fullSyncCount)
+                .description("Full resynchronizations with the primary")
+                .register(registry);
+    }
+}
@@ -0,0 +1,351 @@
+package com.rhytham.redisapi.replication;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.ScanPage;
+import com.rhytham.redisapi.store.StoreListener;
+import com.rhytham.redisapi.store.aof.RecordBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Primary side of replication. Every mutation of the store is encoded as an append-only file record
+ * into the {@link ReplicationBacklog}, and each replica connection streams the backlog from its
+ * offset, like Redis replication:
+ * <ul>
+ *   <li>a replica reconnecting with this primary's replication id and an offset still in the backlog
+ *   gets the records it missed ({@code +CONTINUE});</li>
+ *   <li>any other gets the whole keyspace, read page by page with {@code scan}, followed by the stream
+ *   from the offset where the transfer began ({@code +FULLRESYNC}). Records are whole-key states, so
+ *   replaying ones the transfer already saw converges on the primary's state.</li>
+ * </ul>
+ * Replication is asynchronous: writes never wait for replicas. A replica that falls further behind
+ * than the backlog holds is disconnected and resynchronizes in full. Until the first replica connects
+ * no stream is kept at all.
+ */
+@Slf4j
+public class ReplicationPrimary implements StoreListener, ReplicationInfo {
+
+    /**
+     * Told when replicas come and go, for per-replica metrics.
+     */
+    public interface LinkListener {
+
+        void connected(ReplicaLink link);
+
+        void disconnected(ReplicaLink link);
+    }
+
+    private static final int STRIPES = 64;
+    private static final int SEND_CHUNK_BYTES = 64 * 1024;
+
+    private final KeyValueStore store;
+    private final String bind;
+    private final int port;
+    private final ReplicationBacklog backlog;
+    private final long pingIntervalMs;
+    private final int timeoutMs;
+    private final int syncBatchSize;
+    private final String replicationId;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final List<ReplicaLink> links = new CopyOnWriteArrayList<>();
+    private final List<LinkListener> linkListeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean active;
+    private volatile boolean running;
+    private ServerSocket server;
+    private Thread acceptor;
+
+    public ReplicationPrimary(KeyValueStore store, String bind, int port, int backlogBytes, long pingIntervalMs,
+                              int timeoutMs, int syncBatchSize) {
+        this.store = store;
+        this.bind = bind;
+        this.port = port;
+        this.backlog = new ReplicationBacklog(backlogBytes);
+        this.pingIntervalMs = pingIntervalMs;
+        this.timeoutMs = timeoutMs;
+        this.syncBatchSize = syncBatchSize;
+        byte[] id = new byte[20];
+        new SecureRandom().nextBytes(id);
+        this.replicationId = HexFormat.of().formatHex(id);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(bind, port));
+        store.addListener(this);
+        running = true;
+        acceptor = new Thread(this::accept, "replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Replication primary {} listening on {}:{}", replicationId, bind, server.getLocalPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        server.close();
+        links.forEach(ReplicaLink::close);
+        acceptor.join();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public String getReplicationId() {
+        return replicationId;
+    }
+
+    public long offset() {
+        return backlog.offset();
+    }
+
+    public List<ReplicaLink> links() {
+        return List.copyOf(links);
+    }
+
+    public void addLinkListener(LinkListener listener) {
+        linkListeners.add(listener);
+    }
+
+    @Override
+    public void onSave(KeyValueEntry entry) {
+        log(entry.getKey());
+    }
+
+    @Override
+    public void onDelete(String key) {
+        log(key);
+    }
+
+    @Override
+    public void onDeleteAll() {
+        if (!active) {
+            return;
+        }
+        //Every stripe, or a record for a key read before the flush could land after it
+        lockAll();
+        try {
+            RecordBuffer record = new RecordBuffer(16);
+            record.flushAll();
+            backlog.append(record.contents());
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private void log(String key) {
+        if (!active) {
+            return;
+        }
+        //Listeners fire after the store update and may run out of order for concurrent writers to one
+        //key; streaming the state read under the key's lock makes the last record for it match the store
+        ReentrantLock stripe = stripes[Math.floorMod(key.hashCode(), STRIPES)];
+        stripe.lock();
+        try {
+            RecordBuffer record = new RecordBuffer(256);
+            KeyValueEntry current = store.findById(key).orElse(null);
+            if (current != null) {
+                record.set(current);
+            } else {
+                record.del(key);
+            }
+            backlog.append(record.contents());
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    private void accept() {
+        int connections = 0;
+        while (running) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Accepting a replica failed: {}", e.getMessage());
+                }
+                continue;
+            }
+            Thread link = new Thread(() -> serve(socket), "replication-link-" + ++connections);
+            link.setDaemon(true);
+            link.start();
+        }
+    }
+
+    private void serve(Socket socket) {
+        String name = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+        ReplicaLink link = new ReplicaLink(name, socket);
+        boolean registered = false;
+        try (socket) {
+            socket.setSoTimeout(timeoutMs);
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), SEND_CHUNK_BYTES);
+            String[] psync = ReplicationProtocol.readLine(in).split(" ");
+            if (psync.length != 3 || !psync[0].equals("PSYNC")) {
+                ReplicationProtocol.writeLine(out, "-ERR expected PSYNC <replication id> <offset>");
+                return;
+            }
+            long from = Long.parseLong(psync[2]);
+            links.add(link);
+            registered = true;
+            linkListeners.forEach(listener -> listener.connected(link));
+            if (active && psync[1].equals(replicationId) && backlog.holds(from)) {
+                ReplicationProtocol.writeLine(out, "+CONTINUE " + replicationId);
+                log.info("Replica {} resumed at offset {}", name, from);
+            } else {
+                from = fullSync(name, out);
+            }
+            link.online(from);
+            Thread acks = new Thread(() -> readAcks(link, in), Thread.currentThread().getName() + "-acks");
+            acks.setDaemon(true);
+            acks.start();
+            stream(link, out, from);
+        } catch (IOException | RuntimeException e) {
+            if (running) {
+                log.info("Replica {} disconnected: {}", name, e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (registered) {
+                links.remove(link);
+                linkListeners.forEach(listener -> listener.disconnected(link));
+            }
+        }
+    }
+
+    /**
+     * Sends the keyspace and returns the offset its stream starts at.
+     */
+    private long fullSync(String name, OutputStream out) throws IOException {
+        long start;
+        lockAll();
+        try {
+            active = true;
+            start = backlog.offset();
+        } finally {
+            unlockAll();
+        }
+        ReplicationProtocol.writeLine(out, "+FULLRESYNC " + replicationId + " " + start);
+        long begin = System.currentTimeMillis();
+        long keys = 0;
+        RecordBuffer chunk = new RecordBuffer(SEND_CHUNK_BYTES);
+        chunk.flushAll();
+        String cursor = ScanPage.START;
+        do {
+            ScanPage page = store.scan(cursor, syncBatchSize);
+            for (KeyValueEntry entry : page.entries()) {
+                if (!entry.isExpired()) {
+                    chunk.set(entry);
+                    keys++;
+                }
+            }
+            if (chunk.size() >= SEND_CHUNK_BYTES) {
+                chunk.writeTo(out);
+                chunk.reset();
+            }
+            cursor = page.cursor();
+        } while (!ScanPage.START.equals(cursor));
+        chunk.syncEnd();
+        chunk.writeTo(out);
+        out.flush();
+        log.info("Sent {} keys to replica {} in {} ms, streaming from offset {}", keys, name,
+                System.currentTimeMillis() - begin, start);
+        return start;
+    }
+
+    private void stream(ReplicaLink link, OutputStream out, long from) throws IOException, InterruptedException {
+        byte[] chunk = new byte[SEND_CHUNK_BYTES];
+        RecordBuffer ping = new RecordBuffer(16);
+        ping.ping();
+        long position = from;
+        while (running && !link.isClosed()) {
+            int read = backlog.read(position, chunk, pingIntervalMs);
+            if (read < 0) {
+                log.warn("Replica {} fell behind the replication backlog at offset {}; dropping it so it resynchronizes in full",
+                        link.getName(), position);
+                return;
+            }
+            if (read == 0) {
+                //Pings are not part of the stream, so they do not move the offset
+                ping.writeTo(out);
+            } else {
+                out.write(chunk, 0, read);
+                position += read;
+            }
+            out.flush();
+        }
+    }
+
+    private static void readAcks(ReplicaLink link, InputStream in) {
+        try {
+            while (true) {
+                String[] ack = ReplicationProtocol.readLine(in).split(" ");
+                if (ack.length == 3 && ack[0].equals("REPLCONF") && ack[1].equals("ACK")) {
+                    link.ack(Long.parseLong(ack[2]));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            //A replica that stops acknowledging is gone; closing the socket stops the sender too
+            link.close();
+        }
+    }
+
+    @Override
+    public Map<String, Object> describe() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        long offset = backlog.offset();
+        long now = System.currentTimeMillis();
+        info.put("role", "primary");
+        info.put("replicationId", replicationId);
+        info.put("offset", offset);
+        info.put("backlogFirstOffset", backlog.firstOffset());
+        info.put("connectedReplicas", links.size());
+        int index = 0;
+        for (ReplicaLink link : links) {
+            info.put("replica" + index++, "name=" + link.getName() + ",state=" + link.getState().name().toLowerCase()
+                    + ",offset=" + link.getAckOffset()
+                    + ",lagBytes=" + (link.getAckOffset() < 0 ? 0 : offset - link.getAckOffset())
+                    + ",lagSeconds=" + (now - link.getLastAckAt()) / 1000);
+        }
+        return info;
+    }
+}
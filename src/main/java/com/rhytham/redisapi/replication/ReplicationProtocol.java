@@ -0,0 +1,45 @@
+package com.rhytham.redisapi.replication;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The text lines of a replication link, as in Redis. The replica opens with
+ * {@code PSYNC <replication id> <offset>} ({@code PSYNC ? -1} the first time) and the primary answers
+ * {@code +CONTINUE <replication id>} or {@code +FULLRESYNC <replication id> <offset>} before the
+ * record stream; the replica then reports what it applied with {@code REPLCONF ACK <offset>}.
+ */
+final class ReplicationProtocol {
+
+    static final String UNKNOWN_ID = "?";
+
+    private static final int MAX_LINE = 256;
+
+    private ReplicationProtocol() {
+    }
+
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("replication link closed");
+            }
+            if (b == '\n') {
+                return line.toString();
+            }
+            if (line.length() == MAX_LINE) {
+                throw new IOException("replication line too long");
+            }
+            line.append((char) b);
+        }
+    }
+
+    static void writeLine(OutputStream out, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
@@ -0,0 +1,236 @@
+package com.rhytham.redisapi.replication;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.aof.RecordBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Replica side of replication: keeps a connection to the primary, applies its stream to the local
+ * store and acknowledges the offset it reached every {@code ackIntervalMs}. Records go through the
+ * store's ordinary write methods, so listeners such as the append-only file and the expiry strategy
+ * see them. A lost link is reconnected with the last replication id and offset, so a short outage
+ * only costs the records missed.
+ */
+@Slf4j
+public class ReplicationReplica implements ReplicationInfo {
+
+    private static final long RECONNECT_DELAY_MS = 1000;
+
+    private final KeyValueStore store;
+    private final String host;
+    private final int port;
+    private final long ackIntervalMs;
+    private final int timeoutMs;
+    private final Applier applier = new Applier();
+    private final AtomicLong fullSyncs = new AtomicLong();
+
+    private volatile String replicationId = ReplicationProtocol.UNKNOWN_ID;
+    private volatile long offset = -1;
+    private volatile boolean linkUp;
+    private volatile long lastIoAt;
+    private volatile boolean running;
+    private volatile Socket socket;
+    private Thread thread;
+
+    public ReplicationReplica(KeyValueStore store, String host, int port, long ackIntervalMs, int timeoutMs) {
+        this.store = store;
+        this.host = host;
+        this.port = port;
+        this.ackIntervalMs = ackIntervalMs;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "replication-replica");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                //Closing anyway
+            }
+        }
+        thread.interrupt();
+        thread.join();
+    }
+
+    public boolean isLinkUp() {
+        return linkUp;
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    public long fullSyncCount() {
+        return fullSyncs.get();
+    }
+
+    /**
+     * Seconds since anything arrived from the primary, which pings an idle link every second.
+     */
+    public double secondsSinceLastIo() {
+        return lastIoAt == 0 ? 0 : (System.currentTimeMillis() - lastIoAt) / 1000.0;
+    }
+
+    private void run() {
+        boolean retrying = false;
+        while (running) {
+            try {
+                sync();
+            } catch (IOException | RuntimeException e) {
+                //Once per outage, not once per retry
+                if (running && (linkUp || !retrying)) {
+                    log.warn("Replication link to {}:{} lost: {}", host, port, e.getMessage());
+                }
+                retrying = true;
+            } finally {
+                linkUp = false;
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void sync() throws IOException {
+        try (Socket connection = new Socket()) {
+            socket = connection;
+            if (!running) {
+                return;
+            }
+            connection.connect(new InetSocketAddress(host, port), timeoutMs);
+            connection.setSoTimeout(timeoutMs);
+            connection.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 16));
+            OutputStream out = connection.getOutputStream();
+            ReplicationProtocol.writeLine(out, "PSYNC " + replicationId + " " + offset);
+            String[] reply = ReplicationProtocol.readLine(in).split(" ");
+            CRC32 crc = new CRC32();
+            switch (reply[0]) {
+                case "+CONTINUE" -> log.info("Resumed replication from {}:{} at offset {}", host, port, offset);
+                case "+FULLRESYNC" -> {
+                    if (reply.length != 3) {
+                        throw new IOException("Malformed reply to PSYNC: " + String.join(" ", reply));
+                    }
+                    //A link lost during the transfer must not resume from a half-loaded keyspace
+                    replicationId = ReplicationProtocol.UNKNOWN_ID;
+                    offset = -1;
+                    long keys = load(in, crc);
+                    replicationId = reply[1];
+                    offset = Long.parseLong(reply[2]);
+                    fullSyncs.incrementAndGet();
+                    log.info("Loaded {} keys from {}:{}, replicating from offset {}", keys, host, port, offset);
+                }
+                default -> throw new IOException("Primary refused to sync: " + String.join(" ", reply));
+            }
+            linkUp = true;
+            stream(in, out, crc);
+        }
+    }
+
+    private long load(DataInputStream in, CRC32 crc) throws IOException {
+        long before = applier.sets;
+        applier.syncEnd = false;
+        while (!applier.syncEnd) {
+            RecordBuffer.decode(next(in, crc), applier);
+        }
+        return applier.sets - before;
+    }
+
+    private void stream(DataInputStream in, OutputStream out, CRC32 crc) throws IOException {
+        long lastAck = 0;
+        while (running) {
+            byte[] payload = next(in, crc);
+            if (payload[0] != RecordBuffer.OP_PING) {
+                RecordBuffer.decode(payload, applier);
+                offset += payload.length + 8;
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastAck >= ackIntervalMs) {
+                ReplicationProtocol.writeLine(out, "REPLCONF ACK " + offset);
+                lastAck = now;
+            }
+        }
+    }
+
+    private byte[] next(DataInputStream in, CRC32 crc) throws IOException {
+        byte[] payload = RecordBuffer.readPayload(in, crc);
+        if (payload == null) {
+            throw new IOException("replication stream closed or corrupt");
+        }
+        lastIoAt = System.currentTimeMillis();
+        return payload;
+    }
+
+    @Override
+    public Map<String, Object> describe() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("role", "replica");
+        info.put("primaryHost", host);
+        info.put("primaryPort", port);
+        info.put("linkStatus", linkUp ? "up" : "down");
+        info.put("lastIoSecondsAgo", (long) secondsSinceLastIo());
+        info.put("replicationId", replicationId);
+        info.put("offset", offset);
+        info.put("fullSyncs", fullSyncs.get());
+        return info;
+    }
+
+    //Only used by the replication thread
+    private final class Applier implements RecordBuffer.Handler {
+
+        private boolean syncEnd;
+        private long sets;
+
+        @Override
+        public void set(KeyValueEntry entry) {
+            sets++;
+            if (entry.isExpired()) {
+                store.deleteById(entry.getKey());
+            } else {
+                store.save(entry);
+            }
+        }
+
+        @Override
+        public void del(String key) {
+            store.deleteById(key);
+        }
+
+        @Override
+        public void flushAll() {
+            store.deleteAll();
+        }
+
+        @Override
+        public void control(byte op) {
+            syncEnd = op == RecordBuffer.OP_SYNC_END;
+        }
+    }
+}
@@ -2,18 +2,81 @@ package com.rhytham.redisapi.repository;
 
 import com.rhytham.redisapi.model.KeyValueEntry;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 
 
 @Repository
-public interface KeyValueRepository extends JpaRepository<KeyValueEntry,String> {
+public interface KeyValueRepository extends JpaRepository<KeyValueEntry,String>, KeyValueRepositoryCustom {
 
-    @Modifying
+    //One bounded chunk of the expiry sweep: picked through the partial index on expiry_time, deleted by primary key. SKIP LOCKED lets
+    //concurrent sweepers split the work; the outer condition spares a row re-set with a later expiry meanwhile.
+    //Returns the deleted keys so the store can raise expired events
     @Transactional
-    @Query("DELETE FROM KeyValueEntry e WHERE e.expiryTime IS NOT NULL AND e.expiryTime <= :now")
-    void deleteAllExpired(@Param("now") Long now);
+    @Query(value = "DELETE FROM key_value_store WHERE key = ANY(ARRAY(SELECT key FROM key_value_store "
+            + "WHERE expiry_time <= :now LIMIT :limit FOR UPDATE SKIP LOCKED)) AND expiry_time <= :now RETURNING key",
+            nativeQuery = true)
+    List<String> deleteExpiredChunk(@Param("now") long now, @Param("limit") int limit);
+
+    //Conditional delete for the expiry engine: skips keys that were re-set with a later or no expiry
+    @Transactional
+    @Query(value = "DELETE FROM key_value_store WHERE key IN (:keys) AND expiry_time <= :now RETURNING key", nativeQuery = true)
+    List<String> deleteExpiredReturningKeys(@Param("keys") Collection<String> keys, @Param("now") Long now);
+
+    @Transactional
+    @Query(value = "DELETE FROM key_value_store WHERE key IN (:keys) RETURNING key", nativeQuery = true)
+    List<String> deleteAllByIdReturningKeys(@Param("keys") Collection<String> keys);
+
+    //Keyset page ordered by primary key, used to stream the table without OFFSET scans
+    List<KeyValueEntry> findByKeyGreaterThanOrderByKeyAsc(String key, Limit limit);
+
+    List<KeyValueEntry> findByKeyGreaterThanAndExpiryTimeIsNotNullOrderByKeyAsc(String key, Limit limit);
+
+    //All keyspace counters in one table scan
+    @Query(value = "SELECT count(*) AS \"total\", count(expiry_time) AS \"withExpiry\", "
+            + "count(*) FILTER (WHERE expiry_time <= :now) AS \"expired\", "
+            + "coalesce(sum(octet_length(key) + octet_length(value)), 0) AS \"bytes\" FROM key_value_store",
+            nativeQuery = true)
+    KeyspaceCounts keyspaceCounts(@Param("now") long now);
+
+    //Encoded size and original size per type and encoding tag, without decompressing: a zstd value carries its length
+    @Query(value = "SELECT coalesce(value_type, 'STRING') AS \"type\", get_byte(value, 0) AS \"tag\", count(*) AS \"keys\", "
+            + "sum(octet_length(value)) AS \"storedBytes\", "
+            + "sum(CASE get_byte(value, 0) WHEN 0 THEN octet_length(value) - 1 "
+            + "WHEN 1 THEN length(CAST(kv_decode_int(value) AS text)) "
+            + "ELSE CAST(CAST('x' || encode(substring(value FROM 2 FOR 4), 'hex') AS bit(32)) AS int) END) AS \"rawBytes\" "
+            + "FROM key_value_store GROUP BY 1, 2",
+            nativeQuery = true)
+    List<EncodingUsage> encodingUsage();
+
+    @Query(value = "SELECT pg_total_relation_size('key_value_store')", nativeQuery = true)
+    long totalRelationSize();
+
+    interface EncodingUsage {
+        String getType();
+
+        int getTag();
+
+        long getKeys();
+
+        long getStoredBytes();
+
+        long getRawBytes();
+    }
+
+    interface KeyspaceCounts {
+        long getTotal();
+
+        long getWithExpiry();
+
+        long getExpired();
+
+        long getBytes();
+    }
 
 }
@@ -0,0 +1,47 @@
+package com.rhytham.redisapi.repository;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import jakarta.persistence.LockModeType;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+public interface KeyValueRepositoryCustom {
+
+    /**
+     * Inserts or updates all entries with one JDBC batch of {@code INSERT ... ON CONFLICT DO UPDATE},
+     * avoiding the SELECT that {@code save} issues for every entity with an assigned id.
+     */
+    void upsertAll(Collection<KeyValueEntry> entries);
+
+    /**
+     * Read-modify-write of one row in one transaction. With {@link LockModeType#NONE} the row is read
+     * without a lock and the write is checked against its version, failing with an optimistic locking
+     * exception if another writer got in between; with {@link LockModeType#PESSIMISTIC_WRITE} it is read
+     * with {@code SELECT ... FOR UPDATE} and concurrent writers queue up instead. A missing key is inserted,
+     * never merged, so a racing insert fails with a constraint violation instead of being silently overwritten.
+     */
+    KeyValueEntry compute(String key, UnaryOperator<KeyValueEntry> update, LockModeType lockMode);
+
+    /**
+     * INCRBY as one {@code INSERT ... ON CONFLICT DO UPDATE ... RETURNING}: a missing or expired key starts from 0,
+     * a live one is added to in place. Empty when the key holds a non-integer or another data type.
+     */
+    Optional<KeyValueEntry> incrementBy(String key, long delta, long now);
+
+    /**
+     * Inserts the entry unless a live row exists for its key; an expired row is replaced. Returns whether it was written.
+     */
+    boolean insertIfAbsent(KeyValueEntry entry, long now);
+
+    /**
+     * Sets the expiry of a live row in one {@code UPDATE ... RETURNING}; empty when the key is missing or expired.
+     */
+    Optional<KeyValueEntry> updateExpiry(String key, long expiryTime, long now);
+
+    /**
+     * Conditional {@code UPDATE ... RETURNING} of a live string row; empty when the value did not match.
+     */
+    Optional<KeyValueEntry> compareAndSet(String key, String expected, String value, long now);
+}
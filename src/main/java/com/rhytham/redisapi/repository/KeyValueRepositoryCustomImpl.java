@@ -0,0 +1,135 @@
+package com.rhytham.redisapi.repository;
+
+import com.rhytham.redisapi.codec.ValueCodec;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+@RequiredArgsConstructor
+public class KeyValueRepositoryCustomImpl implements KeyValueRepositoryCustom {
+
+    //Every statement below bumps version, so it stays a reliable change marker for the optimistic compute
+    private static final String UPSERT_SQL =
+            "INSERT INTO key_value_store (key, value, expiry_time, value_type, version) VALUES (?, ?, ?, ?, 0) "
+                    + "ON CONFLICT (key) DO UPDATE SET value = EXCLUDED.value, expiry_time = EXCLUDED.expiry_time, "
+                    + "value_type = EXCLUDED.value_type, version = key_value_store.version + 1";
+
+    //An expired row restarts from the increment; the WHERE leaves non-integer and typed values untouched so no row comes back.
+    //kv_encode_int and kv_decode_int are the integer encoding of ValueCodec, defined by the V4 migration
+    private static final String INCREMENT_SQL =
+            "INSERT INTO key_value_store (key, value, expiry_time, value_type, version) VALUES (?, kv_encode_int(?), NULL, NULL, 0) "
+                    + "ON CONFLICT (key) DO UPDATE SET version = key_value_store.version + 1, "
+                    + "value = CASE WHEN key_value_store.expiry_time <= ? THEN EXCLUDED.value "
+                    + "ELSE kv_encode_int(kv_decode_int(key_value_store.value) + ?) END, "
+                    + "expiry_time = CASE WHEN key_value_store.expiry_time <= ? THEN NULL ELSE key_value_store.expiry_time END, "
+                    + "value_type = NULL "
+                    + "WHERE key_value_store.expiry_time <= ? "
+                    + "OR key_value_store.value_type IS NULL AND kv_decode_int(key_value_store.value) IS NOT NULL "
+                    + "RETURNING value, expiry_time";
+
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO key_value_store (key, value, expiry_time, value_type, version) VALUES (?, ?, ?, ?, 0) "
+                    + "ON CONFLICT (key) DO UPDATE SET value = EXCLUDED.value, expiry_time = EXCLUDED.expiry_time, "
+                    + "value_type = EXCLUDED.value_type, version = key_value_store.version + 1 "
+                    + "WHERE key_value_store.expiry_time <= ?";
+
+    //Encoded values are compared, so the expected value is passed in every form it may be stored in
+    private static final String COMPARE_AND_SET_SQL =
+            "UPDATE key_value_store SET value = ?, version = version + 1 WHERE key = ? AND value IN (?, ?) AND value_type IS NULL "
+                    + "AND (expiry_time IS NULL OR expiry_time > ?) RETURNING expiry_time";
+
+    private static final String UPDATE_EXPIRY_SQL =
+            "UPDATE key_value_store SET expiry_time = ?, version = version + 1 "
+                    + "WHERE key = ? AND (expiry_time IS NULL OR expiry_time > ?) RETURNING value, value_type";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void upsertAll(Collection<KeyValueEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setString(1, entry.getKey());
+            ps.setBytes(2, entry.getEncoded());
+            if (entry.getExpiryTime() == null) {
+                ps.setNull(3, Types.BIGINT);
+            } else {
+                ps.setLong(3, entry.getExpiryTime());
+            }
+            ps.setString(4, entry.getType() == ValueType.STRING ? null : entry.getType().name());
+        });
+    }
+
+    @Override
+    public Optional<KeyValueEntry> incrementBy(String key, long delta, long now) {
+        List<KeyValueEntry> updated = jdbcTemplate.query(INCREMENT_SQL,
+                (rs, row) -> KeyValueEntry.fromEncoded(key, rs.getBytes("value"), rs.getObject("expiry_time", Long.class), null),
+                key, delta, now, delta, now, now);
+        return updated.stream().findFirst();
+    }
+
+    @Override
+    public boolean insertIfAbsent(KeyValueEntry entry, long now) {
+        return jdbcTemplate.update(INSERT_IF_ABSENT_SQL, entry.getKey(), entry.getEncoded(), entry.getExpiryTime(),
+                entry.getType() == ValueType.STRING ? null : entry.getType().name(), now) == 1;
+    }
+
+    @Override
+    public Optional<KeyValueEntry> updateExpiry(String key, long expiryTime, long now) {
+        List<KeyValueEntry> updated = jdbcTemplate.query(UPDATE_EXPIRY_SQL,
+                (rs, row) -> {
+                    String type = rs.getString("value_type");
+                    return KeyValueEntry.fromEncoded(key, rs.getBytes("value"), expiryTime, type == null ? null : ValueType.valueOf(type));
+                },
+                expiryTime, key, now);
+        return updated.stream().findFirst();
+    }
+
+    @Override
+    public Optional<KeyValueEntry> compareAndSet(String key, String expected, String value, long now) {
+        ValueCodec codec = ValueCodec.current();
+        List<KeyValueEntry> updated = jdbcTemplate.query(COMPARE_AND_SET_SQL,
+                (rs, row) -> new KeyValueEntry(key, value, rs.getObject("expiry_time", Long.class)),
+                codec.encode(value), key, codec.encode(expected), ValueCodec.encodeRaw(expected), now);
+        return updated.stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public KeyValueEntry compute(String key, UnaryOperator<KeyValueEntry> update, LockModeType lockMode) {
+        KeyValueEntry current = entityManager.find(KeyValueEntry.class, key, lockMode);
+        KeyValueEntry next = update.apply(current);
+        if (next == null) {
+            if (current != null) {
+                entityManager.remove(current);
+            }
+        } else if (current != null) {
+            next.syncValue();
+            if (next != current) {
+                //merge rejects a detached copy whose version differs from the row it read
+                next.setVersion(current.getVersion());
+                next = entityManager.merge(next);
+            }
+        } else {
+            next.syncValue();
+            //merge would re-read the row and turn a racing insert into an overwrite
+            entityManager.persist(next);
+        }
+        //Flushed here so a version conflict or duplicate key is raised, and translated, inside this call
+        entityManager.flush();
+        return next;
+    }
+}
@@ -0,0 +1,214 @@
+package com.rhytham.redisapi.repository;
+
+import com.rhytham.redisapi.codec.ValueCodec;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HexFormat;
+
+/**
+ * Non-blocking access to {@code key_value_store} over R2DBC, for the reactive profile. The statements
+ * match the ones {@link KeyValueRepositoryCustomImpl} runs over JDBC, so both stacks read and write
+ * the same rows and keep bumping {@code version} on every write. Key lists are bound as one array
+ * parameter ({@code key = ANY(:keys)}) rather than expanded into an IN list.
+ */
+@RequiredArgsConstructor
+public class ReactiveKeyValueRepository {
+
+    private static final String COLUMNS = "key, value, expiry_time, value_type";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO key_value_store (key, value, expiry_time, value_type, version) VALUES (:key, :value, :expiry, :type, 0) "
+                    + "ON CONFLICT (key) DO UPDATE SET value = EXCLUDED.value, expiry_time = EXCLUDED.expiry_time, "
+                    + "value_type = EXCLUDED.value_type, version = key_value_store.version + 1";
+
+    //One statement for the whole batch; keys must be distinct, ON CONFLICT cannot update a row twice. The driver
+    //has no bytea[] parameter, so the encoded values travel as hex text
+    private static final String UPSERT_ALL_SQL =
+            "INSERT INTO key_value_store (key, value, expiry_time, value_type, version) "
+                    + "SELECT k, decode(v, 'hex'), e, t, 0 FROM unnest(:keys::text[], :values::text[], :expiries::bigint[], :types::text[]) AS b(k, v, e, t) "
+                    + "ON CONFLICT (key) DO UPDATE SET value = EXCLUDED.value, expiry_time = EXCLUDED.expiry_time, "
+                    + "value_type = EXCLUDED.value_type, version = key_value_store.version + 1";
+
+    private static final String INCREMENT_SQL =
+            "INSERT INTO key_value_store (key, value, expiry_time, value_type, version) VALUES (:key, kv_encode_int(:delta), NULL, NULL, 0) "
+                    + "ON CONFLICT (key) DO UPDATE SET version = key_value_store.version + 1, "
+                    + "value = CASE WHEN key_value_store.expiry_time <= :now THEN EXCLUDED.value "
+                    + "ELSE kv_encode_int(kv_decode_int(key_value_store.value) + :delta) END, "
+                    + "expiry_time = CASE WHEN key_value_store.expiry_time <= :now THEN NULL ELSE key_value_store.expiry_time END, "
+                    + "value_type = NULL "
+                    + "WHERE key_value_store.expiry_time <= :now "
+                    + "OR key_value_store.value_type IS NULL AND kv_decode_int(key_value_store.value) IS NOT NULL "
+                    + "RETURNING kv_decode_int(value) AS result";
+
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO key_value_store (key, value, expiry_time, value_type, version) VALUES (:key, :value, :expiry, :type, 0) "
+                    + "ON CONFLICT (key) DO UPDATE SET value = EXCLUDED.value, expiry_time = EXCLUDED.expiry_time, "
+                    + "value_type = EXCLUDED.value_type, version = key_value_store.version + 1 "
+                    + "WHERE key_value_store.expiry_time <= :now";
+
+    private static final String COMPARE_AND_SET_SQL =
+            "UPDATE key_value_store SET value = :value, version = version + 1 WHERE key = :key AND value IN (:expected, :expectedRaw) "
+                    + "AND value_type IS NULL AND (expiry_time IS NULL OR expiry_time > :now)";
+
+    private static final String UPDATE_EXPIRY_SQL =
+            "UPDATE key_value_store SET expiry_time = :expiry, version = version + 1 "
+                    + "WHERE key = :key AND (expiry_time IS NULL OR expiry_time > :now)";
+
+    private final DatabaseClient client;
+
+    public Mono<KeyValueEntry> findById(String key) {
+        return client.sql("SELECT " + COLUMNS + " FROM key_value_store WHERE key = :key")
+                .bind("key", key)
+                .map(ReactiveKeyValueRepository::entry)
+                .one();
+    }
+
+    public Flux<KeyValueEntry> findAllById(Collection<String> keys) {
+        return client.sql("SELECT " + COLUMNS + " FROM key_value_store WHERE key = ANY(:keys)")
+                .bind("keys", keys.toArray(String[]::new))
+                .map(ReactiveKeyValueRepository::entry)
+                .all();
+    }
+
+    //Keyset page ordered by primary key, like findByKeyGreaterThanOrderByKeyAsc
+    public Flux<KeyValueEntry> findPage(String after, int limit) {
+        return client.sql("SELECT " + COLUMNS + " FROM key_value_store WHERE key > :after ORDER BY key LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveKeyValueRepository::entry)
+                .all();
+    }
+
+    public Mono<Boolean> existsLive(long now) {
+        return client.sql("SELECT 1 FROM key_value_store WHERE expiry_time IS NULL OR expiry_time > :now LIMIT 1")
+                .bind("now", now)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    public Mono<Void> upsert(KeyValueEntry entry) {
+        return bindEntry(client.sql(UPSERT_SQL), entry).then();
+    }
+
+    public Mono<Void> upsertAll(Collection<KeyValueEntry> entries) {
+        if (entries.isEmpty()) {
+            return Mono.empty();
+        }
+        int size = entries.size();
+        String[] keys = new String[size];
+        String[] values = new String[size];
+        Long[] expiries = new Long[size];
+        String[] types = new String[size];
+        int i = 0;
+        for (KeyValueEntry entry : entries) {
+            keys[i] = entry.getKey();
+            values[i] = HexFormat.of().formatHex(entry.getEncoded());
+            expiries[i] = entry.getExpiryTime();
+            types[i] = typeName(entry);
+            i++;
+        }
+        return client.sql(UPSERT_ALL_SQL)
+                .bind("keys", keys)
+                .bind("values", values)
+                .bind("expiries", expiries)
+                .bind("types", types)
+                .then();
+    }
+
+    /**
+     * Adds delta to an integer value, starting from 0 for a missing or expired key, and emits the new
+     * value; empty when the key holds something other than an integer.
+     */
+    public Mono<Long> incrementBy(String key, long delta, long now) {
+        return client.sql(INCREMENT_SQL)
+                .bind("key", key)
+                .bind("delta", delta)
+                .bind("now", now)
+                .map(row -> row.get("result", Long.class))
+                .one();
+    }
+
+    public Mono<Boolean> insertIfAbsent(KeyValueEntry entry, long now) {
+        return bindEntry(client.sql(INSERT_IF_ABSENT_SQL), entry).bind("now", now)
+                .fetch().rowsUpdated().map(count -> count == 1);
+    }
+
+    public Mono<Boolean> compareAndSet(String key, String expected, String value, long now) {
+        ValueCodec codec = ValueCodec.current();
+        return client.sql(COMPARE_AND_SET_SQL)
+                .bind("key", key)
+                .bind("expected", codec.encode(expected))
+                .bind("expectedRaw", ValueCodec.encodeRaw(expected))
+                .bind("value", codec.encode(value))
+                .bind("now", now)
+                .fetch().rowsUpdated().map(count -> count == 1);
+    }
+
+    public Mono<Boolean> updateExpiry(String key, long expiryTime, long now) {
+        return client.sql(UPDATE_EXPIRY_SQL)
+                .bind("key", key)
+                .bind("expiry", expiryTime)
+                .bind("now", now)
+                .fetch().rowsUpdated().map(count -> count == 1);
+    }
+
+    public Mono<Long> deleteAllById(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return client.sql("DELETE FROM key_value_store WHERE key = ANY(:keys)")
+                .bind("keys", keys.toArray(String[]::new))
+                .fetch().rowsUpdated();
+    }
+
+    //Conditional, so a key re-set with a later or no expiry in the meantime survives
+    public Mono<Long> deleteExpired(Collection<String> keys, long now) {
+        if (keys.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return client.sql("DELETE FROM key_value_store WHERE key = ANY(:keys) AND expiry_time <= :now")
+                .bind("keys", keys.toArray(String[]::new))
+                .bind("now", now)
+                .fetch().rowsUpdated();
+    }
+
+    //Same bounded chunk as KeyValueRepository.deleteExpiredChunk
+    public Mono<Long> deleteExpiredChunk(long now, int limit) {
+        return client.sql("DELETE FROM key_value_store WHERE key = ANY(ARRAY(SELECT key FROM key_value_store "
+                        + "WHERE expiry_time <= :now LIMIT :limit FOR UPDATE SKIP LOCKED)) AND expiry_time <= :now")
+                .bind("now", now)
+                .bind("limit", limit)
+                .fetch().rowsUpdated();
+    }
+
+    public Mono<Void> deleteAll() {
+        return client.sql("DELETE FROM key_value_store").then();
+    }
+
+    private static GenericExecuteSpec bindEntry(GenericExecuteSpec spec, KeyValueEntry entry) {
+        spec = spec.bind("key", entry.getKey()).bind("value", entry.getEncoded());
+        spec = entry.getExpiryTime() == null ? spec.bindNull("expiry", Long.class) : spec.bind("expiry", entry.getExpiryTime());
+        String type = typeName(entry);
+        return type == null ? spec.bindNull("type", String.class) : spec.bind("type", type);
+    }
+
+    //Null for strings, as the JPA entity stores them
+    private static String typeName(KeyValueEntry entry) {
+        return entry.getType() == ValueType.STRING ? null : entry.getType().name();
+    }
+
+    private static KeyValueEntry entry(Readable row) {
+        String type = row.get("value_type", String.class);
+        return KeyValueEntry.fromEncoded(row.get("key", String.class), row.get("value", byte[].class),
+                row.get("expiry_time", Long.class), type == null ? null : ValueType.valueOf(type));
+    }
+}
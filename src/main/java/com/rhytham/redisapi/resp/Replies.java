@@ -0,0 +1,129 @@
+package com.rhytham.redisapi.resp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replies as values, for commands that run on behalf of a script or the HTTP API rather than a client
+ * connection: an integer is a Long, a bulk string a byte[], nil is null, an array a List, and status and
+ * error replies are the records below.
+ */
+final class Replies {
+
+    record Status(String message) {
+    }
+
+    record Error(String message) {
+    }
+
+    private Replies() {
+    }
+
+    /**
+     * Decodes the replies a RESP2 writer holds, and empties it.
+     */
+    static List<Object> take(RespWriter out) {
+        ByteBuffer buffer = out.pending();
+        int size = buffer.remaining();
+        List<Object> replies = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            replies.add(read(buffer));
+        }
+        out.written(size);
+        return replies;
+    }
+
+    private static Object read(ByteBuffer buffer) {
+        byte type = buffer.get();
+        String line = line(buffer);
+        switch (type) {
+            case '+' -> {
+                return new Status(line);
+            }
+            case '-' -> {
+                return new Error(line);
+            }
+            case ':' -> {
+                return Long.parseLong(line);
+            }
+            case '$' -> {
+                int length = Integer.parseInt(line);
+                if (length < 0) {
+                    return null;
+                }
+                byte[] value = new byte[length];
+                buffer.get(value);
+                buffer.position(buffer.position() + 2);
+                return value;
+            }
+            case '*' -> {
+                int length = Integer.parseInt(line);
+                if (length < 0) {
+                    return null;
+                }
+                List<Object> values = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    values.add(read(buffer));
+                }
+                return values;
+            }
+            default -> throw new IllegalStateException("Unexpected reply type " + (char) type);
+        }
+    }
+
+    private static String line(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.get(buffer.position()) != '\r') {
+            buffer.position(buffer.position() + 1);
+        }
+        String line = new String(buffer.array(), buffer.arrayOffset() + start, buffer.position() - start, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + 2);
+        return line;
+    }
+
+    static void write(Object reply, RespWriter out) {
+        if (reply == null) {
+            out.nullValue();
+        } else if (reply instanceof Long value) {
+            out.integer(value);
+        } else if (reply instanceof byte[] value) {
+            out.bulk(value);
+        } else if (reply instanceof Status status) {
+            out.simple(status.message());
+        } else if (reply instanceof Error error) {
+            out.error(error.message());
+        } else if (reply instanceof List<?> values) {
+            out.arrayHeader(values.size());
+            for (Object value : values) {
+                write(value, out);
+            }
+        } else {
+            throw new IllegalArgumentException("Not a reply: " + reply.getClass().getName());
+        }
+    }
+
+    /**
+     * The reply as JSON-friendly values: strings for bulk and status replies, with errors only at the top.
+     */
+    static Object plain(Object reply) {
+        if (reply instanceof byte[] value) {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+        if (reply instanceof Status status) {
+            return status.message();
+        }
+        if (reply instanceof Error error) {
+            return error.message();
+        }
+        if (reply instanceof List<?> values) {
+            List<Object> plain = new ArrayList<>(values.size());
+            for (Object value : values) {
+                plain.add(plain(value));
+            }
+            return plain;
+        }
+        return reply;
+    }
+}
@@ -0,0 +1,1161 @@
+package com.rhytham.redisapi.resp;
+
+import com.rhytham.redisapi.cluster.ClusterNode;
+import com.rhytham.redisapi.cluster.ClusterRouter;
+import com.rhytham.redisapi.cluster.HashSlots;
+import com.rhytham.redisapi.cluster.SlotTable;
+import com.rhytham.redisapi.datatype.ScoreRange;
+import com.rhytham.redisapi.datatype.ScoredMember;
+import com.rhytham.redisapi.dto.KeyValueRequest;
+import com.rhytham.redisapi.dto.PipelineResult;
+import com.rhytham.redisapi.exception.KeyNotFoundException;
+import com.rhytham.redisapi.exception.MaxMemoryException;
+import com.rhytham.redisapi.exception.WrongTypeException;
+import com.rhytham.redisapi.pubsub.PubSubBroker;
+import com.rhytham.redisapi.pubsub.PubSubMessage;
+import com.rhytham.redisapi.pubsub.Subscriber;
+import com.rhytham.redisapi.replication.ReadOnlyReplicaFilter;
+import com.rhytham.redisapi.service.InfoService;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.MemoryStats;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Maps RESP commands onto {@link RedisService}. Replies follow Redis semantics, so a
+ * missing key is a null reply or a zero count rather than an error.
+ * <p>
+ * In cluster mode commands are routed as in Redis Cluster: keys served elsewhere get
+ * {@code -MOVED} or {@code -ASK}, which cluster-aware clients follow, and a command whose keys
+ * are not all served here in one slot gets {@code -CROSSSLOT}. A replica answers writes with {@code -READONLY}.
+ * <p>
+ * Pubsub follows Redis too: a RESP2 connection that subscribed only takes subscription commands, and messages
+ * arrive as arrays, or as push frames in RESP3, where the connection can run other commands in between.
+ * <p>
+ * MULTI/EXEC and EVAL run as one step against every other command on their keys, through
+ * {@link RedisService#atomically}: a transaction locks the keys of all its queued commands and watches, and a
+ * script the keys it declares, which are then the only ones it may touch.
+ */
+public class RespCommandHandler {
+
+    //Commands whose only key is the first argument
+    private static final Set<String> SINGLE_KEY = Set.of("GET", "SET", "SETNX", "GETSET", "INCR", "DECR", "INCRBY",
+            "DECRBY", "INCRBYFLOAT", "EXPIRE", "TTL", "TYPE", "HSET", "HGET", "HDEL", "HGETALL", "HINCRBY", "LPUSH",
+            "RPUSH", "LPOP", "RPOP", "LRANGE", "SADD", "SREM", "SISMEMBER", "SMEMBERS", "ZADD", "ZREM", "ZSCORE",
+            "ZRANGEBYSCORE");
+
+    //Refused on a replica
+    private static final Set<String> WRITE = Set.of("SET", "SETNX", "GETSET", "INCR", "DECR", "INCRBY", "DECRBY",
+            "INCRBYFLOAT", "MSET", "DEL", "EXPIRE", "HSET", "HDEL", "HINCRBY", "LPUSH", "RPUSH", "LPOP", "RPOP", "SADD",
+            "SREM", "ZADD", "ZREM", "FLUSHALL", "FLUSHDB");
+
+    //All a subscribed RESP2 connection may run
+    private static final Set<String> SUBSCRIBED_MODE = Set.of("SUBSCRIBE", "PSUBSCRIBE", "UNSUBSCRIBE", "PUNSUBSCRIBE",
+            "PING", "QUIT", "RESET");
+
+    //Run right away between MULTI and EXEC instead of being queued
+    private static final Set<String> TRANSACTION_CONTROL = Set.of("MULTI", "EXEC", "DISCARD", "WATCH", "QUIT", "RESET");
+
+    //Walk the whole keyspace, so a transaction running one locks every key
+    private static final Set<String> KEYSPACE = Set.of("KEYS", "SCAN", "FLUSHALL", "FLUSHDB");
+
+    //All redis.call may run: commands whose keys are known before they run, and a few without any
+    private static final Set<String> SCRIPT_COMMANDS = Stream.concat(SINGLE_KEY.stream(),
+            Stream.of("MGET", "MSET", "DEL", "EXISTS", "OBJECT", "MEMORY", "PING", "ECHO", "PUBLISH"))
+            .collect(Collectors.toUnmodifiableSet());
+
+    //Change or outlive the connection, so the HTTP API, whose connection ends with the call, refuses them
+    private static final Set<String> CONNECTION_SCOPED = Set.of("SUBSCRIBE", "PSUBSCRIBE", "UNSUBSCRIBE",
+            "PUNSUBSCRIBE", "HELLO", "QUIT", "RESET", "CLIENT", "SELECT", "ASKING", "MULTI", "EXEC", "DISCARD", "WATCH",
+            "UNWATCH");
+
+    private static final int DEFAULT_SCRIPT_CACHE_SIZE = 1000;
+    private static final long DEFAULT_SCRIPT_TIME_LIMIT_MS = 5000;
+
+    private final RedisService redisService;
+    private final InfoService infoService;
+    private final ClusterRouter router;
+    private final boolean replica;
+    private final PubSubBroker broker;
+    private final ScriptEngine scripts;
+
+    public RespCommandHandler(RedisService redisService, InfoService infoService) {
+        this(redisService, infoService, null, false, null);
+    }
+
+    public RespCommandHandler(RedisService redisService, InfoService infoService, ClusterRouter router, boolean replica,
+                              PubSubBroker broker) {
+        this(redisService, infoService, router, replica, broker,
+                new ScriptEngine(DEFAULT_SCRIPT_CACHE_SIZE, DEFAULT_SCRIPT_TIME_LIMIT_MS));
+    }
+
+    /**
+     * @param router null outside cluster mode
+     * @param replica whether this is a read-only replica, which refuses writes with {@code -READONLY}
+     * @param broker null to leave the pubsub commands out
+     */
+    public RespCommandHandler(RedisService redisService, InfoService infoService, ClusterRouter router, boolean replica,
+                              PubSubBroker broker, ScriptEngine scripts) {
+        this.redisService = redisService;
+        this.infoService = infoService;
+        this.router = router;
+        this.replica = replica;
+        this.broker = broker;
+        this.scripts = scripts;
+    }
+
+    /**
+     * Runs commands for a caller without a RESP connection, the HTTP API, on a connection that lasts for
+     * this call, and returns each reply as a result or an error. Commands scoped to a connection, such as
+     * SUBSCRIBE, are refused.
+     */
+    public List<PipelineResult> call(List<List<byte[]>> commands) {
+        RespWriter out = new RespWriter();
+        for (List<byte[]> command : commands) {
+            String refused = connectionScoped(command);
+            if (refused != null) {
+                out.error(refused);
+            } else {
+                handle(command, out);
+            }
+        }
+        return results(Replies.take(out));
+    }
+
+    /**
+     * MULTI/EXEC for the HTTP API, where WATCH can not span requests: {@code watched} holds the versions the
+     * client read from {@link RedisService#version}, and the transaction is aborted, returning null, if any
+     * of them moved. A command refused while queueing, such as one for a key served by another cluster
+     * node, or one scoped to a connection, discards the transaction with IllegalArgumentException.
+     */
+    public List<PipelineResult> transaction(Map<String, Long> watched, List<List<byte[]>> commands) {
+        for (List<byte[]> command : commands) {
+            String refused = connectionScoped(command);
+            if (refused != null) {
+                throw new IllegalArgumentException("EXECABORT Transaction discarded because of previous errors. " + refused);
+            }
+        }
+        RespWriter out = new RespWriter();
+        Transaction transaction = new Transaction();
+        watched.forEach(transaction::watch);
+        out.setTransaction(transaction);
+        handle(List.of("MULTI".getBytes(StandardCharsets.UTF_8)), out);
+        for (List<byte[]> command : commands) {
+            handle(command, out);
+        }
+        handle(List.of("EXEC".getBytes(StandardCharsets.UTF_8)), out);
+        List<Object> replies = Replies.take(out);
+        Object exec = replies.get(replies.size() - 1);
+        if (exec instanceof Replies.Error error) {
+            //The refusal that doomed it says more than EXECABORT does
+            for (Object reply : replies.subList(0, replies.size() - 1)) {
+                if (reply instanceof Replies.Error refused) {
+                    throw new IllegalArgumentException(error.message() + " " + refused.message());
+                }
+            }
+            throw new IllegalArgumentException(error.message());
+        }
+        return exec == null ? null : results((List<?>) exec);
+    }
+
+    //The error for a command the HTTP API can not run, or null
+    private static String connectionScoped(List<byte[]> command) {
+        String name = string(command.get(0)).toUpperCase(Locale.ROOT);
+        return CONNECTION_SCOPED.contains(name)
+                ? "ERR Can't execute '" + name.toLowerCase(Locale.ROOT) + "' over HTTP: it needs a RESP connection"
+                : null;
+    }
+
+    private static List<PipelineResult> results(List<?> replies) {
+        List<PipelineResult> results = new ArrayList<>(replies.size());
+        for (Object reply : replies) {
+            results.add(reply instanceof Replies.Error error ? PipelineResult.error(error.message())
+                    : PipelineResult.ok(Replies.plain(reply)));
+        }
+        return results;
+    }
+
+    public ScriptEngine getScripts() {
+        return scripts;
+    }
+
+    /**
+     * Executes one command and appends its reply. Returns false when the client asked to close.
+     */
+    boolean handle(List<byte[]> args, RespWriter out) {
+        String name = string(args.get(0)).toUpperCase(Locale.ROOT);
+        if (out.isSubscribed() && out.getProtocol() < 3 && !SUBSCRIBED_MODE.contains(name)) {
+            refuse(out, "ERR Can't execute '" + name.toLowerCase(Locale.ROOT)
+                    + "': only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT / RESET are allowed in this context");
+            return true;
+        }
+        if (replica && WRITE.contains(name)) {
+            refuse(out, ReadOnlyReplicaFilter.READONLY_ERROR);
+            return true;
+        }
+        if (router == null) {
+            return run(name, args, out);
+        }
+        //ASKING only lasts for the next command
+        boolean asking = out.isAsking();
+        out.setAsking(false);
+        switch (name) {
+            case "ASKING" -> {
+                out.setAsking(true);
+                out.simple("OK");
+                return true;
+            }
+            case "CLUSTER" -> {
+                cluster(args, out);
+                return true;
+            }
+            default -> {
+            }
+        }
+        List<String> keys = keys(name, args);
+        if (keys.isEmpty()) {
+            return run(name, args, out);
+        }
+        try (ClusterRouter.Lease ignored = router.lease(keys)) {
+            ClusterRouter.Route redirect = null;
+            boolean local = false;
+            int slot = -1;
+            for (String key : keys) {
+                ClusterRouter.Route route = router.route(key, asking);
+                if (slot != -1 && route.slot() != slot) {
+                    refuse(out, "CROSSSLOT Keys in request don't hash to the same slot");
+                    return true;
+                }
+                slot = route.slot();
+                if (route.isLocal()) {
+                    local = true;
+                } else {
+                    redirect = route;
+                }
+            }
+            if (redirect == null) {
+                return run(name, args, out);
+            }
+            if (local) {
+                //Some of the keys already moved to the node importing the slot
+                refuse(out, "TRYAGAIN Multiple keys request during rehashing of slot");
+            } else {
+                refuse(out, redirect.redirect());
+            }
+            return true;
+        }
+    }
+
+    //Between MULTI and EXEC commands are queued, once they passed the checks above
+    private boolean run(String name, List<byte[]> args, RespWriter out) {
+        Transaction transaction = out.getTransaction();
+        if (transaction != null && transaction.isQueueing() && !TRANSACTION_CONTROL.contains(name)) {
+            transaction.queue(args);
+            out.simple("QUEUED");
+            return true;
+        }
+        return execute(name, args, out);
+    }
+
+    //The error for a command that is not run; inside MULTI it also discards the transaction, as in Redis
+    private static void refuse(RespWriter out, String error) {
+        Transaction transaction = out.getTransaction();
+        if (transaction != null && transaction.isQueueing()) {
+            transaction.fail();
+        }
+        out.error(error);
+    }
+
+    private boolean execute(String name, List<byte[]> args, RespWriter out) {
+        try {
+            switch (name) {
+                case "GET" -> {
+                    if (arity(args, 2, 2, out)) {
+                        out.bulk(redisService.findBytes(string(args.get(1))).orElse(null));
+                    }
+                }
+                case "SET" -> {
+                    if (arity(args, 3, 7, out)) {
+                        set(args, out);
+                    }
+                }
+                case "SETNX" -> {
+                    if (arity(args, 3, 3, out)) {
+                        out.integer(redisService.setnx(string(args.get(1)), args.get(2), null, TimeUnit.SECONDS) ? 1 : 0);
+                    }
+                }
+                case "GETSET" -> {
+                    if (arity(args, 3, 3, out)) {
+                        out.bulk(redisService.getSet(string(args.get(1)), args.get(2), null, TimeUnit.SECONDS));
+                    }
+                }
+                case "INCR", "DECR" -> {
+                    if (arity(args, 2, 2, out)) {
+                        String key = string(args.get(1));
+                        out.integer(name.equals("INCR") ? redisService.incrBy(key, 1) : redisService.decrBy(key, 1));
+                    }
+                }
+                case "INCRBY", "DECRBY" -> {
+                    if (arity(args, 3, 3, out)) {
+                        String key = string(args.get(1));
+                        long amount = number(args.get(2));
+                        out.integer(name.equals("INCRBY") ? redisService.incrBy(key, amount) : redisService.decrBy(key, amount));
+                    }
+                }
+                case "INCRBYFLOAT" -> {
+                    if (arity(args, 3, 3, out)) {
+                        double increment;
+                        try {
+                            increment = Double.parseDouble(string(args.get(2)));
+                        } catch (NumberFormatException e) {
+                            out.error("ERR value is not a valid float");
+                            return true;
+                        }
+                        out.bulk(redisService.incrByFloat(string(args.get(1)), increment));
+                    }
+                }
+                case "MGET" -> {
+                    if (arity(args, 2, Integer.MAX_VALUE, out)) {
+                        List<String> keys = keyArgs(args);
+                        Map<String, byte[]> values = redisService.mgetBytes(keys);
+                        out.arrayHeader(keys.size());
+                        for (String key : keys) {
+                            out.bulk(values.get(key));
+                        }
+                    }
+                }
+                case "MSET" -> {
+                    if (args.size() < 3 || args.size() % 2 == 0) {
+                        out.error("ERR wrong number of arguments for 'mset' command");
+                    } else {
+                        List<KeyValueRequest> entries = new ArrayList<>();
+                        for (int i = 1; i < args.size(); i += 2) {
+                            KeyValueRequest entry = new KeyValueRequest();
+                            entry.setKey(string(args.get(i)));
+                            entry.setBinaryValue(args.get(i + 1));
+                            entries.add(entry);
+                        }
+                        redisService.mset(entries);
+                        out.simple("OK");
+                    }
+                }
+                case "DEL" -> {
+                    if (arity(args, 2, Integer.MAX_VALUE, out)) {
+                        out.integer(redisService.mdel(keyArgs(args)));
+                    }
+                }
+                case "EXISTS" -> {
+                    if (arity(args, 2, Integer.MAX_VALUE, out)) {
+                        long found = 0;
+                        for (int i = 1; i < args.size(); i++) {
+                            found += redisService.exists(string(args.get(i))) ? 1 : 0;
+                        }
+                        out.integer(found);
+                    }
+                }
+                case "EXPIRE" -> {
+                    if (arity(args, 3, 3, out)) {
+                        long seconds = number(args.get(2));
+                        try {
+                            out.integer(redisService.expire(string(args.get(1)), seconds) ? 1 : 0);
+                        } catch (KeyNotFoundException e) {
+                            out.integer(0);
+                        }
+                    }
+                }
+                case "TTL" -> {
+                    if (arity(args, 2, 2, out)) {
+                        out.integer(redisService.ttl(string(args.get(1))));
+                    }
+                }
+                case "KEYS" -> {
+                    if (arity(args, 2, 2, out)) {
+                        List<String> keys = redisService.keys(string(args.get(1)));
+                        out.arrayHeader(keys.size());
+                        keys.forEach(out::bulk);
+                    }
+                }
+                case "SCAN" -> {
+                    if (arity(args, 2, 6, out)) {
+                        scan(args, out);
+                    }
+                }
+                case "TYPE" -> {
+                    if (arity(args, 2, 2, out)) {
+                        out.simple(redisService.type(string(args.get(1))));
+                    }
+                }
+                case "OBJECT" -> {
+                    if (arity(args, 3, 3, out)) {
+                        if (string(args.get(1)).equalsIgnoreCase("ENCODING")) {
+                            out.bulk(redisService.encoding(string(args.get(2))));
+                        } else {
+                            out.error("ERR unknown subcommand '" + string(args.get(1)) + "'");
+                        }
+                    }
+                }
+                case "MEMORY" -> {
+                    if (arity(args, 2, 3, out)) {
+                        memory(args, out);
+                    }
+                }
+                case "HSET" -> {
+                    if (args.size() < 4 || args.size() % 2 != 0) {
+                        out.error("ERR wrong number of arguments for 'hset' command");
+                    } else {
+                        Map<String, String> fields = new LinkedHashMap<>();
+                        for (int i = 2; i < args.size(); i += 2) {
+                            fields.put(string(args.get(i)), string(args.get(i + 1)));
+                        }
+                        out.integer(redisService.hset(string(args.get(1)), fields));
+                    }
+                }
+                case "HGET" -> {
+                    if (arity(args, 3, 3, out)) {
+                        out.bulk(redisService.hget(string(args.get(1)), string(args.get(2))));
+                    }
+                }
+                case "HDEL" -> {
+                    if (arity(args, 3, Integer.MAX_VALUE, out)) {
+                        out.integer(redisService.hdel(string(args.get(1)), stringArgs(args, 2)));
+                    }
+                }
+                case "HGETALL" -> {
+                    if (arity(args, 2, 2, out)) {
+                        Map<String, String> fields = redisService.hgetAll(string(args.get(1)));
+                        out.mapHeader(fields.size());
+                        fields.forEach((field, value) -> {
+                            out.bulk(field);
+                            out.bulk(value);
+                        });
+                    }
+                }
+                case "HINCRBY" -> {
+                    if (arity(args, 4, 4, out)) {
+                        out.integer(redisService.hincrBy(string(args.get(1)), string(args.get(2)), number(args.get(3))));
+                    }
+                }
+                case "LPUSH", "RPUSH" -> {
+                    if (arity(args, 3, Integer.MAX_VALUE, out)) {
+                        String key = string(args.get(1));
+                        List<String> values = stringArgs(args, 2);
+                        out.integer(name.equals("LPUSH") ? redisService.lpush(key, values) : redisService.rpush(key, values));
+                    }
+                }
+                case "LPOP", "RPOP" -> {
+                    if (arity(args, 2, 2, out)) {
+                        String key = string(args.get(1));
+                        out.bulk(name.equals("LPOP") ? redisService.lpop(key) : redisService.rpop(key));
+                    }
+                }
+                case "LRANGE" -> {
+                    if (arity(args, 4, 4, out)) {
+                        bulkArray(redisService.lrange(string(args.get(1)), number(args.get(2)), number(args.get(3))), out);
+                    }
+                }
+                case "SADD", "SREM" -> {
+                    if (arity(args, 3, Integer.MAX_VALUE, out)) {
+                        String key = string(args.get(1));
+                        List<String> members = stringArgs(args, 2);
+                        out.integer(name.equals("SADD") ? redisService.sadd(key, members) : redisService.srem(key, members));
+                    }
+                }
+                case "SISMEMBER" -> {
+                    if (arity(args, 3, 3, out)) {
+                        out.integer(redisService.sismember(string(args.get(1)), string(args.get(2))) ? 1 : 0);
+                    }
+                }
+                case "SMEMBERS" -> {
+                    if (arity(args, 2, 2, out)) {
+                        bulkArray(redisService.smembers(string(args.get(1))), out);
+                    }
+                }
+                case "ZADD" -> {
+                    if (args.size() < 4 || args.size() % 2 != 0) {
+                        out.error("ERR wrong number of arguments for 'zadd' command");
+                    } else {
+                        Map<String, Double> members = new LinkedHashMap<>();
+                        for (int i = 2; i < args.size(); i += 2) {
+                            members.put(string(args.get(i + 1)), ScoreRange.parseScore(string(args.get(i))));
+                        }
+                        out.integer(redisService.zadd(string(args.get(1)), members));
+                    }
+                }
+                case "ZREM" -> {
+                    if (arity(args, 3, Integer.MAX_VALUE, out)) {
+                        out.integer(redisService.zrem(string(args.get(1)), stringArgs(args, 2)));
+                    }
+                }
+                case "ZSCORE" -> {
+                    if (arity(args, 3, 3, out)) {
+                        Double score = redisService.zscore(string(args.get(1)), string(args.get(2)));
+                        out.bulk(score == null ? null : formatScore(score));
+                    }
+                }
+                case "ZRANGEBYSCORE" -> {
+                    if (arity(args, 4, 5, out)) {
+                        zrangeByScore(args, out);
+                    }
+                }
+                case "FLUSHALL", "FLUSHDB" -> {
+                    redisService.flushAll();
+                    out.simple("OK");
+                }
+                case "INFO" -> {
+                    if (arity(args, 1, 2, out)) {
+                        out.bulk(infoService.render(args.size() > 1 ? string(args.get(1)) : null));
+                    }
+                }
+                case "PING" -> {
+                    if (out.isSubscribed() && out.getProtocol() < 3) {
+                        out.arrayHeader(2);
+                        out.bulk("pong");
+                        out.bulk(args.size() > 1 ? args.get(1) : new byte[0]);
+                    } else if (args.size() > 1) {
+                        out.bulk(args.get(1));
+                    } else {
+                        out.simple("PONG");
+                    }
+                }
+                case "ECHO" -> {
+                    if (arity(args, 2, 2, out)) {
+                        out.bulk(args.get(1));
+                    }
+                }
+                case "MULTI" -> multi(out);
+                case "EXEC" -> exec(out);
+                case "DISCARD" -> discard(out);
+                case "WATCH" -> {
+                    if (arity(args, 2, Integer.MAX_VALUE, out)) {
+                        watch(keyArgs(args), out);
+                    }
+                }
+                case "UNWATCH" -> {
+                    if (out.getTransaction() != null) {
+                        out.getTransaction().getWatched().clear();
+                    }
+                    out.simple("OK");
+                }
+                case "EVAL", "EVALSHA" -> {
+                    if (arity(args, 3, Integer.MAX_VALUE, out)) {
+                        eval(name.equals("EVALSHA"), args, out);
+                    }
+                }
+                case "SCRIPT" -> {
+                    if (arity(args, 2, Integer.MAX_VALUE, out)) {
+                        script(args, out);
+                    }
+                }
+                case "HELLO" -> hello(args, out);
+                case "SUBSCRIBE", "PSUBSCRIBE", "UNSUBSCRIBE", "PUNSUBSCRIBE", "PUBLISH", "PUBSUB" -> pubsub(name, args, out);
+                case "RESET" -> {
+                    closed(out);
+                    out.setTransaction(null);
+                    out.setProtocol(2);
+                    out.setAsking(false);
+                    out.simple("RESET");
+                }
+                case "SELECT" -> {
+                    if (arity(args, 2, 2, out)) {
+                        if (number(args.get(1)) == 0) {
+                            out.simple("OK");
+                        } else {
+                            out.error("ERR DB index is out of range");
+                        }
+                    }
+                }
+                //Handshake commands sent by redis-cli and client libraries on connect
+                case "CLIENT" -> out.simple("OK");
+                case "COMMAND" -> out.arrayHeader(0);
+                case "CONFIG" -> out.mapHeader(0);
+                case "QUIT" -> {
+                    out.simple("OK");
+                    return false;
+                }
+                default -> out.error("ERR unknown command '" + name.toLowerCase(Locale.ROOT) + "'");
+            }
+        } catch (NumberFormatException e) {
+            out.error("ERR value is not an integer or out of range");
+        } catch (WrongTypeException | MaxMemoryException e) {
+            out.error(e.getMessage());
+        } catch (RuntimeException e) {
+            out.error("ERR " + e.getMessage());
+        }
+        return true;
+    }
+
+    //The keys a command touches, empty for keyless commands and malformed ones, which execute rejects
+    private static List<String> keys(String name, List<byte[]> args) {
+        if (args.size() < 2) {
+            return List.of();
+        }
+        if (SINGLE_KEY.contains(name)) {
+            return List.of(string(args.get(1)));
+        }
+        switch (name) {
+            case "MGET", "DEL", "EXISTS", "WATCH" -> {
+                return keyArgs(args);
+            }
+            case "EVAL", "EVALSHA" -> {
+                if (args.size() < 3) {
+                    return List.of();
+                }
+                long numkeys;
+                try {
+                    numkeys = number(args.get(2));
+                } catch (NumberFormatException e) {
+                    return List.of();
+                }
+                return numkeys < 0 || numkeys > args.size() - 3 ? List.of() : stringArgs(args.subList(0, 3 + (int) numkeys), 3);
+            }
+            case "MSET" -> {
+                List<String> keys = new ArrayList<>();
+                for (int i = 1; i < args.size(); i += 2) {
+                    keys.add(string(args.get(i)));
+                }
+                return keys;
+            }
+            case "MEMORY", "OBJECT" -> {
+                return args.size() == 3 && !string(args.get(1)).equalsIgnoreCase("STATS")
+                        ? List.of(string(args.get(2))) : List.of();
+            }
+            default -> {
+                return List.of();
+            }
+        }
+    }
+
+    private static Transaction transaction(RespWriter out) {
+        if (out.getTransaction() == null) {
+            out.setTransaction(new Transaction());
+        }
+        return out.getTransaction();
+    }
+
+    private static void multi(RespWriter out) {
+        Transaction transaction = transaction(out);
+        if (transaction.isQueueing()) {
+            out.error("ERR MULTI calls can not be nested");
+            return;
+        }
+        transaction.begin();
+        out.simple("OK");
+    }
+
+    private static void discard(RespWriter out) {
+        Transaction transaction = out.getTransaction();
+        if (transaction == null || !transaction.isQueueing()) {
+            out.error("ERR DISCARD without MULTI");
+            return;
+        }
+        transaction.reset();
+        out.simple("OK");
+    }
+
+    private void watch(List<String> keys, RespWriter out) {
+        Transaction transaction = transaction(out);
+        if (transaction.isQueueing()) {
+            out.error("ERR WATCH inside MULTI is not allowed");
+            return;
+        }
+        for (String key : keys) {
+            transaction.watch(key, redisService.version(key));
+        }
+        out.simple("OK");
+    }
+
+    //Runs the queued commands as one, unless a watched key changed since WATCH: then nothing runs and the reply is nil
+    private void exec(RespWriter out) {
+        Transaction transaction = out.getTransaction();
+        if (transaction == null || !transaction.isQueueing()) {
+            out.error("ERR EXEC without MULTI");
+            return;
+        }
+        List<List<byte[]>> queued = transaction.getQueued();
+        Map<String, Long> watched = new LinkedHashMap<>(transaction.getWatched());
+        boolean failed = transaction.isFailed();
+        transaction.reset();
+        if (failed) {
+            out.error("EXECABORT Transaction discarded because of previous errors.");
+            return;
+        }
+        //Null when a command walks the whole keyspace
+        Set<String> keys = keys(queued, watched.keySet());
+        Supplier<Boolean> body = () -> {
+            for (Map.Entry<String, Long> watch : watched.entrySet()) {
+                if (redisService.version(watch.getKey()) != watch.getValue()) {
+                    return false;
+                }
+            }
+            out.arrayHeader(queued.size());
+            for (List<byte[]> command : queued) {
+                execute(string(command.get(0)).toUpperCase(Locale.ROOT), command, out);
+            }
+            return true;
+        };
+        boolean ran;
+        if (router == null || keys == null || keys.isEmpty()) {
+            ran = keys == null ? redisService.atomicallyAll(body) : redisService.atomically(keys, body);
+        } else {
+            //Each command was routed on its own when queued; as one step they must share a slot this node still serves
+            try (ClusterRouter.Lease ignored = router.lease(keys)) {
+                String refused = clusterError(keys);
+                if (refused != null) {
+                    out.error(refused);
+                    return;
+                }
+                ran = redisService.atomically(keys, body);
+            }
+        }
+        if (!ran) {
+            out.nullArray();
+        }
+    }
+
+    //Every key the commands and watches name, or null when a command walks the whole keyspace
+    private static Set<String> keys(List<List<byte[]>> commands, Collection<String> watched) {
+        Set<String> keys = new HashSet<>(watched);
+        for (List<byte[]> command : commands) {
+            String name = string(command.get(0)).toUpperCase(Locale.ROOT);
+            if (KEYSPACE.contains(name)) {
+                return null;
+            }
+            keys.addAll(keys(name, command));
+        }
+        return keys;
+    }
+
+    //CROSSSLOT unless the keys share a slot, TRYAGAIN if one of them left this node since it was queued
+    private String clusterError(Collection<String> keys) {
+        int slot = -1;
+        for (String key : keys) {
+            int keySlot = HashSlots.slot(key);
+            if (slot != -1 && keySlot != slot) {
+                return "CROSSSLOT Keys in request don't hash to the same slot";
+            }
+            slot = keySlot;
+        }
+        for (String key : keys) {
+            //A queued command may have been sent after ASKING, so an importing slot counts as served here
+            if (!router.route(key, true).isLocal()) {
+                return "TRYAGAIN Multiple keys request during rehashing of slot";
+            }
+        }
+        return null;
+    }
+
+    //EVAL script numkeys key... arg... and EVALSHA sha1 numkeys key... arg...
+    private void eval(boolean sha, List<byte[]> args, RespWriter out) {
+        long numkeys = number(args.get(2));
+        if (numkeys < 0) {
+            out.error("ERR Number of keys can't be negative");
+            return;
+        }
+        if (numkeys > args.size() - 3) {
+            out.error("ERR Number of keys can't be greater than number of args");
+            return;
+        }
+        ScriptEngine.Script script = sha ? scripts.find(string(args.get(1))) : scripts.compile(args.get(1));
+        if (script == null) {
+            out.error("NOSCRIPT No matching script. Please use EVAL.");
+            return;
+        }
+        int first = 3 + (int) numkeys;
+        List<String> keys = stringArgs(args.subList(0, first), 3);
+        List<byte[]> argv = args.subList(first, args.size());
+        Set<String> declared = new HashSet<>(keys);
+        RespWriter scratch = new RespWriter();
+        Object reply = redisService.atomically(keys,
+                () -> scripts.run(script, keys, argv, command -> scriptCall(command, declared, scratch)));
+        Replies.write(reply, out);
+    }
+
+    //redis.call: only on the keys the script declared, which are the ones it holds
+    private Object scriptCall(List<byte[]> command, Set<String> declared, RespWriter scratch) {
+        String name = string(command.get(0)).toUpperCase(Locale.ROOT);
+        if (!SCRIPT_COMMANDS.contains(name)) {
+            return new Replies.Error("ERR This Redis command is not allowed from script");
+        }
+        for (String key : keys(name, command)) {
+            if (!declared.contains(key)) {
+                return new Replies.Error("ERR Script attempted to access a non-declared key '" + key + "'; pass every key in KEYS");
+            }
+        }
+        if (replica && WRITE.contains(name)) {
+            return new Replies.Error(ReadOnlyReplicaFilter.READONLY_ERROR);
+        }
+        execute(name, command, scratch);
+        return Replies.take(scratch).get(0);
+    }
+
+    //SCRIPT LOAD script | SCRIPT EXISTS sha1... | SCRIPT FLUSH [ASYNC|SYNC]
+    private void script(List<byte[]> args, RespWriter out) {
+        String subcommand = string(args.get(1)).toUpperCase(Locale.ROOT);
+        if (subcommand.equals("LOAD") && args.size() == 3) {
+            out.bulk(scripts.load(args.get(2)));
+        } else if (subcommand.equals("EXISTS") && args.size() > 2) {
+            out.arrayHeader(args.size() - 2);
+            for (int i = 2; i < args.size(); i++) {
+                out.integer(scripts.exists(string(args.get(i))) ? 1 : 0);
+            }
+        } else if (subcommand.equals("FLUSH") && args.size() <= 3) {
+            scripts.flush();
+            out.simple("OK");
+        } else {
+            out.error("ERR unknown subcommand or wrong number of arguments for '" + string(args.get(1)) + "'");
+        }
+    }
+
+    //CLUSTER KEYSLOT key | CLUSTER SLOTS | CLUSTER MYID
+    private void cluster(List<byte[]> args, RespWriter out) {
+        String subcommand = args.size() > 1 ? string(args.get(1)).toUpperCase(Locale.ROOT) : "";
+        if (subcommand.equals("KEYSLOT") && args.size() == 3) {
+            out.integer(HashSlots.slot(args.get(2)));
+        } else if (subcommand.equals("MYID") && args.size() == 2) {
+            out.bulk(router.self().id());
+        } else if (subcommand.equals("SLOTS") && args.size() == 2) {
+            List<SlotTable.SlotRange> ranges = router.table().ranges();
+            out.arrayHeader(ranges.size());
+            for (SlotTable.SlotRange range : ranges) {
+                ClusterNode node = range.node();
+                int colon = node.respAddress().lastIndexOf(':');
+                out.arrayHeader(3);
+                out.integer(range.from());
+                out.integer(range.to());
+                out.arrayHeader(3);
+                out.bulk(node.respAddress().substring(0, colon));
+                out.integer(Long.parseLong(node.respAddress().substring(colon + 1)));
+                out.bulk(node.id());
+            }
+        } else {
+            out.error("ERR unknown subcommand or wrong number of arguments for '" + (args.size() > 1 ? string(args.get(1)) : "cluster") + "'");
+        }
+    }
+
+    //SET key value [EX seconds|PX milliseconds] [NX|GET]
+    private void set(List<byte[]> args, RespWriter out) {
+        Long ttl = null;
+        TimeUnit unit = TimeUnit.SECONDS;
+        boolean nx = false;
+        boolean get = false;
+        for (int i = 3; i < args.size(); i++) {
+            String option = string(args.get(i)).toUpperCase(Locale.ROOT);
+            if ((option.equals("EX") || option.equals("PX")) && ttl == null && i + 1 < args.size()) {
+                unit = option.equals("PX") ? TimeUnit.MILLISECONDS : TimeUnit.SECONDS;
+                ttl = number(args.get(++i));
+                if (ttl <= 0) {
+                    out.error("ERR invalid expire time in 'set' command");
+                    return;
+                }
+            } else if (option.equals("NX") && !nx && !get) {
+                nx = true;
+            } else if (option.equals("GET") && !get && !nx) {
+                get = true;
+            } else {
+                out.error("ERR syntax error");
+                return;
+            }
+        }
+        String key = string(args.get(1));
+        byte[] value = args.get(2);
+        if (nx) {
+            if (redisService.setnx(key, value, ttl, unit)) {
+                out.simple("OK");
+            } else {
+                out.nullValue();
+            }
+        } else if (get) {
+            out.bulk(redisService.getSet(key, value, ttl, unit));
+        } else {
+            redisService.set(key, value, ttl, unit);
+            out.simple("OK");
+        }
+    }
+
+    //MEMORY USAGE key | MEMORY STATS
+    private void memory(List<byte[]> args, RespWriter out) {
+        String subcommand = string(args.get(1)).toUpperCase(Locale.ROOT);
+        if (subcommand.equals("USAGE") && args.size() == 3) {
+            Long usage = redisService.memoryUsage(string(args.get(2)));
+            if (usage == null) {
+                out.nullValue();
+            } else {
+                out.integer(usage);
+            }
+        } else if (subcommand.equals("STATS") && args.size() == 2) {
+            MemoryStats stats = redisService.memoryStats();
+            MemoryStats.Allocator allocator = stats.allocator();
+            out.mapHeader(2 + stats.encodings().size() + (allocator == null ? 0 : 7));
+            out.bulk("keys.count");
+            out.integer(stats.keys());
+            out.bulk("dataset.bytes");
+            out.integer(stats.totalBytes());
+            if (allocator != null) {
+                //Named as in Redis's MEMORY STATS; the ratio is a bulk string, as RESP2 has no doubles
+                out.bulk("allocator.requested");
+                out.integer(allocator.requestedBytes());
+                out.bulk("allocator.allocated");
+                out.integer(allocator.usedBytes());
+                out.bulk("allocator.reserved");
+                out.integer(allocator.reservedBytes());
+                out.bulk("allocator-fragmentation.ratio");
+                out.bulk(String.format(Locale.ROOT, "%.3f", allocator.fragmentationRatio()));
+                out.bulk("maxmemory");
+                out.integer(allocator.maxMemoryBytes());
+                out.bulk("maxmemory-policy");
+                out.bulk(allocator.evictionPolicy());
+                out.bulk("evicted_keys");
+                out.integer(allocator.evictedKeys());
+            }
+            stats.encodings().forEach((encoding, usage) -> {
+                out.bulk(encoding);
+                out.mapHeader(3);
+                out.bulk("keys");
+                out.integer(usage.keys());
+                out.bulk("stored.bytes");
+                out.integer(usage.storedBytes());
+                out.bulk("raw.bytes");
+                out.integer(usage.rawBytes());
+            });
+        } else {
+            out.error("ERR unknown subcommand or wrong number of arguments for '" + string(args.get(1)) + "'");
+        }
+    }
+
+    private void scan(List<byte[]> args, RespWriter out) {
+        String pattern = null;
+        int count = RedisService.DEFAULT_SCAN_COUNT;
+        for (int i = 2; i < args.size(); i += 2) {
+            String option = string(args.get(i)).toUpperCase(Locale.ROOT);
+            if (i + 1 == args.size()) {
+                out.error("ERR syntax error");
+                return;
+            }
+            if (option.equals("MATCH")) {
+                pattern = string(args.get(i + 1));
+            } else if (option.equals("COUNT")) {
+                count = (int) number(args.get(i + 1));
+                if (count < 1) {
+                    out.error("ERR syntax error");
+                    return;
+                }
+            } else {
+                out.error("ERR syntax error");
+                return;
+            }
+        }
+        RedisService.ScanResult result = redisService.scan(string(args.get(1)), pattern, count);
+        out.arrayHeader(2);
+        out.bulk(result.cursor());
+        out.arrayHeader(result.keys().size());
+        result.keys().forEach(out::bulk);
+    }
+
+    private void zrangeByScore(List<byte[]> args, RespWriter out) {
+        boolean withScores = false;
+        if (args.size() == 5) {
+            if (!string(args.get(4)).equalsIgnoreCase("WITHSCORES")) {
+                out.error("ERR syntax error");
+                return;
+            }
+            withScores = true;
+        }
+        List<ScoredMember> members = redisService.zrangeByScore(string(args.get(1)), string(args.get(2)), string(args.get(3)));
+        out.arrayHeader(withScores ? members.size() * 2 : members.size());
+        for (ScoredMember member : members) {
+            out.bulk(member.member());
+            if (withScores) {
+                out.bulk(formatScore(member.score()));
+            }
+        }
+    }
+
+    //Integral scores print without a fraction and infinities as inf, like Redis
+    private static String formatScore(double score) {
+        if (Double.isInfinite(score)) {
+            return score > 0 ? "inf" : "-inf";
+        }
+        if (score == Math.rint(score) && Math.abs(score) < 1e17) {
+            return Long.toString((long) score);
+        }
+        return Double.toString(score);
+    }
+
+    private void pubsub(String name, List<byte[]> args, RespWriter out) {
+        if (broker == null) {
+            out.error("ERR unknown command '" + name.toLowerCase(Locale.ROOT) + "'");
+            return;
+        }
+        switch (name) {
+            case "SUBSCRIBE", "PSUBSCRIBE" -> {
+                if (arity(args, 2, Integer.MAX_VALUE, out)) {
+                    subscribe(name.equals("PSUBSCRIBE"), stringArgs(args, 1), out);
+                }
+            }
+            case "UNSUBSCRIBE", "PUNSUBSCRIBE" -> unsubscribe(name.equals("PUNSUBSCRIBE"), stringArgs(args, 1), out);
+            case "PUBLISH" -> {
+                if (arity(args, 3, 3, out)) {
+                    out.integer(broker.publish(string(args.get(1)), args.get(2)));
+                }
+            }
+            default -> pubsubIntrospection(args, out);
+        }
+    }
+
+    private void subscribe(boolean pattern, List<String> names, RespWriter out) {
+        Subscriber subscriber = out.getSubscriber();
+        if (subscriber == null || subscriber.isClosed()) {
+            subscriber = broker.subscriber(out.getClient(), out.getWakeup());
+            out.setSubscriber(subscriber);
+        }
+        for (String name : names) {
+            int count = pattern ? broker.psubscribe(subscriber, name) : broker.subscribe(subscriber, name);
+            subscription(pattern ? "psubscribe" : "subscribe", name, count, out);
+        }
+    }
+
+    //Without names, drops every channel (or pattern) subscription, with one reply each
+    private void unsubscribe(boolean pattern, List<String> names, RespWriter out) {
+        String kind = pattern ? "punsubscribe" : "unsubscribe";
+        Subscriber subscriber = out.getSubscriber();
+        if (names.isEmpty() && subscriber != null) {
+            names = new ArrayList<>(pattern ? subscriber.patterns() : subscriber.channels());
+        }
+        if (names.isEmpty()) {
+            subscription(kind, null, subscriber == null ? 0 : subscriber.subscriptionCount(), out);
+            return;
+        }
+        for (String name : names) {
+            int count = subscriber == null ? 0
+                    : pattern ? broker.punsubscribe(subscriber, name) : broker.unsubscribe(subscriber, name);
+            subscription(kind, name, count, out);
+        }
+    }
+
+    private static void subscription(String kind, String name, int count, RespWriter out) {
+        out.pushHeader(3);
+        out.bulk(kind);
+        out.bulk(name);
+        out.integer(count);
+    }
+
+    private void pubsubIntrospection(List<byte[]> args, RespWriter out) {
+        String subcommand = args.size() > 1 ? string(args.get(1)).toUpperCase(Locale.ROOT) : "";
+        switch (subcommand) {
+            case "CHANNELS" -> {
+                if (arity(args, 2, 3, out)) {
+                    bulkArray(broker.activeChannels(args.size() > 2 ? string(args.get(2)) : null), out);
+                }
+            }
+            case "NUMSUB" -> {
+                Map<String, Integer> counts = broker.numsub(stringArgs(args, 2));
+                out.arrayHeader(counts.size() * 2);
+                counts.forEach((channel, count) -> {
+                    out.bulk(channel);
+                    out.integer(count);
+                });
+            }
+            case "NUMPAT" -> out.integer(broker.numpat());
+            default -> out.error("ERR unknown subcommand or wrong number of arguments for 'pubsub' command");
+        }
+    }
+
+    /**
+     * Appends queued pubsub messages to a subscribed connection's output.
+     */
+    void deliver(List<PubSubMessage> messages, RespWriter out) {
+        for (PubSubMessage message : messages) {
+            if (message.pattern() == null) {
+                out.pushHeader(3);
+                out.bulk("message");
+            } else {
+                out.pushHeader(4);
+                out.bulk("pmessage");
+                out.bulk(message.pattern());
+            }
+            out.bulk(message.channel());
+            out.bulk(message.payload());
+        }
+    }
+
+    /**
+     * Drops the connection's subscriptions, when it closes or is RESET.
+     */
+    void closed(RespWriter out) {
+        Subscriber subscriber = out.getSubscriber();
+        if (subscriber != null) {
+            broker.unsubscribeAll(subscriber);
+            subscriber.close();
+            out.setSubscriber(null);
+        }
+    }
+
+    private void hello(List<byte[]> args, RespWriter out) {
+        if (args.size() > 1) {
+            long version = number(args.get(1));
+            if (version != 2 && version != 3) {
+                out.error("NOPROTO unsupported protocol version");
+                return;
+            }
+            out.setProtocol((int) version);
+        }
+        out.mapHeader(6);
+        out.bulk("server");
+        out.bulk("redisapi");
+        out.bulk("version");
+        out.bulk("1.0");
+        out.bulk("proto");
+        out.integer(out.getProtocol());
+        out.bulk("mode");
+        out.bulk(router == null ? "standalone" : "cluster");
+        out.bulk("role");
+        out.bulk(replica ? "replica" : "master");
+        out.bulk("modules");
+        out.arrayHeader(0);
+    }
+
+    private static boolean arity(List<byte[]> args, int min, int max, RespWriter out) {
+        if (args.size() < min || args.size() > max) {
+            out.error("ERR wrong number of arguments for '" + string(args.get(0)).toLowerCase(Locale.ROOT) + "' command");
+            return false;
+        }
+        return true;
+    }
+
+    private static List<String> keyArgs(List<byte[]> args) {
+        return stringArgs(args, 1);
+    }
+
+    private static List<String> stringArgs(List<byte[]> args, int from) {
+        List<String> strings = new ArrayList<>(args.size() - from);
+        for (int i = from; i < args.size(); i++) {
+            strings.add(string(args.get(i)));
+        }
+        return strings;
+    }
+
+    private static void bulkArray(List<String> values, RespWriter out) {
+        out.arrayHeader(values.size());
+        values.forEach(out::bulk);
+    }
+
+    private static String string(byte[] arg) {
+        return new String(arg, StandardCharsets.UTF_8);
+    }
+
+    private static long number(byte[] arg) {
+        return Long.parseLong(string(arg));
+    }
+}
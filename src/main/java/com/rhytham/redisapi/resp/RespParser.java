@@ -0,0 +1,137 @@
+package com.rhytham.redisapi.resp;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RESP request parser. Accepts multi-bulk arrays ({@code *2\r\n$3\r\nGET\r\n...})
+ * as sent by client libraries and inline commands as typed into telnet.
+ */
+final class RespParser {
+
+    static final int MAX_BULK_LENGTH = 512 * 1024 * 1024;
+    static final int MAX_LINE_LENGTH = 64 * 1024;
+    static final int MAX_ARGUMENTS = 1024 * 1024;
+
+    private RespParser() {
+    }
+
+    /**
+     * Parses one command from {@code buffer}. Returns null and leaves the position untouched
+     * when the buffer does not hold a complete command yet.
+     */
+    static List<byte[]> parse(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        List<byte[]> command = buffer.get(start) == '*' ? parseMultiBulk(buffer) : parseInline(buffer);
+        if (command == null) {
+            buffer.position(start);
+        }
+        return command;
+    }
+
+    private static List<byte[]> parseMultiBulk(ByteBuffer buffer) {
+        buffer.get();
+        long count = readNumber(buffer);
+        if (count == Long.MIN_VALUE) {
+            return null;
+        }
+        if (count > MAX_ARGUMENTS) {
+            throw new RespProtocolException("invalid multibulk length");
+        }
+        List<byte[]> args = new ArrayList<>((int) Math.max(count, 0));
+        for (long i = 0; i < count; i++) {
+            if (!buffer.hasRemaining()) {
+                return null;
+            }
+            byte type = buffer.get();
+            if (type != '$') {
+                throw new RespProtocolException("expected '$', got '" + (char) type + "'");
+            }
+            long length = readNumber(buffer);
+            if (length == Long.MIN_VALUE) {
+                return null;
+            }
+            if (length < 0 || length > MAX_BULK_LENGTH) {
+                throw new RespProtocolException("invalid bulk length");
+            }
+            if (buffer.remaining() < length + 2) {
+                return null;
+            }
+            byte[] arg = new byte[(int) length];
+            buffer.get(arg);
+            if (buffer.get() != '\r' || buffer.get() != '\n') {
+                throw new RespProtocolException("expected CRLF after bulk string");
+            }
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static List<byte[]> parseInline(ByteBuffer buffer) {
+        int lineEnd = findLineEnd(buffer);
+        if (lineEnd < 0) {
+            return null;
+        }
+        List<byte[]> args = new ArrayList<>();
+        int tokenStart = -1;
+        for (int i = buffer.position(); i <= lineEnd; i++) {
+            byte b = i < lineEnd ? buffer.get(i) : (byte) ' ';
+            boolean space = b == ' ' || b == '\t' || b == '\r';
+            if (space && tokenStart >= 0) {
+                byte[] arg = new byte[i - tokenStart];
+                buffer.get(tokenStart, arg);
+                args.add(arg);
+                tokenStart = -1;
+            } else if (!space && tokenStart < 0) {
+                tokenStart = i;
+            }
+        }
+        buffer.position(lineEnd + 1);
+        return args;
+    }
+
+    //Index of the '\n' ending the current line, or -1 if it has not arrived yet
+    private static int findLineEnd(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        for (int i = buffer.position(); i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+            if (i - buffer.position() > MAX_LINE_LENGTH) {
+                throw new RespProtocolException("too big inline request");
+            }
+        }
+        return -1;
+    }
+
+    //Reads "<digits>\r\n"; Long.MIN_VALUE means the line is incomplete
+    private static long readNumber(ByteBuffer buffer) {
+        int lineEnd = findLineEnd(buffer);
+        if (lineEnd < 0) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        boolean negative = false;
+        int i = buffer.position();
+        if (buffer.get(i) == '-') {
+            negative = true;
+            i++;
+        }
+        for (; i < lineEnd - 1; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                throw new RespProtocolException("invalid length");
+            }
+            value = value * 10 + (b - '0');
+        }
+        if (buffer.get(lineEnd - 1) != '\r') {
+            throw new RespProtocolException("expected CRLF");
+        }
+        buffer.position(lineEnd + 1);
+        return negative ? -value : value;
+    }
+}
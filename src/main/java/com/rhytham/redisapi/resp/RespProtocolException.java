@@ -0,0 +1,7 @@
+package com.rhytham.redisapi.resp;
+
+public class RespProtocolException extends RuntimeException {
+    public RespProtocolException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,378 @@
+package com.rhytham.redisapi.resp;
+
+import com.rhytham.redisapi.pubsub.Subscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * RESP listener on NIO selectors: one acceptor thread hands connections round-robin to a
+ * fixed set of event loops, which read, parse and reply. Commands read from one socket read are
+ * executed back to back and their replies leave in a single write, which gives clients pipelining for free.
+ * <p>
+ * With a worker executor the commands run there, since they may block: on a JDBC round trip with the
+ * jpa engine, on key locks, or in a Lua script. The connection stops reading until its batch is done,
+ * so its commands still run one at a time and in order, while the loop goes on serving the others.
+ * Without one they run on the loop itself, which suits only the memory and offheap engines.
+ * <p>
+ * Pubsub messages are written by the subscriber's own event loop, woken through a ready queue, and only
+ * once the socket has taken everything written before: a client that reads slowly leaves its messages
+ * in its bounded ring, where the broker's overflow policy applies, instead of in an unbounded buffer here.
+ */
+@Slf4j
+public class RespServer implements SmartLifecycle {
+
+    private static final int INITIAL_BUFFER = 16 * 1024;
+    private static final int MAX_BUFFER = RespParser.MAX_BULK_LENGTH + INITIAL_BUFFER;
+
+    //Pubsub messages written per turn, so one busy subscriber does not hold up the loop's other connections
+    private static final int DELIVERY_BATCH = 256;
+
+    private final RespCommandHandler handler;
+    private final String bindAddress;
+    private final int port;
+    private final int ioThreads;
+    //Null to run commands on the event loops
+    private final Executor workers;
+
+    private volatile boolean running;
+    private ServerSocketChannel serverChannel;
+    private EventLoop[] loops;
+    private Thread acceptor;
+
+    public RespServer(RespCommandHandler handler, String bindAddress, int port, int ioThreads) {
+        this(handler, bindAddress, port, ioThreads, null);
+    }
+
+    /**
+     * @param workers where commands run, shut down with the server if an ExecutorService; null to run them
+     *                on the event loops
+     */
+    public RespServer(RespCommandHandler handler, String bindAddress, int port, int ioThreads, Executor workers) {
+        this.handler = handler;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.ioThreads = Math.max(1, ioThreads);
+        this.workers = workers;
+    }
+
+    @Override
+    public synchronized void start() {
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(bindAddress, port), 1024);
+            running = true;
+            loops = new EventLoop[ioThreads];
+            for (int i = 0; i < ioThreads; i++) {
+                loops[i] = new EventLoop(Selector.open());
+                Thread thread = new Thread(loops[i], "resp-io-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start RESP listener on port " + port, e);
+        }
+        acceptor = new Thread(this::acceptLoop, "resp-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("RESP listener started on port {} with {} I/O threads", getPort(), ioThreads);
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                loops[next++ % loops.length].register(channel);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("RESP accept failed", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+        }
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+        if (workers instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getPort() {
+        return serverChannel == null ? port : serverChannel.socket().getLocalPort();
+    }
+
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<SocketChannel> newChannels = new ConcurrentLinkedQueue<>();
+        //Connections with pubsub messages waiting, or whose subscriber was disconnected
+        private final Queue<Connection> ready = new ConcurrentLinkedQueue<>();
+        //Connections whose commands a worker finished running
+        private final Queue<Connection> done = new ConcurrentLinkedQueue<>();
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void register(SocketChannel channel) {
+            newChannels.add(channel);
+            selector.wakeup();
+        }
+
+        void ready(Connection connection) {
+            ready.add(connection);
+            selector.wakeup();
+        }
+
+        void done(Connection connection) {
+            done.add(connection);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    if (ready.isEmpty() && done.isEmpty()) {
+                        selector.select();
+                    } else {
+                        selector.selectNow();
+                    }
+                    SocketChannel channel;
+                    while ((channel = newChannels.poll()) != null) {
+                        Connection connection = new Connection(channel, this);
+                        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    }
+                    Connection finished;
+                    while ((finished = done.poll()) != null) {
+                        finished.busy = false;
+                        try {
+                            if (finished.key.isValid()) {
+                                finished.flush(finished.key);
+                            }
+                        } catch (IOException e) {
+                            finished.close(finished.key, e);
+                        }
+                    }
+                    //Only the connections queued so far: one that requeues itself waits for the next turn
+                    for (int i = ready.size(); i > 0; i--) {
+                        Connection connection = ready.poll();
+                        try {
+                            connection.deliver();
+                        } catch (IOException e) {
+                            connection.close(connection.key, e);
+                        }
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.flush(key);
+                            }
+                        } catch (IOException | RespProtocolException e) {
+                            connection.close(key, e);
+                        }
+                    }
+                } catch (IOException e) {
+                    log.error("RESP event loop failure", e);
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException ignored) {
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final RespWriter out = new RespWriter();
+        private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER);
+        private SelectionKey key;
+        private boolean closing;
+        //A worker is running this connection's commands; until it is done the loop leaves out alone
+        private boolean busy;
+
+        Connection(SocketChannel channel, EventLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+            out.setWakeup(() -> loop.ready(this));
+            try {
+                out.setClient(String.valueOf(channel.getRemoteAddress()));
+            } catch (IOException ignored) {
+            }
+        }
+
+        //Writes the next batch of pubsub messages, unless earlier output is still waiting for the socket
+        void deliver() throws IOException {
+            Subscriber subscriber = out.getSubscriber();
+            if (subscriber == null || busy || !key.isValid()) {
+                return;
+            }
+            if (subscriber.isClosed()) {
+                log.debug("Closing RESP connection {}: its subscriber was disconnected", out.getClient());
+                close(key, null);
+                return;
+            }
+            if (!out.hasPending()) {
+                handler.deliver(subscriber.poll(DELIVERY_BATCH), out);
+                flush(key);
+            }
+        }
+
+        void read(SelectionKey key) throws IOException {
+            int read = channel.read(in);
+            if (read < 0) {
+                close(key, null);
+                return;
+            }
+            in.flip();
+            List<List<byte[]>> batch = new ArrayList<>();
+            List<byte[]> command;
+            while (!closing && (command = RespParser.parse(in)) != null) {
+                if (command.isEmpty()) {
+                    continue;
+                }
+                if (workers != null) {
+                    batch.add(command);
+                } else if (!handler.handle(command, out)) {
+                    closing = true;
+                }
+            }
+            in.compact();
+            if (!in.hasRemaining()) {
+                if (in.capacity() >= MAX_BUFFER) {
+                    throw new RespProtocolException("request too large");
+                }
+                ByteBuffer larger = ByteBuffer.allocate(Math.min(MAX_BUFFER, in.capacity() * 2));
+                in.flip();
+                larger.put(in);
+                in = larger;
+            }
+            if (batch.isEmpty()) {
+                flush(key);
+                return;
+            }
+            busy = true;
+            key.interestOps(0);
+            try {
+                workers.execute(() -> execute(batch));
+            } catch (RejectedExecutionException e) {
+                busy = false;
+                close(key, null);
+            }
+        }
+
+        //On a worker, which alone touches out until the loop takes the connection back
+        private void execute(List<List<byte[]>> batch) {
+            try {
+                for (List<byte[]> command : batch) {
+                    if (!handler.handle(command, out)) {
+                        closing = true;
+                        break;
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("RESP command failed on connection {}", out.getClient(), e);
+                closing = true;
+            } finally {
+                loop.done(this);
+            }
+        }
+
+        void flush(SelectionKey key) throws IOException {
+            while (out.hasPending()) {
+                int written = channel.write(out.pending());
+                if (written == 0) {
+                    break;
+                }
+                out.written(written);
+            }
+            if (out.hasPending()) {
+                //Stop reading until the client drains its replies
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (closing) {
+                close(key, null);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+                Subscriber subscriber = out.getSubscriber();
+                if (subscriber != null && subscriber.hasPending()) {
+                    loop.ready(this);
+                }
+            }
+        }
+
+        void close(SelectionKey key, Exception cause) {
+            if (cause instanceof RespProtocolException) {
+                out.error("ERR Protocol error: " + cause.getMessage());
+                try {
+                    channel.write(out.pending());
+                } catch (IOException ignored) {
+                }
+            }
+            handler.closed(out);
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
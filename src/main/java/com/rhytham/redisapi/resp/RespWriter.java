@@ -0,0 +1,208 @@
+package com.rhytham.redisapi.resp;
+
+import com.rhytham.redisapi.pubsub.Subscriber;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable output buffer that encodes RESP2 or RESP3 replies. Replies for a pipelined
+ * batch accumulate here and go out in one write. It also carries the connection's state:
+ * protocol version, ASKING, the pubsub subscriber once the client subscribes, and MULTI/WATCH state.
+ */
+final class RespWriter {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private byte[] bytes = new byte[4096];
+    private int size;
+    private int flushed;
+    private int protocol = 2;
+    //Set by ASKING in cluster mode, for the connection's next command
+    private boolean asking;
+    //Created on the first (P)SUBSCRIBE; wakeup asks the connection's event loop to deliver its messages
+    private Subscriber subscriber;
+    private Runnable wakeup = () -> {
+    };
+    private String client = "resp";
+    //Created on the first MULTI or WATCH
+    private Transaction transaction;
+
+    void setProtocol(int protocol) {
+        this.protocol = protocol;
+    }
+
+    int getProtocol() {
+        return protocol;
+    }
+
+    void setAsking(boolean asking) {
+        this.asking = asking;
+    }
+
+    boolean isAsking() {
+        return asking;
+    }
+
+    Subscriber getSubscriber() {
+        return subscriber;
+    }
+
+    void setSubscriber(Subscriber subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    //In RESP2 a subscribed connection only takes subscription commands
+    boolean isSubscribed() {
+        return subscriber != null && subscriber.subscriptionCount() > 0;
+    }
+
+    Runnable getWakeup() {
+        return wakeup;
+    }
+
+    void setWakeup(Runnable wakeup) {
+        this.wakeup = wakeup;
+    }
+
+    String getClient() {
+        return client;
+    }
+
+    void setClient(String client) {
+        this.client = client;
+    }
+
+    Transaction getTransaction() {
+        return transaction;
+    }
+
+    void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    void simple(String value) {
+        put((byte) '+');
+        put(value.getBytes(StandardCharsets.UTF_8));
+        put(CRLF);
+    }
+
+    void error(String message) {
+        put((byte) '-');
+        put(message.replace('\r', ' ').replace('\n', ' ').getBytes(StandardCharsets.UTF_8));
+        put(CRLF);
+    }
+
+    void integer(long value) {
+        put((byte) ':');
+        putAscii(Long.toString(value));
+        put(CRLF);
+    }
+
+    void bulk(String value) {
+        if (value == null) {
+            nullValue();
+        } else {
+            bulk(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    void bulk(byte[] value) {
+        if (value == null) {
+            nullValue();
+            return;
+        }
+        put((byte) '$');
+        putAscii(Integer.toString(value.length));
+        put(CRLF);
+        put(value);
+        put(CRLF);
+    }
+
+    void nullValue() {
+        if (protocol >= 3) {
+            put((byte) '_');
+            put(CRLF);
+        } else {
+            putAscii("$-1\r\n");
+        }
+    }
+
+    //An EXEC whose watched keys changed
+    void nullArray() {
+        if (protocol >= 3) {
+            put((byte) '_');
+            put(CRLF);
+        } else {
+            putAscii("*-1\r\n");
+        }
+    }
+
+    void arrayHeader(int length) {
+        put((byte) '*');
+        putAscii(Integer.toString(length));
+        put(CRLF);
+    }
+
+    //Out-of-band data such as pubsub messages: a RESP3 push, a plain array in RESP2
+    void pushHeader(int length) {
+        if (protocol >= 3) {
+            put((byte) '>');
+            putAscii(Integer.toString(length));
+            put(CRLF);
+        } else {
+            arrayHeader(length);
+        }
+    }
+
+    void mapHeader(int entries) {
+        if (protocol >= 3) {
+            put((byte) '%');
+            putAscii(Integer.toString(entries));
+            put(CRLF);
+        } else {
+            arrayHeader(entries * 2);
+        }
+    }
+
+    boolean hasPending() {
+        return flushed < size;
+    }
+
+    ByteBuffer pending() {
+        return ByteBuffer.wrap(bytes, flushed, size - flushed);
+    }
+
+    void written(int count) {
+        flushed += count;
+        if (flushed == size) {
+            flushed = 0;
+            size = 0;
+        }
+    }
+
+    private void putAscii(String value) {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            bytes[size++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void put(byte b) {
+        ensure(1);
+        bytes[size++] = b;
+    }
+
+    private void put(byte[] data) {
+        ensure(data.length);
+        System.arraycopy(data, 0, bytes, size, data.length);
+        size += data.length;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
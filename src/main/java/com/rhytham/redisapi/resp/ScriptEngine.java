@@ -0,0 +1,451 @@
+package com.rhytham.redisapi.resp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaClosure;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaFunction;
+import org.luaj.vm2.LuaInteger;
+import org.luaj.vm2.LuaString;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Prototype;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.compiler.LuaC;
+import org.luaj.vm2.lib.Bit32Lib;
+import org.luaj.vm2.lib.DebugLib;
+import org.luaj.vm2.lib.OneArgFunction;
+import org.luaj.vm2.lib.PackageLib;
+import org.luaj.vm2.lib.StringLib;
+import org.luaj.vm2.lib.TableLib;
+import org.luaj.vm2.lib.ThreeArgFunction;
+import org.luaj.vm2.lib.TwoArgFunction;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JseBaseLib;
+import org.luaj.vm2.lib.jse.JseMathLib;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * EVAL scripts in Lua, run by LuaJ. A script is compiled once and cached by the SHA1 of its source, so
+ * EVALSHA only sends the digest; the cache keeps the most recently used scripts and a client whose script
+ * was evicted gets {@code NOSCRIPT} and sends it again, as with Redis.
+ * <p>
+ * Scripts run sandboxed, as in Redis 7: only the base, string, table, math and bit32 libraries are there,
+ * without anything that reaches files, the OS, Java classes or the loader; globals and libraries are
+ * read-only; and a script still running at the time limit is stopped with an error. What it already
+ * wrote stays written, as after any other script error, since Redis scripts do not roll back either.
+ * {@code redis.call} and {@code redis.pcall} run commands with Redis's reply conversions.
+ */
+@Slf4j
+public class ScriptEngine {
+
+    private static final String CHUNK = "user_script";
+
+    //Instructions between two looks at the clock
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private static final List<String> BASE_FUNCTIONS = List.of("assert", "error", "getmetatable", "ipairs", "next",
+            "pairs", "pcall", "rawequal", "rawget", "rawlen", "select", "setmetatable", "tonumber", "tostring", "type",
+            "xpcall", "_VERSION");
+
+    private static final LuaString ERR = LuaValue.valueOf("err");
+    private static final LuaString OK = LuaValue.valueOf("ok");
+
+    /**
+     * A compiled script, shared by every run of it.
+     */
+    static final class Script {
+
+        private final String sha;
+        private final Prototype prototype;
+
+        private Script(String sha, Prototype prototype) {
+            this.sha = sha;
+            this.prototype = prototype;
+        }
+
+        String sha() {
+            return sha;
+        }
+    }
+
+    private final Map<String, Script> scripts;
+    private final long timeLimitMs;
+    //What a script sees besides KEYS, ARGV and redis; never written once built
+    private final LuaTable library = new LuaTable();
+    private final LuaTable sandbox;
+    private final LuaTable redisFunctions = new LuaTable();
+
+    /**
+     * @param cacheSize compiled scripts kept for EVALSHA
+     * @param timeLimitMs how long a script may run before it is stopped
+     */
+    public ScriptEngine(int cacheSize, long timeLimitMs) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("cacheSize must be positive");
+        }
+        this.timeLimitMs = timeLimitMs;
+        this.scripts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Script> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        Globals globals = new Globals();
+        globals.load(new JseBaseLib());
+        //The libraries register in package.loaded; package itself stays out of the sandbox
+        globals.load(new PackageLib());
+        globals.load(new TableLib());
+        globals.load(new StringLib());
+        globals.load(new JseMathLib());
+        globals.load(new Bit32Lib());
+        for (String name : BASE_FUNCTIONS) {
+            library.rawset(name, globals.get(name));
+        }
+        //Redis runs Lua 5.1, where unpack is a global
+        library.rawset("unpack", globals.get("table").get("unpack"));
+        for (String name : List.of("string", "table", "math", "bit32")) {
+            library.rawset(name, readOnly(globals.get(name)));
+        }
+        //Strings index the string library through this metatable; protected so scripts can not reach the table behind it
+        LuaString.s_metatable = LuaValue.tableOf(new LuaValue[]{LuaValue.INDEX, library.get("string"),
+                LuaValue.METATABLE, LuaValue.FALSE});
+        sandbox = LuaValue.tableOf(new LuaValue[]{
+                LuaValue.INDEX, new TwoArgFunction() {
+                    @Override
+                    public LuaValue call(LuaValue table, LuaValue name) {
+                        LuaValue value = library.rawget(name);
+                        if (value.isnil()) {
+                            throw new LuaError("Script attempted to access nonexistent global variable '" + name.tojstring() + "'");
+                        }
+                        return value;
+                    }
+                },
+                LuaValue.NEWINDEX, new ThreeArgFunction() {
+                    @Override
+                    public LuaValue call(LuaValue table, LuaValue name, LuaValue value) {
+                        throw new LuaError("Script attempted to create global variable '" + name.tojstring() + "'");
+                    }
+                },
+                LuaValue.METATABLE, LuaValue.FALSE});
+        redisFunctions();
+    }
+
+    private static LuaValue readOnly(LuaValue table) {
+        LuaTable proxy = new LuaTable();
+        proxy.setmetatable(LuaValue.tableOf(new LuaValue[]{
+                LuaValue.INDEX, table,
+                LuaValue.NEWINDEX, new ThreeArgFunction() {
+                    @Override
+                    public LuaValue call(LuaValue t, LuaValue name, LuaValue value) {
+                        throw new LuaError("Attempt to modify a readonly table");
+                    }
+                },
+                LuaValue.METATABLE, LuaValue.FALSE}));
+        return proxy;
+    }
+
+    //The redis functions that do not run commands, shared by every run
+    private void redisFunctions() {
+        redisFunctions.rawset("error_reply", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue message) {
+                return LuaValue.tableOf(new LuaValue[]{ERR, message.checkstring()});
+            }
+        });
+        redisFunctions.rawset("status_reply", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue message) {
+                return LuaValue.tableOf(new LuaValue[]{OK, message.checkstring()});
+            }
+        });
+        redisFunctions.rawset("sha1hex", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue value) {
+                return LuaValue.valueOf(sha1(bytes(value.checkstring())));
+            }
+        });
+        redisFunctions.rawset("log", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                int level = args.checkint(1);
+                StringBuilder message = new StringBuilder();
+                for (int i = 2; i <= args.narg(); i++) {
+                    message.append(i > 2 ? " " : "").append(args.arg(i).tojstring());
+                }
+                switch (level) {
+                    case 0 -> log.debug("Script: {}", message);
+                    case 1, 2 -> log.info("Script: {}", message);
+                    default -> log.warn("Script: {}", message);
+                }
+                return LuaValue.NONE;
+            }
+        });
+        //Effects are always replicated as commands here, which Redis 7 made the only mode
+        redisFunctions.rawset("replicate_commands", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return LuaValue.TRUE;
+            }
+        });
+        redisFunctions.rawset("LOG_DEBUG", LuaValue.valueOf(0));
+        redisFunctions.rawset("LOG_VERBOSE", LuaValue.valueOf(1));
+        redisFunctions.rawset("LOG_NOTICE", LuaValue.valueOf(2));
+        redisFunctions.rawset("LOG_WARNING", LuaValue.valueOf(3));
+    }
+
+    /**
+     * Compiles the script, or finds it compiled already. Throws IllegalArgumentException for a syntax error.
+     */
+    Script compile(byte[] source) {
+        String sha = sha1(source);
+        Script script = scripts.get(sha);
+        if (script != null) {
+            return script;
+        }
+        try {
+            script = new Script(sha, LuaC.instance.compile(new ByteArrayInputStream(source), CHUNK));
+        } catch (LuaError | IOException e) {
+            throw new IllegalArgumentException("Error compiling script (new function): " + e.getMessage());
+        }
+        scripts.put(sha, script);
+        return script;
+    }
+
+    //SCRIPT LOAD: returns the SHA1 EVALSHA takes
+    public String load(byte[] source) {
+        return compile(source).sha();
+    }
+
+    //Null when the script is not cached, or no longer
+    Script find(String sha) {
+        return scripts.get(sha.toLowerCase(Locale.ROOT));
+    }
+
+    public boolean exists(String sha) {
+        return scripts.containsKey(sha.toLowerCase(Locale.ROOT));
+    }
+
+    public void flush() {
+        scripts.clear();
+    }
+
+    public int size() {
+        return scripts.size();
+    }
+
+    /**
+     * Runs the script and returns its result converted to a reply, as in {@link Replies}; a Lua error
+     * becomes an error reply. {@code call} runs a command for {@code redis.call} and returns its reply.
+     */
+    Object run(Script script, List<String> keys, List<byte[]> argv, Function<List<byte[]>, Object> call) {
+        Globals env = new Globals();
+        env.debuglib = new Watchdog(System.nanoTime() + timeLimitMs * 1_000_000, timeLimitMs);
+        LuaTable keyTable = new LuaTable(keys.size(), 0);
+        for (int i = 0; i < keys.size(); i++) {
+            keyTable.rawset(i + 1, LuaValue.valueOf(keys.get(i)));
+        }
+        LuaTable argTable = new LuaTable(argv.size(), 0);
+        for (int i = 0; i < argv.size(); i++) {
+            argTable.rawset(i + 1, LuaValue.valueOf(argv.get(i)));
+        }
+        env.rawset("KEYS", keyTable);
+        env.rawset("ARGV", argTable);
+        env.rawset("redis", redis(call));
+        env.rawset("_G", env);
+        env.setmetatable(sandbox);
+        try {
+            return fromLua(new LuaClosure(script.prototype, env).call());
+        } catch (LuaError e) {
+            LuaValue raised = e.getMessageObject();
+            if (raised != null && raised.istable() && raised.rawget(ERR).isstring()) {
+                return new Replies.Error(raised.rawget(ERR).tojstring());
+            }
+            return new Replies.Error("ERR Error running script: " + e.getMessage());
+        } catch (Killed e) {
+            return new Replies.Error(e.getMessage());
+        } catch (StackOverflowError e) {
+            return new Replies.Error("ERR Error running script: stack overflow");
+        }
+    }
+
+    //A run's own redis table: call and pcall go to this run's command callback
+    private LuaTable redis(Function<List<byte[]>, Object> call) {
+        LuaTable redis = new LuaTable();
+        for (LuaValue name = redisFunctions.next(LuaValue.NIL).arg1(); !name.isnil(); name = redisFunctions.next(name).arg1()) {
+            redis.rawset(name, redisFunctions.rawget(name));
+        }
+        redis.rawset("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                Object reply = call.apply(command(args));
+                if (reply instanceof Replies.Error error) {
+                    //Raised as a table, so a script that pcalls redis.call sees the error reply Redis would give it
+                    throw new LuaError(LuaValue.tableOf(new LuaValue[]{ERR, LuaValue.valueOf(error.message())}));
+                }
+                return toLua(reply);
+            }
+        });
+        redis.rawset("pcall", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return toLua(call.apply(command(args)));
+            }
+        });
+        return redis;
+    }
+
+    private static List<byte[]> command(Varargs args) {
+        if (args.narg() == 0) {
+            throw new LuaError("Please specify at least one argument for this redis lib call");
+        }
+        List<byte[]> command = new ArrayList<>(args.narg());
+        for (int i = 1; i <= args.narg(); i++) {
+            LuaValue arg = args.arg(i);
+            if (arg.type() != LuaValue.TSTRING && arg.type() != LuaValue.TNUMBER) {
+                throw new LuaError("Lua redis lib command arguments must be strings or integers");
+            }
+            command.add(bytes(arg.checkstring()));
+        }
+        return command;
+    }
+
+    //Redis's reply to Lua conversion: nil becomes false, status and error replies tables with ok or err
+    private static LuaValue toLua(Object reply) {
+        if (reply == null) {
+            return LuaValue.FALSE;
+        }
+        if (reply instanceof Long value) {
+            return LuaInteger.valueOf(value);
+        }
+        if (reply instanceof byte[] value) {
+            return LuaValue.valueOf(value);
+        }
+        if (reply instanceof Replies.Status status) {
+            return LuaValue.tableOf(new LuaValue[]{OK, LuaValue.valueOf(status.message())});
+        }
+        if (reply instanceof Replies.Error error) {
+            return LuaValue.tableOf(new LuaValue[]{ERR, LuaValue.valueOf(error.message())});
+        }
+        List<?> values = (List<?>) reply;
+        LuaTable table = new LuaTable(values.size(), 0);
+        for (int i = 0; i < values.size(); i++) {
+            table.rawset(i + 1, toLua(values.get(i)));
+        }
+        return table;
+    }
+
+    //And back: numbers are truncated to integers, true is 1, false nil, and an array stops at its first nil
+    private static Object fromLua(LuaValue value) {
+        switch (value.type()) {
+            case LuaValue.TNUMBER -> {
+                return (long) value.todouble();
+            }
+            case LuaValue.TSTRING -> {
+                return bytes(value.checkstring());
+            }
+            case LuaValue.TBOOLEAN -> {
+                return value.toboolean() ? 1L : null;
+            }
+            case LuaValue.TTABLE -> {
+                if (value.rawget(ERR).isstring()) {
+                    return new Replies.Error(value.rawget(ERR).tojstring());
+                }
+                if (value.rawget(OK).isstring()) {
+                    return new Replies.Status(value.rawget(OK).tojstring());
+                }
+                List<Object> values = new ArrayList<>();
+                for (int i = 1; !value.rawget(i).isnil(); i++) {
+                    values.add(fromLua(value.rawget(i)));
+                }
+                return values;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private static byte[] bytes(LuaString string) {
+        byte[] bytes = new byte[string.m_length];
+        string.copyInto(0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    static String sha1(byte[] source) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(source));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String sha1(String source) {
+        return sha1(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stops a script at its deadline. LuaJ calls a debug library on every instruction of code whose
+     * environment has one; this one only looks at the clock, and keeps no call stack.
+     */
+    private static final class Watchdog extends DebugLib {
+
+        private final long deadline;
+        private final long timeLimitMs;
+        private int countdown = CLOCK_INTERVAL;
+
+        private Watchdog(long deadline, long timeLimitMs) {
+            this.deadline = deadline;
+            this.timeLimitMs = timeLimitMs;
+        }
+
+        @Override
+        public void onInstruction(int pc, Varargs v, int top) {
+            if (--countdown > 0) {
+                return;
+            }
+            countdown = CLOCK_INTERVAL;
+            if (System.nanoTime() - deadline > 0) {
+                throw new Killed("ERR Script killed: still running after the " + timeLimitMs + " ms time limit");
+            }
+        }
+
+        @Override
+        public void onCall(LuaFunction f) {
+        }
+
+        @Override
+        public void onCall(LuaClosure c, Varargs varargs, LuaValue[] stack) {
+        }
+
+        @Override
+        public void onReturn() {
+        }
+
+        @Override
+        public String traceback(int level) {
+            return null;
+        }
+    }
+
+    //An Error rather than a LuaError: pcall and xpcall trap LuaError and every Exception, so a script could catch its own kill
+    private static final class Killed extends Error {
+
+        private Killed(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
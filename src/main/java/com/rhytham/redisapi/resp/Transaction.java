@@ -0,0 +1,60 @@
+package com.rhytham.redisapi.resp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A connection's MULTI/EXEC state: the keys it WATCHes with the versions they had then, and, between
+ * MULTI and EXEC, the commands queued to run as one.
+ */
+final class Transaction {
+
+    private final Map<String, Long> watched = new LinkedHashMap<>();
+    //Null outside MULTI
+    private List<List<byte[]>> queued;
+    //A command was refused while queueing, so EXEC runs nothing
+    private boolean failed;
+
+    Map<String, Long> getWatched() {
+        return watched;
+    }
+
+    //WATCH keeps the first version seen, as a later WATCH of the same key must not hide a change in between
+    void watch(String key, long version) {
+        watched.putIfAbsent(key, version);
+    }
+
+    void begin() {
+        queued = new ArrayList<>();
+        failed = false;
+    }
+
+    boolean isQueueing() {
+        return queued != null;
+    }
+
+    void queue(List<byte[]> command) {
+        queued.add(command);
+    }
+
+    List<List<byte[]>> getQueued() {
+        return queued;
+    }
+
+    void fail() {
+        failed = true;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    //After EXEC or DISCARD: the queue and the watches both go, as in Redis
+    void reset() {
+        queued = null;
+        failed = false;
+        watched.clear();
+    }
+}
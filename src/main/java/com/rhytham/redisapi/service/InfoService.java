@@ -0,0 +1,100 @@
+package com.rhytham.redisapi.service;
+
+import com.rhytham.redisapi.config.ExpiryProperties;
+import com.rhytham.redisapi.config.StoreProperties;
+import com.rhytham.redisapi.metrics.CommandMetrics;
+import com.rhytham.redisapi.metrics.ExpiryMetrics;
+import com.rhytham.redisapi.metrics.KeyspaceMetrics;
+import com.rhytham.redisapi.replication.ReplicationInfo;
+import com.rhytham.redisapi.store.KeyspaceStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Redis INFO-style report built from the metrics beans, served as JSON on {@code /admin/info}
+ * and as text by the RESP {@code INFO} command.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class InfoService {
+
+    private final CommandMetrics commandMetrics;
+    private final KeyspaceMetrics keyspaceMetrics;
+    private final ExpiryMetrics expiryMetrics;
+    private final StoreProperties storeProperties;
+    private final ExpiryProperties expiryProperties;
+    private final Optional<ReplicationInfo> replication;
+
+    public Map<String, Map<String, Object>> info() {
+        Map<String, Map<String, Object>> sections = new LinkedHashMap<>();
+
+        Map<String, Object> server = new LinkedHashMap<>();
+        server.put("engine", storeProperties.getEngine());
+        server.put("persistence", storeProperties.getPersistence());
+        server.put("uptimeSeconds", ManagementFactory.getRuntimeMXBean().getUptime() / 1000);
+        sections.put("server", server);
+
+        KeyspaceStats stats = keyspaceMetrics.stats();
+        Map<String, Object> keyspace = new LinkedHashMap<>();
+        keyspace.put("keys", stats.keys());
+        keyspace.put("keysWithExpiry", stats.keysWithExpiry());
+        keyspace.put("expiredPending", stats.expiredPending());
+        keyspace.put("bytesUsed", stats.bytesUsed());
+        sections.put("keyspace", keyspace);
+
+        sections.put("commandstats", commandMetrics.describe());
+
+        Map<String, Object> expiry = new LinkedHashMap<>();
+        expiry.put("mode", expiryProperties.getMode());
+        expiry.put("runs", expiryMetrics.runs());
+        expiry.put("totalDeleted", (long) expiryMetrics.totalDeleted());
+        if (expiryMetrics.getLastRunAt() > 0) {
+            expiry.put("lastRunTime", Instant.ofEpochMilli(expiryMetrics.getLastRunAt()).toString());
+            expiry.put("lastDurationMs", expiryMetrics.getLastDurationNanos() / 1e6);
+            expiry.put("lastDeleted", expiryMetrics.getLastDeleted());
+        }
+        sections.put("expiry", expiry);
+
+        replication.ifPresent(role -> sections.put("replication", role.describe()));
+        return sections;
+    }
+
+    /**
+     * Renders one section, or all of them when {@code section} is null or "all", in Redis INFO text format.
+     */
+    public String render(String section) {
+        boolean all = section == null || section.equalsIgnoreCase("all") || section.equalsIgnoreCase("everything");
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Map<String, Object>> entry : info().entrySet()) {
+            if (!all && !entry.getKey().equalsIgnoreCase(section)) {
+                continue;
+            }
+            if (!text.isEmpty()) {
+                text.append("\r\n");
+            }
+            String name = entry.getKey();
+            text.append("# ").append(name.substring(0, 1).toUpperCase(Locale.ROOT)).append(name.substring(1)).append("\r\n");
+            for (Map.Entry<String, Object> field : entry.getValue().entrySet()) {
+                if (field.getValue() instanceof Map<?, ?> stats) {
+                    //Redis commandstats style: cmdstat_get:calls=3,p50Micros=...
+                    text.append("cmdstat_").append(field.getKey()).append(':');
+                    StringBuilder values = new StringBuilder();
+                    stats.forEach((k, v) -> values.append(values.isEmpty() ? "" : ",").append(k).append('=').append(v));
+                    text.append(values).append("\r\n");
+                } else {
+                    text.append(field.getKey()).append(':').append(field.getValue()).append("\r\n");
+                }
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,275 @@
+package com.rhytham.redisapi.service;
+
+import com.rhytham.redisapi.dto.PipelineCommand;
+import com.rhytham.redisapi.dto.PipelineResult;
+import com.rhytham.redisapi.exception.WrongTypeException;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.transaction.KeyLocks;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs an ordered batch of commands against a local view of the keys it touches.
+ * All keys are fetched with one {@code findAllById} up front and every change is
+ * written back at the end with one batch save and one batch delete, so a batch
+ * costs two or three round trips to the store regardless of its size, plus one per
+ * EXPIRE of a key the batch did not write. Commands
+ * see the effects of earlier commands in the same batch; the batch as a whole is
+ * not isolated from concurrent clients. It does hold {@link RedisService}'s shared
+ * lease on its keys throughout, like any single command, so it never interleaves
+ * with a MULTI/EXEC transaction or a script on those keys.
+ */
+@AllArgsConstructor
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PipelineService {
+
+    private final KeyValueStore store;
+    private final RedisService redisService;
+
+    public List<PipelineResult> execute(List<PipelineCommand> commands) {
+        Set<String> keys = new LinkedHashSet<>();
+        boolean flush = false;
+        for (PipelineCommand command : commands) {
+            keys.addAll(keys(command));
+            flush |= name(command).equals("FLUSHALL");
+        }
+        try (KeyLocks.Lease ignored = flush ? redisService.leaseAll() : redisService.lease(keys)) {
+            Batch batch = new Batch(prefetch(keys));
+            List<PipelineResult> results = new ArrayList<>(commands.size());
+            for (PipelineCommand command : commands) {
+                try {
+                    results.add(PipelineResult.ok(batch.apply(command)));
+                } catch (IllegalArgumentException | WrongTypeException e) {
+                    results.add(PipelineResult.error(e.getMessage()));
+                }
+            }
+            batch.commit();
+            return results;
+        }
+    }
+
+    private Map<String, KeyValueEntry> prefetch(Set<String> keys) {
+        Map<String, KeyValueEntry> view = new HashMap<>();
+        if (!keys.isEmpty()) {
+            for (KeyValueEntry entry : store.findAllById(keys)) {
+                if (!entry.isExpired()) {
+                    view.put(entry.getKey(), entry);
+                }
+            }
+        }
+        return view;
+    }
+
+    /**
+     * The keys a command reads or writes, in argument order; empty for FLUSHALL.
+     */
+    public static List<String> keys(PipelineCommand command) {
+        List<String> args = args(command);
+        String name = name(command);
+        if (name.equals("MSET")) {
+            List<String> keys = new ArrayList<>(args.size() / 2);
+            for (int i = 0; i < args.size(); i += 2) {
+                keys.add(args.get(i));
+            }
+            return keys;
+        }
+        if (name.equals("DEL") || name.equals("EXISTS") || name.equals("MGET")) {
+            return args;
+        }
+        return args.isEmpty() ? List.of() : List.of(args.get(0));
+    }
+
+    private static String name(PipelineCommand command) {
+        return command.getCommand() == null ? "" : command.getCommand().toUpperCase(Locale.ROOT);
+    }
+
+    private static List<String> args(PipelineCommand command) {
+        return command.getArgs() == null ? List.of() : command.getArgs();
+    }
+
+    private class Batch {
+
+        private final Map<String, KeyValueEntry> view;
+        private final Set<String> dirty = new LinkedHashSet<>();
+        private final Map<String, Long> expiries = new LinkedHashMap<>();
+
+        Batch(Map<String, KeyValueEntry> view) {
+            this.view = view;
+        }
+
+        Object apply(PipelineCommand command) {
+            String name = name(command);
+            List<String> args = args(command);
+            long now = System.currentTimeMillis();
+            switch (name) {
+                case "GET" -> {
+                    arity(name, args, 1, 1);
+                    KeyValueEntry entry = live(args.get(0), now);
+                    if (entry != null && entry.getType() != ValueType.STRING) {
+                        throw new WrongTypeException();
+                    }
+                    return entry == null ? null : entry.getValue();
+                }
+                case "SET" -> {
+                    arity(name, args, 2, 3);
+                    Long expiryTime = null;
+                    if (args.size() == 3) {
+                        long ttl = parseLong(args.get(2));
+                        if (ttl <= 0) {
+                            throw new IllegalArgumentException("TTL must be greater than 0");
+                        }
+                        expiryTime = now + ttl * 1000;
+                    }
+                    write(new KeyValueEntry(args.get(0), args.get(1), expiryTime));
+                    return "OK";
+                }
+                case "MSET" -> {
+                    if (args.isEmpty() || args.size() % 2 != 0) {
+                        throw new IllegalArgumentException("wrong number of arguments for 'MSET'");
+                    }
+                    for (int i = 0; i < args.size(); i += 2) {
+                        write(new KeyValueEntry(args.get(i), args.get(i + 1), null));
+                    }
+                    return "OK";
+                }
+                case "MGET" -> {
+                    arity(name, args, 1, Integer.MAX_VALUE);
+                    Map<String, String> values = new LinkedHashMap<>();
+                    for (String key : args) {
+                        KeyValueEntry entry = live(key, now);
+                        values.put(key, entry == null || entry.getType() != ValueType.STRING ? null : entry.getValue());
+                    }
+                    return values;
+                }
+                case "DEL" -> {
+                    arity(name, args, 1, Integer.MAX_VALUE);
+                    long deleted = 0;
+                    for (String key : args) {
+                        if (view.remove(key) != null) {
+                            dirty.add(key);
+                            expiries.remove(key);
+                            deleted++;
+                        }
+                    }
+                    return deleted;
+                }
+                case "EXISTS" -> {
+                    arity(name, args, 1, Integer.MAX_VALUE);
+                    long count = 0;
+                    for (String key : args) {
+                        if (live(key, now) != null) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }
+                case "EXPIRE" -> {
+                    arity(name, args, 2, 2);
+                    long ttl = parseLong(args.get(1));
+                    KeyValueEntry entry = live(args.get(0), now);
+                    if (entry == null) {
+                        return false;
+                    }
+                    if (ttl <= 0) { //a non-positive TTL deletes the key, as in Redis
+                        view.remove(entry.getKey());
+                        dirty.add(entry.getKey());
+                        expiries.remove(entry.getKey());
+                        return true;
+                    }
+                    if (dirty.contains(entry.getKey())) {
+                        write(entry.withExpiryTime(now + ttl * 1000));
+                    } else {
+                        //Not written by this batch: only the expiry is applied at commit, so a concurrent
+                        //SET of the value is not overwritten by the copy prefetched here
+                        view.put(entry.getKey(), entry.withExpiryTime(now + ttl * 1000));
+                        expiries.put(entry.getKey(), now + ttl * 1000);
+                    }
+                    return true;
+                }
+                case "TTL" -> {
+                    arity(name, args, 1, 1);
+                    KeyValueEntry entry = live(args.get(0), now);
+                    if (entry == null) {
+                        return -2L;
+                    }
+                    Long expiryTime = entry.getExpiryTime();
+                    if (expiryTime == null || expiryTime <= 0) {
+                        return -1L;
+                    }
+                    return Math.max(0, (expiryTime - now + 500) / 1000);
+                }
+                case "FLUSHALL" -> {
+                    arity(name, args, 0, 0);
+                    //Pending writes from earlier commands would be wiped anyway
+                    store.deleteAll();
+                    view.clear();
+                    dirty.clear();
+                    expiries.clear();
+                    return "OK";
+                }
+                default -> throw new IllegalArgumentException("unknown command '" + command.getCommand() + "'");
+            }
+        }
+
+        private KeyValueEntry live(String key, long now) {
+            KeyValueEntry entry = view.get(key);
+            if (entry != null && entry.getExpiryTime() != null && entry.getExpiryTime() > 0 && entry.getExpiryTime() <= now) {
+                return null;
+            }
+            return entry;
+        }
+
+        private void write(KeyValueEntry entry) {
+            view.put(entry.getKey(), entry);
+            dirty.add(entry.getKey());
+            expiries.remove(entry.getKey());
+        }
+
+        void commit() {
+            List<KeyValueEntry> upserts = new ArrayList<>();
+            List<String> deletes = new ArrayList<>();
+            for (String key : dirty) {
+                KeyValueEntry entry = view.get(key);
+                if (entry != null) {
+                    upserts.add(entry);
+                } else {
+                    deletes.add(key);
+                }
+            }
+            if (!upserts.isEmpty()) {
+                store.saveAll(upserts);
+            }
+            if (!deletes.isEmpty()) {
+                store.deleteAllById(deletes);
+            }
+            expiries.forEach(store::updateExpiry);
+        }
+    }
+
+    private static void arity(String name, List<String> args, int min, int max) {
+        if (args.size() < min || args.size() > max) {
+            throw new IllegalArgumentException("wrong number of arguments for '" + name + "'");
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+    }
+}
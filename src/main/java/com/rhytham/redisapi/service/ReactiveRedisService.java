@@ -0,0 +1,285 @@
+package com.rhytham.redisapi.service;
+
+import com.rhytham.redisapi.dto.KeyValueRequest;
+import com.rhytham.redisapi.exception.KeyNotFoundException;
+import com.rhytham.redisapi.exception.WrongTypeException;
+import com.rhytham.redisapi.metrics.CommandMetrics;
+import com.rhytham.redisapi.metrics.CommandMetrics.Command;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+import com.rhytham.redisapi.repository.ReactiveKeyValueRepository;
+import com.rhytham.redisapi.store.ScanPage;
+import com.rhytham.redisapi.util.GlobMatcher;
+import org.springframework.dao.DataIntegrityViolationException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The string commands of {@link RedisService} for the reactive profile, on top of
+ * {@link ReactiveKeyValueRepository}. Nothing here blocks: every command is one or two statements
+ * whose results arrive as signals, so a few event-loop threads serve every connection. Expiry
+ * works the same way: lazily on reads, plus the periodic sweep.
+ * <p>
+ * It takes no key locks. MULTI/EXEC and scripts only exist in the servlet application, and the two
+ * stacks are never built into the same process, so there is no transaction here to interleave with.
+ */
+public class ReactiveRedisService {
+
+    //Rows fetched per query when walking the keyspace
+    static final int WALK_PAGE_SIZE = 1000;
+
+    private final ReactiveKeyValueRepository repository;
+    private final CommandMetrics metrics;
+    private final int deleteChunkSize;
+
+    public ReactiveRedisService(ReactiveKeyValueRepository repository, CommandMetrics metrics, int deleteChunkSize) {
+        this.repository = repository;
+        this.metrics = metrics;
+        this.deleteChunkSize = deleteChunkSize;
+    }
+
+    public Mono<Void> set(String key, String value, Long ttlSeconds) {
+        return timed(Command.SET, Mono.defer(() -> repository.upsert(new KeyValueEntry(key, value, expiryTime(ttlSeconds)))));
+    }
+
+    public Mono<String> get(String key) {
+        return timed(Command.GET, findLive(key))
+                .switchIfEmpty(Mono.error(() -> new KeyNotFoundException("Key " + key + " not found or has expired.")))
+                .map(ReactiveRedisService::stringValue);
+    }
+
+    public Mono<Map<String, Object>> getEntry(String key) {
+        return timed(Command.GET, findLive(key))
+                .switchIfEmpty(Mono.error(() -> new KeyNotFoundException("Key " + key + " not found or is expired")))
+                .map(ReactiveRedisService::describe);
+    }
+
+    public Mono<Boolean> exists(String key) {
+        return timed(Command.EXISTS, findLive(key).hasElement());
+    }
+
+    public Mono<Boolean> delete(String key) {
+        return timed(Command.DEL, repository.deleteAllById(List.of(key)))
+                .flatMap(deleted -> deleted > 0 ? Mono.just(true)
+                        : Mono.error(new KeyNotFoundException("Key " + key + " not found or is already expired")));
+    }
+
+    public Mono<Integer> mdel(List<String> keys) {
+        return timed(Command.DEL, repository.deleteAllById(new LinkedHashSet<>(keys))).map(Long::intValue);
+    }
+
+    public Mono<Boolean> expire(String key, long ttl) {
+        return timed(Command.EXPIRE, Mono.defer(() -> {
+            long now = System.currentTimeMillis();
+            return repository.updateExpiry(key, now + ttl * 1000, now);
+        })).flatMap(updated -> updated ? Mono.just(true)
+                : Mono.error(new KeyNotFoundException("Key " + key + " not found or is already expired")));
+    }
+
+    public Mono<String> getTTL(String key) {
+        return timed(Command.TTL, findLive(key))
+                .switchIfEmpty(Mono.error(() -> new KeyNotFoundException("Key " + key + " not found or is already expired")))
+                .map(entry -> {
+                    Long expiryTime = entry.getExpiryTime();
+                    if (expiryTime == null || expiryTime <= 0) {
+                        return "No expiration set for this key";
+                    }
+                    return "TTL for key " + key + " is " + Math.max(0, expiryTime - System.currentTimeMillis()) / 1000 + " seconds.";
+                });
+    }
+
+    //One statement; an empty result means the key holds something that is not an integer
+    public Mono<Long> incrBy(String key, long increment) {
+        return timed(Command.INCRBY, Mono.defer(() -> repository.incrementBy(key, increment, System.currentTimeMillis()))
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> new IllegalArgumentException("increment or decrement would overflow"))
+                .switchIfEmpty(Mono.defer(() -> repository.findById(key).<Long>handle((entry, sink) -> {
+                    stringValue(entry);
+                    sink.error(new IllegalArgumentException("value is not an integer or out of range"));
+                }))));
+    }
+
+    public Mono<Long> decrBy(String key, long decrement) {
+        if (decrement == Long.MIN_VALUE) {
+            return Mono.error(new IllegalArgumentException("decrement would overflow"));
+        }
+        return incrBy(key, -decrement);
+    }
+
+    public Mono<Boolean> setnx(String key, String value, Long ttlSeconds) {
+        return timed(Command.SETNX, Mono.defer(() ->
+                repository.insertIfAbsent(new KeyValueEntry(key, value, expiryTime(ttlSeconds)), System.currentTimeMillis())));
+    }
+
+    //No match re-reads the key so a typed value still answers WRONGTYPE, as in RedisService
+    public Mono<Boolean> compareAndSet(String key, String expected, String value) {
+        return timed(Command.CAS, Mono.defer(() -> repository.compareAndSet(key, expected, value, System.currentTimeMillis())))
+                .flatMap(swapped -> swapped ? Mono.just(true)
+                        : repository.findById(key).map(entry -> {
+                            stringValue(entry);
+                            return false;
+                        }).defaultIfEmpty(false));
+    }
+
+    public Mono<Void> mset(List<KeyValueRequest> entries) {
+        return timed(Command.MSET, Mono.defer(() -> {
+            long now = System.currentTimeMillis();
+            Map<String, KeyValueEntry> batch = new LinkedHashMap<>();
+            for (KeyValueRequest request : entries) {
+                Long ttl = request.getTtl();
+                Long expiryTime = ttl != null && ttl > 0 ? now + ttl * 1000 : null;
+                batch.put(request.getKey(), new KeyValueEntry(request.getKey(), request.valueBytes(), expiryTime)); //last write wins
+            }
+            return repository.upsertAll(batch.values());
+        }));
+    }
+
+    //Missing, expired or non-string keys map to null, in request order
+    public Mono<Map<String, String>> mget(List<String> keys) {
+        return timed(Command.MGET, repository.findAllById(new LinkedHashSet<>(keys)).collectList().flatMap(rows -> {
+            Map<String, KeyValueEntry> found = new HashMap<>();
+            List<String> expired = new ArrayList<>();
+            for (KeyValueEntry entry : rows) {
+                if (entry.isExpired()) {
+                    expired.add(entry.getKey());
+                } else {
+                    found.put(entry.getKey(), entry);
+                }
+            }
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String key : keys) {
+                KeyValueEntry entry = found.get(key);
+                values.put(key, entry == null || entry.getType() != ValueType.STRING ? null : entry.getValue());
+            }
+            return repository.deleteExpired(expired, System.currentTimeMillis()).thenReturn(values);
+        }));
+    }
+
+    /**
+     * Live entries whose key matches {@code pattern} (all when null), read a page at a time as the
+     * subscriber requests them, at most one page ahead. A slow client therefore holds back the
+     * database reads instead of having the keyspace buffered for it.
+     */
+    public Flux<Map<String, Object>> entries(String pattern) {
+        return page("", WALK_PAGE_SIZE)
+                .expand(page -> page.size() < WALK_PAGE_SIZE ? Mono.empty()
+                        : page(page.get(page.size() - 1).getKey(), WALK_PAGE_SIZE))
+                .concatMap(this::liveEntries, 0)
+                .filter(entry -> pattern == null || GlobMatcher.matches(pattern, entry.getKey()))
+                .map(ReactiveRedisService::describe);
+    }
+
+    public Mono<Boolean> hasKeys() {
+        return Mono.defer(() -> repository.existsLive(System.currentTimeMillis()));
+    }
+
+    //Same cursor format as the jpa engine: the last key of the page, base64url-encoded
+    public Mono<RedisService.ScanResult> scan(String cursor, String pattern, int count) {
+        if (count <= 0) {
+            return Mono.error(new IllegalArgumentException("count must be positive"));
+        }
+        String after;
+        try {
+            after = ScanPage.START.equals(cursor) ? ""
+                    : new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new IllegalArgumentException("invalid cursor"));
+        }
+        return timed(Command.SCAN, page(after, count)).flatMap(page -> {
+            String next = page.size() < count ? ScanPage.START
+                    : Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(page.get(page.size() - 1).getKey().getBytes(StandardCharsets.UTF_8));
+            return liveEntries(page)
+                    .map(KeyValueEntry::getKey)
+                    .filter(key -> pattern == null || GlobMatcher.matches(pattern, key))
+                    .collectList()
+                    .map(keys -> new RedisService.ScanResult(next, keys));
+        });
+    }
+
+    public Mono<Void> flushAll() {
+        return timed(Command.FLUSHALL, repository.deleteAll());
+    }
+
+    //One short statement per chunk; the next chunk is only issued once the previous one has committed
+    public Mono<Long> cleanupExpiredKeys() {
+        return Mono.defer(() -> {
+            long now = System.currentTimeMillis();
+            return repository.deleteExpiredChunk(now, deleteChunkSize)
+                    .expand(deleted -> deleted == deleteChunkSize ? repository.deleteExpiredChunk(now, deleteChunkSize) : Mono.empty())
+                    .reduce(0L, Long::sum);
+        });
+    }
+
+    private Mono<List<KeyValueEntry>> page(String after, int count) {
+        return Flux.defer(() -> repository.findPage(after, count)).collectList();
+    }
+
+    //Expired entries met while walking are deleted in one statement, like lazy expiry on reads
+    private Flux<KeyValueEntry> liveEntries(List<KeyValueEntry> page) {
+        long now = System.currentTimeMillis();
+        List<KeyValueEntry> live = new ArrayList<>(page.size());
+        List<String> expired = new ArrayList<>();
+        for (KeyValueEntry entry : page) {
+            if (entry.getExpiryTime() != null && entry.getExpiryTime() < now) {
+                expired.add(entry.getKey());
+            } else {
+                live.add(entry);
+            }
+        }
+        return repository.deleteExpired(expired, now).thenMany(Flux.fromIterable(live));
+    }
+
+    //Lazy expiry: an expired entry found on read is deleted right away
+    private Mono<KeyValueEntry> findLive(String key) {
+        return repository.findById(key).flatMap(entry -> entry.isExpired()
+                ? repository.deleteExpired(List.of(key), System.currentTimeMillis()).then(Mono.empty())
+                : Mono.just(entry));
+    }
+
+    private <T> Mono<T> timed(Command command, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = metrics.start();
+            return call.doFinally(signal -> metrics.stop(command, start));
+        });
+    }
+
+    private static Long expiryTime(Long ttlSeconds) {
+        return ttlSeconds != null && ttlSeconds > 0 ? System.currentTimeMillis() + ttlSeconds * 1000 : null;
+    }
+
+    private static String stringValue(KeyValueEntry entry) {
+        if (entry.getType() != ValueType.STRING) {
+            throw new WrongTypeException();
+        }
+        return entry.getValue();
+    }
+
+    private static Map<String, Object> describe(KeyValueEntry entry) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("key", entry.getKey());
+        if (entry.getType() == ValueType.STRING) {
+            details.put("value", entry.getValue());
+        } else {
+            details.put("type", entry.getType().typeName());
+            details.put("value", entry.getData().contents());
+        }
+        Long expiryTime = entry.getExpiryTime();
+        if (expiryTime != null && expiryTime > 0) {
+            long ttl = (expiryTime - System.currentTimeMillis()) / 1000;
+            details.put("ttl", ttl >= 0 ? ttl : "No expiration");
+        } else {
+            details.put("ttl", "No expiration");
+        }
+        return details;
+    }
+}
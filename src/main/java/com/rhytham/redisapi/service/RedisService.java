@@ -1,107 +1,615 @@
 package com.rhytham.redisapi.service;
 
+import com.rhytham.redisapi.codec.ValueCodec;
+import com.rhytham.redisapi.datatype.HashValue;
+import com.rhytham.redisapi.datatype.ListValue;
+import com.rhytham.redisapi.datatype.ScoreRange;
+import com.rhytham.redisapi.datatype.ScoredMember;
+import com.rhytham.redisapi.datatype.SetValue;
+import com.rhytham.redisapi.datatype.SortedSetValue;
+import com.rhytham.redisapi.datatype.TypedValue;
+import com.rhytham.redisapi.dto.KeyValueRequest;
 import com.rhytham.redisapi.exception.KeyNotFoundException;
+import com.rhytham.redisapi.exception.WrongTypeException;
+import com.rhytham.redisapi.metrics.CommandMetrics;
+import com.rhytham.redisapi.metrics.CommandMetrics.Command;
 import com.rhytham.redisapi.model.KeyValueEntry;
-import com.rhytham.redisapi.repository.KeyValueRepository;
-import lombok.AllArgsConstructor;
+import com.rhytham.redisapi.model.ValueType;
+import com.rhytham.redisapi.pubsub.KeyspaceEvents;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.MemoryStats;
+import com.rhytham.redisapi.store.ScanPage;
+import com.rhytham.redisapi.transaction.KeyLocks;
+import com.rhytham.redisapi.transaction.KeyVersions;
+import com.rhytham.redisapi.util.GlobMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-@AllArgsConstructor
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class RedisService {
 
-    private final KeyValueRepository repository;
+    public static final int DEFAULT_SCAN_COUNT = 10;
+
+    //Entries read per store call when walking the whole keyspace
+    private static final int WALK_PAGE_SIZE = 1000;
+
+    public record ScanResult(String cursor, List<String> keys) {
+    }
+
+    private final KeyValueStore store;
+    private final CommandMetrics metrics;
+    private final KeyspaceEvents events;
+    private final KeyLocks locks = new KeyLocks();
+    private final KeyVersions versions = new KeyVersions();
+
+    public RedisService(KeyValueStore store) {
+        this(store, CommandMetrics.noop());
+    }
+
+    public RedisService(KeyValueStore store, CommandMetrics metrics) {
+        this(store, metrics, KeyspaceEvents.disabled());
+    }
+
+    @Autowired
+    public RedisService(KeyValueStore store, CommandMetrics metrics, KeyspaceEvents events) {
+        this.store = store;
+        this.metrics = metrics;
+        this.events = events;
+        store.addListener(versions);
+    }
+
+    /**
+     * Runs {@code body} as one step for every other command on {@code keys}: none of them runs while it
+     * does, so a transaction or script reads and writes them without interleaving. {@code body} may run
+     * commands on those keys only.
+     */
+    public <T> T atomically(Collection<String> keys, Supplier<T> body){
+        try (KeyLocks.Lease ignored = locks.exclusive(keys)) {
+            return body.get();
+        }
+    }
+
+    //For transactions whose keys are not known up front, such as KEYS or FLUSHALL inside MULTI
+    public <T> T atomicallyAll(Supplier<T> body){
+        try (KeyLocks.Lease ignored = locks.exclusiveAll()) {
+            return body.get();
+        }
+    }
+
+    /**
+     * The shared lease every command here takes, for callers that go to the store directly, such as the
+     * pipeline endpoint: held for the whole call, it keeps transactions and scripts on {@code keys} out.
+     */
+    public KeyLocks.Lease lease(Collection<String> keys){
+        return locks.shared(keys);
+    }
+
+    //Callers that touch every key, such as a pipelined FLUSHALL
+    public KeyLocks.Lease leaseAll(){
+        return locks.sharedAll();
+    }
+
+    //WATCH: moves whenever the key is written, deleted or expires
+    public long version(String key){
+        return versions.version(key);
+    }
 
     public void set(String key, String value, Long ttlSeconds){
-        Long expiryTime = null;
-        if(ttlSeconds != null && ttlSeconds > 0){
-            expiryTime = System.currentTimeMillis() + (ttlSeconds * 1000);
+        set(key, value, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    public void set(String key, String value, Long ttl, TimeUnit unit){
+        set(key, value.getBytes(StandardCharsets.UTF_8), ttl, unit);
+    }
+
+    //Binary-safe SET: the bytes are stored as given, whether or not they are UTF-8 text
+    public void set(String key, byte[] value, Long ttl, TimeUnit unit){
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            Long expiryTime = null;
+            if(ttl != null && ttl > 0){
+                expiryTime = System.currentTimeMillis() + unit.toMillis(ttl);
+            }
+            KeyValueEntry entry = new KeyValueEntry(key,value,expiryTime);
+            store.save(entry);
+            events.notify(KeyspaceEvents.STRING, "set", key);
+        } finally {
+            metrics.stop(Command.SET, start);
+        }
+    }
+
+    //INCR, INCRBY, DECR and DECRBY: a single atomic store call, so concurrent increments are never lost
+    public long incrBy(String key, long increment){
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            long value = store.incrementBy(key, increment);
+            events.notify(KeyspaceEvents.STRING, "incrby", key);
+            return value;
+        } finally {
+            metrics.stop(Command.INCRBY, start);
+        }
+    }
+
+    public long decrBy(String key, long decrement){
+        if(decrement == Long.MIN_VALUE){
+            throw new IllegalArgumentException("decrement would overflow");
+        }
+        return incrBy(key, -decrement);
+    }
+
+    //Returns the new value formatted like Redis: plain decimal without trailing zeros
+    public String incrByFloat(String key, double increment){
+        if(!Double.isFinite(increment)){
+            throw new IllegalArgumentException("value is not a valid float");
+        }
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            String[] result = new String[1];
+            store.compute(key, current -> {
+                Long expiryTime = null;
+                double value = 0;
+                if (current != null && !current.isExpired()) {
+                    value = floatValue(stringValue(current));
+                    expiryTime = current.getExpiryTime();
+                }
+                double sum = value + increment;
+                if (!Double.isFinite(sum)) {
+                    throw new IllegalArgumentException("increment would produce NaN or Infinity");
+                }
+                result[0] = sum == 0 ? "0" : BigDecimal.valueOf(sum).stripTrailingZeros().toPlainString();
+                return new KeyValueEntry(key, result[0], expiryTime);
+            });
+            events.notify(KeyspaceEvents.STRING, "incrbyfloat", key);
+            return result[0];
+        } finally {
+            metrics.stop(Command.INCRBYFLOAT, start);
+        }
+    }
+
+    private static double floatValue(String value){
+        try {
+            double parsed = Double.parseDouble(value);
+            if (Double.isFinite(parsed)) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            //fall through
+        }
+        throw new IllegalArgumentException("value is not a valid float");
+    }
+
+    //SETNX, or SET NX with a TTL: true if the key was missing or expired and is now set
+    public boolean setnx(String key, String value, Long ttlSeconds){
+        return setnx(key, value, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    public boolean setnx(String key, String value, Long ttl, TimeUnit unit){
+        return setnx(key, value.getBytes(StandardCharsets.UTF_8), ttl, unit);
+    }
+
+    public boolean setnx(String key, byte[] value, Long ttl, TimeUnit unit){
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            Long expiryTime = ttl != null && ttl > 0 ? System.currentTimeMillis() + unit.toMillis(ttl) : null;
+            boolean saved = store.saveIfAbsent(new KeyValueEntry(key, value, expiryTime));
+            if (saved) {
+                events.notify(KeyspaceEvents.STRING, "set", key);
+            }
+            return saved;
+        } finally {
+            metrics.stop(Command.SETNX, start);
+        }
+    }
+
+    //GETSET, or SET ... GET with a TTL: sets the value and returns the previous one, null if there was none
+    public String getSet(String key, String value, Long ttlSeconds){
+        return getSet(key, value, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    public String getSet(String key, String value, Long ttl, TimeUnit unit){
+        byte[] previous = getSet(key, value.getBytes(StandardCharsets.UTF_8), ttl, unit);
+        return previous == null ? null : new String(previous, StandardCharsets.UTF_8);
+    }
+
+    public byte[] getSet(String key, byte[] value, Long ttl, TimeUnit unit){
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            Long expiryTime = ttl != null && ttl > 0 ? System.currentTimeMillis() + unit.toMillis(ttl) : null;
+            byte[][] previous = new byte[1][];
+            store.compute(key, current -> {
+                previous[0] = current == null || current.isExpired() ? null : bytesValue(current);
+                return new KeyValueEntry(key, value, expiryTime);
+            });
+            events.notify(KeyspaceEvents.STRING, "set", key);
+            return previous[0];
+        } finally {
+            metrics.stop(Command.GETSET, start);
+        }
+    }
+
+    //Sets the value only if the key still holds expected; the expiry is kept
+    public boolean compareAndSet(String key, String expected, String value){
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            boolean swapped = store.compareAndSet(key, expected, value);
+            if (swapped) {
+                events.notify(KeyspaceEvents.STRING, "set", key);
+            }
+            return swapped;
+        } finally {
+            metrics.stop(Command.CAS, start);
+        }
+    }
+
+    //One batch write for all entries instead of a save per key
+    public void mset(List<KeyValueRequest> entries){
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(keysOf(entries))) {
+            long now = System.currentTimeMillis();
+            Map<String, KeyValueEntry> batch = new LinkedHashMap<>();
+            for (KeyValueRequest request : entries) {
+                Long ttl = request.getTtl();
+                Long expiryTime = ttl != null && ttl > 0 ? now + ttl * 1000 : null;
+                batch.put(request.getKey(), new KeyValueEntry(request.getKey(), request.valueBytes(), expiryTime)); //last write wins
+            }
+            store.saveAll(batch.values());
+            for (String key : batch.keySet()) {
+                events.notify(KeyspaceEvents.STRING, "set", key);
+            }
+        } finally {
+            metrics.stop(Command.MSET, start);
+        }
+    }
+
+    //Missing or expired keys map to null, in request order
+    public Map<String, String> mget(List<String> keys){
+        long start = metrics.start();
+        try {
+            Map<String, String> values = new LinkedHashMap<>();
+            fetchAll(keys).forEach((key, entry) -> values.put(key, entry == null ? null : entry.getValue()));
+            return values;
+        } finally {
+            metrics.stop(Command.MGET, start);
         }
-        KeyValueEntry entry = new KeyValueEntry(key,value,expiryTime);
-        repository.save(entry);
+    }
+
+    public Map<String, byte[]> mgetBytes(List<String> keys){
+        long start = metrics.start();
+        try {
+            Map<String, byte[]> values = new LinkedHashMap<>();
+            fetchAll(keys).forEach((key, entry) -> values.put(key, entry == null ? null : entry.getBytes()));
+            return values;
+        } finally {
+            metrics.stop(Command.MGET, start);
+        }
+    }
+
+    //Live string entries by key, null for the rest
+    private Map<String, KeyValueEntry> fetchAll(List<String> keys){
+        Map<String, KeyValueEntry> found = new HashMap<>();
+        try (KeyLocks.Lease ignored = locks.shared(keys)) {
+            List<String> expired = new ArrayList<>();
+            for (KeyValueEntry entry : store.findAllById(new LinkedHashSet<>(keys))) {
+                if (entry.isExpired()) {
+                    expired.add(entry.getKey());
+                } else {
+                    found.put(entry.getKey(), entry);
+                }
+            }
+            if (!expired.isEmpty()) {
+                store.deleteExpired(expired, System.currentTimeMillis());
+            }
+        }
+        Map<String, KeyValueEntry> values = new LinkedHashMap<>();
+        for (String key : keys) {
+            KeyValueEntry entry = found.get(key);
+            values.put(key, entry == null || entry.getType() != ValueType.STRING ? null : entry); //nil for other types, as in Redis
+        }
+        return values;
+    }
+
+    public int mdel(List<String> keys){
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(keys)) {
+            if (!events.isEnabled(KeyspaceEvents.GENERIC)) {
+                return store.deleteAllById(new LinkedHashSet<>(keys));
+            }
+            //One delete per key, so each key actually deleted gets its del event
+            int deleted = 0;
+            for (String key : new LinkedHashSet<>(keys)) {
+                if (store.deleteAllById(List.of(key)) > 0) {
+                    events.notify(KeyspaceEvents.GENERIC, "del", key);
+                    deleted++;
+                }
+            }
+            return deleted;
+        } finally {
+            metrics.stop(Command.DEL, start);
+        }
+    }
+
+    //Non-throwing lookup for protocol handlers, where a missing key is a normal reply
+    public Optional<String> find(String key){
+        KeyValueEntry entry = timedFindLive(key);
+        return entry == null ? Optional.empty() : Optional.of(stringValue(entry));
+    }
+
+    public Optional<byte[]> findBytes(String key){
+        KeyValueEntry entry = timedFindLive(key);
+        return entry == null ? Optional.empty() : Optional.of(bytesValue(entry));
     }
 
     public String get(String key){
-        KeyValueEntry entry = repository.findById(key).orElse(null);
-        if(entry == null || entry.isExpired()){
-            repository.deleteById(key);
+        KeyValueEntry entry = timedFindLive(key);
+        if(entry == null){
             throw new KeyNotFoundException("Key " + key + " not found or has expired.");
         }
+        return stringValue(entry);
+    }
+
+    public byte[] getBytes(String key){
+        return findBytes(key).orElseThrow(() -> new KeyNotFoundException("Key " + key + " not found or has expired."));
+    }
+
+    private static String stringValue(KeyValueEntry entry){
+        if(entry.getType() != ValueType.STRING){
+            throw new WrongTypeException();
+        }
         return entry.getValue();
     }
 
+    private static byte[] bytesValue(KeyValueEntry entry){
+        if(entry.getType() != ValueType.STRING){
+            throw new WrongTypeException();
+        }
+        return entry.getBytes();
+    }
+
+    //Works for every type; hashes, lists and sets are shown as JSON collections
     public Map<String, Object> getEntry(String key) {
-        KeyValueEntry entry = repository.findById(key).orElse(null);
-        if (entry != null && !entry.isExpired()) {
-            Map<String, Object> allEntries = new LinkedHashMap<>();
-            allEntries.put("key", entry.getKey());
-            allEntries.put("value", entry.getValue());
-            if (entry.getExpiryTime() != null && entry.getExpiryTime() > 0) {
-                long ttl = (entry.getExpiryTime() - System.currentTimeMillis()) / 1000;
-                allEntries.put("ttl", ttl >= 0 ? ttl : "No expiration");
-            } else {
-                allEntries.put("ttl", "No expiration");
-            }
-            return allEntries;
+        KeyValueEntry entry = timedFindLive(key);
+        if (entry != null) {
+            return describe(entry);
         }
             throw new KeyNotFoundException("Key " + key + " not found or is expired");
         }
 
     public boolean delete(String key){
-        KeyValueEntry entry = repository.findById(key).orElse(null);
-        if(entry != null){  //deletes whether expired or not
-            repository.deleteById(key);;
+        if(remove(key)){
             return true;
         }
         throw new KeyNotFoundException("Key " + key + " not found or is already expired");
     }
 
+    public boolean remove(String key){
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            //One conditional delete, deleting whether expired or not; a find then delete could report a key another client just removed
+            boolean deleted = store.deleteAllById(List.of(key)) > 0;
+            if (deleted) {
+                events.notify(KeyspaceEvents.GENERIC, "del", key);
+            }
+            return deleted;
+        } finally {
+            metrics.stop(Command.DEL, start);
+        }
+    }
+
     public boolean exists(String key){
-        KeyValueEntry entry = repository.findById(key).orElse(null);
-        return entry != null && !entry.isExpired();
+        long start = metrics.start();
+        try {
+            return findLive(key) != null;
+        } finally {
+            metrics.stop(Command.EXISTS, start);
+        }
+    }
+
+    private KeyValueEntry timedFindLive(String key){
+        long start = metrics.start();
+        try {
+            return findLive(key);
+        } finally {
+            metrics.stop(Command.GET, start);
+        }
+    }
+
+    //Lazy expiry: an expired entry found on read is deleted right away
+    private KeyValueEntry findLive(String key){
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            KeyValueEntry entry = store.findById(key).orElse(null);
+            if(entry != null && entry.isExpired()){
+                store.deleteExpired(List.of(key), System.currentTimeMillis());
+                return null;
+            }
+            return entry;
+        }
     }
 
     public List<Map<String, Object>> getAllEntries() {
-        List<Map<String, Object>> keyList = new ArrayList<>();
-        for (KeyValueEntry keyValue : repository.findAll()) {
-            if (!keyValue.isExpired()) {
-                Map<String, Object> keyDetails = new LinkedHashMap<>();
-                keyDetails.put("key", keyValue.getKey());
-                keyDetails.put("value", keyValue.getValue());
-                Long expiryTime = keyValue.getExpiryTime();
-
-                if (expiryTime != null && expiryTime > 0) {
-                    long ttl = (expiryTime - System.currentTimeMillis()) / 1000;
-                    keyDetails.put("ttl", ttl >= 0 ? ttl : "No expiration");
-                } else {
-                    keyDetails.put("ttl", "No expiration");
+        long start = metrics.start();
+        try {
+            List<Map<String, Object>> keyList = new ArrayList<>();
+            entries(null).forEachRemaining(keyList::add);
+            return keyList;
+        } finally {
+            metrics.stop(Command.KEYS, start);
+        }
+    }
+
+    /**
+     * Lazily walks the keyspace a page at a time, yielding the live entries whose key matches
+     * {@code pattern} (all when null), so callers can stream it without holding it in memory.
+     */
+    public Iterator<Map<String, Object>> entries(String pattern){
+        return new Iterator<>() {
+            private String cursor = ScanPage.START;
+            private boolean done;
+            private Iterator<KeyValueEntry> page = Collections.emptyIterator();
+            private Map<String, Object> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (page.hasNext()) {
+                        KeyValueEntry entry = page.next();
+                        if (pattern == null || GlobMatcher.matches(pattern, entry.getKey())) {
+                            next = describe(entry);
+                        }
+                    } else if (done) {
+                        return false;
+                    } else {
+                        ScanPage scanned = timedScan(cursor, WALK_PAGE_SIZE);
+                        cursor = scanned.cursor();
+                        done = scanned.isLast();
+                        page = liveEntries(scanned).iterator();
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
-                keyList.add(keyDetails);
+                Map<String, Object> entry = next;
+                next = null;
+                return entry;
+            }
+        };
+    }
+
+    private static Map<String, Object> describe(KeyValueEntry keyValue) {
+        Map<String, Object> keyDetails = new LinkedHashMap<>();
+        keyDetails.put("key", keyValue.getKey());
+        if (keyValue.getType() == ValueType.STRING) {
+            keyDetails.put("value", keyValue.getValue());
+        } else {
+            keyDetails.put("type", keyValue.getType().typeName());
+            keyDetails.put("value", keyValue.getData().contents());
+        }
+        Long expiryTime = keyValue.getExpiryTime();
+
+        if (expiryTime != null && expiryTime > 0) {
+            long ttl = (expiryTime - System.currentTimeMillis()) / 1000;
+            keyDetails.put("ttl", ttl >= 0 ? ttl : "No expiration");
+        } else {
+            keyDetails.put("ttl", "No expiration");
+        }
+        return keyDetails;
+    }
+
+    //Redis SCAN semantics: MATCH is applied after the page is read, so a step may return fewer keys than count, or none
+    public ScanResult scan(String cursor, String pattern, int count){
+        if(count <= 0){
+            throw new IllegalArgumentException("count must be positive");
+        }
+        ScanPage page = timedScan(cursor, count);
+        List<String> keys = new ArrayList<>();
+        for (KeyValueEntry entry : liveEntries(page)) {
+            if (pattern == null || GlobMatcher.matches(pattern, entry.getKey())) {
+                keys.add(entry.getKey());
             }
         }
-        return keyList;
+        return new ScanResult(page.cursor(), keys);
+    }
+
+    private ScanPage timedScan(String cursor, int count){
+        long start = metrics.start();
+        try {
+            return store.scan(cursor, count);
+        } finally {
+            metrics.stop(Command.SCAN, start);
+        }
+    }
+
+    //Expired entries met while scanning are deleted in one batch, like lazy expiry on reads
+    private List<KeyValueEntry> liveEntries(ScanPage page){
+        long now = System.currentTimeMillis();
+        List<KeyValueEntry> live = new ArrayList<>(page.entries().size());
+        List<String> expired = new ArrayList<>();
+        for (KeyValueEntry entry : page.entries()) {
+            if (entry.getExpiryTime() != null && entry.getExpiryTime() < now) {
+                expired.add(entry.getKey());
+            } else {
+                live.add(entry);
+            }
+        }
+        if (!expired.isEmpty()) {
+            store.deleteExpired(expired, now);
+        }
+        return live;
+    }
+
+    public List<String> keys(String pattern){
+        long start = metrics.start();
+        try {
+            List<String> keys = new ArrayList<>();
+            String cursor = ScanPage.START;
+            do {
+                ScanPage page = store.scan(cursor, WALK_PAGE_SIZE);
+                for (KeyValueEntry keyValue : liveEntries(page)) {
+                    if (GlobMatcher.matches(pattern, keyValue.getKey())) {
+                        keys.add(keyValue.getKey());
+                    }
+                }
+                cursor = page.cursor();
+            } while (!ScanPage.START.equals(cursor));
+            return keys;
+        } finally {
+            metrics.stop(Command.KEYS, start);
+        }
     }
 
     public boolean expire(String key,long ttl){
-        KeyValueEntry entry = repository.findById(key).orElse(null);
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            return updateExpiry(key, ttl);
+        } finally {
+            metrics.stop(Command.EXPIRE, start);
+        }
+    }
 
-        if(entry == null || entry.isExpired()){
+    //Atomic in the store: reading the entry and saving it back would undo a set or delete that ran in between
+    private boolean updateExpiry(String key,long ttl){
+        long newExpiryTime = System.currentTimeMillis() + ttl * 1000;
+        if(!store.updateExpiry(key, newExpiryTime)){
             throw new KeyNotFoundException("Key " + key + " not found or is already expired");
         }
-        long newExpiryTime = System.currentTimeMillis() + ttl * 1000;
-        entry.setnewExpiryTime(newExpiryTime);
-        repository.save(entry);
-        System.out.println("TTL for key " + key + " updated successfully");
+        events.notify(KeyspaceEvents.GENERIC, "expire", key);
         return true;
     }
 
     public String getTTL(String key){
-        KeyValueEntry entry = repository.findById(key).orElse(null);;
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            return describeTTL(key);
+        } finally {
+            metrics.stop(Command.TTL, start);
+        }
+    }
+
+    private String describeTTL(String key){
+        KeyValueEntry entry = store.findById(key).orElse(null);;
 
         if(entry == null || entry.isExpired()){
             throw new KeyNotFoundException("Key " + key + " not found or is already expired");
@@ -118,13 +626,417 @@ public class RedisService {
         }
     }
 
+    //Redis TTL semantics: -2 if the key does not exist, -1 if it has no expiry
+    public long ttl(String key){
+        long start = metrics.start();
+        try {
+            KeyValueEntry entry = findLive(key);
+            if(entry == null){
+                return -2;
+            }
+            Long expiryTime = entry.getExpiryTime();
+            if(expiryTime == null || expiryTime <= 0){
+                return -1;
+            }
+            return Math.max(0, (expiryTime - System.currentTimeMillis() + 500) / 1000);
+        } finally {
+            metrics.stop(Command.TTL, start);
+        }
+    }
+
+    //Redis TYPE: "none" for a missing key
+    public String type(String key){
+        long start = metrics.start();
+        try {
+            KeyValueEntry entry = findLive(key);
+            return entry == null ? "none" : entry.getType().typeName();
+        } finally {
+            metrics.stop(Command.TYPE, start);
+        }
+    }
+
+    //Redis OBJECT ENCODING: null for a missing key
+    public String encoding(String key){
+        long start = metrics.start();
+        try {
+            KeyValueEntry entry = findLive(key);
+            if(entry == null){
+                return null;
+            }
+            if(entry.getType() != ValueType.STRING){
+                return entry.getData().encoding();
+            }
+            //Redis names: a compressed value is large, so it reports as raw
+            byte[] encoded = entry.getEncoded();
+            return switch (ValueCodec.encoding(encoded)) {
+                case INT -> "int";
+                case RAW -> ValueCodec.decodedLength(encoded) <= 44 ? "embstr" : "raw";
+                case ZSTD -> "raw";
+            };
+        } finally {
+            metrics.stop(Command.OBJECT, start);
+        }
+    }
+
+    //Redis MEMORY USAGE: estimated bytes the key and its value take, null for a missing key
+    public Long memoryUsage(String key){
+        long start = metrics.start();
+        try {
+            KeyValueEntry entry = findLive(key);
+            return entry == null ? null : entry.estimatedBytes();
+        } finally {
+            metrics.stop(Command.MEMORY, start);
+        }
+    }
+
+    public MemoryStats memoryStats(){
+        return store.memoryStats();
+    }
+
+    //Returns how many fields were added; fields that already existed are overwritten
+    public int hset(String key, Map<String, String> fields){
+        requireElements(fields.keySet(), "hset");
+        requireElements(fields.values(), "hset");
+        long start = metrics.start();
+        try {
+            int added = update(key, HashValue.class, HashValue::new, hash -> {
+                int count = 0;
+                for (Map.Entry<String, String> field : fields.entrySet()) {
+                    count += hash.put(field.getKey(), field.getValue()) ? 1 : 0;
+                }
+                return count;
+            });
+            events.notify(KeyspaceEvents.HASH, "hset", key);
+            return added;
+        } finally {
+            metrics.stop(Command.HSET, start);
+        }
+    }
+
+    public String hget(String key, String field){
+        long start = metrics.start();
+        try {
+            HashValue hash = read(key, HashValue.class);
+            return hash == null ? null : hash.get(field);
+        } finally {
+            metrics.stop(Command.HGET, start);
+        }
+    }
+
+    public int hdel(String key, List<String> fields){
+        requireElements(fields, "hdel");
+        long start = metrics.start();
+        try {
+            Integer removed = update(key, HashValue.class, null, hash -> {
+                int count = 0;
+                for (String field : fields) {
+                    count += hash.remove(field) ? 1 : 0;
+                }
+                return count;
+            });
+            return notifyRemoved(KeyspaceEvents.HASH, "hdel", key, removed);
+        } finally {
+            metrics.stop(Command.HDEL, start);
+        }
+    }
+
+    public Map<String, String> hgetAll(String key){
+        long start = metrics.start();
+        try {
+            HashValue hash = read(key, HashValue.class);
+            return hash == null ? Map.of() : hash.contents();
+        } finally {
+            metrics.stop(Command.HGETALL, start);
+        }
+    }
+
+    public long hincrBy(String key, String field, long increment){
+        long start = metrics.start();
+        try {
+            long value = update(key, HashValue.class, HashValue::new, hash -> hash.incrBy(field, increment));
+            events.notify(KeyspaceEvents.HASH, "hincrby", key);
+            return value;
+        } finally {
+            metrics.stop(Command.HINCRBY, start);
+        }
+    }
+
+    //Pushes the values one after another, so LPUSH a b c leaves c at the head; returns the new length
+    public int lpush(String key, List<String> values){
+        requireElements(values, "lpush");
+        long start = metrics.start();
+        try {
+            int length = update(key, ListValue.class, ListValue::new, list -> {
+                values.forEach(list::pushFirst);
+                return list.size();
+            });
+            events.notify(KeyspaceEvents.LIST, "lpush", key);
+            return length;
+        } finally {
+            metrics.stop(Command.LPUSH, start);
+        }
+    }
+
+    public int rpush(String key, List<String> values){
+        requireElements(values, "rpush");
+        long start = metrics.start();
+        try {
+            int length = update(key, ListValue.class, ListValue::new, list -> {
+                values.forEach(list::pushLast);
+                return list.size();
+            });
+            events.notify(KeyspaceEvents.LIST, "rpush", key);
+            return length;
+        } finally {
+            metrics.stop(Command.RPUSH, start);
+        }
+    }
+
+    public String lpop(String key){
+        long start = metrics.start();
+        try {
+            String value = update(key, ListValue.class, null, ListValue::popFirst);
+            if (value != null) {
+                events.notify(KeyspaceEvents.LIST, "lpop", key);
+            }
+            return value;
+        } finally {
+            metrics.stop(Command.LPOP, start);
+        }
+    }
+
+    public String rpop(String key){
+        long start = metrics.start();
+        try {
+            String value = update(key, ListValue.class, null, ListValue::popLast);
+            if (value != null) {
+                events.notify(KeyspaceEvents.LIST, "rpop", key);
+            }
+            return value;
+        } finally {
+            metrics.stop(Command.RPOP, start);
+        }
+    }
+
+    public List<String> lrange(String key, long startIndex, long stopIndex){
+        long start = metrics.start();
+        try {
+            ListValue list = read(key, ListValue.class);
+            return list == null ? List.of() : list.range(startIndex, stopIndex);
+        } finally {
+            metrics.stop(Command.LRANGE, start);
+        }
+    }
+
+    public int sadd(String key, List<String> members){
+        requireElements(members, "sadd");
+        long start = metrics.start();
+        try {
+            int added = update(key, SetValue.class, SetValue::new, set -> {
+                int count = 0;
+                for (String member : members) {
+                    count += set.add(member) ? 1 : 0;
+                }
+                return count;
+            });
+            if (added > 0) {
+                events.notify(KeyspaceEvents.SET, "sadd", key);
+            }
+            return added;
+        } finally {
+            metrics.stop(Command.SADD, start);
+        }
+    }
+
+    public int srem(String key, List<String> members){
+        requireElements(members, "srem");
+        long start = metrics.start();
+        try {
+            Integer removed = update(key, SetValue.class, null, set -> {
+                int count = 0;
+                for (String member : members) {
+                    count += set.remove(member) ? 1 : 0;
+                }
+                return count;
+            });
+            return notifyRemoved(KeyspaceEvents.SET, "srem", key, removed);
+        } finally {
+            metrics.stop(Command.SREM, start);
+        }
+    }
+
+    public boolean sismember(String key, String member){
+        long start = metrics.start();
+        try {
+            SetValue set = read(key, SetValue.class);
+            return set != null && set.contains(member);
+        } finally {
+            metrics.stop(Command.SISMEMBER, start);
+        }
+    }
+
+    public List<String> smembers(String key){
+        long start = metrics.start();
+        try {
+            SetValue set = read(key, SetValue.class);
+            return set == null ? List.of() : set.members();
+        } finally {
+            metrics.stop(Command.SMEMBERS, start);
+        }
+    }
+
+    //Returns how many members were added; members that already existed get the new score
+    public int zadd(String key, Map<String, Double> members){
+        requireElements(members.keySet(), "zadd");
+        for (Double score : members.values()) {
+            if (score == null || score.isNaN()) {
+                throw new IllegalArgumentException("value is not a valid float");
+            }
+        }
+        long start = metrics.start();
+        try {
+            int added = update(key, SortedSetValue.class, SortedSetValue::new, zset -> {
+                int count = 0;
+                for (Map.Entry<String, Double> member : members.entrySet()) {
+                    count += zset.add(member.getKey(), member.getValue()) ? 1 : 0;
+                }
+                return count;
+            });
+            events.notify(KeyspaceEvents.ZSET, "zadd", key); //also when only scores changed, as in Redis
+            return added;
+        } finally {
+            metrics.stop(Command.ZADD, start);
+        }
+    }
+
+    public int zrem(String key, List<String> members){
+        requireElements(members, "zrem");
+        long start = metrics.start();
+        try {
+            Integer removed = update(key, SortedSetValue.class, null, zset -> {
+                int count = 0;
+                for (String member : members) {
+                    count += zset.remove(member) ? 1 : 0;
+                }
+                return count;
+            });
+            return notifyRemoved(KeyspaceEvents.ZSET, "zrem", key, removed);
+        } finally {
+            metrics.stop(Command.ZREM, start);
+        }
+    }
+
+    public Double zscore(String key, String member){
+        long start = metrics.start();
+        try {
+            SortedSetValue zset = read(key, SortedSetValue.class);
+            return zset == null ? null : zset.score(member);
+        } finally {
+            metrics.stop(Command.ZSCORE, start);
+        }
+    }
+
+    //min and max take Redis syntax: "(" for an exclusive bound, -inf and +inf for open ends
+    public List<ScoredMember> zrangeByScore(String key, String min, String max){
+        ScoreRange range = ScoreRange.parse(min, max);
+        long start = metrics.start();
+        try {
+            SortedSetValue zset = read(key, SortedSetValue.class);
+            return zset == null ? List.of() : zset.rangeByScore(range);
+        } finally {
+            metrics.stop(Command.ZRANGEBYSCORE, start);
+        }
+    }
+
+    //Null when the key is missing or expired, WRONGTYPE when it holds another type
+    private <V extends TypedValue> V read(String key, Class<V> kind){
+        return typed(findLive(key), kind);
+    }
+
+    private static <V extends TypedValue> V typed(KeyValueEntry entry, Class<V> kind){
+        if(entry == null){
+            return null;
+        }
+        TypedValue data = entry.getData();
+        if(!kind.isInstance(data)){
+            throw new WrongTypeException();
+        }
+        return kind.cast(data);
+    }
+
+    /**
+     * Changes a typed key in place under the store's per-key lock, so a field update costs O(1) or O(log n)
+     * on the memory engine instead of a rewrite of the whole value. A missing or expired key is created with
+     * {@code create}, or left missing when that is null, in which case null is returned. A collection left
+     * empty is deleted, as in Redis.
+     * <p>
+     * The change runs holding the value's monitor, which every full read such as HGETALL or SMEMBERS also
+     * takes, so a reader of the shared instance sees a multi-field HSET or SADD whole or not at all.
+     */
+    private <V extends TypedValue, R> R update(String key, Class<V> kind, Supplier<V> create, Function<V, R> change){
+        List<R> result = new ArrayList<>(1);
+        try (KeyLocks.Lease ignored = locks.shared(key)) {
+            store.compute(key, current -> {
+                if (current != null && current.isExpired()) {
+                    current = null;
+                }
+                if (current == null) {
+                    if (create == null) {
+                        return null;
+                    }
+                    current = new KeyValueEntry(key, create.get(), null);
+                }
+                V value = typed(current, kind);
+                result.clear(); //the JPA engine may run this twice
+                synchronized (value) {
+                    result.add(change.apply(value));
+                    return value.isEmpty() ? null : current;
+                }
+            });
+        }
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    //Removal commands raise their event only when something was removed
+    private int notifyRemoved(char type, String event, String key, Integer removed){
+        if(removed == null || removed == 0){
+            return 0;
+        }
+        events.notify(type, event, key);
+        return removed;
+    }
+
+    private static List<String> keysOf(List<KeyValueRequest> entries){
+        List<String> keys = new ArrayList<>(entries.size());
+        for (KeyValueRequest request : entries) {
+            keys.add(request.getKey());
+        }
+        return keys;
+    }
+
+    private static void requireElements(Collection<String> elements, String command){
+        if(elements.isEmpty()){
+            throw new IllegalArgumentException("wrong number of arguments for '" + command + "' command");
+        }
+        for (String element : elements) {
+            if(element == null){
+                throw new IllegalArgumentException("null element in '" + command + "' command");
+            }
+        }
+    }
+
     public void flushAll(){
-        repository.deleteAll();
+        long start = metrics.start();
+        try (KeyLocks.Lease ignored = locks.sharedAll()) {
+            store.deleteAll();
+        } finally {
+            metrics.stop(Command.FLUSHALL, start);
+        }
     }
 
-    public void cleanupExpiredKeys(){
+    public int cleanupExpiredKeys(){
         long now = System.currentTimeMillis();
-        repository.deleteAllExpired(now);
+        return store.deleteAllExpired(now);
         }
 
 }
@@ -0,0 +1,148 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.exception.WrongTypeException;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.UnaryOperator;
+
+/**
+ * Listener bookkeeping shared by the engines, plus the atomic string operations built on
+ * {@link #compute}. Engines with a cheaper native form override those.
+ */
+public abstract class AbstractKeyValueStore implements KeyValueStore {
+
+    private final List<StoreListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void addListener(StoreListener listener) {
+        listeners.add(listener);
+    }
+
+    protected void fireSave(KeyValueEntry entry) {
+        for (StoreListener listener : listeners) {
+            listener.onSave(entry);
+        }
+    }
+
+    protected void fireDelete(String key) {
+        for (StoreListener listener : listeners) {
+            listener.onDelete(key);
+        }
+    }
+
+    protected void fireExpire(String key) {
+        for (StoreListener listener : listeners) {
+            listener.onDelete(key);
+            listener.onExpire(key);
+        }
+    }
+
+    protected void fireDeleteAll() {
+        for (StoreListener listener : listeners) {
+            listener.onDeleteAll();
+        }
+    }
+
+    /**
+     * Thrown from a {@link #compute} update that decided to write nothing. Returning {@code current} instead
+     * would count as a write and be reported to every listener; an exception leaves the key untouched and
+     * reports nothing on every engine.
+     */
+    private static final class Unchanged extends RuntimeException {
+
+        private static final Unchanged INSTANCE = new Unchanged();
+
+        private Unchanged() {
+            super(null, null, false, false);
+        }
+    }
+
+    //Runs a compute whose update may throw Unchanged, and returns whether it wrote
+    private boolean computeIfChanged(String key, UnaryOperator<KeyValueEntry> update) {
+        try {
+            compute(key, update);
+            return true;
+        } catch (Unchanged e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean updateExpiry(String key, long expiryTime) {
+        return computeIfChanged(key, current -> {
+            if (current == null || current.isExpired()) {
+                throw Unchanged.INSTANCE;
+            }
+            //A new entry rather than a change in place, so readers holding the old one never see a half-applied write
+            return current.withExpiryTime(expiryTime);
+        });
+    }
+
+    @Override
+    public long incrementBy(String key, long delta) {
+        long[] result = new long[1];
+        compute(key, current -> {
+            if (current == null || current.isExpired()) {
+                result[0] = delta;
+                return new KeyValueEntry(key, Long.toString(delta), null);
+            }
+            result[0] = add(integerValue(current), delta);
+            return new KeyValueEntry(key, Long.toString(result[0]), current.getExpiryTime());
+        });
+        return result[0];
+    }
+
+    @Override
+    public boolean saveIfAbsent(KeyValueEntry entry) {
+        KeyValueEntry existing = findById(entry.getKey()).orElse(null);
+        if (existing != null && !existing.isExpired()) {
+            return false; //the common losing case never takes the per-key lock
+        }
+        return computeIfChanged(entry.getKey(), current -> {
+            if (current != null && !current.isExpired()) {
+                throw Unchanged.INSTANCE;
+            }
+            return entry;
+        });
+    }
+
+    @Override
+    public boolean compareAndSet(String key, String expected, String value) {
+        KeyValueEntry existing = findById(key).orElse(null);
+        if (existing == null || existing.isExpired() || !expected.equals(stringValue(existing))) {
+            return false;
+        }
+        return computeIfChanged(key, current -> {
+            if (current == null || current.isExpired() || !expected.equals(stringValue(current))) {
+                throw Unchanged.INSTANCE;
+            }
+            return new KeyValueEntry(key, value, current.getExpiryTime());
+        });
+    }
+
+    private static String stringValue(KeyValueEntry entry) {
+        if (entry.getType() != ValueType.STRING) {
+            throw new WrongTypeException();
+        }
+        return entry.getValue();
+    }
+
+    protected static long integerValue(KeyValueEntry entry) {
+        try {
+            return Long.parseLong(stringValue(entry));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+    }
+
+    protected static long add(long value, long delta) {
+        try {
+            return Math.addExact(value, delta);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("increment or decrement would overflow");
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.codec.ValueCodec;
+import com.rhytham.redisapi.datatype.TypedValue;
+import com.rhytham.redisapi.model.KeyValueEntry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Source-of-truth engine holding the whole keyspace on the heap, split into a
+ * power-of-two number of shards. Persistence sinks register as {@link StoreListener}s.
+ * <p>
+ * Each shard also indexes its keys that carry an expiry time so the expiry engine can
+ * sample them at random; the index is updated inside the map's per-key compute so the two
+ * never disagree about a key.
+ */
+public class InMemoryKeyValueStore extends AbstractKeyValueStore implements LocalKeyValueStore {
+
+    private final Shard[] shards;
+    private final int mask;
+
+    public InMemoryKeyValueStore(int shardCount) {
+        int size = shardCount <= 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1;
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        this.mask = size - 1;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    int shardIndex(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private Shard shardFor(String key) {
+        return shards[shardIndex(key)];
+    }
+
+    @Override
+    public void load(KeyValueEntry entry) {
+        shardFor(entry.getKey()).put(entry);
+    }
+
+    @Override
+    public void unload(String key) {
+        shardFor(key).remove(key, null);
+    }
+
+    @Override
+    public void unloadAll() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    @Override
+    public Optional<KeyValueEntry> findById(String key) {
+        return Optional.ofNullable(shardFor(key).map.get(key));
+    }
+
+    @Override
+    public Iterable<KeyValueEntry> findAll() {
+        List<KeyValueEntry> all = new ArrayList<>();
+        for (Shard shard : shards) {
+            all.addAll(shard.map.values());
+        }
+        return all;
+    }
+
+    //Cursor is the index of the next shard. Whole shards are returned so no position inside a
+    //ConcurrentHashMap has to be remembered, which keeps a page at about keys / shards entries
+    @Override
+    public ScanPage scan(String cursor, int count) {
+        int shard = shardCursor(cursor);
+        List<KeyValueEntry> entries = new ArrayList<>();
+        while (shard < shards.length && entries.size() < count) {
+            entries.addAll(shards[shard++].map.values());
+        }
+        return new ScanPage(shard == shards.length ? ScanPage.START : Integer.toString(shard), entries);
+    }
+
+    private int shardCursor(String cursor) {
+        try {
+            int shard = Integer.parseInt(cursor);
+            if (shard >= 0 && shard < shards.length) {
+                return shard;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("invalid cursor");
+    }
+
+    @Override
+    public void forEach(Consumer<KeyValueEntry> action) {
+        for (Shard shard : shards) {
+            shard.map.values().forEach(action);
+        }
+    }
+
+    @Override
+    public List<KeyValueEntry> findAllById(Collection<String> keys) {
+        List<KeyValueEntry> found = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            KeyValueEntry entry = shardFor(key).map.get(key);
+            if (entry != null) {
+                found.add(entry);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public KeyValueEntry save(KeyValueEntry entry) {
+        shardFor(entry.getKey()).put(entry);
+        fireSave(entry);
+        return entry;
+    }
+
+    @Override
+    public void saveAll(Collection<KeyValueEntry> entries) {
+        for (KeyValueEntry entry : entries) {
+            save(entry);
+        }
+    }
+
+    @Override
+    public KeyValueEntry compute(String key, UnaryOperator<KeyValueEntry> update) {
+        boolean[] existed = new boolean[1];
+        KeyValueEntry result = shardFor(key).compute(key, update, existed);
+        if (result != null) {
+            fireSave(result);
+        } else if (existed[0]) {
+            fireDelete(key);
+        }
+        return result;
+    }
+
+    @Override
+    public void deleteById(String key) {
+        if (shardFor(key).remove(key, null)) {
+            fireDelete(key);
+        }
+    }
+
+    @Override
+    public int deleteAllById(Collection<String> keys) {
+        int deleted = 0;
+        for (String key : keys) {
+            if (shardFor(key).remove(key, null)) {
+                fireDelete(key);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void deleteAll() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+        fireDeleteAll();
+    }
+
+    @Override
+    public int deleteAllExpired(Long now) {
+        int deleted = 0;
+        for (Shard shard : shards) {
+            for (KeyValueEntry entry : shard.map.values()) {
+                if (expiredAt(entry, now) && shard.remove(entry.getKey(), entry)) {
+                    fireExpire(entry.getKey());
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public int deleteExpired(Collection<String> keys, Long now) {
+        int deleted = 0;
+        for (String key : keys) {
+            Shard shard = shardFor(key);
+            KeyValueEntry entry = shard.map.get(key);
+            if (entry != null && expiredAt(entry, now) && shard.remove(key, entry)) {
+                fireExpire(key);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean expiredAt(KeyValueEntry entry, long now) {
+        Long expiryTime = entry.getExpiryTime();
+        return expiryTime != null && expiryTime <= now;
+    }
+
+    @Override
+    public void forEachWithExpiry(Consumer<KeyValueEntry> action) {
+        for (Shard shard : shards) {
+            for (KeyValueEntry entry : shard.map.values()) {
+                if (entry.getExpiryTime() != null) {
+                    action.accept(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks keys with an expiry time uniformly from random shards; may contain duplicates.
+     */
+    @Override
+    public List<KeyValueEntry> sampleWithExpiry(int count) {
+        List<KeyValueEntry> sample = new ArrayList<>(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        //Bounded number of probes so a store with very few volatile keys does not spin
+        for (int probes = 0; probes < count * 4 && sample.size() < count; probes++) {
+            Shard shard = shards[random.nextInt(shards.length)];
+            String key = shard.randomVolatileKey(random);
+            if (key == null) {
+                continue;
+            }
+            KeyValueEntry entry = shard.map.get(key);
+            if (entry != null) {
+                sample.add(entry);
+            } else {
+                shard.dropIfStale(key);
+            }
+        }
+        return sample;
+    }
+
+    public long countWithExpiry() {
+        long count = 0;
+        for (Shard shard : shards) {
+            count += shard.volatileCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (Shard shard : shards) {
+            count += shard.map.size();
+        }
+        return count;
+    }
+
+    //One lock-free pass; weakly consistent with concurrent writes like forEach
+    @Override
+    public KeyspaceStats stats(long now) {
+        long keys = 0;
+        long withExpiry = 0;
+        long expired = 0;
+        long bytes = 0;
+        for (Shard shard : shards) {
+            for (KeyValueEntry entry : shard.map.values()) {
+                keys++;
+                bytes += entry.estimatedBytes();
+                if (entry.getExpiryTime() != null) {
+                    withExpiry++;
+                    if (entry.getExpiryTime() <= now) {
+                        expired++;
+                    }
+                }
+            }
+        }
+        return new KeyspaceStats(keys, withExpiry, expired, bytes);
+    }
+
+    //Decoded collections count at their heap size; everything else at the size of its encoded bytes
+    @Override
+    public MemoryStats memoryStats() {
+        long keys = 0;
+        long total = 0;
+        Map<String, MemoryStats.EncodingStats> encodings = new TreeMap<>();
+        for (Shard shard : shards) {
+            for (KeyValueEntry entry : shard.map.values()) {
+                keys++;
+                total += entry.estimatedBytes();
+                String type = entry.getType().typeName();
+                if (entry.isDecoded()) {
+                    TypedValue data = entry.getData();
+                    long size = data.estimatedBytes();
+                    encodings.merge(type + ":" + data.encoding(), new MemoryStats.EncodingStats(1, size, size), MemoryStats.EncodingStats::sum);
+                } else {
+                    byte[] encoded = entry.getEncoded();
+                    encodings.merge(type + ":" + ValueCodec.encoding(encoded).label(),
+                            new MemoryStats.EncodingStats(1, encoded.length, ValueCodec.decodedLength(encoded)),
+                            MemoryStats.EncodingStats::sum);
+                }
+            }
+        }
+        return new MemoryStats(keys, total, encodings);
+    }
+
+    private static final class Shard {
+
+        final ConcurrentHashMap<String, KeyValueEntry> map = new ConcurrentHashMap<>();
+
+        //Swap-remove array plus position map: O(1) add, remove and random pick
+        private final ArrayList<String> volatileKeys = new ArrayList<>();
+        private final Map<String, Integer> volatilePositions = new HashMap<>();
+
+        void put(KeyValueEntry entry) {
+            map.compute(entry.getKey(), (key, previous) -> {
+                if (entry.getExpiryTime() != null) {
+                    addVolatile(key);
+                } else if (previous != null) {
+                    removeVolatile(key);
+                }
+                return entry;
+            });
+        }
+
+        KeyValueEntry compute(String key, UnaryOperator<KeyValueEntry> update, boolean[] existed) {
+            return map.compute(key, (k, previous) -> {
+                existed[0] = previous != null;
+                KeyValueEntry entry = update.apply(previous);
+                if (entry != null && entry.getExpiryTime() != null) {
+                    addVolatile(k);
+                } else if (previous != null) {
+                    removeVolatile(k);
+                }
+                return entry;
+            });
+        }
+
+        /**
+         * Removes the key, or only the given mapping when {@code expected} is not null.
+         */
+        boolean remove(String key, KeyValueEntry expected) {
+            boolean[] removed = new boolean[1];
+            map.computeIfPresent(key, (k, current) -> {
+                if (expected != null && current != expected) {
+                    return current;
+                }
+                removeVolatile(k);
+                removed[0] = true;
+                return null;
+            });
+            return removed[0];
+        }
+
+        void dropIfStale(String key) {
+            map.compute(key, (k, current) -> {
+                if (current == null) {
+                    removeVolatile(k);
+                }
+                return current;
+            });
+        }
+
+        void clear() {
+            //Index first: a concurrent put can then at worst leave a stale index entry, never a missing one
+            synchronized (this) {
+                volatileKeys.clear();
+                volatilePositions.clear();
+            }
+            map.clear();
+        }
+
+        private synchronized void addVolatile(String key) {
+            if (!volatilePositions.containsKey(key)) {
+                volatilePositions.put(key, volatileKeys.size());
+                volatileKeys.add(key);
+            }
+        }
+
+        private synchronized void removeVolatile(String key) {
+            Integer position = volatilePositions.remove(key);
+            if (position != null) {
+                String last = volatileKeys.remove(volatileKeys.size() - 1);
+                if (position < volatileKeys.size()) {
+                    volatileKeys.set(position, last);
+                    volatilePositions.put(last, position);
+                }
+            }
+        }
+
+        synchronized String randomVolatileKey(ThreadLocalRandom random) {
+            return volatileKeys.isEmpty() ? null : volatileKeys.get(random.nextInt(volatileKeys.size()));
+        }
+
+        synchronized int volatileCount() {
+            return volatileKeys.size();
+        }
+    }
+}
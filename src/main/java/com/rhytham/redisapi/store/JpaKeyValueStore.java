@@ -0,0 +1,281 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.codec.ValueEncoding;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+import com.rhytham.redisapi.repository.KeyValueRepository;
+import jakarta.persistence.LockModeType;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Postgres-only engine: every call is a round trip through {@link KeyValueRepository}.
+ */
+public class JpaKeyValueStore extends AbstractKeyValueStore {
+
+    private static final int PAGE_SIZE = 10_000;
+
+    static final int DEFAULT_DELETE_CHUNK_SIZE = 1000;
+
+    //One optimistic try, then locked retries; a locked retry only fails if the key is deleted and re-inserted under it
+    private static final int MAX_COMPUTE_ATTEMPTS = 3;
+
+    private final KeyValueRepository repository;
+    private final int deleteChunkSize;
+
+    //Where the next expiry sample starts; walking the table in key order instead of picking
+    //random rows keeps every sample an index range scan
+    private volatile String sampleCursor = "";
+
+    public JpaKeyValueStore(KeyValueRepository repository) {
+        this(repository, DEFAULT_DELETE_CHUNK_SIZE);
+    }
+
+    public JpaKeyValueStore(KeyValueRepository repository, int deleteChunkSize) {
+        this.repository = repository;
+        this.deleteChunkSize = deleteChunkSize;
+    }
+
+    @Override
+    public Optional<KeyValueEntry> findById(String key) {
+        return repository.findById(key);
+    }
+
+    @Override
+    public Iterable<KeyValueEntry> findAll() {
+        return repository.findAll();
+    }
+
+    //Keyset pagination on the primary key: the cursor is the last key returned, base64url-encoded so it
+    //can never be mistaken for the start cursor
+    @Override
+    public ScanPage scan(String cursor, int count) {
+        String after = "";
+        if (!ScanPage.START.equals(cursor)) {
+            try {
+                after = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("invalid cursor");
+            }
+        }
+        List<KeyValueEntry> page = repository.findByKeyGreaterThanOrderByKeyAsc(after, Limit.of(count));
+        if (page.size() < count) {
+            return new ScanPage(ScanPage.START, page);
+        }
+        String last = page.get(page.size() - 1).getKey();
+        return new ScanPage(Base64.getUrlEncoder().withoutPadding().encodeToString(last.getBytes(StandardCharsets.UTF_8)), page);
+    }
+
+    @Override
+    public List<KeyValueEntry> findAllById(Collection<String> keys) {
+        return keys.isEmpty() ? List.of() : repository.findAllById(keys);
+    }
+
+    //An upsert rather than save(): save() selects and then inserts, so two concurrent first writes of a key
+    //would both insert and one would fail on the primary key
+    @Override
+    public KeyValueEntry save(KeyValueEntry entry) {
+        repository.upsertAll(List.of(entry));
+        fireSave(entry);
+        return entry;
+    }
+
+    @Override
+    public void saveAll(Collection<KeyValueEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        repository.upsertAll(entries);
+        entries.forEach(this::fireSave);
+    }
+
+    /**
+     * Optimistic first: the row is read without a lock and the write fails if its version moved. A conflict means
+     * the key is contended, so the retries take the row lock and queue up behind the other writers instead of
+     * spinning. A missing key is inserted; a racing insert fails on the primary key and the retry finds the row.
+     */
+    @Override
+    public KeyValueEntry compute(String key, UnaryOperator<KeyValueEntry> update) {
+        KeyValueEntry result = null;
+        //Whether the attempt that committed read a row, so a null result only reports a delete that removed one
+        boolean[] existed = new boolean[1];
+        LockModeType lockMode = LockModeType.NONE;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                result = computeInTransaction(key, current -> {
+                    existed[0] = current != null;
+                    return update.apply(current);
+                }, lockMode);
+                break;
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt == MAX_COMPUTE_ATTEMPTS) {
+                    throw e;
+                }
+                lockMode = LockModeType.PESSIMISTIC_WRITE;
+            }
+        }
+        if (result != null) {
+            fireSave(result);
+        } else if (existed[0]) {
+            fireDelete(key);
+        }
+        return result;
+    }
+
+    private KeyValueEntry computeInTransaction(String key, UnaryOperator<KeyValueEntry> update, LockModeType lockMode) {
+        try {
+            return repository.compute(key, update, lockMode);
+        } catch (InvalidDataAccessApiUsageException e) {
+            //The repository proxy wraps an IllegalArgumentException thrown by update; callers expect the original
+            if (e.getCause() instanceof IllegalArgumentException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updateExpiry(String key, long expiryTime) {
+        Optional<KeyValueEntry> updated = repository.updateExpiry(key, expiryTime, System.currentTimeMillis());
+        updated.ifPresent(this::fireSave);
+        return updated.isPresent();
+    }
+
+    //One statement instead of a locked read-modify-write; the slow path only runs to pick the right error
+    @Override
+    public long incrementBy(String key, long delta) {
+        Optional<KeyValueEntry> updated;
+        try {
+            updated = repository.incrementBy(key, delta, System.currentTimeMillis());
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("increment or decrement would overflow");
+        }
+        if (updated.isEmpty()) {
+            return super.incrementBy(key, delta);
+        }
+        fireSave(updated.get());
+        return Long.parseLong(updated.get().getValue());
+    }
+
+    @Override
+    public boolean saveIfAbsent(KeyValueEntry entry) {
+        if (!repository.insertIfAbsent(entry, System.currentTimeMillis())) {
+            return false;
+        }
+        fireSave(entry);
+        return true;
+    }
+
+    @Override
+    public boolean compareAndSet(String key, String expected, String value) {
+        Optional<KeyValueEntry> updated = repository.compareAndSet(key, expected, value, System.currentTimeMillis());
+        if (updated.isPresent()) {
+            fireSave(updated.get());
+            return true;
+        }
+        //No match; the generic path re-reads the key, raising WRONGTYPE for typed keys
+        return super.compareAndSet(key, expected, value);
+    }
+
+    @Override
+    public void deleteById(String key) {
+        repository.deleteById(key);
+        fireDelete(key);
+    }
+
+    @Override
+    public int deleteAllById(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<String> deleted = repository.deleteAllByIdReturningKeys(new ArrayList<>(keys));
+        deleted.forEach(this::fireDelete);
+        return deleted.size();
+    }
+
+    @Override
+    public void deleteAll() {
+        repository.deleteAll();
+        fireDeleteAll();
+    }
+
+    //Chunks of deleteChunkSize rows, each its own short transaction, instead of one DELETE holding locks on every expired row
+    @Override
+    public int deleteAllExpired(Long now) {
+        int deleted = 0;
+        List<String> chunk;
+        do {
+            chunk = repository.deleteExpiredChunk(now, deleteChunkSize);
+            chunk.forEach(this::fireExpire);
+            deleted += chunk.size();
+        } while (chunk.size() == deleteChunkSize);
+        return deleted;
+    }
+
+    @Override
+    public int deleteExpired(Collection<String> keys, Long now) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<String> deleted = repository.deleteExpiredReturningKeys(new ArrayList<>(keys), now);
+        deleted.forEach(this::fireExpire);
+        return deleted.size();
+    }
+
+    @Override
+    public void forEachWithExpiry(Consumer<KeyValueEntry> action) {
+        String lastKey = "";
+        List<KeyValueEntry> page;
+        do {
+            page = repository.findByKeyGreaterThanAndExpiryTimeIsNotNullOrderByKeyAsc(lastKey, Limit.of(PAGE_SIZE));
+            for (KeyValueEntry entry : page) {
+                action.accept(entry);
+                lastKey = entry.getKey();
+            }
+        } while (page.size() == PAGE_SIZE);
+    }
+
+    @Override
+    public List<KeyValueEntry> sampleWithExpiry(int count) {
+        List<KeyValueEntry> sample =
+                repository.findByKeyGreaterThanAndExpiryTimeIsNotNullOrderByKeyAsc(sampleCursor, Limit.of(count));
+        sampleCursor = sample.size() < count ? "" : sample.get(sample.size() - 1).getKey();
+        return sample;
+    }
+
+    @Override
+    public long count() {
+        return repository.count();
+    }
+
+    @Override
+    public KeyspaceStats stats(long now) {
+        KeyValueRepository.KeyspaceCounts counts = repository.keyspaceCounts(now);
+        return new KeyspaceStats(counts.getTotal(), counts.getWithExpiry(), counts.getExpired(), counts.getBytes());
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        long keys = 0;
+        Map<String, MemoryStats.EncodingStats> encodings = new TreeMap<>();
+        for (KeyValueRepository.EncodingUsage usage : repository.encodingUsage()) {
+            keys += usage.getKeys();
+            String name = ValueType.valueOf(usage.getType()).typeName() + ":" + ValueEncoding.ofTag((byte) usage.getTag()).label();
+            encodings.put(name, new MemoryStats.EncodingStats(usage.getKeys(), usage.getStoredBytes(), usage.getRawBytes()));
+        }
+        return new MemoryStats(keys, repository.totalRelationSize(), encodings);
+    }
+}
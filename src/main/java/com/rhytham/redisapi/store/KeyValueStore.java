@@ -0,0 +1,121 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Storage engine behind {@link com.rhytham.redisapi.service.RedisService}.
+ * Method names mirror {@link com.rhytham.redisapi.repository.KeyValueRepository}
+ * so the JPA engine is a straight delegation.
+ */
+public interface KeyValueStore {
+
+    Optional<KeyValueEntry> findById(String key);
+
+    Iterable<KeyValueEntry> findAll();
+
+    /**
+     * One step of an incremental walk over the keyspace, like Redis SCAN. Start with {@link ScanPage#START}
+     * and pass the returned cursor back until it is {@link ScanPage#START} again. Cursors are opaque, every
+     * key present for the whole walk is returned exactly once, and {@code count} is a hint rather than a limit.
+     *
+     * @throws IllegalArgumentException if the cursor was not issued by this engine
+     */
+    ScanPage scan(String cursor, int count);
+
+    /**
+     * Fetches all given keys in one round trip; missing keys are simply absent from the result.
+     */
+    List<KeyValueEntry> findAllById(Collection<String> keys);
+
+    KeyValueEntry save(KeyValueEntry entry);
+
+    /**
+     * Writes all entries in one batch.
+     */
+    void saveAll(Collection<KeyValueEntry> entries);
+
+    /**
+     * Atomically replaces the entry for {@code key} with {@code update.apply(current)}, where current is null
+     * for a missing key, and returns the new entry. Returning null deletes the key. The function may change
+     * {@code current} in place and return it; it runs under the engine's per-key lock, so it must be short and
+     * must not touch other keys. Exceptions it throws leave the key unchanged.
+     */
+    KeyValueEntry compute(String key, UnaryOperator<KeyValueEntry> update);
+
+    /**
+     * Atomically sets the expiry time of a live key and returns true, or returns false if the key is missing or expired.
+     */
+    boolean updateExpiry(String key, long expiryTime);
+
+    /**
+     * Atomically adds {@code delta} to the integer string at {@code key} and returns the result. A missing or
+     * expired key counts as 0 and is created without expiry; an existing key keeps its expiry.
+     *
+     * @throws IllegalArgumentException if the value is not an integer or the result would overflow
+     * @throws com.rhytham.redisapi.exception.WrongTypeException if the key holds another data type
+     */
+    long incrementBy(String key, long delta);
+
+    /**
+     * Saves the entry only if its key is missing or expired, and returns whether it was saved.
+     */
+    boolean saveIfAbsent(KeyValueEntry entry);
+
+    /**
+     * Atomically replaces the string at {@code key} with {@code value} if it currently equals {@code expected},
+     * keeping its expiry, and returns whether it did. A missing or expired key never matches.
+     *
+     * @throws com.rhytham.redisapi.exception.WrongTypeException if the key holds another data type
+     */
+    boolean compareAndSet(String key, String expected, String value);
+
+    void deleteById(String key);
+
+    /**
+     * Deletes all given keys in one round trip and returns how many existed.
+     */
+    int deleteAllById(Collection<String> keys);
+
+    void deleteAll();
+
+    /**
+     * Deletes every key whose expiry time is at or before {@code now} and returns how many were removed.
+     */
+    int deleteAllExpired(Long now);
+
+    /**
+     * Deletes those of the given keys whose expiry time is at or before {@code now};
+     * keys that were re-set with a later or no expiry are left alone.
+     */
+    int deleteExpired(Collection<String> keys, Long now);
+
+    /**
+     * Visits every entry that has an expiry time, without loading the whole keyspace at once.
+     */
+    void forEachWithExpiry(Consumer<KeyValueEntry> action);
+
+    /**
+     * Returns up to {@code count} entries that have an expiry time, for sampling-based expiry.
+     */
+    List<KeyValueEntry> sampleWithExpiry(int count);
+
+    long count();
+
+    /**
+     * Keyspace counters for metrics. This may scan the whole keyspace, so it is not meant to be called per request.
+     */
+    KeyspaceStats stats(long now);
+
+    /**
+     * Value storage broken down by type and encoding, for MEMORY STATS. Scans the whole keyspace.
+     */
+    MemoryStats memoryStats();
+
+    void addListener(StoreListener listener);
+}
@@ -0,0 +1,12 @@
+package com.rhytham.redisapi.store;
+
+/**
+ * Point-in-time keyspace counters reported by {@link KeyValueStore#stats(long)}.
+ *
+ * @param keys           all stored keys, including expired ones not yet removed
+ * @param keysWithExpiry keys that carry an expiry time
+ * @param expiredPending keys past their expiry time that neither a read nor the expiry job has removed yet
+ * @param bytesUsed      estimated heap footprint for the memory engine, chunk and index bytes for the off-heap engine, stored key and value bytes for the jpa engine
+ */
+public record KeyspaceStats(long keys, long keysWithExpiry, long expiredPending, long bytesUsed) {
+}
@@ -0,0 +1,30 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+
+import java.util.function.Consumer;
+
+/**
+ * An engine that holds the whole keyspace in this process and is its source of truth. Persistence
+ * sinks load it on startup with the methods below, which notify no listeners, then follow its
+ * writes as a {@link StoreListener}.
+ */
+public interface LocalKeyValueStore extends KeyValueStore {
+
+    /**
+     * Puts an entry without notifying listeners; used when warming the store from persistence.
+     */
+    void load(KeyValueEntry entry);
+
+    /**
+     * Removes a key without notifying listeners; used when replaying a log.
+     */
+    void unload(String key);
+
+    void unloadAll();
+
+    /**
+     * Visits every entry without copying the keyspace; weakly consistent with concurrent writes.
+     */
+    void forEach(Consumer<KeyValueEntry> action);
+}
@@ -0,0 +1,47 @@
+package com.rhytham.redisapi.store;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * Where the keyspace's space goes, reported by {@link KeyValueStore#memoryStats()} for MEMORY STATS.
+ *
+ * @param keys       all stored keys, including expired ones not yet removed
+ * @param totalBytes estimated heap footprint for the memory engine; memory counted against maxmemory for the
+ *                   off-heap engine; table, TOAST and index size for the jpa engine
+ * @param encodings  values grouped by {@code type:encoding}, e.g. {@code string:int} or {@code hash:zstd}
+ * @param allocator  slab allocator figures of the off-heap engine, null for the others
+ */
+public record MemoryStats(long keys, long totalBytes, Map<String, EncodingStats> encodings,
+                          @JsonInclude(JsonInclude.Include.NON_NULL) Allocator allocator) {
+
+    public MemoryStats(long keys, long totalBytes, Map<String, EncodingStats> encodings) {
+        this(keys, totalBytes, encodings, null);
+    }
+
+    /**
+     * @param keys        values stored this way
+     * @param storedBytes their size as stored: encoded bytes, or the estimated heap size of a decoded collection
+     * @param rawBytes    their size before encoding; for decoded collections the same as storedBytes
+     */
+    public record EncodingStats(long keys, long storedBytes, long rawBytes) {
+
+        public static EncodingStats sum(EncodingStats a, EncodingStats b) {
+            return new EncodingStats(a.keys + b.keys, a.storedBytes + b.storedBytes, a.rawBytes + b.rawBytes);
+        }
+    }
+
+    /**
+     * @param requestedBytes     bytes of the records themselves: key, encoded value and header
+     * @param usedBytes          bytes of the chunks holding them, the slack of their size class included
+     * @param reservedBytes      direct memory taken from the JVM, free pooled pages included
+     * @param fragmentationRatio reserved over requested bytes; 1.0 means no waste
+     * @param maxMemoryBytes     the maxmemory limit, 0 for none
+     * @param evictionPolicy     what happens at the limit, in Redis's spelling
+     * @param evictedKeys        keys removed to stay under the limit since startup
+     */
+    public record Allocator(long requestedBytes, long usedBytes, long reservedBytes, double fragmentationRatio,
+                            long maxMemoryBytes, String evictionPolicy, long evictedKeys) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+
+import java.util.List;
+
+/**
+ * One step of a cursor walk over the keyspace, see {@link KeyValueStore#scan(String, int)}.
+ *
+ * @param cursor  cursor for the next step, {@link #START} once the walk is complete
+ * @param entries entries read in this step, expired ones included
+ */
+public record ScanPage(String cursor, List<KeyValueEntry> entries) {
+
+    public static final String START = "0";
+
+    public boolean isLast() {
+        return START.equals(cursor);
+    }
+}
@@ -0,0 +1,19 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+
+/**
+ * Callback for mutations applied to a store, used by persistence sinks and the expiry engine.
+ */
+public interface StoreListener {
+
+    void onSave(KeyValueEntry entry);
+
+    void onDelete(String key);
+
+    void onDeleteAll();
+
+    //Follows onDelete when the delete was an expiry, whichever path found it
+    default void onExpire(String key) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.repository.KeyValueRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous sink that mirrors the memory or off-heap engine into Postgres. Mutations only mark
+ * keys dirty; {@link #flush()} later writes the current state of each dirty key in batches,
+ * so repeated writes to one key between flushes cost a single row write.
+ */
+@Slf4j
+public class WriteBehindPersister implements StoreListener {
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    private final LocalKeyValueStore store;
+    private final KeyValueRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean deleteAllPending = new AtomicBoolean();
+    //Serializes flushes; a monitor held across the batch writes would pin a virtual thread's carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public WriteBehindPersister(LocalKeyValueStore store, KeyValueRepository repository,
+                                TransactionTemplate transactionTemplate, int batchSize) {
+        this.store = store;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void loadAndAttach() {
+        long now = System.currentTimeMillis();
+        long loaded = 0;
+        String lastKey = "";
+        List<KeyValueEntry> page;
+        do {
+            page = repository.findByKeyGreaterThanOrderByKeyAsc(lastKey, Limit.of(LOAD_PAGE_SIZE));
+            for (KeyValueEntry entry : page) {
+                if (entry.getExpiryTime() == null || entry.getExpiryTime() > now) {
+                    store.load(entry);
+                    loaded++;
+                }
+                lastKey = entry.getKey();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        log.info("Loaded {} keys from Postgres into the memory engine", loaded);
+        store.addListener(this);
+    }
+
+    @Override
+    public void onSave(KeyValueEntry entry) {
+        dirtyKeys.add(entry.getKey());
+    }
+
+    @Override
+    public void onDelete(String key) {
+        dirtyKeys.add(key);
+    }
+
+    @Override
+    public void onDeleteAll() {
+        deleteAllPending.set(true);
+    }
+
+    public int pendingCount() {
+        return dirtyKeys.size();
+    }
+
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        if (deleteAllPending.getAndSet(false)) {
+            try {
+                repository.deleteAllInBatch();
+            } catch (RuntimeException e) {
+                deleteAllPending.set(true);
+                log.error("Write-behind flushAll failed, will retry", e);
+                return;
+            }
+        }
+
+        List<KeyValueEntry> upserts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        Iterator<String> it = dirtyKeys.iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            it.remove();
+            KeyValueEntry entry = store.findById(key).orElse(null);
+            if (entry != null) {
+                upserts.add(entry);
+            } else {
+                deletes.add(key);
+            }
+            if (upserts.size() + deletes.size() >= batchSize) {
+                writeBatch(upserts, deletes);
+                upserts = new ArrayList<>();
+                deletes = new ArrayList<>();
+            }
+        }
+        if (!upserts.isEmpty() || !deletes.isEmpty()) {
+            writeBatch(upserts, deletes);
+        }
+    }
+
+    private void writeBatch(List<KeyValueEntry> upserts, List<String> deletes) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!upserts.isEmpty()) {
+                    repository.upsertAll(upserts);
+                }
+                if (!deletes.isEmpty()) {
+                    repository.deleteAllByIdInBatch(deletes);
+                }
+            });
+        } catch (RuntimeException e) {
+            //Put the keys back so the next flush retries them
+            upserts.forEach(entry -> dirtyKeys.add(entry.getKey()));
+            dirtyKeys.addAll(deletes);
+            log.error("Write-behind flush of {} keys failed, will retry", upserts.size() + deletes.size(), e);
+        }
+    }
+}
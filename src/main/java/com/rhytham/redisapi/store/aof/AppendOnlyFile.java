@@ -0,0 +1,500 @@
+package com.rhytham.redisapi.store.aof;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.LocalKeyValueStore;
+import com.rhytham.redisapi.store.StoreListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of every mutation of the memory or off-heap engine, replayed into the store on startup.
+ * <p>
+ * Writers only encode their record into a shared buffer; a single writer thread drains whatever
+ * has accumulated with one {@code write} and, depending on the {@link FsyncPolicy}, one
+ * {@code force}, so concurrent writers share the cost of a disk sync (group commit).
+ * <p>
+ * When the file has grown by {@code rewritePercentage} since the last rewrite, a background
+ * thread writes the current keyspace to a new file while mutations keep going to both the old
+ * file and an in-memory diff; the diff is appended to the new file, which then atomically
+ * replaces the old one.
+ * <p>
+ * State is guarded by a {@link ReentrantLock} rather than a monitor: with {@code fsync=always} callers
+ * wait for the sync, and a virtual thread waiting on a monitor would pin its carrier thread.
+ */
+@Slf4j
+public class AppendOnlyFile implements StoreListener {
+
+    public enum FsyncPolicy {
+        /** Sync before the mutating call returns. */
+        ALWAYS,
+        /** Sync at most once per second; a crash loses about one second of writes. */
+        EVERYSEC,
+        /** Never sync explicitly and leave flushing to the operating system. */
+        NO;
+
+        public static FsyncPolicy parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final long FSYNC_INTERVAL_MS = 1000;
+    private static final int REWRITE_CHUNK_BYTES = 1 << 20;
+
+    private final LocalKeyValueStore store;
+    private final Path path;
+    private final Path rewritePath;
+    private final FsyncPolicy fsyncPolicy;
+    private final long rewriteMinSize;
+    private final int rewritePercentage;
+
+    //Guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private RecordBuffer pending = new RecordBuffer();
+    private RecordBuffer rewriteDiff;
+    private boolean rewriteReady;
+    private long appendedSeq;
+    private long syncedSeq;
+    private boolean running;
+    private boolean writerIdle;
+    private IOException failure;
+
+    //Owned by the writer thread
+    private FileChannel channel;
+    private RecordBuffer spare = new RecordBuffer();
+    private long baseSize;
+    private long lastFsync;
+    private boolean unsynced;
+    private Thread writer;
+
+    public AppendOnlyFile(LocalKeyValueStore store, Path path, FsyncPolicy fsyncPolicy,
+                          long rewriteMinSize, int rewritePercentage) {
+        this.store = store;
+        this.path = path;
+        this.rewritePath = path.resolveSibling(path.getFileName() + ".rewrite");
+        this.fsyncPolicy = fsyncPolicy;
+        this.rewriteMinSize = rewriteMinSize;
+        this.rewritePercentage = rewritePercentage;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(rewritePath); //left over from a crash during rewrite
+        if (Files.exists(path)) {
+            replay();
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        baseSize = channel.size();
+        lastFsync = System.currentTimeMillis();
+        lock.lock();
+        try {
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        store.addListener(this);
+        writer = new Thread(this::runWriter, "aof-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        writer.join();
+        channel.force(false);
+        channel.close();
+    }
+
+    @Override
+    public void onSave(KeyValueEntry entry) {
+        log(entry.getKey());
+    }
+
+    @Override
+    public void onDelete(String key) {
+        log(key);
+    }
+
+    @Override
+    public void onDeleteAll() {
+        append(RecordBuffer::flushAll);
+    }
+
+    private void log(String key) {
+        //Listeners fire after the store update and may run out of order for concurrent writers to one
+        //key; logging the state read under the lock makes the last record for a key match the store
+        append(buffer -> {
+            KeyValueEntry current = store.findById(key).orElse(null);
+            if (current != null) {
+                buffer.set(current);
+            } else {
+                buffer.del(key);
+            }
+        });
+    }
+
+    private void append(Consumer<RecordBuffer> record) {
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new IllegalStateException("Append-only file is not writable", failure);
+            }
+            record.accept(pending);
+            if (rewriteDiff != null) {
+                record.accept(rewriteDiff);
+            }
+            long seq = ++appendedSeq;
+            if (writerIdle || fsyncPolicy == FsyncPolicy.ALWAYS) {
+                changed.signalAll();
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                awaitSynced(seq);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitSynced(long seq) {
+        try {
+            while (syncedSeq < seq) {
+                if (failure != null) {
+                    throw new IllegalStateException("Append-only file is not writable", failure);
+                }
+                if (!running) {
+                    return;
+                }
+                changed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for fsync", e);
+        }
+    }
+
+    public long size() throws IOException {
+        return Files.size(path);
+    }
+
+    /**
+     * Starts a background rewrite unless one is already running.
+     */
+    public boolean rewrite() {
+        lock.lock();
+        try {
+            if (!running || rewriteDiff != null) {
+                return false;
+            }
+            rewriteDiff = new RecordBuffer();
+        } finally {
+            lock.unlock();
+        }
+        Thread thread = new Thread(this::runRewrite, "aof-rewrite");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public boolean isRewriting() {
+        lock.lock();
+        try {
+            return rewriteDiff != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            RecordBuffer batch;
+            long seq;
+            lock.lock();
+            try {
+                try {
+                    while (running && pending.size() == 0 && !rewriteReady && !syncDue()) {
+                        writerIdle = true;
+                        if (unsynced && fsyncPolicy == FsyncPolicy.EVERYSEC) {
+                            changed.await(waitForSync(), TimeUnit.MILLISECONDS);
+                        } else {
+                            changed.await();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    writerIdle = false;
+                }
+                if (rewriteReady) {
+                    finishRewrite();
+                    continue;
+                }
+                if (!running && pending.size() == 0) {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                seq = appendedSeq;
+            } finally {
+                lock.unlock();
+            }
+            writeBatch(batch, seq);
+            spare = batch;
+            maybeRewrite();
+        }
+    }
+
+    private void writeBatch(RecordBuffer batch, long seq) {
+        while (true) {
+            long position = -1;
+            try {
+                position = channel.size();
+                if (batch.size() > 0) {
+                    batch.writeTo(channel);
+                    unsynced = true;
+                }
+                long now = System.currentTimeMillis();
+                if (unsynced && (fsyncPolicy == FsyncPolicy.ALWAYS
+                        || fsyncPolicy == FsyncPolicy.EVERYSEC && now - lastFsync >= FSYNC_INTERVAL_MS)) {
+                    channel.force(false);
+                    lastFsync = now;
+                    unsynced = false;
+                }
+                batch.reset();
+                lock.lock();
+                try {
+                    syncedSeq = seq;
+                    if (failure != null) {
+                        log.info("Append-only file is writable again");
+                        failure = null;
+                    }
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    if (failure == null) {
+                        log.error("Writing the append-only file failed, rejecting writes until it recovers", e);
+                    }
+                    failure = e;
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                truncateTo(position);
+                if (!sleepBeforeRetry()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    //Drop a partially written batch so the retry does not leave a torn record in the middle of the file
+    private void truncateTo(long position) {
+        if (position < 0) {
+            return;
+        }
+        try {
+            channel.truncate(position);
+        } catch (IOException e) {
+            log.debug("Could not truncate append-only file after failed write", e);
+        }
+    }
+
+    private boolean sleepBeforeRetry() {
+        try {
+            Thread.sleep(FSYNC_INTERVAL_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean syncDue() {
+        return unsynced && fsyncPolicy == FsyncPolicy.EVERYSEC
+                && System.currentTimeMillis() - lastFsync >= FSYNC_INTERVAL_MS;
+    }
+
+    private long waitForSync() {
+        return Math.max(1, FSYNC_INTERVAL_MS - (System.currentTimeMillis() - lastFsync));
+    }
+
+    private void maybeRewrite() {
+        if (rewritePercentage <= 0) {
+            return;
+        }
+        try {
+            long size = channel.size();
+            if (size >= rewriteMinSize && size >= baseSize + baseSize * rewritePercentage / 100) {
+                if (rewrite()) {
+                    log.info("Rewriting append-only file of {} bytes", size);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Could not read append-only file size", e);
+        }
+    }
+
+    private void runRewrite() {
+        long now = System.currentTimeMillis();
+        try (FileChannel out = FileChannel.open(rewritePath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            RecordBuffer chunk = new RecordBuffer();
+            store.forEach(entry -> {
+                if (entry.getExpiryTime() != null && entry.getExpiryTime() <= now) {
+                    return;
+                }
+                chunk.set(entry);
+                if (chunk.size() >= REWRITE_CHUNK_BYTES) {
+                    try {
+                        chunk.writeTo(out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    chunk.reset();
+                }
+            });
+            chunk.writeTo(out);
+            out.force(false);
+            lock.lock();
+            try {
+                rewriteReady = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Append-only file rewrite failed", e);
+            abandonRewrite();
+        }
+    }
+
+    //Runs on the writer thread holding the lock, so no record can slip between the diff and the switch
+    private void finishRewrite() {
+        try {
+            try (FileChannel out = FileChannel.open(rewritePath, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                rewriteDiff.writeTo(out);
+                out.force(false);
+            }
+            Files.move(rewritePath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            FileChannel previous = channel;
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            previous.close();
+            //Everything still pending is covered by the snapshot plus the diff
+            pending.reset();
+            syncedSeq = appendedSeq;
+            baseSize = channel.size();
+            lastFsync = System.currentTimeMillis();
+            unsynced = false;
+            rewriteDiff = null;
+            rewriteReady = false;
+            changed.signalAll();
+            log.info("Append-only file rewritten to {} bytes", baseSize);
+        } catch (IOException e) {
+            log.error("Switching to the rewritten append-only file failed", e);
+            abandonRewrite();
+        }
+    }
+
+    private void abandonRewrite() {
+        lock.lock();
+        try {
+            rewriteDiff = null;
+            rewriteReady = false;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Files.deleteIfExists(rewritePath);
+        } catch (IOException e) {
+            log.debug("Could not delete {}", rewritePath, e);
+        }
+    }
+
+    /**
+     * Applies the log to the store without notifying listeners. A torn or corrupt tail,
+     * as left by a crash mid-write, is logged and truncated away.
+     */
+    private void replay() throws IOException {
+        long now = System.currentTimeMillis();
+        RecordBuffer.Handler loader = new RecordBuffer.Handler() {
+            @Override
+            public void set(KeyValueEntry entry) {
+                if (entry.getExpiryTime() != null && entry.getExpiryTime() <= now) {
+                    store.unload(entry.getKey());
+                } else {
+                    store.load(entry);
+                }
+            }
+
+            @Override
+            public void del(String key) {
+                store.unload(key);
+            }
+
+            @Override
+            public void flushAll() {
+                store.unloadAll();
+            }
+        };
+        long valid = 0;
+        long records = 0;
+        long size = Files.size(path);
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            CRC32 crc = new CRC32();
+            while (valid < size) {
+                byte[] payload = RecordBuffer.readPayload(in, crc);
+                if (payload == null) {
+                    break;
+                }
+                RecordBuffer.decode(payload, loader);
+                valid += payload.length + 8;
+                records++;
+            }
+        }
+        if (valid < size) {
+            log.warn("Append-only file {} has {} bytes of torn or corrupt tail, truncating", path, size - valid);
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                file.truncate(valid);
+            }
+        }
+        log.info("Replayed {} records from {} into the memory engine", records, path);
+    }
+}
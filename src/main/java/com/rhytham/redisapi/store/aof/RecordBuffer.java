@@ -0,0 +1,212 @@
+package com.rhytham.redisapi.store.aof;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Growable buffer of encoded log records. Each record is framed as
+ * {@code [int length][payload][int crc32(payload)]} so a torn write at the tail of the
+ * file is detected on replay. Every value is logged as {@code OP_SET_ENCODED}: its stored form, as
+ * {@link com.rhytham.redisapi.codec.ValueCodec} encoded it, and a type byte. Logs written before values
+ * were encoded hold {@code OP_SET} and {@code OP_SET_TYPED} records with UTF-8 text, which replay still reads.
+ * <p>
+ * The replication stream is made of the same records, plus the {@code OP_PING} and {@code OP_SYNC_END}
+ * control records, which are never written to the file.
+ */
+public class RecordBuffer extends ByteArrayOutputStream {
+
+    static final byte OP_SET = 1;
+    static final byte OP_DEL = 2;
+    static final byte OP_FLUSH = 3;
+    static final byte OP_SET_TYPED = 4;
+    static final byte OP_SET_ENCODED = 5;
+    /** Heartbeat of an idle replication link. */
+    public static final byte OP_PING = 6;
+    /** Ends the keyspace transfer of a full resynchronization. */
+    public static final byte OP_SYNC_END = 7;
+
+    static final long NO_EXPIRY = -1;
+
+    private static final int MAX_RECORD_BYTES = 1 << 30;
+
+    /**
+     * Receives decoded records.
+     */
+    public interface Handler {
+
+        void set(KeyValueEntry entry);
+
+        void del(String key);
+
+        void flushAll();
+
+        /**
+         * {@code OP_PING} or {@code OP_SYNC_END}, which only a replication link carries.
+         */
+        default void control(byte op) {
+            throw new IllegalStateException("Unexpected replication record in an append-only file");
+        }
+    }
+
+    public RecordBuffer() {
+        this(8192);
+    }
+
+    public RecordBuffer(int size) {
+        super(size);
+    }
+
+    public void set(KeyValueEntry entry) {
+        int start = begin(OP_SET_ENCODED);
+        writeString(entry.getKey());
+        writeLengthPrefixed(entry.getEncoded());
+        writeLong(entry.getExpiryTime() == null ? NO_EXPIRY : entry.getExpiryTime());
+        write(entry.getType().ordinal());
+        end(start);
+    }
+
+    public void del(String key) {
+        int start = begin(OP_DEL);
+        writeString(key);
+        end(start);
+    }
+
+    public void flushAll() {
+        end(begin(OP_FLUSH));
+    }
+
+    public void ping() {
+        end(begin(OP_PING));
+    }
+
+    public void syncEnd() {
+        end(begin(OP_SYNC_END));
+    }
+
+    /**
+     * The records written so far, without copying them.
+     */
+    public ByteBuffer contents() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    public void writeTo(FileChannel channel) throws IOException {
+        ByteBuffer buffer = contents();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads the payload of the next record, or returns null at the end of the stream or at a torn or corrupt record.
+     */
+    public static byte[] readPayload(DataInputStream in, CRC32 crc) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(payload);
+            return in.readInt() == (int) crc.getValue() ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    public static void decode(byte[] payload, Handler handler) {
+        ByteBuffer record = ByteBuffer.wrap(payload);
+        byte op = record.get();
+        switch (op) {
+            case OP_SET_ENCODED -> {
+                String key = readString(record);
+                byte[] encoded = readBytes(record);
+                Long expiry = expiry(record.getLong());
+                handler.set(KeyValueEntry.fromEncoded(key, encoded, expiry, ValueType.values()[record.get()]));
+            }
+            //Text records from before values were encoded
+            case OP_SET, OP_SET_TYPED -> {
+                String key = readString(record);
+                String value = readString(record);
+                Long expiry = expiry(record.getLong());
+                ValueType type = record.hasRemaining() ? ValueType.values()[record.get()] : ValueType.STRING;
+                handler.set(new KeyValueEntry(key, value, expiry, type));
+            }
+            case OP_DEL -> handler.del(readString(record));
+            case OP_FLUSH -> handler.flushAll();
+            case OP_PING, OP_SYNC_END -> handler.control(op);
+            default -> throw new IllegalStateException("Unknown record type " + op);
+        }
+    }
+
+    private int begin(byte op) {
+        int start = count;
+        writeInt(0); //length, patched in end()
+        write(op);
+        return start;
+    }
+
+    private void end(int start) {
+        int length = count - start - 4;
+        ByteBuffer.wrap(buf, start, 4).putInt(length);
+        CRC32 crc = new CRC32();
+        crc.update(buf, start + 4, length);
+        writeInt((int) crc.getValue());
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        writeLengthPrefixed(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeLengthPrefixed(byte[] bytes) {
+        writeInt(bytes.length);
+        write(bytes, 0, bytes.length);
+    }
+
+    private void writeInt(int value) {
+        write(value >>> 24);
+        write(value >>> 16);
+        write(value >>> 8);
+        write(value);
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private static Long expiry(long logged) {
+        return logged == NO_EXPIRY ? null : logged;
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    private static byte[] readBytes(ByteBuffer record) {
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return bytes;
+    }
+}
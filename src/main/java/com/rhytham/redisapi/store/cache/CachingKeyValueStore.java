@@ -0,0 +1,255 @@
+package com.rhytham.redisapi.store.cache;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.KeyspaceStats;
+import com.rhytham.redisapi.store.MemoryStats;
+import com.rhytham.redisapi.store.ScanPage;
+import com.rhytham.redisapi.store.StoreListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through decorator: {@link #findById} is served from the {@link NearCache} when
+ * possible, every mutation invalidates it. A striped invalidation counter stops a
+ * reader that raced with a write from caching the value it read before the write.
+ * Readers check the counter and writers bump it under the same stripe lock, so a
+ * stale entry is never visible, not even briefly, once the write has returned.
+ */
+public class CachingKeyValueStore implements KeyValueStore {
+
+    private static final int STRIPES = 1024;
+
+    private final KeyValueStore delegate;
+    private final NearCache cache;
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+    private final Object[] locks = new Object[STRIPES];
+
+    public CachingKeyValueStore(KeyValueStore delegate, NearCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private void invalidate(String key) {
+        int stripe = stripe(key);
+        synchronized (locks[stripe]) {
+            invalidations.incrementAndGet(stripe);
+            cache.invalidate(key);
+        }
+    }
+
+    //Caches what a reader loaded unless the key was written since the reader took its stamp
+    private void cacheLoaded(KeyValueEntry entry, long stamp) {
+        if (entry.isExpired()) {
+            return;
+        }
+        int stripe = stripe(entry.getKey());
+        synchronized (locks[stripe]) {
+            if (invalidations.get(stripe) == stamp) {
+                cache.put(entry.copy());
+            }
+        }
+    }
+
+    @Override
+    public Optional<KeyValueEntry> findById(String key) {
+        KeyValueEntry cached = cache.get(key);
+        if (cached != null && !cached.isExpired()) {
+            //Callers may mutate the entity before saving it, so never hand out the cached instance
+            return Optional.of(cached.copy());
+        }
+        long stamp = invalidations.get(stripe(key));
+        Optional<KeyValueEntry> loaded = delegate.findById(key);
+        loaded.ifPresent(entry -> cacheLoaded(entry, stamp));
+        return loaded;
+    }
+
+    @Override
+    public Iterable<KeyValueEntry> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public ScanPage scan(String cursor, int count) {
+        return delegate.scan(cursor, count);
+    }
+
+    @Override
+    public List<KeyValueEntry> findAllById(Collection<String> keys) {
+        List<KeyValueEntry> found = new ArrayList<>(keys.size());
+        List<String> misses = new ArrayList<>();
+        Map<String, Long> stamps = new HashMap<>();
+        for (String key : keys) {
+            KeyValueEntry cached = cache.get(key);
+            if (cached != null && !cached.isExpired()) {
+                found.add(cached.copy());
+            } else {
+                misses.add(key);
+                stamps.put(key, invalidations.get(stripe(key)));
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (KeyValueEntry entry : delegate.findAllById(misses)) {
+                cacheLoaded(entry, stamps.get(entry.getKey()));
+                found.add(entry);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public KeyValueEntry save(KeyValueEntry entry) {
+        try {
+            return delegate.save(entry);
+        } finally {
+            invalidate(entry.getKey());
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<KeyValueEntry> entries) {
+        try {
+            delegate.saveAll(entries);
+        } finally {
+            entries.forEach(entry -> invalidate(entry.getKey()));
+        }
+    }
+
+    @Override
+    public int deleteAllById(Collection<String> keys) {
+        try {
+            return delegate.deleteAllById(keys);
+        } finally {
+            keys.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public KeyValueEntry compute(String key, UnaryOperator<KeyValueEntry> update) {
+        try {
+            return delegate.compute(key, update);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public boolean updateExpiry(String key, long expiryTime) {
+        try {
+            return delegate.updateExpiry(key, expiryTime);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public long incrementBy(String key, long delta) {
+        try {
+            return delegate.incrementBy(key, delta);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public boolean saveIfAbsent(KeyValueEntry entry) {
+        try {
+            return delegate.saveIfAbsent(entry);
+        } finally {
+            invalidate(entry.getKey());
+        }
+    }
+
+    @Override
+    public boolean compareAndSet(String key, String expected, String value) {
+        try {
+            return delegate.compareAndSet(key, expected, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public void deleteById(String key) {
+        try {
+            delegate.deleteById(key);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        try {
+            delegate.deleteAll();
+        } finally {
+            for (int i = 0; i < STRIPES; i++) {
+                synchronized (locks[i]) {
+                    invalidations.incrementAndGet(i);
+                }
+            }
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public int deleteAllExpired(Long now) {
+        //Cached entries drop out on their own once their expiry time passes
+        return delegate.deleteAllExpired(now);
+    }
+
+    @Override
+    public int deleteExpired(Collection<String> keys, Long now) {
+        try {
+            return delegate.deleteExpired(keys, now);
+        } finally {
+            keys.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public void forEachWithExpiry(Consumer<KeyValueEntry> action) {
+        delegate.forEachWithExpiry(action);
+    }
+
+    @Override
+    public List<KeyValueEntry> sampleWithExpiry(int count) {
+        return delegate.sampleWithExpiry(count);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public KeyspaceStats stats(long now) {
+        return delegate.stats(now);
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        return delegate.memoryStats();
+    }
+
+    @Override
+    public void addListener(StoreListener listener) {
+        delegate.addListener(listener);
+    }
+}
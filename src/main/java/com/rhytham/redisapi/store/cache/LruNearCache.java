@@ -0,0 +1,147 @@
+package com.rhytham.redisapi.store.cache;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Segmented LRU cache: each segment is an access-ordered {@link LinkedHashMap} behind
+ * its own lock, so contention is spread across segments.
+ */
+public class LruNearCache implements NearCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruNearCache(long maxEntries, long maxBytes) {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment(maxEntries), perSegment(maxBytes));
+        }
+    }
+
+    private static long perSegment(long limit) {
+        return limit <= 0 ? Long.MAX_VALUE : Math.max(1, limit / SEGMENTS);
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    @Override
+    public KeyValueEntry get(String key) {
+        KeyValueEntry entry = segmentFor(key).get(key);
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    @Override
+    public void put(KeyValueEntry entry) {
+        segmentFor(entry.getKey()).put(entry);
+    }
+
+    @Override
+    public void invalidate(String key) {
+        segmentFor(key).remove(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long missCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private final class Segment {
+
+        private final long maxEntries;
+        private final long maxBytes;
+        private final LinkedHashMap<String, KeyValueEntry> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        Segment(long maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized KeyValueEntry get(String key) {
+            KeyValueEntry entry = map.get(key);
+            if (entry != null && entry.isExpired()) {
+                removeEntry(key);
+                evictions.increment();
+                return null;
+            }
+            return entry;
+        }
+
+        synchronized void put(KeyValueEntry entry) {
+            KeyValueEntry previous = map.put(entry.getKey(), entry);
+            if (previous != null) {
+                bytes -= NearCache.weigh(previous);
+            }
+            bytes += NearCache.weigh(entry);
+            Iterator<Map.Entry<String, KeyValueEntry>> eldest = map.entrySet().iterator();
+            while ((map.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                KeyValueEntry evicted = eldest.next().getValue();
+                eldest.remove();
+                bytes -= NearCache.weigh(evicted);
+                evictions.increment();
+            }
+        }
+
+        synchronized void remove(String key) {
+            removeEntry(key);
+        }
+
+        private void removeEntry(String key) {
+            KeyValueEntry removed = map.remove(key);
+            if (removed != null) {
+                bytes -= NearCache.weigh(removed);
+            }
+        }
+
+        synchronized void clear() {
+            map.clear();
+            bytes = 0;
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
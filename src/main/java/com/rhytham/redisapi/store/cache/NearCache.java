@@ -0,0 +1,30 @@
+package com.rhytham.redisapi.store.cache;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+
+/**
+ * Bounded read-through cache in front of a slower engine. Implementations must
+ * never return an entry past its {@link KeyValueEntry#getExpiryTime()}.
+ */
+public interface NearCache {
+
+    KeyValueEntry get(String key);
+
+    void put(KeyValueEntry entry);
+
+    void invalidate(String key);
+
+    void invalidateAll();
+
+    long size();
+
+    long hitCount();
+
+    long missCount();
+
+    long evictionCount();
+
+    static long weigh(KeyValueEntry entry) {
+        return entry.estimatedBytes();
+    }
+}
@@ -0,0 +1,37 @@
+package com.rhytham.redisapi.store.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes near-cache counters under {@code redisapi.cache.*} on the actuator metrics endpoint.
+ */
+@RequiredArgsConstructor
+public class NearCacheMetrics implements MeterBinder {
+
+    private final NearCache cache;
+    private final String policy;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("redisapi.cache.gets", cache, NearCache::hitCount)
+                .tag("result", "hit").tag("policy", policy)
+                .description("Near-cache lookups served from memory")
+                .register(registry);
+        FunctionCounter.builder("redisapi.cache.gets", cache, NearCache::missCount)
+                .tag("result", "miss").tag("policy", policy)
+                .description("Near-cache lookups that went to the database")
+                .register(registry);
+        FunctionCounter.builder("redisapi.cache.evictions", cache, NearCache::evictionCount)
+                .tag("policy", policy)
+                .description("Entries evicted for size or expiry")
+                .register(registry);
+        Gauge.builder("redisapi.cache.size", cache, NearCache::size)
+                .tag("policy", policy)
+                .description("Entries currently cached")
+                .register(registry);
+    }
+}
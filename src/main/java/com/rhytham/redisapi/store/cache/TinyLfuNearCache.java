@@ -0,0 +1,89 @@
+package com.rhytham.redisapi.store.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.rhytham.redisapi.model.KeyValueEntry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * W-TinyLFU cache backed by Caffeine, with a per-entry expiry that follows the key's TTL.
+ */
+public class TinyLfuNearCache implements NearCache {
+
+    private final Cache<String, KeyValueEntry> cache;
+
+    public TinyLfuNearCache(long maxEntries, long maxBytes) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (maxBytes > 0) {
+            builder.maximumWeight(maxBytes)
+                    .weigher((String key, KeyValueEntry entry) -> (int) Math.min(Integer.MAX_VALUE, NearCache.weigh(entry)));
+        } else if (maxEntries > 0) {
+            builder.maximumSize(maxEntries);
+        }
+        this.cache = builder.expireAfter(new TtlExpiry()).build();
+    }
+
+    @Override
+    public KeyValueEntry get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void put(KeyValueEntry entry) {
+        cache.put(entry.getKey(), entry);
+    }
+
+    @Override
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    private static final class TtlExpiry implements Expiry<String, KeyValueEntry> {
+
+        @Override
+        public long expireAfterCreate(String key, KeyValueEntry entry, long currentTime) {
+            Long expiryTime = entry.getExpiryTime();
+            if (expiryTime == null) {
+                return Long.MAX_VALUE;
+            }
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiryTime - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, KeyValueEntry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, KeyValueEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.rhytham.redisapi.store.coalesce;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.KeyspaceStats;
+import com.rhytham.redisapi.store.MemoryStats;
+import com.rhytham.redisapi.store.ScanPage;
+import com.rhytham.redisapi.store.StoreListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Write pipeline in front of the jpa engine. Blind writes ({@link #save}, {@link #saveAll}) go into an open
+ * batch keyed by key, so repeated writes to one key within the window cost one row; a flusher thread hands
+ * each batch to the delegate as chunks of one JDBC upsert batch each. Everything else goes straight through.
+ * <p>
+ * With {@link Ack#FLUSH} a write returns once its batch is committed, and concurrent writers share one
+ * commit. Queued writes are not visible before that, so reads never see a write that could still fail.
+ * With {@link Ack#ENQUEUE} a write returns as soon as it is queued: reads see queued writes, any other
+ * operation on a queued key waits for it to be flushed first, and a failed flush is retried until it
+ * succeeds. Writes acknowledged since the last flush are lost if the process dies.
+ */
+@Slf4j
+public class CoalescingKeyValueStore implements KeyValueStore {
+
+    public enum Ack {
+        /** Return once the write is queued. */
+        ENQUEUE,
+        /** Return once the write is committed to the database. */
+        FLUSH;
+
+        public static Ack parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private final KeyValueStore delegate;
+    private final Ack ack;
+    private final long windowNanos;
+    private final int batchSize;
+    private final int maxPending;
+
+    //Guarded by lock; open and flushing are also read without it, and a swap sets flushing before open
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private volatile Batch open = new Batch();
+    private volatile Batch flushing;
+    private boolean flushRequested;
+    private boolean running;
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    private Thread flusher;
+
+    public CoalescingKeyValueStore(KeyValueStore delegate, Ack ack, long windowMs, int batchSize, int maxPending) {
+        this.delegate = delegate;
+        this.ack = ack;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+    }
+
+    private static final class Batch {
+        final Map<String, KeyValueEntry> entries = new ConcurrentHashMap<>();
+        final CompletableFuture<Void> committed = new CompletableFuture<>();
+        long openedAt;
+    }
+
+    @PostConstruct
+    public void start() {
+        lock.lock();
+        try {
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        flusher = new Thread(this::runFlusher, "write-coalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+    }
+
+    @Override
+    public KeyValueEntry save(KeyValueEntry entry) {
+        await(enqueue(List.of(entry)));
+        return entry;
+    }
+
+    @Override
+    public void saveAll(Collection<KeyValueEntry> entries) {
+        if (!entries.isEmpty()) {
+            await(enqueue(entries));
+        }
+    }
+
+    private Batch enqueue(Collection<KeyValueEntry> entries) {
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Write pipeline is stopped");
+            }
+            //A full batch makes writers wait for the flusher instead of growing the heap
+            while (open.entries.size() >= maxPending && running) {
+                flushRequested = true;
+                changed.signalAll();
+                changed.awaitUninterruptibly();
+            }
+            if (!running) {
+                throw new IllegalStateException("Write pipeline is stopped");
+            }
+            Batch batch = open;
+            boolean first = batch.entries.isEmpty();
+            if (first) {
+                batch.openedAt = System.nanoTime();
+            }
+            for (KeyValueEntry entry : entries) {
+                batch.entries.put(entry.getKey(), entry);
+            }
+            writes.add(entries.size());
+            if (batch.entries.size() >= batchSize && !flushRequested) {
+                flushRequested = true;
+                changed.signalAll();
+            } else if (first) {
+                changed.signalAll(); //starts the window
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void await(Batch batch) {
+        if (ack == Ack.FLUSH) {
+            join(batch);
+        }
+    }
+
+    private static void join(Batch batch) {
+        try {
+            batch.committed.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    //A queued write to key must reach the database before anything else that reads or changes it there
+    private void settle(String key) {
+        if (ack == Ack.ENQUEUE && isQueued(key)) {
+            flushAndWait();
+        }
+    }
+
+    private void settle(Collection<String> keys) {
+        if (ack == Ack.ENQUEUE && keys.stream().anyMatch(this::isQueued)) {
+            flushAndWait();
+        }
+    }
+
+    //For operations that read the table rather than single keys
+    private void settleAll() {
+        if (ack == Ack.ENQUEUE && (!open.entries.isEmpty() || flushing != null)) {
+            flushAndWait();
+        }
+    }
+
+    private boolean isQueued(String key) {
+        if (open.entries.containsKey(key)) {
+            return true;
+        }
+        Batch inFlight = flushing;
+        return inFlight != null && inFlight.entries.containsKey(key);
+    }
+
+    private void flushAndWait() {
+        Batch batch;
+        lock.lock();
+        try {
+            batch = open;
+            if (batch.entries.isEmpty()) {
+                batch = flushing;
+                if (batch == null) {
+                    return;
+                }
+            } else {
+                flushRequested = true;
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        join(batch);
+    }
+
+    //Queued writes only answer reads in ENQUEUE mode; open is read before flushing, so a write is never missed mid-swap
+    private KeyValueEntry queued(String key) {
+        if (ack != Ack.ENQUEUE) {
+            return null;
+        }
+        KeyValueEntry entry = open.entries.get(key);
+        if (entry == null) {
+            Batch inFlight = flushing;
+            entry = inFlight == null ? null : inFlight.entries.get(key);
+        }
+        return entry == null ? null : entry.copy();
+    }
+
+    private void runFlusher() {
+        while (true) {
+            Batch batch;
+            lock.lock();
+            try {
+                while (running && open.entries.isEmpty()) {
+                    changed.awaitUninterruptibly();
+                }
+                if (open.entries.isEmpty()) {
+                    return;
+                }
+                long remaining;
+                while (running && !flushRequested
+                        && (remaining = open.openedAt + windowNanos - System.nanoTime()) > 0) {
+                    changed.awaitNanos(remaining);
+                }
+                batch = open;
+                flushing = batch;
+                open = new Batch();
+                flushRequested = false;
+                changed.signalAll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            write(batch);
+        }
+    }
+
+    private void write(Batch batch) {
+        List<KeyValueEntry> entries = new ArrayList<>(batch.entries.values());
+        int done = 0;
+        while (done < entries.size()) {
+            try {
+                for (; done < entries.size(); done += batchSize) {
+                    delegate.saveAll(entries.subList(done, Math.min(done + batchSize, entries.size())));
+                }
+            } catch (RuntimeException e) {
+                failedFlushes.increment();
+                if (ack == Ack.FLUSH) {
+                    //The writers are still waiting and get the error; nothing was acknowledged, so nothing is retried
+                    log.error("Flushing {} coalesced writes failed", entries.size() - done, e);
+                    finish(batch, e);
+                    return;
+                }
+                if (!isRunning()) {
+                    log.error("Flushing {} coalesced writes failed during shutdown, dropping them", entries.size() - done, e);
+                    finish(batch, e);
+                    return;
+                }
+                log.error("Flushing {} coalesced writes failed, will retry", entries.size() - done, e);
+                sleepBeforeRetry();
+            }
+        }
+        rowsWritten.add(entries.size());
+        flushes.increment();
+        finish(batch, null);
+    }
+
+    private void finish(Batch batch, RuntimeException failure) {
+        lock.lock();
+        try {
+            flushing = null;
+        } finally {
+            lock.unlock();
+        }
+        if (failure == null) {
+            batch.committed.complete(null);
+        } else {
+            batch.committed.completeExceptionally(failure);
+        }
+    }
+
+    private boolean isRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void sleepBeforeRetry() {
+        try {
+            Thread.sleep(RETRY_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int pendingCount() {
+        Batch inFlight = flushing;
+        return open.entries.size() + (inFlight == null ? 0 : inFlight.entries.size());
+    }
+
+    public long writeCount() {
+        return writes.sum();
+    }
+
+    public long rowsWrittenCount() {
+        return rowsWritten.sum();
+    }
+
+    public long flushCount() {
+        return flushes.sum();
+    }
+
+    public long failedFlushCount() {
+        return failedFlushes.sum();
+    }
+
+    @Override
+    public Optional<KeyValueEntry> findById(String key) {
+        KeyValueEntry entry = queued(key);
+        return entry != null ? Optional.of(entry) : delegate.findById(key);
+    }
+
+    @Override
+    public List<KeyValueEntry> findAllById(Collection<String> keys) {
+        if (ack != Ack.ENQUEUE) {
+            return delegate.findAllById(keys);
+        }
+        List<KeyValueEntry> found = new ArrayList<>(keys.size());
+        List<String> misses = new ArrayList<>();
+        for (String key : keys) {
+            KeyValueEntry entry = queued(key);
+            if (entry != null) {
+                found.add(entry);
+            } else {
+                misses.add(key);
+            }
+        }
+        if (!misses.isEmpty()) {
+            found.addAll(delegate.findAllById(misses));
+        }
+        return found;
+    }
+
+    @Override
+    public Iterable<KeyValueEntry> findAll() {
+        settleAll();
+        return delegate.findAll();
+    }
+
+    @Override
+    public ScanPage scan(String cursor, int count) {
+        settleAll();
+        return delegate.scan(cursor, count);
+    }
+
+    @Override
+    public KeyValueEntry compute(String key, UnaryOperator<KeyValueEntry> update) {
+        settle(key);
+        return delegate.compute(key, update);
+    }
+
+    @Override
+    public boolean updateExpiry(String key, long expiryTime) {
+        settle(key);
+        return delegate.updateExpiry(key, expiryTime);
+    }
+
+    @Override
+    public long incrementBy(String key, long delta) {
+        settle(key);
+        return delegate.incrementBy(key, delta);
+    }
+
+    @Override
+    public boolean saveIfAbsent(KeyValueEntry entry) {
+        settle(entry.getKey());
+        return delegate.saveIfAbsent(entry);
+    }
+
+    @Override
+    public boolean compareAndSet(String key, String expected, String value) {
+        settle(key);
+        return delegate.compareAndSet(key, expected, value);
+    }
+
+    @Override
+    public void deleteById(String key) {
+        settle(key);
+        delegate.deleteById(key);
+    }
+
+    @Override
+    public int deleteAllById(Collection<String> keys) {
+        settle(keys);
+        return delegate.deleteAllById(keys);
+    }
+
+    @Override
+    public void deleteAll() {
+        settleAll();
+        delegate.deleteAll();
+    }
+
+    //A queued write to an expired key is simply re-inserted by its flush
+    @Override
+    public int deleteAllExpired(Long now) {
+        return delegate.deleteAllExpired(now);
+    }
+
+    @Override
+    public int deleteExpired(Collection<String> keys, Long now) {
+        settle(keys);
+        return delegate.deleteExpired(keys, now);
+    }
+
+    @Override
+    public void forEachWithExpiry(Consumer<KeyValueEntry> action) {
+        settleAll();
+        delegate.forEachWithExpiry(action);
+    }
+
+    @Override
+    public List<KeyValueEntry> sampleWithExpiry(int count) {
+        return delegate.sampleWithExpiry(count);
+    }
+
+    @Override
+    public long count() {
+        settleAll();
+        return delegate.count();
+    }
+
+    @Override
+    public KeyspaceStats stats(long now) {
+        return delegate.stats(now);
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        return delegate.memoryStats();
+    }
+
+    //Listeners hear about coalesced writes when they are flushed
+    @Override
+    public void addListener(StoreListener listener) {
+        delegate.addListener(listener);
+    }
+}
@@ -0,0 +1,38 @@
+package com.rhytham.redisapi.store.coalesce;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes write pipeline counters under {@code redisapi.coalescing.*}. Writes minus rows is what
+ * coalescing saved; rows over flushes is the average batch.
+ */
+@RequiredArgsConstructor
+public class CoalescingMetrics implements MeterBinder {
+
+    private final CoalescingKeyValueStore store;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("redisapi.coalescing.writes", store, CoalescingKeyValueStore::writeCount)
+                .description("Writes queued by callers")
+                .register(registry);
+        FunctionCounter.builder("redisapi.coalescing.rows", store, CoalescingKeyValueStore::rowsWrittenCount)
+                .description("Rows upserted after coalescing")
+                .register(registry);
+        FunctionCounter.builder("redisapi.coalescing.flushes", store, CoalescingKeyValueStore::flushCount)
+                .tag("result", "ok")
+                .description("Batches flushed to the database")
+                .register(registry);
+        FunctionCounter.builder("redisapi.coalescing.flushes", store, CoalescingKeyValueStore::failedFlushCount)
+                .tag("result", "failed")
+                .description("Flush attempts that failed")
+                .register(registry);
+        Gauge.builder("redisapi.coalescing.pending", store, CoalescingKeyValueStore::pendingCount)
+                .description("Keys queued or being flushed")
+                .register(registry);
+    }
+}
@@ -0,0 +1,853 @@
+package com.rhytham.redisapi.store.offheap;
+
+import com.rhytham.redisapi.codec.ValueEncoding;
+import com.rhytham.redisapi.exception.MaxMemoryException;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+import com.rhytham.redisapi.store.AbstractKeyValueStore;
+import com.rhytham.redisapi.store.KeyspaceStats;
+import com.rhytham.redisapi.store.LocalKeyValueStore;
+import com.rhytham.redisapi.store.MemoryStats;
+import com.rhytham.redisapi.store.ScanPage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Source-of-truth engine that keeps keys, values and expiry times in direct memory, so the
+ * garbage collector never sees the keyspace. Each record is one chunk of a {@link SlabAllocator}
+ * page: a fixed header, the key as UTF-8 and the value as {@link com.rhytham.redisapi.codec.ValueCodec}
+ * encoded it. The heap holds only a power-of-two number of segments, each an open-addressing index
+ * of two primitive arrays (record addresses and key hashes) behind its own lock.
+ * <p>
+ * Reads return detached {@link KeyValueEntry} copies, and {@link #compute} writes back whatever the
+ * update returns, so collections are rewritten whole as on the jpa engine.
+ * <p>
+ * With a {@code maxMemoryBytes} limit every write first evicts keys until the used memory (chunks
+ * plus index) is under the limit, picking the best of a few sampled keys as Redis does, or fails
+ * with {@link MaxMemoryException} under {@link EvictionPolicy#NOEVICTION}.
+ */
+public class OffHeapKeyValueStore extends AbstractKeyValueStore implements LocalKeyValueStore {
+
+    public enum EvictionPolicy {
+        /** Reject writes once the limit is reached. */
+        NOEVICTION,
+        /** Evict the least recently used of the sampled keys. */
+        ALLKEYS_LRU,
+        /** Evict the sampled key with a TTL that expires soonest. */
+        VOLATILE_TTL;
+
+        public static EvictionPolicy parse(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+
+        /**
+         * Name in Redis's spelling, e.g. {@code allkeys-lru}.
+         */
+        public String label() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    //Record header: expiry time, last access, type, key length, value length
+    private static final int EXPIRY = 0;
+    private static final int ACCESS = 8;
+    private static final int TYPE = 12;
+    private static final int KEY_LENGTH = 13;
+    private static final int VALUE_LENGTH = 17;
+    private static final int HEADER = 21;
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    //Address plus hash per index slot
+    private static final int SLOT_BYTES = 12;
+
+    private static final ValueType[] TYPES = ValueType.values();
+
+    private final SlabAllocator allocator;
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final long maxMemoryBytes;
+    private final EvictionPolicy evictionPolicy;
+    private final int evictionSamples;
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong indexBytes = new AtomicLong();
+    private final AtomicLong evictedKeys = new AtomicLong();
+
+    public OffHeapKeyValueStore(int segmentCount, int pageSize) {
+        this(segmentCount, pageSize, 0, EvictionPolicy.NOEVICTION, 5);
+    }
+
+    public OffHeapKeyValueStore(int segmentCount, int pageSize, long maxMemoryBytes,
+                                EvictionPolicy evictionPolicy, int evictionSamples) {
+        int size = segmentCount <= 1 ? 1 : Integer.highestOneBit(segmentCount - 1) << 1;
+        this.allocator = new SlabAllocator(pageSize);
+        this.segments = new Segment[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment();
+        }
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(size);
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.evictionPolicy = evictionPolicy;
+        this.evictionSamples = Math.max(1, evictionSamples);
+    }
+
+    /**
+     * Memory counted against the limit: the chunks holding records plus the index arrays.
+     */
+    public long usedMemory() {
+        return allocator.usedBytes() + indexBytes.get();
+    }
+
+    public long evictedKeys() {
+        return evictedKeys.get();
+    }
+
+    public long requestedBytes() {
+        return allocator.requestedBytes();
+    }
+
+    public long reservedBytes() {
+        return allocator.reservedBytes();
+    }
+
+    public double fragmentationRatio() {
+        long requested = allocator.requestedBytes();
+        return requested == 0 ? 1.0 : (double) allocator.reservedBytes() / requested;
+    }
+
+    //fmix32 of the murmur3 finalizer over the polynomial hash, so both halves of the result are usable
+    private static int hash(byte[] key) {
+        int h = Arrays.hashCode(key);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    //High bits pick the segment, low bits the slot within it
+    private Segment segmentFor(int hash) {
+        return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    private static byte[] keyBytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void load(KeyValueEntry entry) {
+        byte[] key = keyBytes(entry.getKey());
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            segment.put(hash, key, entry);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public void unload(String key) {
+        remove(key);
+    }
+
+    @Override
+    public void unloadAll() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Optional<KeyValueEntry> findById(String key) {
+        byte[] bytes = keyBytes(key);
+        int hash = hash(bytes);
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int slot = segment.find(hash, bytes);
+            return slot < 0 ? Optional.empty() : Optional.of(segment.read(key, slot, true));
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterable<KeyValueEntry> findAll() {
+        List<KeyValueEntry> all = new ArrayList<>();
+        forEach(all::add);
+        return all;
+    }
+
+    //Cursor is the index of the next segment; whole segments are returned, as on the memory engine
+    @Override
+    public ScanPage scan(String cursor, int count) {
+        int next = segmentCursor(cursor);
+        List<KeyValueEntry> entries = new ArrayList<>();
+        while (next < segments.length && entries.size() < count) {
+            segments[next++].collect(entries, false);
+        }
+        return new ScanPage(next == segments.length ? ScanPage.START : Integer.toString(next), entries);
+    }
+
+    private int segmentCursor(String cursor) {
+        try {
+            int segment = Integer.parseInt(cursor);
+            if (segment >= 0 && segment < segments.length) {
+                return segment;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("invalid cursor");
+    }
+
+    @Override
+    public void forEach(Consumer<KeyValueEntry> action) {
+        List<KeyValueEntry> entries = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.collect(entries, false);
+            entries.forEach(action);
+            entries.clear();
+        }
+    }
+
+    @Override
+    public List<KeyValueEntry> findAllById(Collection<String> keys) {
+        List<KeyValueEntry> found = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            findById(key).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public KeyValueEntry save(KeyValueEntry entry) {
+        freeMemoryIfNeeded();
+        load(entry);
+        fireSave(entry);
+        return entry;
+    }
+
+    @Override
+    public void saveAll(Collection<KeyValueEntry> entries) {
+        for (KeyValueEntry entry : entries) {
+            save(entry);
+        }
+    }
+
+    @Override
+    public KeyValueEntry compute(String key, UnaryOperator<KeyValueEntry> update) {
+        freeMemoryIfNeeded();
+        byte[] bytes = keyBytes(key);
+        int hash = hash(bytes);
+        Segment segment = segmentFor(hash);
+        KeyValueEntry result;
+        boolean existed;
+        segment.lock.lock();
+        try {
+            int slot = segment.find(hash, bytes);
+            existed = slot >= 0;
+            result = update.apply(existed ? segment.read(key, slot, true) : null);
+            if (result != null) {
+                segment.put(hash, bytes, result);
+            } else if (existed) {
+                segment.removeAt(slot);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        if (result != null) {
+            fireSave(result);
+        } else if (existed) {
+            fireDelete(key);
+        }
+        return result;
+    }
+
+    //Patches the header in place: no allocation, so it is allowed at the memory limit
+    @Override
+    public boolean updateExpiry(String key, long expiryTime) {
+        byte[] bytes = keyBytes(key);
+        int hash = hash(bytes);
+        Segment segment = segmentFor(hash);
+        KeyValueEntry updated;
+        segment.lock.lock();
+        try {
+            int slot = segment.find(hash, bytes);
+            if (slot < 0) {
+                return false;
+            }
+            long address = segment.addresses[slot];
+            ByteBuffer buffer = allocator.buffer(address);
+            int offset = SlabAllocator.offset(address);
+            long current = buffer.getLong(offset + EXPIRY);
+            if (current != NO_EXPIRY && System.currentTimeMillis() > current) {
+                return false;
+            }
+            if (current == NO_EXPIRY) {
+                segment.volatileCount++;
+            }
+            buffer.putLong(offset + EXPIRY, expiryTime);
+            updated = segment.read(key, slot, false);
+        } finally {
+            segment.lock.unlock();
+        }
+        fireSave(updated);
+        return true;
+    }
+
+    @Override
+    public void deleteById(String key) {
+        if (remove(key)) {
+            fireDelete(key);
+        }
+    }
+
+    private boolean remove(String key) {
+        byte[] bytes = keyBytes(key);
+        int hash = hash(bytes);
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int slot = segment.find(hash, bytes);
+            if (slot < 0) {
+                return false;
+            }
+            segment.removeAt(slot);
+            return true;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public int deleteAllById(Collection<String> keys) {
+        int deleted = 0;
+        for (String key : keys) {
+            if (remove(key)) {
+                fireDelete(key);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void deleteAll() {
+        unloadAll();
+        fireDeleteAll();
+    }
+
+    @Override
+    public int deleteAllExpired(Long now) {
+        int deleted = 0;
+        List<String> removed = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                for (int slot = 0; slot < segment.addresses.length; slot++) {
+                    long address = segment.addresses[slot];
+                    if (address != EMPTY && address != TOMBSTONE && expiredAt(address, now)) {
+                        removed.add(segment.readKey(address));
+                        segment.removeAt(slot);
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+            for (String key : removed) {
+                fireExpire(key);
+            }
+            deleted += removed.size();
+            removed.clear();
+        }
+        return deleted;
+    }
+
+    @Override
+    public int deleteExpired(Collection<String> keys, Long now) {
+        int deleted = 0;
+        for (String key : keys) {
+            byte[] bytes = keyBytes(key);
+            int hash = hash(bytes);
+            Segment segment = segmentFor(hash);
+            boolean removed = false;
+            segment.lock.lock();
+            try {
+                int slot = segment.find(hash, bytes);
+                if (slot >= 0 && expiredAt(segment.addresses[slot], now)) {
+                    segment.removeAt(slot);
+                    removed = true;
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+            if (removed) {
+                fireExpire(key);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private boolean expiredAt(long address, long now) {
+        long expiryTime = allocator.buffer(address).getLong(SlabAllocator.offset(address) + EXPIRY);
+        return expiryTime != NO_EXPIRY && expiryTime <= now;
+    }
+
+    @Override
+    public void forEachWithExpiry(Consumer<KeyValueEntry> action) {
+        List<KeyValueEntry> entries = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.collect(entries, true);
+            entries.forEach(action);
+            entries.clear();
+        }
+    }
+
+    /**
+     * Picks keys with an expiry time from random segments and slots; may contain duplicates.
+     */
+    @Override
+    public List<KeyValueEntry> sampleWithExpiry(int count) {
+        List<KeyValueEntry> sample = new ArrayList<>(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        //Bounded number of probes so a store with very few volatile keys does not spin
+        for (int probes = 0; probes < count * 4 && sample.size() < count; probes++) {
+            Segment segment = segments[random.nextInt(segments.length)];
+            segment.lock.lock();
+            try {
+                if (segment.volatileCount == 0) {
+                    continue;
+                }
+                int capacity = segment.addresses.length;
+                int start = random.nextInt(capacity);
+                for (int i = 0; i < capacity; i++) {
+                    int slot = (start + i) & (capacity - 1);
+                    long address = segment.addresses[slot];
+                    if (address != EMPTY && address != TOMBSTONE && segment.expiryTime(address) != NO_EXPIRY) {
+                        sample.add(segment.read(null, slot, false));
+                        break;
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return sample;
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                count += segment.size;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    //Reads record headers only; no entry is materialized
+    @Override
+    public KeyspaceStats stats(long now) {
+        long keys = 0;
+        long withExpiry = 0;
+        long expired = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                keys += segment.size;
+                withExpiry += segment.volatileCount;
+                for (long address : segment.addresses) {
+                    if (address != EMPTY && address != TOMBSTONE && expiredAt(address, now)) {
+                        expired++;
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new KeyspaceStats(keys, withExpiry, expired, usedMemory());
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        long keys = 0;
+        Map<String, MemoryStats.EncodingStats> encodings = new TreeMap<>();
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                for (long address : segment.addresses) {
+                    if (address == EMPTY || address == TOMBSTONE) {
+                        continue;
+                    }
+                    keys++;
+                    ByteBuffer buffer = allocator.buffer(address);
+                    int offset = SlabAllocator.offset(address);
+                    int valueStart = offset + HEADER + buffer.getInt(offset + KEY_LENGTH);
+                    int stored = buffer.getInt(offset + VALUE_LENGTH);
+                    ValueEncoding encoding = ValueEncoding.ofTag(buffer.get(valueStart));
+                    long raw = switch (encoding) {
+                        case RAW -> stored - 1;
+                        case INT -> Long.toString(intValue(buffer, valueStart, stored)).length();
+                        case ZSTD -> buffer.getInt(valueStart + 1);
+                    };
+                    String name = TYPES[buffer.get(offset + TYPE)].typeName() + ":" + encoding.label();
+                    encodings.merge(name, new MemoryStats.EncodingStats(1, stored, raw), MemoryStats.EncodingStats::sum);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        MemoryStats.Allocator figures = new MemoryStats.Allocator(allocator.requestedBytes(), allocator.usedBytes(),
+                allocator.reservedBytes(), fragmentationRatio(), maxMemoryBytes, evictionPolicy.label(), evictedKeys.get());
+        return new MemoryStats(keys, usedMemory(), encodings, figures);
+    }
+
+    //Same layout as ValueCodec's integer encoding: big-endian two's complement after the tag
+    private static long intValue(ByteBuffer buffer, int valueStart, int length) {
+        long value = buffer.get(valueStart + 1);
+        for (int i = 2; i < length; i++) {
+            value = value << 8 | (buffer.get(valueStart + i) & 0xFF);
+        }
+        return value;
+    }
+
+    private void freeMemoryIfNeeded() {
+        if (maxMemoryBytes <= 0) {
+            return;
+        }
+        while (usedMemory() > maxMemoryBytes) {
+            if (evictionPolicy == EvictionPolicy.NOEVICTION || !evictOne()) {
+                throw new MaxMemoryException();
+            }
+        }
+    }
+
+    /**
+     * Samples up to {@code evictionSamples} keys, starting at random slots of random segments, and
+     * removes the best candidate for the policy. Returns false when nothing can be evicted.
+     */
+    private boolean evictOne() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Candidate best = null;
+        int sampled = 0;
+        int start = random.nextInt(segments.length);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < segments.length && sampled < evictionSamples; i++) {
+            Segment segment = segments[(start + i) & (segments.length - 1)];
+            segment.lock.lock();
+            try {
+                int capacity = segment.addresses.length;
+                int from = random.nextInt(capacity);
+                for (int j = 0; j < capacity && sampled < evictionSamples; j++) {
+                    int slot = (from + j) & (capacity - 1);
+                    long address = segment.addresses[slot];
+                    if (address == EMPTY || address == TOMBSTONE) {
+                        continue;
+                    }
+                    long rank = rank(address, now);
+                    if (rank == Long.MAX_VALUE) {
+                        continue; //no TTL under volatile-ttl
+                    }
+                    sampled++;
+                    if (best == null || rank < best.rank) {
+                        best = new Candidate(segment, address, rank);
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        if (best == null) {
+            return false;
+        }
+        String key;
+        best.segment.lock.lock();
+        try {
+            key = best.segment.removeAddress(best.address);
+        } finally {
+            best.segment.lock.unlock();
+        }
+        if (key != null) {
+            evictedKeys.incrementAndGet();
+            fireDelete(key);
+        }
+        return true; //lost a race with another writer: sample again
+    }
+
+    //Lower is evicted first
+    private long rank(long address, long now) {
+        ByteBuffer buffer = allocator.buffer(address);
+        int offset = SlabAllocator.offset(address);
+        if (evictionPolicy == EvictionPolicy.VOLATILE_TTL) {
+            long expiryTime = buffer.getLong(offset + EXPIRY);
+            return expiryTime == NO_EXPIRY ? Long.MAX_VALUE : expiryTime - now;
+        }
+        return -idleMillis(buffer.getInt(offset + ACCESS));
+    }
+
+    //Wraps after 49 days like Redis's LRU clock; an idle time is only ever compared, not shown
+    private int clock() {
+        return (int) ((System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private long idleMillis(int accessed) {
+        return (clock() - accessed) & 0xFFFFFFFFL;
+    }
+
+    private record Candidate(Segment segment, long address, long rank) {
+    }
+
+    /**
+     * Open-addressing index with linear probing. Deleted slots become tombstones until the next
+     * rehash, which happens when live and deleted slots together pass three quarters of the table.
+     * Every method runs under {@link #lock}.
+     */
+    private final class Segment {
+
+        final ReentrantLock lock = new ReentrantLock();
+        long[] addresses = new long[INITIAL_CAPACITY];
+        int[] hashes = new int[INITIAL_CAPACITY];
+        int size;
+        int tombstones;
+        int volatileCount;
+
+        Segment() {
+            indexBytes.addAndGet((long) INITIAL_CAPACITY * SLOT_BYTES);
+        }
+
+        int find(int hash, byte[] key) {
+            int mask = addresses.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                long address = addresses[slot];
+                if (address == EMPTY) {
+                    return -1;
+                }
+                if (address != TOMBSTONE && hashes[slot] == hash && keyEquals(address, key)) {
+                    return slot;
+                }
+            }
+        }
+
+        private boolean keyEquals(long address, byte[] key) {
+            ByteBuffer buffer = allocator.buffer(address);
+            int offset = SlabAllocator.offset(address);
+            if (buffer.getInt(offset + KEY_LENGTH) != key.length) {
+                return false;
+            }
+            int start = offset + HEADER;
+            for (int i = 0; i < key.length; i++) {
+                if (buffer.get(start + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Writes the record to a new chunk, then swaps it in and frees the old one, so a failed
+         * allocation leaves the key as it was.
+         */
+        void put(int hash, byte[] key, KeyValueEntry entry) {
+            long address = write(key, entry);
+            boolean hasExpiry = entry.getExpiryTime() != null;
+            int slot = find(hash, key);
+            if (slot >= 0) {
+                long previous = addresses[slot];
+                addresses[slot] = address;
+                if (expiryTime(previous) != NO_EXPIRY) {
+                    volatileCount--;
+                }
+                release(previous);
+            } else {
+                if ((size + tombstones + 1) * 4L > addresses.length * 3L) {
+                    rehash(size + 1);
+                }
+                int mask = addresses.length - 1;
+                slot = hash & mask;
+                while (addresses[slot] != EMPTY && addresses[slot] != TOMBSTONE) {
+                    slot = (slot + 1) & mask;
+                }
+                if (addresses[slot] == TOMBSTONE) {
+                    tombstones--;
+                }
+                addresses[slot] = address;
+                hashes[slot] = hash;
+                size++;
+            }
+            if (hasExpiry) {
+                volatileCount++;
+            }
+        }
+
+        void removeAt(int slot) {
+            long address = addresses[slot];
+            if (expiryTime(address) != NO_EXPIRY) {
+                volatileCount--;
+            }
+            //A slot followed by an empty one ends no probe chain, so it can be emptied outright
+            if (addresses[(slot + 1) & (addresses.length - 1)] == EMPTY) {
+                addresses[slot] = EMPTY;
+            } else {
+                addresses[slot] = TOMBSTONE;
+                tombstones++;
+            }
+            size--;
+            release(address);
+        }
+
+        /**
+         * Removes the record at {@code address} if it is still indexed, returning its key.
+         */
+        String removeAddress(long address) {
+            for (int slot = 0; slot < addresses.length; slot++) {
+                if (addresses[slot] == address) {
+                    String key = readKey(address);
+                    removeAt(slot);
+                    return key;
+                }
+            }
+            return null;
+        }
+
+        void clear() {
+            for (long address : addresses) {
+                if (address != EMPTY && address != TOMBSTONE) {
+                    release(address);
+                }
+            }
+            indexBytes.addAndGet((long) (INITIAL_CAPACITY - addresses.length) * SLOT_BYTES);
+            addresses = new long[INITIAL_CAPACITY];
+            hashes = new int[INITIAL_CAPACITY];
+            size = 0;
+            tombstones = 0;
+            volatileCount = 0;
+        }
+
+        //Also drops the tombstones; the table only grows, like the maps of the memory engine
+        private void rehash(int minSize) {
+            int capacity = addresses.length;
+            while (minSize * 4L > capacity * 3L) {
+                capacity <<= 1;
+            }
+            long[] oldAddresses = addresses;
+            int[] oldHashes = hashes;
+            addresses = new long[capacity];
+            hashes = new int[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldAddresses.length; i++) {
+                long address = oldAddresses[i];
+                if (address == EMPTY || address == TOMBSTONE) {
+                    continue;
+                }
+                int slot = oldHashes[i] & mask;
+                while (addresses[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                addresses[slot] = address;
+                hashes[slot] = oldHashes[i];
+            }
+            tombstones = 0;
+            indexBytes.addAndGet((long) (capacity - oldAddresses.length) * SLOT_BYTES);
+        }
+
+        /**
+         * Copies every record, or only those with an expiry time, into {@code out}.
+         */
+        void collect(List<KeyValueEntry> out, boolean withExpiryOnly) {
+            lock.lock();
+            try {
+                for (int slot = 0; slot < addresses.length; slot++) {
+                    long address = addresses[slot];
+                    if (address != EMPTY && address != TOMBSTONE
+                            && (!withExpiryOnly || expiryTime(address) != NO_EXPIRY)) {
+                        out.add(read(null, slot, false));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * The entry at {@code slot}; {@code key} saves decoding it when the caller has it. A read on
+         * behalf of a command refreshes the access time used by allkeys-lru.
+         */
+        KeyValueEntry read(String key, int slot, boolean touch) {
+            long address = addresses[slot];
+            ByteBuffer buffer = allocator.buffer(address);
+            int offset = SlabAllocator.offset(address);
+            if (touch) {
+                buffer.putInt(offset + ACCESS, clock());
+            }
+            long expiryTime = buffer.getLong(offset + EXPIRY);
+            int keyLength = buffer.getInt(offset + KEY_LENGTH);
+            byte[] value = new byte[buffer.getInt(offset + VALUE_LENGTH)];
+            buffer.get(offset + HEADER + keyLength, value);
+            return KeyValueEntry.fromEncoded(key != null ? key : readKey(address), value,
+                    expiryTime == NO_EXPIRY ? null : expiryTime, TYPES[buffer.get(offset + TYPE)]);
+        }
+
+        String readKey(long address) {
+            ByteBuffer buffer = allocator.buffer(address);
+            int offset = SlabAllocator.offset(address);
+            byte[] key = new byte[buffer.getInt(offset + KEY_LENGTH)];
+            buffer.get(offset + HEADER, key);
+            return new String(key, StandardCharsets.UTF_8);
+        }
+
+        long expiryTime(long address) {
+            return allocator.buffer(address).getLong(SlabAllocator.offset(address) + EXPIRY);
+        }
+
+        private long write(byte[] key, KeyValueEntry entry) {
+            byte[] value = entry.getEncoded();
+            long address = allocator.allocate(HEADER + key.length + value.length);
+            ByteBuffer buffer = allocator.buffer(address);
+            int offset = SlabAllocator.offset(address);
+            Long expiryTime = entry.getExpiryTime();
+            buffer.putLong(offset + EXPIRY, expiryTime == null ? NO_EXPIRY : expiryTime);
+            buffer.putInt(offset + ACCESS, clock());
+            buffer.put(offset + TYPE, (byte) entry.getType().ordinal());
+            buffer.putInt(offset + KEY_LENGTH, key.length);
+            buffer.putInt(offset + VALUE_LENGTH, value.length);
+            buffer.put(offset + HEADER, key);
+            buffer.put(offset + HEADER + key.length, value);
+            return address;
+        }
+
+        private void release(long address) {
+            ByteBuffer buffer = allocator.buffer(address);
+            int offset = SlabAllocator.offset(address);
+            allocator.free(address, HEADER + buffer.getInt(offset + KEY_LENGTH) + buffer.getInt(offset + VALUE_LENGTH));
+        }
+    }
+}
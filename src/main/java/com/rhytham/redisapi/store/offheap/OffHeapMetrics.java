@@ -0,0 +1,39 @@
+package com.rhytham.redisapi.store.offheap;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes the off-heap engine's allocator figures under {@code redisapi.offheap.*}. Used bytes are
+ * what counts against maxmemory; reserved over requested is the fragmentation ratio.
+ */
+@RequiredArgsConstructor
+public class OffHeapMetrics implements MeterBinder {
+
+    private final OffHeapKeyValueStore store;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("redisapi.offheap.used", store, OffHeapKeyValueStore::usedMemory)
+                .baseUnit("bytes")
+                .description("Chunk and index bytes counted against maxmemory")
+                .register(registry);
+        Gauge.builder("redisapi.offheap.requested", store, OffHeapKeyValueStore::requestedBytes)
+                .baseUnit("bytes")
+                .description("Bytes the stored records take")
+                .register(registry);
+        Gauge.builder("redisapi.offheap.reserved", store, OffHeapKeyValueStore::reservedBytes)
+                .baseUnit("bytes")
+                .description("Direct memory taken by the slab allocator")
+                .register(registry);
+        Gauge.builder("redisapi.offheap.fragmentation.ratio", store, OffHeapKeyValueStore::fragmentationRatio)
+                .description("Reserved bytes over requested bytes")
+                .register(registry);
+        FunctionCounter.builder("redisapi.offheap.evicted", store, OffHeapKeyValueStore::evictedKeys)
+                .description("Keys evicted to stay under maxmemory")
+                .register(registry);
+    }
+}
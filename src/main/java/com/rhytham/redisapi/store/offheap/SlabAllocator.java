@@ -0,0 +1,239 @@
+package com.rhytham.redisapi.store.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memcached-style slab allocator over direct memory. Pages of {@code pageSize} bytes are carved
+ * into equal chunks of one size class. Classes grow by a quarter from {@link #MIN_CHUNK} bytes,
+ * so a record wastes at most a fifth of its chunk. Records larger than the biggest class, an
+ * eighth of a page, get a direct buffer of their own.
+ * <p>
+ * A page whose last chunk is freed goes back to a shared pool, so memory freed in one class is
+ * reused by the others instead of staying with the class that first took it. The counters tell
+ * apart what records asked for, what their chunks take and what was reserved from the JVM; the
+ * gaps between them are the internal and external fragmentation.
+ * <p>
+ * An address is the page id in the high half of a long and the byte offset in the low half; 0 is
+ * never a valid address. Thread-safe: each size class has its own lock.
+ */
+final class SlabAllocator {
+
+    static final int MIN_CHUNK = 64;
+
+    private final int pageSize;
+    private final SizeClass[] classes;
+    private final int maxChunk;
+
+    //Id 0 stays unused so that no address is 0. Grown under tableLock; read without it
+    private volatile Page[] pages = new Page[64];
+    private int nextId = 1;
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private final Object tableLock = new Object();
+
+    private final ConcurrentLinkedDeque<Page> freePages = new ConcurrentLinkedDeque<>();
+
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong requestedBytes = new AtomicLong();
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    SlabAllocator(int pageSize) {
+        if (pageSize < MIN_CHUNK * 8) {
+            throw new IllegalArgumentException("page size must be at least " + MIN_CHUNK * 8 + " bytes");
+        }
+        this.pageSize = pageSize;
+        int[] sizes = new int[64];
+        int count = 0;
+        for (int size = MIN_CHUNK; size <= pageSize / 8; size = ((size + size / 4) + 7) & ~7) {
+            sizes[count++] = size;
+        }
+        this.classes = new SizeClass[count];
+        for (int i = 0; i < count; i++) {
+            classes[i] = new SizeClass(sizes[i], pageSize / sizes[i]);
+        }
+        this.maxChunk = sizes[count - 1];
+    }
+
+    long allocate(int size) {
+        if (size > maxChunk) {
+            Page page = register(ByteBuffer.allocateDirect(size), null);
+            reservedBytes.addAndGet(size);
+            usedBytes.addAndGet(size);
+            requestedBytes.addAndGet(size);
+            return address(page.id, 0);
+        }
+        SizeClass sizeClass = classFor(size);
+        long address;
+        synchronized (sizeClass) {
+            Iterator<Page> partial = sizeClass.partial.iterator();
+            Page page = partial.hasNext() ? partial.next() : takePage(sizeClass);
+            int offset;
+            if (page.freeHead >= 0) {
+                offset = page.freeHead;
+                page.freeHead = page.buffer.getInt(offset);
+            } else {
+                offset = page.bump;
+                page.bump += sizeClass.chunkSize;
+            }
+            page.live++;
+            if (page.live == sizeClass.chunksPerPage) {
+                sizeClass.partial.remove(page);
+            }
+            address = address(page.id, offset);
+        }
+        usedBytes.addAndGet(sizeClass.chunkSize);
+        requestedBytes.addAndGet(size);
+        return address;
+    }
+
+    /**
+     * Returns the chunk at {@code address}; {@code size} is what was passed to {@link #allocate}.
+     */
+    void free(long address, int size) {
+        Page page = pages[(int) (address >>> 32)];
+        SizeClass sizeClass = page.owner;
+        if (sizeClass == null) {
+            synchronized (tableLock) {
+                pages[page.id] = null;
+                freeIds.push(page.id);
+            }
+            //The native memory itself is released when the buffer is collected
+            reservedBytes.addAndGet(-size);
+            usedBytes.addAndGet(-size);
+            requestedBytes.addAndGet(-size);
+            return;
+        }
+        int offset = (int) address;
+        synchronized (sizeClass) {
+            boolean wasFull = page.live == sizeClass.chunksPerPage;
+            page.buffer.putInt(offset, page.freeHead);
+            page.freeHead = offset;
+            page.live--;
+            if (page.live == 0) {
+                sizeClass.partial.remove(page);
+                freePages.push(page);
+            } else if (wasFull) {
+                sizeClass.partial.add(page);
+            }
+        }
+        usedBytes.addAndGet(-sizeClass.chunkSize);
+        requestedBytes.addAndGet(-size);
+    }
+
+    ByteBuffer buffer(long address) {
+        return pages[(int) (address >>> 32)].buffer;
+    }
+
+    static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * Bytes of the chunks handed out: what the records take including the slack of their class.
+     */
+    long usedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Bytes the records asked for.
+     */
+    long requestedBytes() {
+        return requestedBytes.get();
+    }
+
+    /**
+     * Direct memory taken from the JVM, including pages in the free pool. It never shrinks, except
+     * for records that had a buffer of their own.
+     */
+    long reservedBytes() {
+        return reservedBytes.get();
+    }
+
+    int chunkSize(int size) {
+        return size > maxChunk ? size : classFor(size).chunkSize;
+    }
+
+    //Caller holds the class lock
+    private Page takePage(SizeClass sizeClass) {
+        Page page = freePages.poll();
+        if (page == null) {
+            page = register(ByteBuffer.allocateDirect(pageSize), sizeClass);
+            reservedBytes.addAndGet(pageSize);
+        }
+        page.owner = sizeClass;
+        page.freeHead = -1;
+        page.bump = 0;
+        page.live = 0;
+        sizeClass.partial.add(page);
+        return page;
+    }
+
+    private Page register(ByteBuffer buffer, SizeClass owner) {
+        synchronized (tableLock) {
+            Integer free = freeIds.poll();
+            int id = free != null ? free : nextId++;
+            if (id == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            Page page = new Page(id, buffer);
+            page.owner = owner;
+            pages[id] = page;
+            return page;
+        }
+    }
+
+    private SizeClass classFor(int size) {
+        int low = 0;
+        int high = classes.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (classes[mid].chunkSize < size) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return classes[low];
+    }
+
+    private static long address(int pageId, int offset) {
+        return (long) pageId << 32 | offset;
+    }
+
+    private static final class SizeClass {
+
+        final int chunkSize;
+        final int chunksPerPage;
+        //Pages with at least one free chunk, oldest first, so new records fill up older pages
+        final LinkedHashSet<Page> partial = new LinkedHashSet<>();
+
+        SizeClass(int chunkSize, int chunksPerPage) {
+            this.chunkSize = chunkSize;
+            this.chunksPerPage = chunksPerPage;
+        }
+    }
+
+    private static final class Page {
+
+        final int id;
+        final ByteBuffer buffer;
+        //Null for a record with a buffer of its own
+        SizeClass owner;
+        //Freed chunks are chained through their first four bytes; -1 ends the chain
+        int freeHead = -1;
+        //Chunks from here on were never handed out
+        int bump;
+        int live;
+
+        Page(int id, ByteBuffer buffer) {
+            this.id = id;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.rhytham.redisapi.store.snapshot;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+import com.rhytham.redisapi.store.LocalKeyValueStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Binary point-in-time image of the memory or off-heap engine.
+ * <pre>
+ * header   "RAPISNAP" int version
+ * chunk*   int payloadLength, int entryCount, int crc32(payload), payload
+ * trailer  int 0, long totalEntries
+ * entry    varint keyLength, key, varint valueLength + 1 (0 = null), value, varlong expiryTime + 1 (0 = none),
+ *          byte valueType ordinal (from version 2; version 1 files hold strings only)
+ * </pre>
+ * From version 3 the value is its stored form as {@link com.rhytham.redisapi.codec.ValueCodec} encoded it,
+ * so nothing is re-encoded either way; older files hold UTF-8 text.
+ * Chunks are self-contained so loading can map and decode them in parallel.
+ */
+public final class SnapshotFile {
+
+    private static final byte[] MAGIC = "RAPISNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = MAGIC.length + 4;
+    private static final int CHUNK_HEADER_BYTES = 12;
+    private static final int CHUNK_TARGET_BYTES = 1 << 20;
+    private static final ValueType[] TYPES = ValueType.values();
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes every live entry to a temporary file and atomically moves it over {@code path}.
+     * Iteration does not lock the store, so writers continue while the snapshot is taken.
+     *
+     * @return the number of entries written
+     */
+    public static long write(LocalKeyValueStore store, Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long now = System.currentTimeMillis();
+        AtomicLong total = new AtomicLong();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, ByteBuffer.allocate(HEADER_BYTES).put(MAGIC).putInt(VERSION).flip());
+            ChunkBuffer chunk = new ChunkBuffer();
+            try {
+                store.forEach(entry -> {
+                    if (entry.getExpiryTime() != null && entry.getExpiryTime() <= now) {
+                        return;
+                    }
+                    chunk.add(entry);
+                    total.incrementAndGet();
+                    if (chunk.size() >= CHUNK_TARGET_BYTES) {
+                        chunk.writeTo(out);
+                    }
+                });
+                chunk.writeTo(out);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writeFully(out, ByteBuffer.allocate(12).putInt(0).putLong(total.get()).flip());
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return total.get();
+    }
+
+    /**
+     * Maps the file chunk by chunk and decodes the chunks on {@code threads} threads straight into
+     * the store, skipping entries that expired while the service was down. Listeners are not notified.
+     *
+     * @return the number of entries loaded
+     */
+    public static long load(Path path, LocalKeyValueStore store, int threads) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<MappedByteBuffer> chunks = new ArrayList<>();
+            List<int[]> headers = new ArrayList<>();
+            int version = readVersion(channel);
+            long expectedEntries = scan(channel, chunks, headers);
+            long now = System.currentTimeMillis();
+            AtomicLong loaded = new AtomicLong();
+            AtomicLong decoded = new AtomicLong();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunks.size())));
+            try {
+                List<Future<?>> futures = new ArrayList<>(chunks.size());
+                for (int i = 0; i < chunks.size(); i++) {
+                    MappedByteBuffer chunk = chunks.get(i);
+                    int[] header = headers.get(i);
+                    futures.add(pool.submit(() -> {
+                        verify(chunk, header[2]);
+                        decoded.addAndGet(header[1]);
+                        loaded.addAndGet(decode(chunk, header[1], version, store, now));
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading " + path, e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException("Corrupt snapshot " + path, e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+            if (decoded.get() != expectedEntries) {
+                throw new IOException("Snapshot " + path + " holds " + decoded.get() + " entries, trailer says " + expectedEntries);
+            }
+            return loaded.get();
+        }
+    }
+
+    private static int readVersion(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0);
+        byte[] magic = new byte[MAGIC.length];
+        header.flip().get(magic);
+        int version = header.getInt();
+        if (!Arrays.equals(magic, MAGIC) || version < 1 || version > VERSION) {
+            throw new IOException("Not a snapshot file or unsupported version");
+        }
+        return version;
+    }
+
+    //Walks the chunk headers only; payloads are mapped, not read
+    private static long scan(FileChannel channel, List<MappedByteBuffer> chunks, List<int[]> headers) throws IOException {
+        long position = HEADER_BYTES;
+        ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_BYTES);
+        while (true) {
+            chunkHeader.clear();
+            readFully(channel, chunkHeader, position);
+            chunkHeader.flip();
+            int length = chunkHeader.getInt();
+            if (length == 0) {
+                return chunkHeader.getLong();
+            }
+            int entries = chunkHeader.getInt();
+            int crc = chunkHeader.getInt();
+            position += CHUNK_HEADER_BYTES;
+            if (length < 0 || position + length > channel.size()) {
+                throw new IOException("Snapshot chunk runs past the end of the file");
+            }
+            chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+            headers.add(new int[]{length, entries, crc});
+            position += length;
+        }
+    }
+
+    private static void verify(MappedByteBuffer chunk, int expectedCrc) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(chunk.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Snapshot chunk checksum mismatch");
+        }
+    }
+
+    private static long decode(ByteBuffer chunk, int entries, int version, LocalKeyValueStore store, long now) {
+        long loaded = 0;
+        for (int i = 0; i < entries; i++) {
+            String key = readString(chunk, readVarLong(chunk));
+            byte[] value = readBytes(chunk, readVarLong(chunk) - 1);
+            long expiry = readVarLong(chunk) - 1;
+            ValueType type = version >= 2 ? TYPES[chunk.get()] : ValueType.STRING;
+            if (expiry >= 0 && expiry <= now) {
+                continue;
+            }
+            Long expiryTime = expiry >= 0 ? expiry : null;
+            store.load(version >= 3 ? KeyValueEntry.fromEncoded(key, value, expiryTime, type)
+                    : new KeyValueEntry(key, new String(value, StandardCharsets.UTF_8), expiryTime, type));
+            loaded++;
+        }
+        return loaded;
+    }
+
+    private static String readString(ByteBuffer buffer, long length) {
+        return new String(readBytes(buffer, length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, long length) {
+        byte[] bytes = new byte[(int) length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint in snapshot");
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Snapshot file is truncated");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class ChunkBuffer extends ByteArrayOutputStream {
+
+        private int entries;
+
+        ChunkBuffer() {
+            super(CHUNK_TARGET_BYTES + 4096);
+        }
+
+        void add(KeyValueEntry entry) {
+            writeBytes(entry.getKey().getBytes(StandardCharsets.UTF_8), 0);
+            writeBytes(entry.getEncoded(), 1);
+            writeVarLong(entry.getExpiryTime() == null ? 0 : entry.getExpiryTime() + 1);
+            write(entry.getType().ordinal());
+            entries++;
+        }
+
+        void writeTo(FileChannel channel) {
+            if (entries == 0) {
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buf, 0, count);
+            try {
+                writeFully(channel, ByteBuffer.allocate(CHUNK_HEADER_BYTES)
+                        .putInt(count).putInt(entries).putInt((int) crc.getValue()).flip());
+                writeFully(channel, ByteBuffer.wrap(buf, 0, count));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            reset();
+            entries = 0;
+        }
+
+        private void writeBytes(byte[] bytes, int lengthOffset) {
+            if (bytes == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(bytes.length + lengthOffset);
+            write(bytes, 0, bytes.length);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.rhytham.redisapi.store.snapshot;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.LocalKeyValueStore;
+import com.rhytham.redisapi.store.StoreListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes {@link SnapshotFile}s of the memory or off-heap engine on demand (SAVE), in the background (BGSAVE)
+ * or periodically, and loads the latest one on startup when snapshots are the persistence mode.
+ */
+@Slf4j
+public class SnapshotManager implements StoreListener {
+
+    public record SaveResult(long finishedAt, long durationMs, long keys, long bytes, boolean ok, String error) {
+    }
+
+    //How long shutdown waits for a running save before taking its own
+    private static final long SHUTDOWN_WAIT_MINUTES = 5;
+
+    private final LocalKeyValueStore store;
+    private final Path path;
+    private final int loadThreads;
+    private final boolean persistent;
+
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-bgsave");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //The running save's permit; a BGSAVE takes it on the caller and frees it on the background thread
+    private final Semaphore saving = new Semaphore(1);
+    private final AtomicLong changes = new AtomicLong();
+    private volatile SaveResult lastSave;
+
+    /**
+     * @param persistent load the snapshot on startup and save on shutdown, i.e. snapshots are the
+     *                   persistence mode rather than an on-demand backup
+     */
+    public SnapshotManager(LocalKeyValueStore store, Path path, int loadThreads, boolean persistent) {
+        this.store = store;
+        this.path = path;
+        this.loadThreads = loadThreads;
+        this.persistent = persistent;
+    }
+
+    @PostConstruct
+    public void loadAndAttach() throws IOException {
+        if (persistent && Files.exists(path)) {
+            long start = System.currentTimeMillis();
+            long loaded = SnapshotFile.load(path, store, loadThreads);
+            log.info("Loaded {} keys from snapshot {} in {} ms", loaded, path, System.currentTimeMillis() - start);
+        }
+        store.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        background.shutdown();
+        if (persistent && changes.get() > 0) {
+            //Let a running save finish first, parked rather than spinning
+            try {
+                if (!saving.tryAcquire(SHUTDOWN_WAIT_MINUTES, TimeUnit.MINUTES)) {
+                    log.warn("Skipping the snapshot on shutdown: a save is still running after {} minutes", SHUTDOWN_WAIT_MINUTES);
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Skipping the snapshot on shutdown: interrupted while waiting for a running save");
+                return;
+            }
+            doSave();
+        }
+    }
+
+    /**
+     * Writes a snapshot on the calling thread.
+     *
+     * @throws IllegalStateException if a save is already running
+     */
+    public SaveResult save() {
+        if (!saving.tryAcquire()) {
+            throw new IllegalStateException("Background save already in progress");
+        }
+        return doSave();
+    }
+
+    /**
+     * Starts a snapshot on the background thread; returns false if a save is already running.
+     */
+    public boolean bgsave() {
+        if (!saving.tryAcquire()) {
+            return false;
+        }
+        background.execute(this::doSave);
+        return true;
+    }
+
+    /**
+     * Periodic trigger: starts a background save when at least {@code minChanges} writes happened since the last one.
+     */
+    public boolean bgsaveIfChanged(long minChanges) {
+        return changes.get() >= Math.max(1, minChanges) && bgsave();
+    }
+
+    private SaveResult doSave() {
+        try {
+            lastSave = write();
+            return lastSave;
+        } finally {
+            saving.release();
+        }
+    }
+
+    private SaveResult write() {
+        long start = System.currentTimeMillis();
+        long changesAtStart = changes.get();
+        try {
+            long keys = SnapshotFile.write(store, path);
+            changes.addAndGet(-changesAtStart);
+            long finished = System.currentTimeMillis();
+            log.info("Saved {} keys to snapshot {} in {} ms", keys, path, finished - start);
+            return new SaveResult(finished, finished - start, keys, Files.size(path), true, null);
+        } catch (IOException | RuntimeException e) {
+            log.error("Snapshot to {} failed", path, e);
+            long finished = System.currentTimeMillis();
+            return new SaveResult(finished, finished - start, 0, 0, false, e.getMessage());
+        }
+    }
+
+    public SaveResult getLastSave() {
+        return lastSave;
+    }
+
+    public boolean isSaving() {
+        return saving.availablePermits() == 0;
+    }
+
+    public long changesSinceLastSave() {
+        return changes.get();
+    }
+
+    @Override
+    public void onSave(KeyValueEntry entry) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void onDelete(String key) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void onDeleteAll() {
+        changes.incrementAndGet();
+    }
+}
@@ -0,0 +1,94 @@
+package com.rhytham.redisapi.transaction;
+
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Striped read-write locks over the keyspace, which make MULTI/EXEC and scripts atomic. Every command
+ * holds the shared side of its keys' stripes while it runs, so commands still run in parallel with each
+ * other; a transaction holds the exclusive side of all its keys' stripes, so no other command on those
+ * keys runs between its steps, while commands on other keys carry on.
+ * <p>
+ * Stripes are always taken in ascending order, so two leases never deadlock. Both sides are reentrant
+ * and the holder of the exclusive side may also take the shared one, which is how a transaction's own
+ * commands get through; it must not take stripes it does not already hold.
+ */
+public class KeyLocks {
+
+    public static final int STRIPES = 1024;
+
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+    //A shared lease on a single stripe needs no state of its own, so the hot path allocates nothing
+    private final Lease[] singles = new Lease[STRIPES];
+
+    public KeyLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+            stripes[i] = lock;
+            singles[i] = () -> lock.readLock().unlock();
+        }
+    }
+
+    public static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    public Lease shared(String key) {
+        int stripe = stripe(key);
+        stripes[stripe].readLock().lock();
+        return singles[stripe];
+    }
+
+    public Lease shared(Collection<String> keys) {
+        return lock(stripesOf(keys), false);
+    }
+
+    //FLUSHALL: waits for every running transaction, and keeps new ones out until it is done
+    public Lease sharedAll() {
+        return lock(allStripes(), false);
+    }
+
+    public Lease exclusive(Collection<String> keys) {
+        return lock(stripesOf(keys), true);
+    }
+
+    //Transactions that walk the keyspace, such as KEYS or FLUSHALL inside MULTI
+    public Lease exclusiveAll() {
+        return lock(allStripes(), true);
+    }
+
+    //Ascending stripe order, as every lease takes them
+    private Lease lock(int[] sortedStripes, boolean exclusive) {
+        Lock[] locks = new Lock[sortedStripes.length];
+        for (int i = 0; i < sortedStripes.length; i++) {
+            Lock lock = exclusive ? stripes[sortedStripes[i]].writeLock() : stripes[sortedStripes[i]].readLock();
+            lock.lock();
+            locks[i] = lock;
+        }
+        return () -> {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        };
+    }
+
+    private static int[] stripesOf(Collection<String> keys) {
+        return keys.stream().mapToInt(KeyLocks::stripe).distinct().sorted().toArray();
+    }
+
+    private static int[] allStripes() {
+        return IntStream.range(0, STRIPES).toArray();
+    }
+
+    /**
+     * Held locks, released on close; close it exactly once, on the thread that took it.
+     */
+    public interface Lease extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
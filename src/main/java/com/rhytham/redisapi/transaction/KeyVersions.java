@@ -0,0 +1,46 @@
+package com.rhytham.redisapi.transaction;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.StoreListener;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Change counters behind WATCH. Keys hash onto a fixed number of counters, and every write, delete or
+ * expiry the store reports bumps its key's counter, whichever path made it. A transaction that saw a
+ * counter at WATCH time aborts at EXEC if it moved: a change to a watched key is never missed, and a
+ * change to another key sharing the counter aborts it needlessly now and then, which the client
+ * retries like any other abort.
+ */
+public class KeyVersions implements StoreListener {
+
+    private static final int COUNTERS = 4096;
+
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTERS);
+
+    public long version(String key) {
+        return counters.get(index(key));
+    }
+
+    private static int index(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (COUNTERS - 1);
+    }
+
+    @Override
+    public void onSave(KeyValueEntry entry) {
+        counters.incrementAndGet(index(entry.getKey()));
+    }
+
+    @Override
+    public void onDelete(String key) {
+        counters.incrementAndGet(index(key));
+    }
+
+    @Override
+    public void onDeleteAll() {
+        for (int i = 0; i < COUNTERS; i++) {
+            counters.incrementAndGet(i);
+        }
+    }
+}
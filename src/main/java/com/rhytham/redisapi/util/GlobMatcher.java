@@ -0,0 +1,101 @@
+package com.rhytham.redisapi.util;
+
+/**
+ * Redis-compatible glob matching for KEYS/SCAN patterns: {@code *}, {@code ?},
+ * {@code [abc]}, {@code [^a]}, {@code [a-z]} and backslash escapes.
+ */
+public final class GlobMatcher {
+
+    private GlobMatcher() {
+    }
+
+    public static boolean matches(String pattern, String text) {
+        if (pattern == null || "*".equals(pattern)) {
+            return true;
+        }
+        return matches(pattern, 0, text, 0);
+    }
+
+    private static boolean matches(String pattern, int p, String text, int t) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            switch (c) {
+                case '*' -> {
+                    while (p + 1 < pattern.length() && pattern.charAt(p + 1) == '*') {
+                        p++;
+                    }
+                    if (p + 1 == pattern.length()) {
+                        return true;
+                    }
+                    for (int i = t; i <= text.length(); i++) {
+                        if (matches(pattern, p + 1, text, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                case '?' -> {
+                    if (t >= text.length()) {
+                        return false;
+                    }
+                    t++;
+                }
+                case '[' -> {
+                    if (t >= text.length()) {
+                        return false;
+                    }
+                    char target = text.charAt(t);
+                    p++;
+                    boolean not = p < pattern.length() && pattern.charAt(p) == '^';
+                    if (not) {
+                        p++;
+                    }
+                    boolean match = false;
+                    while (p < pattern.length() && pattern.charAt(p) != ']') {
+                        if (pattern.charAt(p) == '\\' && p + 1 < pattern.length()) {
+                            p++;
+                            match |= pattern.charAt(p) == target;
+                        } else if (p + 2 < pattern.length() && pattern.charAt(p + 1) == '-') {
+                            char start = pattern.charAt(p);
+                            char end = pattern.charAt(p + 2);
+                            if (start > end) {
+                                char tmp = start;
+                                start = end;
+                                end = tmp;
+                            }
+                            match |= target >= start && target <= end;
+                            p += 2;
+                        } else {
+                            match |= pattern.charAt(p) == target;
+                        }
+                        p++;
+                    }
+                    if (not) {
+                        match = !match;
+                    }
+                    if (!match) {
+                        return false;
+                    }
+                    t++;
+                }
+                case '\\' -> {
+                    if (p + 1 < pattern.length()) {
+                        p++;
+                    }
+                    if (t >= text.length() || pattern.charAt(p) != text.charAt(t)) {
+                        return false;
+                    }
+                    t++;
+                }
+                default -> {
+                    if (t >= text.length() || c != text.charAt(t)) {
+                        return false;
+                    }
+                    t++;
+                }
+            }
+            p++;
+        }
+        return t == text.length();
+    }
+}
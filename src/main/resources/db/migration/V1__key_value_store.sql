@@ -0,0 +1,14 @@
+-- The table as ddl-auto=update used to create it. Every statement is idempotent: a database created
+-- by an older release is baselined at version 0 and brought to the same shape here, rows untouched.
+CREATE TABLE IF NOT EXISTS key_value_store (
+    key         varchar(255) NOT NULL PRIMARY KEY,
+    value       text         NOT NULL,
+    expiry_time bigint,
+    version     bigint       NOT NULL DEFAULT 0,
+    value_type  varchar(255)
+);
+
+-- Added after the first release; ddl-auto=update added the columns but never widened value
+ALTER TABLE key_value_store ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+ALTER TABLE key_value_store ADD COLUMN IF NOT EXISTS value_type varchar(255);
+ALTER TABLE key_value_store ALTER COLUMN value TYPE text;
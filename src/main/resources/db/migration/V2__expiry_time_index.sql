@@ -0,0 +1,5 @@
+-- Serves the sweep's expiry_time <= now and every other TTL-range query. Keys without a TTL, usually
+-- most of them, stay out of the index. CONCURRENTLY keeps writes flowing while an existing table is
+-- indexed; Flyway runs it outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS key_value_store_expiry_time_idx
+    ON key_value_store (expiry_time) WHERE expiry_time IS NOT NULL;
@@ -0,0 +1,40 @@
+-- Values are stored as ValueCodec encodes them: a tag byte (0 raw bytes, 1 integer, 2 zstd frame)
+-- followed by the payload. These two functions are the integer half of that format, so INCRBY stays
+-- one statement on the encoded column.
+
+-- 1, 2, 4 or 8 big-endian bytes, whichever is smallest; the same bytes ValueCodec writes
+CREATE OR REPLACE FUNCTION kv_encode_int(n bigint) RETURNS bytea
+    LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE AS
+$$
+SELECT '\x01'::bytea || substring(int8send(n) FROM 9 - CASE
+    WHEN n BETWEEN -128 AND 127 THEN 1
+    WHEN n BETWEEN -32768 AND 32767 THEN 2
+    WHEN n BETWEEN -2147483648 AND 2147483647 THEN 4
+    ELSE 8 END)
+$$;
+
+-- Also reads raw decimal text such as '007' or '+5', which INCR accepts; NULL for anything else,
+-- including integers that do not fit a bigint
+CREATE OR REPLACE FUNCTION kv_decode_int(v bytea) RETURNS bigint
+    LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE AS
+$$
+SELECT CASE get_byte(v, 0)
+    WHEN 1 THEN ('x' || lpad(encode(substring(v FROM 2), 'hex'), 16,
+                             CASE WHEN get_byte(v, 1) >= 128 THEN 'f' ELSE '0' END))::bit(64)::bigint
+    WHEN 0 THEN CASE WHEN encode(substring(v FROM 2), 'escape') ~ '^[+-]?[0-9]+$' THEN
+        CASE WHEN encode(substring(v FROM 2), 'escape')::numeric BETWEEN -9223372036854775808 AND 9223372036854775807
+             THEN encode(substring(v FROM 2), 'escape')::bigint END END
+END
+$$;
+
+-- Rewrites the table. Canonical integers get the integer encoding, as ValueCodec would give them, so
+-- compare-and-set matches them; everything else is kept as raw UTF-8. Nothing is compressed here.
+ALTER TABLE key_value_store ALTER COLUMN value TYPE bytea USING
+    CASE WHEN value_type IS NULL AND value ~ '^(0|-?[1-9][0-9]{0,18})$' THEN
+        CASE WHEN value::numeric BETWEEN -9223372036854775808 AND 9223372036854775807
+             THEN kv_encode_int(value::bigint)
+             ELSE '\x00'::bytea || convert_to(value, 'UTF8') END
+    ELSE '\x00'::bytea || convert_to(value, 'UTF8') END;
+
+-- Large values are compressed by the application already; a second pglz pass would only cost CPU
+ALTER TABLE key_value_store ALTER COLUMN value SET STORAGE EXTERNAL;
@@ -0,0 +1,103 @@
+package com.rhytham.redisapi.admission;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AdmissionControlledDataSourceTest {
+
+    private DataSource pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    }
+
+    @Test
+    void testPermitIsReturnedOnceOnClose() throws SQLException {
+        AdmissionControlledDataSource dataSource = new AdmissionControlledDataSource(pool, new AdmissionGate(2, 0, 10));
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertEquals(2, dataSource.getGate().activeCount());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        assertEquals(1, dataSource.getGate().activeCount());
+        dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(2, dataSource.getGate().rejectedCount());
+        second.close();
+    }
+
+    @Test
+    void testQueuedCallerGetsReleasedConnection() throws Exception {
+        AdmissionControlledDataSource dataSource = new AdmissionControlledDataSource(pool, new AdmissionGate(1, 1, 5_000));
+        Connection held = dataSource.getConnection();
+
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (dataSource.getGate().queuedCount() == 0) {
+            Thread.onSpinWait();
+        }
+        //The queue holds one caller, so the next one is turned away without waiting
+        long start = System.nanoTime();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+        held.close();
+        assertNotNull(waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, dataSource.getGate().queuedCount());
+        assertEquals(1, dataSource.getGate().activeCount());
+    }
+
+    @Test
+    void testFailedCheckoutReturnsPermit() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("down"));
+        AdmissionControlledDataSource dataSource = new AdmissionControlledDataSource(pool, new AdmissionGate(1, 0, 10));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getGate().activeCount());
+    }
+
+    @Test
+    void testFilterAnswersBusyWhenRequestsAreFull() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(new AdmissionGate(1, 0, 10));
+        filter.getGate().tryEnter();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+        filter.doFilter(new MockHttpServletRequest("GET", "/get/key"), response, chain);
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        verifyNoInteractions(chain);
+
+        //Actuator stays reachable under overload
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(), chain);
+        verify(chain).doFilter(any(), any());
+
+        filter.getGate().exit();
+        filter.doFilter(new MockHttpServletRequest("GET", "/get/key"), new MockHttpServletResponse(), chain);
+        verify(chain, times(2)).doFilter(any(), any());
+        assertEquals(0, filter.getGate().activeCount());
+    }
+}
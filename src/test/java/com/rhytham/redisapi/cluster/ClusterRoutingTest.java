@@ -0,0 +1,299 @@
+package com.rhytham.redisapi.cluster;
+
+import com.rhytham.redisapi.cluster.ClusterRouter.Kind;
+import com.rhytham.redisapi.cluster.ClusterRouter.Lease;
+import com.rhytham.redisapi.cluster.ClusterRouter.Route;
+import com.rhytham.redisapi.dto.KeyValueRequest;
+import com.rhytham.redisapi.dto.PipelineCommand;
+import com.rhytham.redisapi.dto.PipelineResult;
+import com.rhytham.redisapi.exception.MisdirectedRequestException;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.resp.RespCommandHandler;
+import com.rhytham.redisapi.service.PipelineService;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Two nodes in one JVM; node-1 starts with slots 0-8191 and node-2 with 8192-16383
+public class ClusterRoutingTest {
+
+    private final ClusterNode one = new ClusterNode("node-1", "http://127.0.0.1:8081", "127.0.0.1:6381");
+    private final ClusterNode two = new ClusterNode("node-2", "http://127.0.0.1:8082", "127.0.0.1:6382");
+    private final Map<String, TestNode> nodes = new LinkedHashMap<>();
+
+    private TestNode node1;
+    private TestNode node2;
+
+    private static final class TestNode {
+        final InMemoryKeyValueStore store = new InMemoryKeyValueStore(16);
+        final RedisService redisService = new RedisService(store);
+        SlotTable table;
+        ClusterRouter router;
+        ClusterBatchExecutor executor;
+        SlotMigrator migrator;
+    }
+
+    @BeforeEach
+    void setUp(){
+        node1 = start(one);
+        node2 = start(two);
+    }
+
+    private TestNode start(ClusterNode self) {
+        TestNode node = new TestNode();
+        NodeClient client = new InProcessClient();
+        node.table = new SlotTable(List.of(one, two), self.id(), null);
+        node.router = new ClusterRouter(node.table, node.store);
+        node.executor = new ClusterBatchExecutor(node.router, node.redisService, new PipelineService(node.store, node.redisService), client);
+        node.migrator = new SlotMigrator(node.table, node.store, client, 10);
+        nodes.put(self.id(), node);
+        return node;
+    }
+
+    //Keys whose slots start out on the given node
+    private static List<String> keysOn(int nodeIndex, int count) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; keys.size() < count; i++) {
+            String key = "key" + i;
+            if (HashSlots.slot(key) / 8192 == nodeIndex) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    void testRoutesMovedAndAskLikeRedisCluster(){
+        String key = keysOn(1, 1).get(0);
+        int slot = HashSlots.slot(key);
+
+        Route moved = node1.router.route(key, false);
+        assertEquals(Kind.MOVED, moved.kind());
+        assertEquals("MOVED " + slot + " 127.0.0.1:6382", moved.redirect());
+        assertTrue(node2.router.route(key, false).isLocal());
+
+        node1.table.setImporting(slot, slot, two);
+        node2.table.setMigrating(slot, slot, one);
+
+        //Missing on the migrating node, so the client is sent on with ASK, which the importing node accepts
+        assertEquals("ASK " + slot + " 127.0.0.1:6381", node2.router.route(key, false).redirect());
+        assertTrue(node1.router.route(key, true).isLocal());
+        assertEquals(Kind.MOVED, node1.router.route(key, false).kind());
+
+        //A key still on the migrating node is served there
+        node2.redisService.set(key, "v", null);
+        assertTrue(node2.router.route(key, false).isLocal());
+    }
+
+    @Test
+    void testBatchesAreSplitByServingNode(){
+        List<String> keys = new ArrayList<>(keysOn(0, 3));
+        keys.addAll(keysOn(1, 3));
+        List<KeyValueRequest> entries = new ArrayList<>();
+        for (String key : keys) {
+            KeyValueRequest entry = new KeyValueRequest();
+            entry.setKey(key);
+            entry.setValue("v-" + key);
+            entries.add(entry);
+        }
+
+        node1.executor.mset(entries, false, false);
+
+        assertEquals(3, node1.store.count());
+        assertEquals(3, node2.store.count());
+        assertEquals("v-" + keys.get(4), node2.redisService.get(keys.get(4)));
+
+        List<String> asked = new ArrayList<>(keys);
+        asked.add(1, "missing");
+        Map<String, String> values = node2.executor.mget(asked, false, false);
+        assertEquals(asked, new ArrayList<>(values.keySet()));
+        assertNull(values.get("missing"));
+        assertEquals("v-" + keys.get(0), values.get(keys.get(0)));
+
+        assertEquals(2, node2.executor.mdel(List.of(keys.get(0), keys.get(3), keys.get(3), "missing"), false, false));
+        assertEquals(2, node1.store.count());
+        assertEquals(2, node2.store.count());
+    }
+
+    @Test
+    void testPipelineRunsEachCommandWhereItsKeysAreServed(){
+        String local = keysOn(0, 1).get(0);
+        String remote = keysOn(1, 1).get(0);
+
+        List<PipelineResult> results = node1.executor.pipeline(List.of(
+                new PipelineCommand("SET", List.of(remote, "r")),
+                new PipelineCommand("SET", List.of(local, "l")),
+                new PipelineCommand("GET", List.of(remote)),
+                new PipelineCommand("MGET", List.of(local, remote)),
+                new PipelineCommand("GET", List.of(local))), false, false);
+
+        assertNull(results.get(0).getError());
+        assertEquals("r", results.get(2).getResult());
+        assertTrue(results.get(3).getError().startsWith("CROSSSLOT"));
+        assertEquals("l", results.get(4).getResult());
+        assertEquals("r", node2.redisService.get(remote));
+    }
+
+    @Test
+    void testTransactionKeysMustShareASlot(){
+        RespCommandHandler handler = new RespCommandHandler(node1.redisService, null, node1.router, false, null);
+        List<String> local = keysOn(0, 2);
+        assertNotEquals(HashSlots.slot(local.get(0)), HashSlots.slot(local.get(1)));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> handler.transaction(Map.of(),
+                List.of(command("SET", local.get(0), "a"), command("SET", local.get(1), "b"))));
+        assertTrue(e.getMessage().startsWith("CROSSSLOT"));
+        assertEquals(0, node1.store.count());
+
+        String tag = "{" + local.get(0) + "}";
+        List<PipelineResult> results = handler.transaction(Map.of(),
+                List.of(command("SET", tag + "a", "a"), command("SET", tag + "b", "b")));
+        assertEquals(List.of("OK", "OK"), results.stream().map(PipelineResult::getResult).toList());
+        assertEquals("b", node1.redisService.get(tag + "b"));
+    }
+
+    private static List<byte[]> command(String... args) {
+        List<byte[]> command = new ArrayList<>();
+        for (String arg : args) {
+            command.add(arg.getBytes(StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    @Test
+    void testForwardedBatchIsNeverSentOnAgain(){
+        String remote = keysOn(1, 1).get(0);
+
+        MisdirectedRequestException e = assertThrows(MisdirectedRequestException.class,
+                () -> node1.executor.mget(List.of(remote), false, true));
+        assertTrue(e.getMessage().startsWith("MOVED " + HashSlots.slot(remote)));
+    }
+
+    @Test
+    void testMigrationMovesEveryKeyWhileWritesContinue() throws Exception {
+        List<String> data = keysOn(0, 200);
+        for (String key : data) {
+            node1.store.save(new KeyValueEntry(key, "v-" + key, null));
+        }
+        node1.store.save(new KeyValueEntry(keysOn(0, 201).get(200), "gone", System.currentTimeMillis() - 1));
+        List<String> counters = keysOn(0, 220).subList(201, 220);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        List<Future<Long>> increments = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            increments.add(writers.submit(() -> {
+                long done = 0;
+                while (running.get() || done < 100) {
+                    incr(counters.get((int) (done % counters.size())));
+                    done++;
+                }
+                return done;
+            }));
+        }
+
+        SlotMigrator.Result result = node1.migrator.migrate(0, 8191, "node-2");
+        running.set(false);
+        long total = 0;
+        for (Future<Long> done : increments) {
+            total += done.get();
+        }
+        writers.shutdown();
+
+        assertEquals("node-2", result.target());
+        assertEquals(0, node1.store.count());
+        assertSame(two, node1.table.owner(0));
+        assertSame(two, node2.table.owner(8191));
+        assertNull(node2.table.importingFrom(0));
+        for (String key : data) {
+            assertEquals("v-" + key, node2.redisService.get(key));
+        }
+        long counted = 0;
+        for (String counter : counters) {
+            String value = node2.store.findById(counter).map(KeyValueEntry::getValue).orElse("0");
+            counted += Long.parseLong(value);
+        }
+        assertEquals(total, counted);
+        assertEquals(Kind.MOVED, node1.router.route(data.get(0), false).kind());
+    }
+
+    @Test
+    void testMigrationRejectsSlotsServedElsewhere(){
+        assertThrows(IllegalArgumentException.class, () -> node1.migrator.migrate(8000, 9000, "node-2"));
+        assertThrows(IllegalArgumentException.class, () -> node1.migrator.migrate(0, 10, "node-1"));
+        assertNull(node1.table.migratingTo(0));
+    }
+
+    //Follows MOVED and ASK the way a cluster-aware client does
+    private long incr(String key) {
+        TestNode node = node1;
+        boolean asking = false;
+        for (int hop = 0; hop < 3; hop++) {
+            TestNode next;
+            try (Lease ignored = node.router.lease(key)) {
+                Route route = node.router.route(key, asking);
+                if (route.isLocal()) {
+                    return node.redisService.incrBy(key, 1);
+                }
+                next = nodes.get(route.node().id());
+                asking = route.kind() == Kind.ASK;
+            }
+            node = next;
+        }
+        throw new AssertionError("too many redirects for " + key);
+    }
+
+    //Calls the other node's components directly, as its HTTP endpoints would
+    private final class InProcessClient implements NodeClient {
+
+        @Override
+        public void mset(ClusterNode node, List<KeyValueRequest> entries, boolean asking) {
+            nodes.get(node.id()).executor.mset(entries, asking, true);
+        }
+
+        @Override
+        public Map<String, String> mget(ClusterNode node, List<String> keys, boolean asking) {
+            return nodes.get(node.id()).executor.mget(keys, asking, true);
+        }
+
+        @Override
+        public int mdel(ClusterNode node, List<String> keys, boolean asking) {
+            return nodes.get(node.id()).executor.mdel(keys, asking, true);
+        }
+
+        @Override
+        public List<PipelineResult> pipeline(ClusterNode node, List<PipelineCommand> commands, boolean asking) {
+            return nodes.get(node.id()).executor.pipeline(commands, asking, true);
+        }
+
+        @Override
+        public void importing(ClusterNode node, int from, int to, ClusterNode source) {
+            SlotTable table = nodes.get(node.id()).table;
+            table.setImporting(from, to, table.node(source.id()));
+        }
+
+        @Override
+        public void importEntries(ClusterNode node, List<MigratedEntry> entries) {
+            nodes.get(node.id()).store.saveAll(entries.stream().map(MigratedEntry::toEntry).toList());
+        }
+
+        @Override
+        public void assign(ClusterNode node, int from, int to, ClusterNode owner) {
+            SlotTable table = nodes.get(node.id()).table;
+            table.assign(from, to, table.node(owner.id()));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.rhytham.redisapi.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashSlotsTest {
+
+    @Test
+    void testCrc16MatchesXmodemCheckValue(){
+        byte[] check = "123456789".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(0x31C3, HashSlots.crc16(check, 0, check.length));
+    }
+
+    @Test
+    void testSlotsMatchRedisCluster(){
+        assertEquals(12182, HashSlots.slot("foo"));
+        assertEquals(5061, HashSlots.slot("bar"));
+        assertEquals(HashSlots.slot("foo"), HashSlots.slot("foo".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testOnlyTheFirstNonEmptyHashTagIsHashed(){
+        assertEquals(HashSlots.slot("user1000"), HashSlots.slot("{user1000}.following"));
+        assertEquals(HashSlots.slot("{user1000}.following"), HashSlots.slot("{user1000}.followers"));
+        assertEquals(HashSlots.slot("bar"), HashSlots.slot("foo{bar}{zap}"));
+        assertEquals(HashSlots.slot("{bar"), HashSlots.slot("foo{{bar}}zap"));
+        //An empty or unclosed tag hashes the whole key
+        byte[] emptyTag = "foo{}{bar}".getBytes(StandardCharsets.UTF_8);
+        assertEquals(HashSlots.crc16(emptyTag, 0, emptyTag.length) & 16383, HashSlots.slot("foo{}{bar}"));
+        byte[] unclosed = "foo{bar".getBytes(StandardCharsets.UTF_8);
+        assertEquals(HashSlots.crc16(unclosed, 0, unclosed.length) & 16383, HashSlots.slot("foo{bar"));
+    }
+}
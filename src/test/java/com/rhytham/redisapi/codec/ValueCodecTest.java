@@ -0,0 +1,70 @@
+package com.rhytham.redisapi.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueCodecTest {
+
+    private final ValueCodec codec = new ValueCodec(ValueCodec.Compression.ZSTD, 64, 3);
+
+    @Test
+    void testIntegersUseTheSmallestWidth() {
+        assertEquals(2, codec.encode("0").length);
+        assertEquals(2, codec.encode("-128").length);
+        assertEquals(3, codec.encode("128").length);
+        assertEquals(5, codec.encode("-2147483648").length);
+        assertEquals(9, codec.encode(Long.toString(Long.MIN_VALUE)).length);
+
+        for (String value : new String[]{"0", "-1", "127", "-32769", "65536", "2147483648", Long.toString(Long.MAX_VALUE)}) {
+            byte[] encoded = codec.encode(value);
+            assertEquals(ValueEncoding.INT, ValueCodec.encoding(encoded));
+            assertEquals(value, ValueCodec.decodeString(encoded));
+            assertEquals(value.length(), ValueCodec.decodedLength(encoded));
+        }
+    }
+
+    @Test
+    void testNonCanonicalNumbersStayRaw() {
+        for (String value : new String[]{"007", "+5", "-0", "1.5", "9223372036854775808", ""}) {
+            byte[] encoded = codec.encode(value);
+            assertEquals(ValueEncoding.RAW, ValueCodec.encoding(encoded), value);
+            assertEquals(value, ValueCodec.decodeString(encoded));
+        }
+        assertArrayEquals(ValueCodec.encodeRaw("hello"), codec.encode("hello"));
+    }
+
+    @Test
+    void testLargeValuesAreCompressedWhenItPays() {
+        String json = "{\"name\":\"alice\",\"roles\":[\"admin\",\"user\"]},".repeat(50);
+        byte[] encoded = codec.encode(json);
+        assertEquals(ValueEncoding.ZSTD, ValueCodec.encoding(encoded));
+        assertTrue(encoded.length < json.length() / 4);
+        assertEquals(json.length(), ValueCodec.decodedLength(encoded));
+        assertEquals(json, ValueCodec.decodeString(encoded));
+
+        byte[] random = new byte[4096];
+        new Random(7).nextBytes(random);
+        assertEquals(ValueEncoding.RAW, ValueCodec.encoding(codec.encode(random)));
+
+        ValueCodec uncompressed = new ValueCodec(ValueCodec.Compression.NONE, 64, 3);
+        assertEquals(ValueEncoding.RAW, ValueCodec.encoding(uncompressed.encode(json)));
+    }
+
+    @Test
+    void testBinaryValuesRoundTrip() {
+        byte[] binary = {(byte) 0xFF, 0, '\r', '\n', (byte) 0xC3, 0x28};
+        assertArrayEquals(binary, ValueCodec.decode(codec.encode(binary)));
+
+        byte[] large = new byte[1000];
+        large[999] = (byte) 0x80;
+        byte[] encoded = codec.encode(large);
+        assertEquals(ValueEncoding.ZSTD, ValueCodec.encoding(encoded));
+        assertArrayEquals(large, ValueCodec.decode(encoded));
+
+        assertArrayEquals("42".getBytes(StandardCharsets.US_ASCII), ValueCodec.decode(codec.encode("42".getBytes(StandardCharsets.US_ASCII))));
+    }
+}
@@ -0,0 +1,164 @@
+package com.rhytham.redisapi.datatype;
+
+import com.rhytham.redisapi.model.ValueType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypedValueTest {
+
+    @Test
+    void testHashConvertsPastListpackLimits() {
+        HashValue hash = new HashValue();
+        for (int i = 0; i < HashValue.MAX_LISTPACK_ENTRIES; i++) {
+            assertTrue(hash.put("f" + i, "v" + i));
+        }
+        assertFalse(hash.put("f0", "updated"));
+        assertEquals("listpack", hash.encoding());
+
+        assertTrue(hash.put("one-more", "v"));
+        assertEquals("hashtable", hash.encoding());
+        assertEquals(HashValue.MAX_LISTPACK_ENTRIES + 1, hash.size());
+        assertEquals("updated", hash.get("f0"));
+        assertEquals("v127", hash.get("f127"));
+
+        HashValue wide = new HashValue();
+        wide.put("f", "x".repeat(HashValue.MAX_LISTPACK_VALUE + 1));
+        assertEquals("hashtable", wide.encoding());
+    }
+
+    @Test
+    void testHashIncrByAndRemove() {
+        HashValue hash = new HashValue();
+        assertEquals(5, hash.incrBy("n", 5));
+        assertEquals(2, hash.incrBy("n", -3));
+        hash.put("s", "abc");
+        assertThrows(IllegalArgumentException.class, () -> hash.incrBy("s", 1));
+        hash.put("max", Long.toString(Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> hash.incrBy("max", 1));
+
+        assertTrue(hash.remove("n"));
+        assertFalse(hash.remove("n"));
+        assertEquals(Map.of("s", "abc", "max", Long.toString(Long.MAX_VALUE)), hash.contents());
+    }
+
+    @Test
+    void testListRingBufferAndRange() {
+        ListValue list = new ListValue();
+        for (int i = 0; i < 20; i++) {
+            list.pushLast("r" + i);
+            list.pushFirst("l" + i);
+        }
+        assertEquals(40, list.size());
+        assertEquals(List.of("l19", "l18"), list.range(0, 1));
+        assertEquals(List.of("r18", "r19"), list.range(-2, -1));
+        assertEquals(List.of("r19"), list.range(39, 100));
+        assertEquals(List.of(), list.range(5, 2));
+        assertEquals("l19", list.popFirst());
+        assertEquals("r19", list.popLast());
+        assertEquals(38, list.range(-100, 100).size());
+    }
+
+    @Test
+    void testSetMovesFromIntsetToListpackToHashtable() {
+        SetValue set = new SetValue();
+        for (int i = 0; i < 10; i++) {
+            set.add(Integer.toString(i * 7));
+        }
+        assertFalse(set.add("7"));
+        assertEquals("intset", set.encoding());
+        assertTrue(set.contains("14"));
+        assertFalse(set.contains("014")); //not canonical, so not the integer 14
+
+        assertTrue(set.add("apple"));
+        assertEquals("listpack", set.encoding());
+        assertTrue(set.contains("14"));
+        assertTrue(set.contains("apple"));
+
+        for (int i = 0; i < SetValue.MAX_LISTPACK_ENTRIES; i++) {
+            set.add("m" + i);
+        }
+        assertEquals("hashtable", set.encoding());
+        assertEquals(11 + SetValue.MAX_LISTPACK_ENTRIES, set.size());
+        assertTrue(set.remove("0"));
+        assertFalse(set.contains("0"));
+    }
+
+    @Test
+    void testLargeIntsetBecomesHashtable() {
+        SetValue set = new SetValue();
+        for (int i = SetValue.MAX_INTSET_ENTRIES; i > 0; i--) {
+            set.add(Integer.toString(i));
+        }
+        assertEquals("intset", set.encoding());
+        assertEquals("1", set.members().get(0)); //kept sorted
+
+        set.add("-1");
+        assertEquals("hashtable", set.encoding());
+        assertTrue(set.contains("-1"));
+        assertTrue(set.contains("512"));
+    }
+
+    @Test
+    void testSortedSetRangesInBothEncodings() {
+        SortedSetValue zset = new SortedSetValue();
+        zset.add("b", 2);
+        zset.add("a", 1);
+        zset.add("c", 2);
+        assertFalse(zset.add("a", 3)); //moves a to the end
+        assertEquals("listpack", zset.encoding());
+        assertRanges(zset);
+
+        for (int i = 0; i < SortedSetValue.MAX_LISTPACK_ENTRIES; i++) {
+            zset.add("x" + i, 100 + i);
+        }
+        assertEquals("skiplist", zset.encoding());
+        assertRanges(zset);
+        assertEquals(3.0, zset.score("a"));
+        assertTrue(zset.remove("x0"));
+        assertNull(zset.score("x0"));
+        assertEquals(List.of(new ScoredMember("x1", 101)), zset.rangeByScore(ScoreRange.parse("100", "101")));
+    }
+
+    private static void assertRanges(SortedSetValue zset) {
+        assertEquals(List.of(new ScoredMember("b", 2), new ScoredMember("c", 2), new ScoredMember("a", 3)),
+                zset.rangeByScore(ScoreRange.parse("-inf", "3")));
+        assertEquals(List.of(new ScoredMember("a", 3)), zset.rangeByScore(ScoreRange.parse("(2", "(4")));
+        assertEquals(List.of(), zset.rangeByScore(ScoreRange.parse("(2", "(3")));
+    }
+
+    @Test
+    void testScoreParsing() {
+        assertEquals(Double.POSITIVE_INFINITY, ScoreRange.parseScore("+inf"));
+        assertEquals(-1.5, ScoreRange.parseScore("-1.5"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreRange.parseScore("nan"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreRange.parseScore("1d"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreRange.parse("x", "1"));
+    }
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        HashValue hash = new HashValue();
+        hash.put("f", "v");
+        ListValue list = new ListValue();
+        list.pushLast("a");
+        list.pushLast("b");
+        SetValue set = new SetValue();
+        set.add("1");
+        set.add("x");
+        SortedSetValue zset = new SortedSetValue();
+        zset.add("low", Double.NEGATIVE_INFINITY);
+        zset.add("mid", 0.25);
+
+        for (TypedValue value : List.of(hash, list, set, zset)) {
+            TypedValue decoded = TypedValues.decode(value.type(), TypedValues.encode(value));
+            assertEquals(value.type(), decoded.type());
+            assertEquals(value.contents(), decoded.contents());
+        }
+        assertEquals("{\"f\":\"v\"}", TypedValues.encode(hash));
+        assertThrows(IllegalArgumentException.class, () -> TypedValues.decode(ValueType.STRING, "x"));
+    }
+}
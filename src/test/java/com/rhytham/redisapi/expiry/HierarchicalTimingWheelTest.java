@@ -0,0 +1,97 @@
+package com.rhytham.redisapi.expiry;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchicalTimingWheelTest {
+
+    @Test
+    void testTimersFireAtTheirTickAcrossLevels() {
+        //4 slots x 3 levels: horizon of 64 ticks, so most deadlines need at least one cascade
+        long start = 1_000_000;
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(10, 4, 3, start);
+        Map<String, Long> deadlines = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            long deadline = start + 1 + random.nextInt(2_000);
+            deadlines.put("key" + i, deadline);
+            wheel.add("key" + i, deadline);
+        }
+
+        Map<String, Long> firedAt = new HashMap<>();
+        for (long now = start; now <= start + 2_100; now += 10) {
+            long time = now;
+            wheel.advance(now, key -> assertNull(firedAt.put(key, time)));
+        }
+
+        assertEquals(deadlines.size(), firedAt.size());
+        assertEquals(0, wheel.size());
+        deadlines.forEach((key, deadline) -> {
+            long fired = firedAt.get(key);
+            assertTrue(fired >= deadline, key + " fired early");
+            assertTrue(fired < deadline + 10, key + " fired more than one tick late");
+        });
+    }
+
+    @Test
+    void testPastDeadlineFiresOnNextTick() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(100, 8, 2, 1_000);
+        wheel.add("late", 500);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(1_050, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(1_100, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void testDeadlineBeyondHorizonIsParkedAndReplaced() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 4, 2, 0);
+        wheel.add("far", 100);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(99, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(100, fired::add);
+        assertEquals(List.of("far"), fired);
+    }
+
+    @Test
+    void testRejectsNonPowerOfTwoSlots() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel(100, 500, 4, 0));
+    }
+
+    @Test
+    void testStrategyDeletesOnlyKeysThatAreStillExpired() throws InterruptedException {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4);
+        TimingWheelExpiryStrategy strategy = new TimingWheelExpiryStrategy(store, 10, 64, 3, 2, 100);
+        long now = System.currentTimeMillis();
+        store.save(new KeyValueEntry("a", "v", now + 30));
+        store.save(new KeyValueEntry("b", "v", now + 30));
+        store.save(new KeyValueEntry("c", "v", now + 30));
+        store.save(new KeyValueEntry("renewed", "v", now + 30));
+        store.save(new KeyValueEntry("renewed", "v", now + 60_000));
+        store.save(new KeyValueEntry("persistent", "v", null));
+
+        strategy.runCycle();
+        assertEquals(5, store.count());
+
+        Thread.sleep(60);
+        strategy.runCycle();
+
+        assertEquals(3, strategy.getLastCycleDeleted());
+        assertEquals(2, store.count());
+        assertTrue(store.findById("renewed").isPresent());
+        assertEquals(1, strategy.indexedCount());
+    }
+}
@@ -0,0 +1,67 @@
+package com.rhytham.redisapi.expiry;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SamplingExpiryStrategyTest {
+
+    private InMemoryKeyValueStore store;
+
+    @BeforeEach
+    void setUp(){
+        store = new InMemoryKeyValueStore(8);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            store.save(new KeyValueEntry("expired" + i, "v", now - 1000));
+        }
+        for (int i = 0; i < 10; i++) {
+            store.save(new KeyValueEntry("live" + i, "v", now + 60_000));
+            store.save(new KeyValueEntry("persistent" + i, "v", null));
+        }
+    }
+
+    @Test
+    void testKeepsSamplingWhileExpiredFractionIsHigh(){
+        SamplingExpiryStrategy strategy = new SamplingExpiryStrategy(store, 100, 20, 0.10, 1000);
+
+        strategy.runCycle();
+
+        assertTrue(strategy.getLastCycleSamples() > 1);
+        assertTrue(strategy.getLastCycleDeleted() > 20);
+        assertEquals(1010 - strategy.getLastCycleDeleted(), store.countWithExpiry());
+    }
+
+    @Test
+    void testStopsAfterOneSampleWhenThresholdNotExceeded(){
+        SamplingExpiryStrategy strategy = new SamplingExpiryStrategy(store, 100, 20, 1.0, 1000);
+
+        strategy.runCycle();
+
+        assertEquals(1, strategy.getLastCycleSamples());
+    }
+
+    @Test
+    void testEventuallyRemovesEveryExpiredKeyAndNothingElse(){
+        SamplingExpiryStrategy strategy = new SamplingExpiryStrategy(store, 100, 20, 0.10, 1000);
+
+        for (int i = 0; i < 500 && store.countWithExpiry() > 10; i++) {
+            strategy.runCycle();
+        }
+
+        assertEquals(20, store.count());
+        assertEquals(10, store.countWithExpiry());
+    }
+
+    @Test
+    void testZeroBudgetStillRunsOneSample(){
+        SamplingExpiryStrategy strategy = new SamplingExpiryStrategy(store, 100, 20, 0.0, 0);
+
+        strategy.runCycle();
+
+        assertEquals(1, strategy.getLastCycleSamples());
+    }
+}
@@ -0,0 +1,90 @@
+package com.rhytham.redisapi.metrics;
+
+import com.rhytham.redisapi.exception.KeyNotFoundException;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private CommandMetrics metrics;
+    private RedisService redisService;
+
+    @BeforeEach
+    void setUp(){
+        registry = new SimpleMeterRegistry();
+        metrics = new CommandMetrics(registry);
+        redisService = new RedisService(new InMemoryKeyValueStore(4), metrics);
+    }
+
+    private Timer timer(String command){
+        return registry.get("redisapi.commands").tag("command", command).timer();
+    }
+
+    @Test
+    void testEachCommandRecordsOneSample(){
+        redisService.set("key1", "value1", null);
+        redisService.get("key1");
+        redisService.find("key1");
+        assertThrows(KeyNotFoundException.class, () -> redisService.get("missing"));
+        redisService.mget(List.of("key1", "missing"));
+        redisService.exists("key1");
+        redisService.delete("key1");
+
+        assertEquals(1, timer("set").count());
+        assertEquals(3, timer("get").count()); //failed lookups are timed too
+        assertEquals(1, timer("mget").count());
+        assertEquals(1, timer("exists").count());
+        assertEquals(1, timer("del").count());
+        assertEquals(0, timer("flushall").count());
+    }
+
+    @Test
+    void testObjectAndMemoryAreTimedApartFromType(){
+        redisService.set("key1", "value1", null);
+        redisService.type("key1");
+        redisService.encoding("key1");
+        redisService.encoding("missing");
+        redisService.memoryUsage("key1");
+
+        assertEquals(1, timer("type").count());
+        assertEquals(2, timer("object").count());
+        assertEquals(1, timer("memory").count());
+    }
+
+    @Test
+    void testDescribeReportsPercentilesOfCalledCommands(){
+        for (int i = 0; i < 100; i++) {
+            redisService.set("key" + i, "value", 60L);
+        }
+        redisService.ttl("key1");
+
+        Map<String, Object> commands = metrics.describe();
+
+        assertEquals(List.of("set", "ttl"), List.copyOf(commands.keySet()));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> set = (Map<String, Object>) commands.get("set");
+        assertEquals(100L, set.get("calls"));
+        assertTrue(set.containsKey("p50Micros"));
+        assertTrue(set.containsKey("p99Micros"));
+        assertTrue(set.containsKey("p999Micros"));
+        assertTrue((double) set.get("maxMicros") >= (double) set.get("p50Micros"));
+    }
+
+    @Test
+    void testNoopMetricsRecordNothing(){
+        CommandMetrics noop = CommandMetrics.noop();
+        new RedisService(new InMemoryKeyValueStore(4), noop).set("key1", "value1", null);
+
+        assertTrue(noop.describe().isEmpty());
+    }
+}
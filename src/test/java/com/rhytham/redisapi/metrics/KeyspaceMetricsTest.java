@@ -0,0 +1,71 @@
+package com.rhytham.redisapi.metrics;
+
+import com.rhytham.redisapi.expiry.ExpiryStrategy;
+import com.rhytham.redisapi.jobs.CleanupExpiredKeysJob;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class KeyspaceMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private InMemoryKeyValueStore store;
+
+    @BeforeEach
+    void setUp(){
+        registry = new SimpleMeterRegistry();
+        store = new InMemoryKeyValueStore(4);
+    }
+
+    @Test
+    void testGaugesReportKeyspace(){
+        long now = System.currentTimeMillis();
+        KeyValueEntry persistent = new KeyValueEntry("a", "1", null);
+        KeyValueEntry live = new KeyValueEntry("b", "22", now + 60_000);
+        KeyValueEntry expired = new KeyValueEntry("c", "333", now - 1_000);
+        store.load(persistent);
+        store.load(live);
+        store.load(expired);
+        new KeyspaceMetrics(store, 0).bindTo(registry);
+
+        assertEquals(3, registry.get("redisapi.keyspace.keys").gauge().value());
+        assertEquals(2, registry.get("redisapi.keyspace.keys.with.expiry").gauge().value());
+        assertEquals(1, registry.get("redisapi.keyspace.expired.pending").gauge().value());
+        assertEquals(persistent.estimatedBytes() + live.estimatedBytes() + expired.estimatedBytes(),
+                registry.get("redisapi.keyspace.bytes").gauge().value());
+    }
+
+    @Test
+    void testStatsCachedForRefreshInterval(){
+        KeyspaceMetrics metrics = new KeyspaceMetrics(store, 60_000);
+        store.load(new KeyValueEntry("a", "1", null));
+        assertEquals(1, metrics.stats().keys());
+
+        store.load(new KeyValueEntry("b", "2", null));
+
+        assertEquals(1, metrics.stats().keys());
+        assertEquals(2, new KeyspaceMetrics(store, 0).stats().keys());
+    }
+
+    @Test
+    void testCleanupJobRecordsEachRun(){
+        ExpiryStrategy strategy = mock(ExpiryStrategy.class);
+        when(strategy.runCycle()).thenReturn(5, 2);
+        ExpiryMetrics expiryMetrics = new ExpiryMetrics(registry);
+        CleanupExpiredKeysJob job = new CleanupExpiredKeysJob(strategy, expiryMetrics);
+
+        job.execute(null);
+        job.execute(null);
+
+        assertEquals(2, registry.get("redisapi.expiry.cycle").timer().count());
+        assertEquals(7, registry.get("redisapi.expiry.deleted").counter().count());
+        assertEquals(2, registry.get("redisapi.expiry.last.deleted").gauge().value());
+        assertEquals(2, expiryMetrics.runs());
+        assertTrue(expiryMetrics.getLastRunAt() > 0);
+    }
+}
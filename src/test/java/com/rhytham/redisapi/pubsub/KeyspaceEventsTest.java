@@ -0,0 +1,81 @@
+package com.rhytham.redisapi.pubsub;
+
+import com.rhytham.redisapi.metrics.CommandMetrics;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyspaceEventsTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore(4);
+    private final PubSubBroker broker = new PubSubBroker(64, Subscriber.Overflow.DISCONNECT);
+    private final Subscriber subscriber = broker.subscriber("test", () -> {
+    });
+
+    private RedisService service(String flags) {
+        KeyspaceEvents events = new KeyspaceEvents(broker, flags);
+        store.addListener(events);
+        return new RedisService(store, CommandMetrics.noop(), events);
+    }
+
+    private List<String> received() {
+        List<String> received = new ArrayList<>();
+        for (PubSubMessage message : subscriber.poll(100)) {
+            received.add(message.channel() + " " + message.text());
+        }
+        return received;
+    }
+
+    @Test
+    void testMutationsPublishKeyspaceAndKeyeventMessages() {
+        RedisService redisService = service("KEA");
+        broker.psubscribe(subscriber, "__key*@0__:*");
+
+        redisService.set("user:1", "alice", null);
+        redisService.hset("h", Map.of("f", "v"));
+        redisService.hdel("h", List.of("missing"));
+        redisService.expire("user:1", 60);
+        redisService.lpush("jobs", List.of("a"));
+        redisService.rpop("jobs");
+        redisService.rpop("jobs");
+        redisService.mdel(List.of("user:1", "nothing"));
+
+        assertEquals(List.of(
+                "__keyspace@0__:user:1 set", "__keyevent@0__:set user:1",
+                "__keyspace@0__:h hset", "__keyevent@0__:hset h",
+                "__keyspace@0__:user:1 expire", "__keyevent@0__:expire user:1",
+                "__keyspace@0__:jobs lpush", "__keyevent@0__:lpush jobs",
+                "__keyspace@0__:jobs rpop", "__keyevent@0__:rpop jobs",
+                "__keyspace@0__:user:1 del", "__keyevent@0__:del user:1"), received());
+    }
+
+    @Test
+    void testExpirationsFromTheStoreRaiseExpired() {
+        RedisService redisService = service("Ex");
+        broker.subscribe(subscriber, "__keyevent@0__:expired");
+        redisService.set("short", "v", 1L);
+        redisService.set("kept", "v", null);
+
+        int deleted = store.deleteAllExpired(System.currentTimeMillis() + 5000);
+
+        assertEquals(1, deleted);
+        //"set" is not in the selected classes, so only the expiry is published
+        assertEquals(List.of("__keyevent@0__:expired short"), received());
+    }
+
+    @Test
+    void testFlagsFollowRedis() {
+        assertTrue(new KeyspaceEvents(broker, "KA").isEnabled(KeyspaceEvents.ZSET));
+        assertFalse(new KeyspaceEvents(broker, "K$").isEnabled(KeyspaceEvents.GENERIC));
+        //A class without K or E publishes nothing
+        assertFalse(new KeyspaceEvents(broker, "g").isEnabled(KeyspaceEvents.GENERIC));
+        assertFalse(KeyspaceEvents.disabled().isEnabled(KeyspaceEvents.EXPIRED));
+        assertThrows(IllegalArgumentException.class, () -> new KeyspaceEvents(broker, "Kq"));
+    }
+}
@@ -0,0 +1,180 @@
+package com.rhytham.redisapi.pubsub;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PubSubBrokerTest {
+
+    private static List<String> texts(List<PubSubMessage> messages) {
+        List<String> texts = new ArrayList<>();
+        messages.forEach(message -> texts.add(message.text()));
+        return texts;
+    }
+
+    @Test
+    void testChannelAndPatternSubscribers() {
+        PubSubBroker broker = new PubSubBroker(8, Subscriber.Overflow.DISCONNECT);
+        Subscriber direct = broker.subscriber("direct", () -> {
+        });
+        Subscriber patterned = broker.subscriber("patterned", () -> {
+        });
+        assertEquals(1, broker.subscribe(direct, "orders"));
+        assertEquals(1, broker.psubscribe(patterned, "ord*"));
+        assertEquals(2, broker.subscribe(patterned, "orders"));
+
+        assertEquals(3, broker.publish("orders", "a"));
+        assertEquals(1, broker.publish("ordinals", "b"));
+        assertEquals(0, broker.publish("users", "c"));
+
+        assertEquals(List.of("a"), texts(direct.poll(10)));
+        List<PubSubMessage> received = patterned.poll(10);
+        assertEquals(List.of("a", "a", "b"), texts(received));
+        assertEquals("ord*", received.get(2).pattern());
+        assertEquals("ordinals", received.get(2).channel());
+
+        assertEquals(List.of("orders"), broker.activeChannels("o*"));
+        assertEquals(Map.of("orders", 2, "users", 0), broker.numsub(List.of("orders", "users")));
+        assertEquals(1, broker.numpat());
+        assertEquals(2, broker.subscriberCount());
+
+        broker.unsubscribeAll(patterned);
+        assertEquals(0, patterned.subscriptionCount());
+        assertEquals(0, broker.numpat());
+        assertEquals(1, broker.publish("orders", "d"));
+        assertEquals(0, broker.unsubscribe(direct, "orders"));
+        assertFalse(broker.hasSubscriptions());
+        assertEquals(0, broker.subscriberCount());
+    }
+
+    @Test
+    void testDropPolicyKeepsTheNewestMessages() {
+        PubSubBroker broker = new PubSubBroker(3, Subscriber.Overflow.DROP);
+        AtomicInteger signals = new AtomicInteger();
+        Subscriber slow = broker.subscriber("slow", signals::incrementAndGet);
+        broker.subscribe(slow, "ticks");
+
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(1, broker.publish("ticks", Integer.toString(i)));
+        }
+
+        assertEquals(1, signals.get()); //woken once, when the ring stopped being empty
+        assertEquals(List.of("3", "4", "5"), texts(slow.poll(10)));
+        assertEquals(2, slow.droppedCount());
+        assertEquals(2, broker.droppedCount());
+        assertEquals(0, broker.disconnectedCount());
+    }
+
+    @Test
+    void testDisconnectPolicyClosesOnlyTheSlowSubscriber() {
+        PubSubBroker broker = new PubSubBroker(2, Subscriber.Overflow.DISCONNECT);
+        AtomicInteger signals = new AtomicInteger();
+        Subscriber slow = broker.subscriber("slow", signals::incrementAndGet);
+        Subscriber fast = broker.subscriber("fast", () -> {
+        });
+        broker.subscribe(slow, "ticks");
+        broker.subscribe(fast, "ticks");
+
+        List<String> seen = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            broker.publish("ticks", Integer.toString(i));
+            seen.addAll(texts(fast.poll(10)));
+        }
+
+        assertTrue(slow.isClosed());
+        assertEquals(2, signals.get()); //once for the first message, once for the disconnect
+        assertTrue(slow.poll(10).isEmpty());
+        assertEquals(0, slow.subscriptionCount());
+        assertEquals(List.of("1", "2", "3", "4"), seen);
+        assertEquals(1, broker.disconnectedCount());
+        assertEquals(Map.of("ticks", 1), broker.numsub(List.of("ticks")));
+    }
+
+    @Test
+    void testPushDeliveryHandsEveryMessageToTheSink() throws Exception {
+        PubSubBroker broker = new PubSubBroker(8192, Subscriber.Overflow.DISCONNECT);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            int total = 5000;
+            List<String> received = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(total);
+            PushDelivery delivery = new PushDelivery(broker, executor, "sink", new PushDelivery.Sink() {
+                @Override
+                public void send(List<PubSubMessage> messages) {
+                    for (PubSubMessage message : messages) {
+                        received.add(message.text());
+                        done.countDown();
+                    }
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+            broker.subscribe(delivery.getSubscriber(), "events");
+            for (int i = 0; i < total; i++) {
+                broker.publish("events", Integer.toString(i));
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < total; i++) {
+                assertEquals(Integer.toString(i), received.get(i));
+            }
+            delivery.close();
+            assertEquals(0, broker.subscriberCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testPushDeliveryClosesTheSinkOfADisconnectedSubscriber() throws Exception {
+        PubSubBroker broker = new PubSubBroker(4, Subscriber.Overflow.DISCONNECT);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PushDelivery delivery = new PushDelivery(broker, executor, "stuck", new PushDelivery.Sink() {
+                @Override
+                public void send(List<PubSubMessage> messages) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void close() {
+                    closed.countDown();
+                }
+            });
+            broker.subscribe(delivery.getSubscriber(), "events");
+            broker.publish("events", "first");
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            //The client is stuck in a send: publishers fill its ring and it is dropped, without waiting on it
+            for (int i = 0; i < 5; i++) {
+                broker.publish("events", "m" + i);
+            }
+            assertTrue(delivery.getSubscriber().isClosed());
+            release.countDown();
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            assertEquals(0, broker.subscriberCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.rhytham.redisapi.replication;
+
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//A primary and a replica in one JVM, linked over a loopback socket
+public class ReplicationTest {
+
+    private final InMemoryKeyValueStore primaryStore = new InMemoryKeyValueStore(4);
+    private final InMemoryKeyValueStore replicaStore = new InMemoryKeyValueStore(4);
+    private final RedisService primaryService = new RedisService(primaryStore);
+    private final RedisService replicaService = new RedisService(replicaStore);
+
+    private ReplicationPrimary primary;
+    private ReplicationReplica replica;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (replica != null) {
+            replica.stop();
+        }
+        if (primary != null) {
+            primary.stop();
+        }
+    }
+
+    private void start(int backlogBytes) throws Exception {
+        primary = new ReplicationPrimary(primaryStore, "127.0.0.1", 0, backlogBytes, 100, 5000, 50);
+        primary.start();
+        replica = new ReplicationReplica(replicaStore, "127.0.0.1", primary.getPort(), 100, 5000);
+        replica.start();
+    }
+
+    @Test
+    void testBacklogKeepsTheTailOfTheStream() throws Exception {
+        ReplicationBacklog backlog = new ReplicationBacklog(8);
+        backlog.append(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6}));
+        backlog.append(ByteBuffer.wrap(new byte[]{7, 8, 9, 10}));
+
+        assertEquals(10, backlog.offset());
+        assertEquals(2, backlog.firstOffset());
+        assertFalse(backlog.holds(1));
+        assertTrue(backlog.holds(10));
+
+        byte[] read = new byte[8];
+        assertEquals(6, backlog.read(4, read, 0));
+        assertArrayEquals(new byte[]{5, 6, 7, 8, 9, 10}, Arrays.copyOf(read, 6));
+        assertEquals(-1, backlog.read(1, read, 0));
+        assertEquals(0, backlog.read(10, read, 10));
+
+        //Larger than the ring: only its tail is kept
+        backlog.append(ByteBuffer.wrap(new byte[]{11, 12, 13, 14, 15, 16, 17, 18, 19, 20}));
+        assertEquals(20, backlog.offset());
+        assertEquals(8, backlog.read(12, read, 0));
+        assertArrayEquals(new byte[]{13, 14, 15, 16, 17, 18, 19, 20}, read);
+    }
+
+    @Test
+    void testReplicaCopiesTheKeyspaceThenFollowsTheStream() throws Exception {
+        for (int i = 0; i < 120; i++) {
+            primaryService.set("before" + i, "v" + i, null);
+        }
+        primaryService.set("ttl", "x", 600L);
+        start(1 << 20);
+
+        awaitTrue(replica::isLinkUp);
+        awaitTrue(() -> replicaStore.count() == 121);
+        assertEquals(1, replica.fullSyncCount());
+        assertTrue(replicaService.ttl("ttl") > 590);
+
+        primaryService.set("after", "1", null);
+        primaryService.incrBy("after", 41);
+        primaryService.hset("hash", Map.of("f", "v"));
+        primaryService.expire("before0", 300);
+        primaryService.delete("before1");
+        awaitTrue(() -> "42".equals(replicaService.find("after").orElse(null)));
+        awaitTrue(() -> !replicaService.exists("before1"));
+        assertEquals("v", replicaService.hget("hash", "f"));
+        assertTrue(replicaService.ttl("before0") > 290);
+
+        awaitTrue(() -> primary.links().size() == 1 && primary.links().get(0).getAckOffset() == primary.offset());
+
+        primaryService.flushAll();
+        awaitTrue(() -> replicaStore.count() == 0);
+    }
+
+    @Test
+    void testReconnectingReplicaResumesFromTheBacklog() throws Exception {
+        start(1 << 20);
+        primaryService.set("a", "1", null);
+        awaitTrue(() -> replicaService.exists("a"));
+
+        replica.stop();
+        primaryService.set("b", "2", null);
+        primaryService.delete("a");
+        replica.start();
+
+        awaitTrue(() -> replicaService.exists("b") && !replicaService.exists("a"));
+        assertEquals(1, replica.fullSyncCount());
+        assertEquals(primary.offset(), replica.offset());
+    }
+
+    @Test
+    void testReplicaBehindTheBacklogResynchronizesInFull() throws Exception {
+        start(256);
+        primaryService.set("a", "1", null);
+        awaitTrue(() -> replicaService.exists("a"));
+
+        replica.stop();
+        for (int i = 0; i < 50; i++) {
+            primaryService.set("k" + i, "value-" + i, null);
+        }
+        replica.start();
+
+        awaitTrue(() -> replicaStore.count() == 51);
+        assertEquals(2, replica.fullSyncCount());
+        assertEquals("value-49", replicaService.get("k49"));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not reached in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
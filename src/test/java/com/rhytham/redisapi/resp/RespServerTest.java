@@ -0,0 +1,466 @@
+package com.rhytham.redisapi.resp;
+
+import com.rhytham.redisapi.config.ExpiryProperties;
+import com.rhytham.redisapi.config.StoreProperties;
+import com.rhytham.redisapi.dto.PipelineResult;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.metrics.CommandMetrics;
+import com.rhytham.redisapi.metrics.ExpiryMetrics;
+import com.rhytham.redisapi.metrics.KeyspaceMetrics;
+import com.rhytham.redisapi.pubsub.PubSubBroker;
+import com.rhytham.redisapi.pubsub.Subscriber;
+import com.rhytham.redisapi.service.InfoService;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RespServerTest {
+
+    private RespServer server;
+    private Socket socket;
+    private OutputStream out;
+    private InputStream in;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4);
+        CommandMetrics commandMetrics = new CommandMetrics(new SimpleMeterRegistry());
+        RedisService redisService = new RedisService(store, commandMetrics);
+        InfoService infoService = new InfoService(commandMetrics, new KeyspaceMetrics(store, 0),
+                new ExpiryMetrics(new SimpleMeterRegistry()), new StoreProperties(), new ExpiryProperties(), Optional.empty());
+        server = new RespServer(new RespCommandHandler(redisService, infoService), "127.0.0.1", 0, 2,
+                Executors.newFixedThreadPool(4));
+        server.start();
+        socket = new Socket("127.0.0.1", server.getPort());
+        socket.setSoTimeout(5000);
+        out = socket.getOutputStream();
+        in = socket.getInputStream();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        socket.close();
+        server.stop();
+    }
+
+    private static String command(String... args) {
+        StringBuilder sb = new StringBuilder("*").append(args.length).append("\r\n");
+        for (String arg : args) {
+            sb.append('$').append(arg.getBytes(StandardCharsets.UTF_8).length).append("\r\n").append(arg).append("\r\n");
+        }
+        return sb.toString();
+    }
+
+    private String send(String request, int expectedBytes) throws IOException {
+        out.write(request.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        return new String(in.readNBytes(expectedBytes), StandardCharsets.UTF_8);
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    @Test
+    void testPipelinedCommands() throws IOException {
+        String expected = "+OK\r\n$5\r\nalice\r\n:1\r\n:1\r\n$-1\r\n:0\r\n";
+        String reply = send(command("SET", "user", "alice")
+                + command("GET", "user")
+                + command("EXISTS", "user")
+                + command("DEL", "user", "missing")
+                + command("GET", "user")
+                + command("EXISTS", "user"), expected.length());
+
+        assertEquals(expected, reply);
+    }
+
+    @Test
+    void testMsetAndMget() throws IOException {
+        String expected = "+OK\r\n*3\r\n$1\r\n1\r\n$-1\r\n$1\r\n2\r\n:2\r\n";
+        String reply = send(command("MSET", "a", "1", "b", "2")
+                + command("MGET", "a", "missing", "b")
+                + command("DEL", "a", "b", "missing"), expected.length());
+
+        assertEquals(expected, reply);
+    }
+
+    @Test
+    void testExpireAndTtl() throws IOException {
+        String expected = "+OK\r\n:100\r\n:1\r\n:10\r\n:0\r\n:-2\r\n+OK\r\n:-1\r\n";
+        String reply = send(command("SET", "session", "x", "EX", "100")
+                + command("TTL", "session")
+                + command("EXPIRE", "session", "10")
+                + command("TTL", "session")
+                + command("EXPIRE", "missing", "10")
+                + command("TTL", "missing")
+                + command("SET", "forever", "y")
+                + command("TTL", "forever"), expected.length());
+
+        assertEquals(expected, reply);
+    }
+
+    @Test
+    void testKeysGlobAndFlushAll() throws IOException {
+        send(command("SET", "user:1", "a") + command("SET", "user:2", "b") + command("SET", "order:1", "c"), 15);
+
+        String keys = send(command("KEYS", "user:[0-9]"), 28);
+        assertTrue(keys.startsWith("*2\r\n"));
+        assertTrue(keys.contains("user:1") && keys.contains("user:2"));
+
+        String expected = "+OK\r\n*0\r\n";
+        assertEquals(expected, send(command("FLUSHALL") + command("KEYS", "*"), expected.length()));
+    }
+
+    @Test
+    void testInlineCommandsAndErrors() throws IOException {
+        String expected = "+PONG\r\n-ERR unknown command 'bogus'\r\n-ERR wrong number of arguments for 'get' command\r\n";
+        assertEquals(expected, send("PING\r\nBOGUS\r\n" + command("GET"), expected.length()));
+    }
+
+    @Test
+    void testHello3SwitchesNullEncoding() throws IOException {
+        String hello = send(command("HELLO", "3"), 1);
+        assertEquals("%", hello);
+        //Drain the rest of the HELLO map before checking the RESP3 null
+        String rest = new String(in.readNBytes(in.available()), StandardCharsets.UTF_8);
+        while (!rest.endsWith("*0\r\n")) {
+            rest += new String(in.readNBytes(1), StandardCharsets.UTF_8);
+        }
+
+        assertEquals("_\r\n", send(command("GET", "missing"), 3));
+    }
+
+    @Test
+    void testLargeValueSpanningSeveralReads() throws IOException {
+        String value = "v".repeat(100_000);
+        send(command("SET", "big", value), 5);
+
+        String header = "$100000\r\n";
+        String reply = send(command("GET", "big"), header.length() + value.length() + 2);
+        assertEquals(header + value + "\r\n", reply);
+    }
+
+    @Test
+    void testInfo() throws IOException {
+        send(command("SET", "a", "1") + command("SET", "b", "2", "EX", "100"), "+OK\r\n+OK\r\n".length());
+        out.write((command("INFO", "keyspace") + command("INFO")).getBytes(StandardCharsets.UTF_8));
+        out.flush();
+
+        String keyspace = new String(in.readNBytes(Integer.parseInt(readLine().substring(1))), StandardCharsets.UTF_8);
+        readLine();
+        assertTrue(keyspace.startsWith("# Keyspace\r\n"));
+        assertTrue(keyspace.contains("keys:2\r\n"));
+        assertTrue(keyspace.contains("keysWithExpiry:1\r\n"));
+        assertFalse(keyspace.contains("# Server"));
+
+        String all = new String(in.readNBytes(Integer.parseInt(readLine().substring(1))), StandardCharsets.UTF_8);
+        assertTrue(all.contains("# Server\r\n"));
+        assertTrue(all.contains("cmdstat_set:calls=2,p50Micros="));
+    }
+
+    @Test
+    void testScan() throws IOException {
+        send(command("MSET", "user:1", "a", "user:2", "b", "other", "c"), "+OK\r\n".length());
+
+        //4 shards and COUNT 10 cover the whole keyspace in one step
+        String expected = "*2\r\n$1\r\n0\r\n*2\r\n";
+        String reply = send(command("SCAN", "0", "MATCH", "user:*", "COUNT", "10"), expected.length());
+        assertEquals(expected, reply);
+        String keys = new String(in.readNBytes(2 * "$6\r\nuser:1\r\n".length()), StandardCharsets.UTF_8);
+        assertTrue(keys.contains("user:1") && keys.contains("user:2"));
+
+        String error = "-ERR invalid cursor\r\n";
+        assertEquals(error, send(command("SCAN", "banana"), error.length()));
+    }
+
+    @Test
+    void testDataTypeCommands() throws IOException {
+        String expected = ":2\r\n$1\r\n1\r\n:11\r\n+hash\r\n"
+                + ":3\r\n*2\r\n$1\r\nc\r\n$1\r\nb\r\n"
+                + ":2\r\n:1\r\n$6\r\nintset\r\n"
+                + ":2\r\n*4\r\n$3\r\nbob\r\n$3\r\n1.5\r\n$3\r\namy\r\n$1\r\n2\r\n";
+        String reply = send(command("HSET", "h", "a", "1", "b", "2")
+                + command("HGET", "h", "a")
+                + command("HINCRBY", "h", "a", "10")
+                + command("TYPE", "h")
+                + command("LPUSH", "l", "a", "b", "c")
+                + command("LRANGE", "l", "0", "1")
+                + command("SADD", "s", "1", "2")
+                + command("SISMEMBER", "s", "2")
+                + command("OBJECT", "ENCODING", "s")
+                + command("ZADD", "z", "2", "amy", "1.5", "bob")
+                + command("ZRANGEBYSCORE", "z", "-inf", "+inf", "WITHSCORES"), expected.length());
+        assertEquals(expected, reply);
+
+        String wrongType = "-WRONGTYPE Operation against a key holding the wrong kind of value\r\n";
+        assertEquals(wrongType, send(command("GET", "h"), wrongType.length()));
+        String badFloat = "-ERR value is not a valid float\r\n";
+        assertEquals(badFloat, send(command("ZADD", "z", "x", "m"), badFloat.length()));
+    }
+
+    @Test
+    void testCounterAndConditionalSetCommands() throws IOException {
+        String expected = ":1\r\n:11\r\n:10\r\n:5\r\n$3\r\n6.5\r\n"
+                + "+OK\r\n$-1\r\n:0\r\n$3\r\none\r\n$3\r\ntwo\r\n";
+        String reply = send(command("INCR", "n")
+                + command("INCRBY", "n", "10")
+                + command("DECR", "n")
+                + command("DECRBY", "n", "5")
+                + command("INCRBYFLOAT", "n", "1.5")
+                + command("SET", "lock", "one", "NX", "EX", "30")
+                + command("SET", "lock", "two", "NX")
+                + command("SETNX", "lock", "two")
+                + command("GETSET", "lock", "two")
+                + command("SET", "lock", "three", "GET"), expected.length());
+        assertEquals(expected, reply);
+
+        String notInteger = "-ERR value is not an integer or out of range\r\n";
+        assertEquals(notInteger, send(command("INCR", "lock"), notInteger.length()));
+        String syntax = "-ERR syntax error\r\n";
+        assertEquals(syntax, send(command("SET", "lock", "x", "NX", "GET"), syntax.length()));
+    }
+
+    @Test
+    void testBinaryValuesAndMemoryUsage() throws IOException {
+        byte[] binary = {(byte) 0xFF, 0, '\r', '\n', (byte) 0xC3, 0x28};
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        request.write("*3\r\n$3\r\nSET\r\n$3\r\nbin\r\n$6\r\n".getBytes(StandardCharsets.US_ASCII));
+        request.write(binary);
+        request.write(("\r\n" + command("GET", "bin") + command("MGET", "bin")).getBytes(StandardCharsets.US_ASCII));
+        out.write(request.toByteArray());
+        out.flush();
+
+        assertEquals("+OK", readLine());
+        assertEquals("$6", readLine());
+        assertArrayEquals(binary, in.readNBytes(6));
+        assertEquals("", readLine());
+        assertEquals("*1", readLine());
+        assertEquals("$6", readLine());
+        assertArrayEquals(binary, in.readNBytes(6));
+        assertEquals("", readLine());
+
+        send(command("SET", "n", "12345"), 5);
+        out.write(command("MEMORY", "USAGE", "n").getBytes(StandardCharsets.US_ASCII));
+        assertTrue(readLine().matches(":[1-9][0-9]*"));
+        assertEquals("$-1\r\n", send(command("MEMORY", "USAGE", "missing"), 5));
+        assertEquals("$3\r\nint\r\n", send(command("OBJECT", "ENCODING", "n"), 9));
+    }
+
+    @Test
+    void testReplicaRefusesWrites() throws IOException {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4);
+        RedisService redisService = new RedisService(store);
+        redisService.set("k", "v", null);
+        RespServer replica = new RespServer(new RespCommandHandler(redisService, null, null, true, null), "127.0.0.1", 0, 1);
+        replica.start();
+        try (Socket client = new Socket("127.0.0.1", replica.getPort())) {
+            client.setSoTimeout(5000);
+            String readOnly = "-READONLY You can't write against a read only replica.\r\n";
+            String expected = "$1\r\nv\r\n" + readOnly + readOnly + ":1\r\n";
+            client.getOutputStream().write((command("GET", "k") + command("SET", "k", "x") + command("DEL", "k")
+                    + command("EXISTS", "k")).getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(expected, new String(client.getInputStream().readNBytes(expected.length()), StandardCharsets.UTF_8));
+
+            //A write refused while queueing discards the whole transaction
+            expected = "+OK\r\n+QUEUED\r\n" + readOnly + "-EXECABORT Transaction discarded because of previous errors.\r\n";
+            client.getOutputStream().write((command("MULTI") + command("GET", "k") + command("SET", "k", "x")
+                    + command("EXEC")).getBytes(StandardCharsets.UTF_8));
+            assertEquals(expected, new String(client.getInputStream().readNBytes(expected.length()), StandardCharsets.UTF_8));
+        } finally {
+            replica.stop();
+        }
+    }
+
+    @Test
+    void testSubscriberReceivesPublishedMessages() throws IOException {
+        PubSubBroker broker = new PubSubBroker(16, Subscriber.Overflow.DISCONNECT);
+        RespServer pubsub = new RespServer(new RespCommandHandler(new RedisService(new InMemoryKeyValueStore(4)), null,
+                null, false, broker), "127.0.0.1", 0, 1);
+        pubsub.start();
+        try (Socket subscriber = new Socket("127.0.0.1", pubsub.getPort());
+             Socket publisher = new Socket("127.0.0.1", pubsub.getPort())) {
+            subscriber.setSoTimeout(5000);
+            publisher.setSoTimeout(5000);
+            OutputStream subscriberOut = subscriber.getOutputStream();
+            InputStream subscriberIn = subscriber.getInputStream();
+            subscriberOut.write((command("SUBSCRIBE", "news") + command("PSUBSCRIBE", "n*")).getBytes(StandardCharsets.UTF_8));
+            String subscribed = "*3\r\n$9\r\nsubscribe\r\n$4\r\nnews\r\n:1\r\n"
+                    + "*3\r\n$10\r\npsubscribe\r\n$2\r\nn*\r\n:2\r\n";
+            assertEquals(subscribed, new String(subscriberIn.readNBytes(subscribed.length()), StandardCharsets.UTF_8));
+
+            //A subscribed RESP2 connection only takes subscription commands
+            subscriberOut.write(command("GET", "k").getBytes(StandardCharsets.UTF_8));
+            String refused = "-ERR Can't execute 'get': only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT / RESET are allowed in this context\r\n";
+            assertEquals(refused, new String(subscriberIn.readNBytes(refused.length()), StandardCharsets.UTF_8));
+
+            publisher.getOutputStream().write(command("PUBLISH", "news", "hi").getBytes(StandardCharsets.UTF_8));
+            assertEquals(":2\r\n", new String(publisher.getInputStream().readNBytes(4), StandardCharsets.UTF_8));
+            String messages = "*3\r\n$7\r\nmessage\r\n$4\r\nnews\r\n$2\r\nhi\r\n"
+                    + "*4\r\n$8\r\npmessage\r\n$2\r\nn*\r\n$4\r\nnews\r\n$2\r\nhi\r\n";
+            assertEquals(messages, new String(subscriberIn.readNBytes(messages.length()), StandardCharsets.UTF_8));
+
+            subscriberOut.write((command("UNSUBSCRIBE") + command("PUNSUBSCRIBE") + command("PING"))
+                    .getBytes(StandardCharsets.UTF_8));
+            String unsubscribed = "*3\r\n$11\r\nunsubscribe\r\n$4\r\nnews\r\n:1\r\n"
+                    + "*3\r\n$12\r\npunsubscribe\r\n$2\r\nn*\r\n:0\r\n+PONG\r\n";
+            assertEquals(unsubscribed, new String(subscriberIn.readNBytes(unsubscribed.length()), StandardCharsets.UTF_8));
+            assertEquals(0, broker.subscriberCount());
+            assertEquals(0, broker.numpat());
+        } finally {
+            pubsub.stop();
+        }
+    }
+
+    @Test
+    void testMultiExecAndDiscard() throws IOException {
+        String expected = "+OK\r\n+QUEUED\r\n+QUEUED\r\n+QUEUED\r\n*3\r\n+OK\r\n:6\r\n$1\r\n6\r\n"
+                + "+OK\r\n+QUEUED\r\n+OK\r\n$1\r\n6\r\n";
+        String reply = send(command("MULTI") + command("SET", "n", "5") + command("INCR", "n") + command("GET", "n")
+                + command("EXEC")
+                + command("MULTI") + command("DEL", "n") + command("DISCARD") + command("GET", "n"), expected.length());
+        assertEquals(expected, reply);
+
+        //A command failing at EXEC does not undo the others, as in Redis
+        expected = "+OK\r\n+QUEUED\r\n+QUEUED\r\n*2\r\n+OK\r\n-ERR wrong number of arguments for 'get' command\r\n"
+                + "$1\r\n7\r\n-ERR EXEC without MULTI\r\n";
+        reply = send(command("MULTI") + command("SET", "n", "7") + command("GET") + command("EXEC") + command("GET", "n")
+                + command("EXEC"), expected.length());
+        assertEquals(expected, reply);
+    }
+
+    @Test
+    void testExecAbortsWhenWatchedKeyChanged() throws IOException {
+        assertEquals("+OK\r\n+OK\r\n", send(command("SET", "balance", "10") + command("WATCH", "balance"), 10));
+        try (Socket other = new Socket("127.0.0.1", server.getPort())) {
+            other.setSoTimeout(5000);
+            other.getOutputStream().write(command("INCRBY", "balance", "5").getBytes(StandardCharsets.UTF_8));
+            assertEquals(":15\r\n", new String(other.getInputStream().readNBytes(5), StandardCharsets.UTF_8));
+        }
+
+        String expected = "+OK\r\n+QUEUED\r\n*-1\r\n$2\r\n15\r\n";
+        assertEquals(expected, send(command("MULTI") + command("SET", "balance", "0") + command("EXEC")
+                + command("GET", "balance"), expected.length()));
+
+        //EXEC dropped the watch, so the retry goes through
+        expected = "+OK\r\n+OK\r\n+QUEUED\r\n*1\r\n+OK\r\n";
+        assertEquals(expected, send(command("WATCH", "balance") + command("MULTI") + command("SET", "balance", "0")
+                + command("EXEC"), expected.length()));
+    }
+
+    @Test
+    void testEvalAndEvalsha() throws IOException {
+        String script = "return redis.call('INCRBY', KEYS[1], ARGV[1])";
+        String sha = "8cd00688c05c46bde4a2e60658ef20a2e5c0b248";
+        String expected = ":5\r\n$40\r\n" + sha + "\r\n:7\r\n*2\r\n:1\r\n:0\r\n";
+        assertEquals(expected, send(command("EVAL", script, "1", "counter", "5")
+                + command("SCRIPT", "LOAD", script)
+                + command("EVALSHA", sha, "1", "counter", "2")
+                + command("SCRIPT", "EXISTS", sha, "0000000000000000000000000000000000000000"), expected.length()));
+
+        //Tables become arrays, cut at the first nil, and booleans become 1 and nil
+        expected = "*3\r\n:1\r\n$1\r\na\r\n:1\r\n$-1\r\n";
+        assertEquals(expected, send(command("EVAL", "return {1, 'a', true, nil, 2}", "0")
+                + command("EVAL", "return false", "0"), expected.length()));
+
+        expected = "-ERR Script attempted to access a non-declared key 'other'; pass every key in KEYS\r\n"
+                + "-ERR This Redis command is not allowed from script\r\n"
+                + "-NOSCRIPT No matching script. Please use EVAL.\r\n";
+        assertEquals(expected, send(command("EVAL", "return redis.call('GET', 'other')", "0")
+                + command("EVAL", "return redis.call('KEYS', '*')", "0")
+                + command("EVALSHA", "0000000000000000000000000000000000000000", "0"), expected.length()));
+    }
+
+    @Test
+    void testBlockedCommandDoesNotStallItsEventLoop() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4) {
+            @Override
+            public Optional<KeyValueEntry> findById(String key) {
+                if (key.equals("slow")) {
+                    reading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.findById(key);
+            }
+        };
+        //One event loop, so both connections share it
+        RespServer blocking = new RespServer(new RespCommandHandler(new RedisService(store), null), "127.0.0.1", 0, 1,
+                Executors.newFixedThreadPool(2));
+        blocking.start();
+        try (Socket slow = new Socket("127.0.0.1", blocking.getPort());
+             Socket fast = new Socket("127.0.0.1", blocking.getPort())) {
+            slow.setSoTimeout(5000);
+            fast.setSoTimeout(5000);
+            slow.getOutputStream().write((command("GET", "slow") + command("PING")).getBytes(StandardCharsets.UTF_8));
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+            fast.getOutputStream().write(command("PING").getBytes(StandardCharsets.UTF_8));
+            assertEquals("+PONG\r\n", new String(fast.getInputStream().readNBytes(7), StandardCharsets.UTF_8));
+
+            release.countDown();
+            String expected = "$-1\r\n+PONG\r\n";
+            assertEquals(expected, new String(slow.getInputStream().readNBytes(expected.length()), StandardCharsets.UTF_8));
+        } finally {
+            release.countDown();
+            blocking.stop();
+        }
+    }
+
+    @Test
+    void testHttpCallsRefuseConnectionCommands() {
+        PubSubBroker broker = new PubSubBroker(16, Subscriber.Overflow.DISCONNECT);
+        RespCommandHandler handler = new RespCommandHandler(new RedisService(new InMemoryKeyValueStore(4)), null,
+                null, false, broker);
+
+        List<PipelineResult> results = handler.call(List.of(args("SUBSCRIBE", "news"), args("PSUBSCRIBE", "n*"),
+                args("HELLO", "3"), args("PING")));
+        assertTrue(results.get(0).getError().startsWith("ERR Can't execute 'subscribe' over HTTP"));
+        assertNotNull(results.get(1).getError());
+        assertNotNull(results.get(2).getError());
+        assertEquals("PONG", results.get(3).getResult());
+        assertThrows(IllegalArgumentException.class,
+                () -> handler.transaction(Map.of(), List.of(args("SET", "k", "v"), args("SUBSCRIBE", "news"))));
+        assertEquals(0, broker.subscriberCount());
+        assertNull(handler.call(List.of(args("GET", "k"))).get(0).getResult());
+    }
+
+    private static List<byte[]> args(String... args) {
+        List<byte[]> command = new ArrayList<>();
+        for (String arg : args) {
+            command.add(arg.getBytes(StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+}
@@ -0,0 +1,87 @@
+package com.rhytham.redisapi.resp;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptEngineTest {
+
+    private final ScriptEngine engine = new ScriptEngine(2, 200);
+
+    private static final Function<List<byte[]>, Object> NO_CALLS = command -> {
+        throw new AssertionError("unexpected redis.call");
+    };
+
+    private Object eval(String source, Function<List<byte[]>, Object> call) {
+        return engine.run(engine.compile(source.getBytes(StandardCharsets.UTF_8)), List.of("k"),
+                List.of("a".getBytes(StandardCharsets.UTF_8)), call);
+    }
+
+    private static String error(Object reply) {
+        return assertInstanceOf(Replies.Error.class, reply).message();
+    }
+
+    @Test
+    void testSandboxRefusesGlobalsAndLibraryChanges() {
+        assertTrue(error(eval("x = 1", NO_CALLS)).contains("Script attempted to create global variable 'x'"));
+        assertTrue(error(eval("return os.time()", NO_CALLS))
+                .contains("Script attempted to access nonexistent global variable 'os'"));
+        assertTrue(error(eval("string.rep = nil", NO_CALLS)).contains("Attempt to modify a readonly table"));
+        assertTrue(error(eval("return loadstring", NO_CALLS)).contains("nonexistent global variable 'loadstring'"));
+        assertArrayEquals("ka".getBytes(StandardCharsets.UTF_8),
+                (byte[]) eval("local t = {KEYS[1], ARGV[1]} return table.concat(t)", NO_CALLS));
+    }
+
+    @Test
+    void testCallRaisesErrorRepliesAndPcallReturnsThem() {
+        List<List<byte[]>> calls = new ArrayList<>();
+        Function<List<byte[]>, Object> call = command -> {
+            calls.add(command);
+            return new Replies.Error("WRONGTYPE Operation against a key holding the wrong kind of value");
+        };
+
+        assertEquals("WRONGTYPE Operation against a key holding the wrong kind of value",
+                error(eval("redis.call('GET', KEYS[1]) return 1", call)));
+        assertEquals(1L, eval("local r = redis.pcall('INCRBY', KEYS[1], 2) return r.err and 1 or 0", call));
+        assertEquals(2, calls.size());
+        assertEquals("2", new String(calls.get(1).get(2), StandardCharsets.UTF_8));
+
+        assertEquals(new Replies.Status("FINE"), eval("return redis.status_reply('FINE')", NO_CALLS));
+        assertEquals("MY custom", error(eval("return redis.error_reply('MY custom')", NO_CALLS)));
+    }
+
+    @Test
+    void testScriptOverTimeLimitIsStopped() {
+        long start = System.nanoTime();
+        assertTrue(error(eval("while true do end", NO_CALLS)).startsWith("ERR Script killed"));
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+    }
+
+    @Test
+    void testTimeLimitCanNotBeCaughtByPcall() {
+        long start = System.nanoTime();
+        assertTrue(error(eval("while true do pcall(function() while true do end end) end", NO_CALLS))
+                .startsWith("ERR Script killed"));
+        assertTrue(error(eval("local n = 0 for i = 1, 20 do if not xpcall(function() while true do end end,"
+                + " function(e) return e end) then n = n + 1 end end return n", NO_CALLS))
+                .startsWith("ERR Script killed"));
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+    }
+
+    @Test
+    void testLeastRecentlyUsedScriptIsEvicted() {
+        String first = engine.load("return 1".getBytes(StandardCharsets.UTF_8));
+        String second = engine.load("return 2".getBytes(StandardCharsets.UTF_8));
+        assertNotNull(engine.find(first));
+        engine.load("return 3".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(engine.exists(first));
+        assertFalse(engine.exists(second));
+        assertThrows(IllegalArgumentException.class, () -> engine.load("return (".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,154 @@
+package com.rhytham.redisapi.service;
+
+import com.rhytham.redisapi.exception.KeyNotFoundException;
+import com.rhytham.redisapi.service.LinearizabilityChecker.Kind;
+import com.rhytham.redisapi.service.LinearizabilityChecker.Operation;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import com.rhytham.redisapi.store.KeyValueStore;
+import com.rhytham.redisapi.store.cache.CachingKeyValueStore;
+import com.rhytham.redisapi.store.cache.LruNearCache;
+import com.rhytham.redisapi.store.cache.TinyLfuNearCache;
+import com.rhytham.redisapi.store.coalesce.CoalescingKeyValueStore;
+import com.rhytham.redisapi.store.offheap.OffHeapKeyValueStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyspaceLinearizabilityTest {
+
+    private static final int THREADS = 4;
+    private static final int KEYS = 4;
+    private static final int OPERATIONS_PER_THREAD = 400;
+
+    private static KeyValueStore store(String engine) {
+        return switch (engine) {
+            case "lru" -> new CachingKeyValueStore(new InMemoryKeyValueStore(16), new LruNearCache(100, 0));
+            case "tinylfu" -> new CachingKeyValueStore(new InMemoryKeyValueStore(16), new TinyLfuNearCache(100, 0));
+            case "coalesce-flush" -> coalescing(CoalescingKeyValueStore.Ack.FLUSH);
+            case "coalesce-enqueue" -> coalescing(CoalescingKeyValueStore.Ack.ENQUEUE);
+            case "offheap" -> new OffHeapKeyValueStore(16, 4096);
+            default -> new InMemoryKeyValueStore(16);
+        };
+    }
+
+    private static KeyValueStore coalescing(CoalescingKeyValueStore.Ack ack) {
+        CoalescingKeyValueStore store = new CoalescingKeyValueStore(new InMemoryKeyValueStore(16), ack, 1, 16, 1000);
+        store.start();
+        return store;
+    }
+
+    @Test
+    void testCheckerRejectsStaleRead() {
+        List<Operation> history = List.of(
+                new Operation(Kind.SET, "1", null, null, 0, 10),
+                new Operation(Kind.GET, null, null, null, 20, 30));
+        assertFalse(LinearizabilityChecker.isLinearizable(history));
+
+        //Overlapping the write, the read may see either value
+        List<Operation> overlapping = List.of(
+                new Operation(Kind.SET, "1", null, null, 0, 10),
+                new Operation(Kind.GET, null, null, null, 5, 30));
+        assertTrue(LinearizabilityChecker.isLinearizable(overlapping));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memory", "lru", "tinylfu", "coalesce-flush", "coalesce-enqueue", "offheap"})
+    void testConcurrentHistoriesAreLinearizable(String engine) throws Exception {
+        RedisService redisService = new RedisService(store(engine));
+        List<List<Operation>> histories = new ArrayList<>();
+        for (int k = 0; k < KEYS; k++) {
+            histories.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int k = random.nextInt(KEYS);
+                    histories.get(k).add(call(redisService, "key" + k, random));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        for (int k = 0; k < KEYS; k++) {
+            assertTrue(LinearizabilityChecker.isLinearizable(histories.get(k)), "history of key" + k);
+        }
+    }
+
+    //Values stay small integers so INCR never meets a non-integer and CAS often matches
+    private static Operation call(RedisService redisService, String key, ThreadLocalRandom random) {
+        Kind kind = Kind.values()[random.nextInt(Kind.values().length)];
+        String value = Integer.toString(random.nextInt(4));
+        String expected = Integer.toString(random.nextInt(4));
+        long invoked = System.nanoTime();
+        Object result = switch (kind) {
+            case SET -> {
+                redisService.set(key, value, null);
+                yield null;
+            }
+            case GET -> redisService.find(key).orElse(null);
+            case DEL -> redisService.remove(key);
+            case INCR -> redisService.incrBy(key, 1);
+            case CAS -> redisService.compareAndSet(key, expected, value);
+            case SETNX -> redisService.setnx(key, value, null);
+        };
+        return new Operation(kind, value, expected, result, invoked, System.nanoTime());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memory", "lru", "offheap"})
+    void testExpireRacingIncrementsLosesNoIncrement(String engine) throws Exception {
+        RedisService redisService = new RedisService(store(engine));
+        int increments = 5000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<?>> counters = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            counters.add(executor.submit(() -> {
+                for (int i = 0; i < increments; i++) {
+                    redisService.incrBy("counter", 1);
+                }
+            }));
+        }
+        //EXPIRE used to read the entry and save it back, overwriting increments made in between
+        Future<?> expirer = executor.submit(() -> {
+            while (counters.stream().anyMatch(counter -> !counter.isDone())) {
+                try {
+                    redisService.expire("counter", 3600);
+                } catch (KeyNotFoundException e) {
+                    //not created yet
+                }
+            }
+        });
+        for (Future<?> counter : counters) {
+            counter.get(30, TimeUnit.SECONDS);
+        }
+        expirer.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(Integer.toString(2 * increments), redisService.get("counter"));
+        assertTrue(redisService.ttl("counter") > 0);
+    }
+}
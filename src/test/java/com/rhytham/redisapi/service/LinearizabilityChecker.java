@@ -0,0 +1,94 @@
+package com.rhytham.redisapi.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Wing and Gong's linearizability check for the history of one key, with the memoization from
+ * Lowe's variant: a search over orders of the recorded operations that respects real time (an
+ * operation that returned before another was invoked comes first) and in which every operation,
+ * replayed against a single-register model, returns what the store returned. Configurations of
+ * linearized operations and model state already explored are skipped, so histories of a few
+ * hundred operations from a handful of threads check in milliseconds.
+ */
+class LinearizabilityChecker {
+
+    enum Kind { SET, GET, DEL, INCR, CAS, SETNX }
+
+    /**
+     * One call against the key: {@code expected} is only used by CAS, {@code result} is what the
+     * store returned (the value for GET, the new value for INCR, a Boolean otherwise, null for SET).
+     */
+    record Operation(Kind kind, String value, String expected, Object result, long invoked, long returned) {
+    }
+
+    private record Step(String state, Object result) {
+    }
+
+    private record Configuration(BitSet linearized, String state) {
+    }
+
+    private final List<Operation> operations;
+    private final Set<Configuration> explored = new HashSet<>();
+
+    private LinearizabilityChecker(List<Operation> history) {
+        operations = new ArrayList<>(history);
+        operations.sort(Comparator.comparingLong(Operation::invoked));
+    }
+
+    /**
+     * True if the history of a key that started out missing is linearizable.
+     */
+    static boolean isLinearizable(List<Operation> history) {
+        return new LinearizabilityChecker(history).search(new BitSet(), null);
+    }
+
+    private boolean search(BitSet linearized, String state) {
+        if (linearized.cardinality() == operations.size()) {
+            return true;
+        }
+        if (!explored.add(new Configuration((BitSet) linearized.clone(), state))) {
+            return false;
+        }
+        //Only operations invoked before the first pending one returned can be next
+        long deadline = Long.MAX_VALUE;
+        for (int i = linearized.nextClearBit(0); i < operations.size(); i = linearized.nextClearBit(i + 1)) {
+            deadline = Math.min(deadline, operations.get(i).returned());
+        }
+        for (int i = linearized.nextClearBit(0); i < operations.size(); i = linearized.nextClearBit(i + 1)) {
+            Operation operation = operations.get(i);
+            if (operation.invoked() > deadline) {
+                break;
+            }
+            Step step = apply(operation, state);
+            if (Objects.equals(step.result(), operation.result())) {
+                linearized.set(i);
+                if (search(linearized, step.state())) {
+                    return true;
+                }
+                linearized.clear(i);
+            }
+        }
+        return false;
+    }
+
+    private static Step apply(Operation operation, String state) {
+        return switch (operation.kind()) {
+            case SET -> new Step(operation.value(), null);
+            case GET -> new Step(state, state);
+            case DEL -> new Step(null, state != null);
+            case INCR -> {
+                long next = (state == null ? 0 : Long.parseLong(state)) + 1;
+                yield new Step(Long.toString(next), next);
+            }
+            case CAS -> Objects.equals(state, operation.expected())
+                    ? new Step(operation.value(), true) : new Step(state, false);
+            case SETNX -> state == null ? new Step(operation.value(), true) : new Step(state, false);
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.rhytham.redisapi.service;
+
+import com.rhytham.redisapi.dto.PipelineCommand;
+import com.rhytham.redisapi.dto.PipelineResult;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.repository.KeyValueRepository;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import com.rhytham.redisapi.store.JpaKeyValueStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class PipelineServiceTest {
+
+    private PipelineService pipelineService;
+    private KeyValueRepository keyValueRepository;
+
+    @BeforeEach
+    void setUp(){
+        keyValueRepository = mock(KeyValueRepository.class);
+        JpaKeyValueStore store = new JpaKeyValueStore(keyValueRepository);
+        pipelineService = new PipelineService(store, new RedisService(store));
+    }
+
+    private static PipelineCommand command(String name, String... args){
+        return new PipelineCommand(name, List.of(args));
+    }
+
+    @Test
+    void testBatchUsesOneReadAndOneWrite(){
+        when(keyValueRepository.findAllById(any())).thenReturn(List.of(new KeyValueEntry("a", "1", null)));
+
+        List<PipelineResult> results = pipelineService.execute(List.of(
+                command("GET", "a"),
+                command("SET", "b", "2", "60"),
+                command("GET", "b"),
+                command("set", "c", "3"),
+                command("TTL", "b"),
+                command("EXISTS", "a", "b", "missing")));
+
+        assertEquals("1", results.get(0).getResult());
+        assertEquals("OK", results.get(1).getResult());
+        assertEquals("2", results.get(2).getResult());
+        assertEquals("OK", results.get(3).getResult());
+        assertEquals(60L, results.get(4).getResult());
+        assertEquals(2L, results.get(5).getResult());
+        verify(keyValueRepository, times(1)).findAllById(any());
+        verify(keyValueRepository, times(1)).upsertAll(argThat(entries -> entries.size() == 2));
+        verify(keyValueRepository, never()).save(any());
+        verify(keyValueRepository, never()).findById(any());
+    }
+
+    @Test
+    void testSetThenDelInSameBatchOnlyDeletes(){
+        when(keyValueRepository.findAllById(any())).thenReturn(List.of());
+
+        List<PipelineResult> results = pipelineService.execute(List.of(
+                command("SET", "k", "v"),
+                command("DEL", "k"),
+                command("GET", "k")));
+
+        assertEquals(1L, results.get(1).getResult());
+        assertNull(results.get(2).getResult());
+        verify(keyValueRepository, never()).upsertAll(any());
+        verify(keyValueRepository).deleteAllByIdReturningKeys(List.of("k"));
+    }
+
+    @Test
+    void testBadCommandDoesNotAbortBatch(){
+        when(keyValueRepository.findAllById(any())).thenReturn(List.of());
+
+        List<PipelineResult> results = pipelineService.execute(List.of(
+                command("NOPE", "k"),
+                command("SET", "k"),
+                command("SET", "k", "v")));
+
+        assertNotNull(results.get(0).getError());
+        assertNotNull(results.get(1).getError());
+        assertEquals("OK", results.get(2).getResult());
+        verify(keyValueRepository).upsertAll(argThat(entries -> entries.size() == 1));
+    }
+
+    @Test
+    void testFlushAllDropsEarlierWrites(){
+        when(keyValueRepository.findAllById(any())).thenReturn(List.of(new KeyValueEntry("a", "1", null)));
+
+        List<PipelineResult> results = pipelineService.execute(List.of(
+                command("SET", "b", "2"),
+                command("FLUSHALL"),
+                command("GET", "a"),
+                command("SET", "c", "3")));
+
+        assertNull(results.get(2).getResult());
+        verify(keyValueRepository).deleteAll();
+        verify(keyValueRepository).upsertAll(argThat(entries ->
+                entries.size() == 1 && entries.iterator().next().getKey().equals("c")));
+    }
+
+    @Test
+    void testBatchWaitsForATransactionOnItsKeys() throws Exception {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4);
+        RedisService redisService = new RedisService(store);
+        PipelineService pipeline = new PipelineService(store, redisService);
+        redisService.set("balance", "10", null);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> transaction = pool.submit(() -> redisService.atomically(List.of("balance"), () -> {
+                redisService.set("balance", "0", null);
+                inside.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                redisService.set("balance", "20", null);
+                return null;
+            }));
+            assertTrue(inside.await(5, TimeUnit.SECONDS));
+            Future<List<PipelineResult>> batch = pool.submit(() -> pipeline.execute(List.of(command("GET", "balance"))));
+            Thread.sleep(100);
+            assertFalse(batch.isDone()); //the transaction's intermediate value must not be visible
+
+            release.countDown();
+            transaction.get(5, TimeUnit.SECONDS);
+            assertEquals("20", batch.get(5, TimeUnit.SECONDS).get(0).getResult());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.rhytham.redisapi.service;
+
+import com.rhytham.redisapi.exception.KeyNotFoundException;
+import com.rhytham.redisapi.exception.WrongTypeException;
+import com.rhytham.redisapi.metrics.CommandMetrics;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+import com.rhytham.redisapi.repository.ReactiveKeyValueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ReactiveRedisServiceTest {
+
+    private ReactiveKeyValueRepository repository;
+    private ReactiveRedisService redisService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ReactiveKeyValueRepository.class);
+        redisService = new ReactiveRedisService(repository, CommandMetrics.noop(), 2);
+    }
+
+    @Test
+    void testEntriesReadsAtMostOnePageAhead() {
+        int pageSize = ReactiveRedisService.WALK_PAGE_SIZE;
+        List<KeyValueEntry> first = page("a", pageSize);
+        List<KeyValueEntry> second = page("b", pageSize);
+        String endOfFirst = first.get(pageSize - 1).getKey();
+        String endOfSecond = second.get(pageSize - 1).getKey();
+        when(repository.findPage("", pageSize)).thenReturn(Flux.fromIterable(first));
+        when(repository.findPage(endOfFirst, pageSize)).thenReturn(Flux.fromIterable(second));
+        when(repository.findPage(endOfSecond, pageSize)).thenReturn(Flux.just(new KeyValueEntry("c", "v", null)));
+        when(repository.deleteExpired(any(), anyLong())).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(redisService.entries(null), 0)
+                .thenRequest(10)
+                .expectNextCount(10)
+                .then(() -> verify(repository, never()).findPage(endOfSecond, pageSize))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(2L * pageSize - 10)
+                .assertNext(entry -> assertEquals("c", entry.get("key")))
+                .verifyComplete();
+    }
+
+    private static List<KeyValueEntry> page(String prefix, int size) {
+        List<KeyValueEntry> page = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            page.add(new KeyValueEntry(String.format("%s%05d", prefix, i), "v", null));
+        }
+        return page;
+    }
+
+    @Test
+    void testGetDeletesExpiredEntry() {
+        when(repository.findById("old")).thenReturn(Mono.just(new KeyValueEntry("old", "v", 1L)));
+        when(repository.deleteExpired(eq(List.of("old")), anyLong())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(redisService.get("old")).expectError(KeyNotFoundException.class).verify();
+        verify(repository).deleteExpired(eq(List.of("old")), anyLong());
+    }
+
+    @Test
+    void testIncrByOnNonIntegerValue() {
+        when(repository.incrementBy(eq("text"), eq(1L), anyLong())).thenReturn(Mono.empty());
+        when(repository.findById("text")).thenReturn(Mono.just(new KeyValueEntry("text", "abc", null)));
+        when(repository.incrementBy(eq("hash"), eq(1L), anyLong())).thenReturn(Mono.empty());
+        when(repository.findById("hash")).thenReturn(Mono.just(new KeyValueEntry("hash", "{}", null, ValueType.HASH)));
+
+        StepVerifier.create(redisService.incrBy("text", 1)).expectError(IllegalArgumentException.class).verify();
+        StepVerifier.create(redisService.incrBy("hash", 1)).expectError(WrongTypeException.class).verify();
+    }
+
+    @Test
+    void testCleanupDeletesInChunksUntilOneComesBackShort() {
+        when(repository.deleteExpiredChunk(anyLong(), eq(2))).thenReturn(Mono.just(2L), Mono.just(2L), Mono.just(1L));
+
+        StepVerifier.create(redisService.cleanupExpiredKeys()).expectNext(5L).verifyComplete();
+        verify(repository, times(3)).deleteExpiredChunk(anyLong(), eq(2));
+    }
+
+    @Test
+    void testScanReturnsCursorForNextPage() {
+        when(repository.findPage("", 2)).thenReturn(Flux.just(new KeyValueEntry("a", "1", null), new KeyValueEntry("b", "2", null)));
+        when(repository.findPage("b", 2)).thenReturn(Flux.just(new KeyValueEntry("c", "3", null)));
+        when(repository.deleteExpired(any(), anyLong())).thenReturn(Mono.just(0L));
+
+        RedisService.ScanResult first = redisService.scan("0", null, 2).block();
+        assertEquals(List.of("a", "b"), first.keys());
+        RedisService.ScanResult second = redisService.scan(first.cursor(), null, 2).block();
+        assertEquals(List.of("c"), second.keys());
+        assertEquals("0", second.cursor());
+    }
+}
@@ -0,0 +1,164 @@
+package com.rhytham.redisapi.service;
+
+import com.rhytham.redisapi.exception.WrongTypeException;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import com.rhytham.redisapi.store.StoreListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedisServiceCounterTest {
+
+    private RedisService redisService;
+
+    @BeforeEach
+    void setUp() {
+        redisService = new RedisService(new InMemoryKeyValueStore(16));
+    }
+
+    @Test
+    void testIncrementAndDecrement() {
+        assertEquals(1, redisService.incrBy("hits", 1));
+        assertEquals(11, redisService.incrBy("hits", 10));
+        assertEquals(8, redisService.decrBy("hits", 3));
+        assertEquals("8", redisService.get("hits"));
+
+        redisService.set("session", "5", 100L);
+        assertEquals(6, redisService.incrBy("session", 1));
+        assertTrue(redisService.ttl("session") > 90); //the key keeps its expiry
+
+        redisService.set("name", "ada", null);
+        assertThrows(IllegalArgumentException.class, () -> redisService.incrBy("name", 1));
+        redisService.set("max", Long.toString(Long.MAX_VALUE), null);
+        assertThrows(IllegalArgumentException.class, () -> redisService.incrBy("max", 1));
+        assertThrows(IllegalArgumentException.class, () -> redisService.decrBy("max", Long.MIN_VALUE));
+        assertEquals(Long.toString(Long.MAX_VALUE), redisService.get("max"));
+
+        redisService.sadd("tags", List.of("a"));
+        assertThrows(WrongTypeException.class, () -> redisService.incrBy("tags", 1));
+    }
+
+    @Test
+    void testIncrementByFloat() {
+        assertEquals("10.5", redisService.incrByFloat("price", 10.5));
+        assertEquals("10.6", redisService.incrByFloat("price", 0.1));
+        assertEquals("5000", redisService.incrByFloat("price", 4989.4));
+        assertEquals("0", redisService.incrByFloat("price", -5000));
+
+        redisService.set("name", "ada", null);
+        assertThrows(IllegalArgumentException.class, () -> redisService.incrByFloat("name", 1));
+        assertThrows(IllegalArgumentException.class, () -> redisService.incrByFloat("price", Double.NaN));
+    }
+
+    @Test
+    void testSetIfAbsentGetSetAndCompareAndSet() {
+        assertTrue(redisService.setnx("lock", "owner-1", 30L));
+        assertFalse(redisService.setnx("lock", "owner-2", 30L));
+        assertEquals("owner-1", redisService.get("lock"));
+
+        assertEquals("owner-1", redisService.getSet("lock", "owner-2", null));
+        assertNull(redisService.getSet("fresh", "value", null));
+        assertEquals(-1, redisService.ttl("lock")); //GETSET without a TTL clears it, as in Redis
+
+        redisService.set("version", "1", 100L);
+        assertFalse(redisService.compareAndSet("version", "0", "2"));
+        assertTrue(redisService.compareAndSet("version", "1", "2"));
+        assertEquals("2", redisService.get("version"));
+        assertTrue(redisService.ttl("version") > 90);
+        assertFalse(redisService.compareAndSet("missing", "1", "2"));
+
+        redisService.hset("user", Map.of("name", "ada"));
+        assertThrows(WrongTypeException.class, () -> redisService.compareAndSet("user", "x", "y"));
+        assertThrows(WrongTypeException.class, () -> redisService.getSet("user", "x", null));
+        assertFalse(redisService.setnx("user", "x", null));
+    }
+
+    @Test
+    void testLosingConditionalWritesReportNoWrite() {
+        //The lock-free first look sees a stale entry, as with a racing writer, so the calls reach the store's compute
+        AtomicReference<Optional<KeyValueEntry>> stale = new AtomicReference<>();
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4) {
+            @Override
+            public Optional<KeyValueEntry> findById(String key) {
+                return stale.get() != null ? stale.get() : super.findById(key);
+            }
+        };
+        RedisService service = new RedisService(store);
+        service.set("lock", "owner-1", null);
+        List<String> saved = new ArrayList<>();
+        store.addListener(new StoreListener() {
+            @Override
+            public void onSave(KeyValueEntry entry) {
+                saved.add(entry.getKey());
+            }
+
+            @Override
+            public void onDelete(String key) {
+            }
+
+            @Override
+            public void onDeleteAll() {
+            }
+        });
+
+        stale.set(Optional.empty());
+        assertFalse(service.setnx("lock", "owner-2", null));
+        stale.set(Optional.of(new KeyValueEntry("lock", "owner-2", null)));
+        assertFalse(service.compareAndSet("lock", "owner-2", "owner-3"));
+        assertFalse(store.updateExpiry("missing", System.currentTimeMillis() + 1000));
+        stale.set(null);
+
+        assertEquals(List.of(), saved);
+        assertTrue(service.compareAndSet("lock", "owner-1", "owner-3"));
+        assertEquals(List.of("lock"), saved);
+    }
+
+    @Test
+    void testConcurrentUpdatesOfHotKeysAreNotLost() throws Exception {
+        redisService.set("version", "0", null);
+        AtomicInteger lockHolders = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    if (redisService.setnx("lock", "owner", null)) {
+                        lockHolders.incrementAndGet();
+                    }
+                    for (int i = 0; i < 1000; i++) {
+                        redisService.incrBy("hits", 1);
+                        redisService.incrByFloat("score", 0.5);
+                    }
+                    for (int i = 0; i < 100; i++) {
+                        String current;
+                        do {
+                            current = redisService.get("version");
+                        } while (!redisService.compareAndSet("version", current, Long.toString(Long.parseLong(current) + 1)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(1, lockHolders.get());
+        assertEquals("8000", redisService.get("hits"));
+        assertEquals("4000", redisService.get("score"));
+        assertEquals("800", redisService.get("version"));
+    }
+}
@@ -0,0 +1,181 @@
+package com.rhytham.redisapi.service;
+
+import com.rhytham.redisapi.datatype.ScoredMember;
+import com.rhytham.redisapi.exception.WrongTypeException;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.model.ValueType;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import com.rhytham.redisapi.store.MemoryStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedisServiceDataTypeTest {
+
+    private InMemoryKeyValueStore store;
+    private RedisService redisService;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryKeyValueStore(16);
+        redisService = new RedisService(store);
+    }
+
+    @Test
+    void testHashCommands() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("name", "ada");
+        fields.put("visits", "1");
+        assertEquals(2, redisService.hset("user:1", fields));
+        assertEquals(0, redisService.hset("user:1", Map.of("name", "grace")));
+        assertEquals("grace", redisService.hget("user:1", "name"));
+        assertEquals(11, redisService.hincrBy("user:1", "visits", 10));
+        assertEquals("hash", redisService.type("user:1"));
+        assertEquals("listpack", redisService.encoding("user:1"));
+
+        //the decoded hash is changed in place, not rewritten
+        Object data = store.findById("user:1").orElseThrow().getData();
+        redisService.hset("user:1", Map.of("city", "london"));
+        assertSame(data, store.findById("user:1").orElseThrow().getData());
+
+        assertEquals(3, redisService.hdel("user:1", List.of("name", "visits", "city", "missing")));
+        assertFalse(redisService.exists("user:1")); //empty hashes are deleted
+        assertNull(redisService.hget("user:1", "name"));
+    }
+
+    @Test
+    void testListSetAndSortedSetCommands() {
+        assertEquals(3, redisService.lpush("jobs", List.of("a", "b", "c")));
+        assertEquals(4, redisService.rpush("jobs", List.of("z")));
+        assertEquals(List.of("c", "b", "a", "z"), redisService.lrange("jobs", 0, -1));
+        assertEquals("z", redisService.rpop("jobs"));
+        assertEquals("c", redisService.lpop("jobs"));
+        assertNull(redisService.rpop("missing"));
+
+        assertEquals(2, redisService.sadd("tags", List.of("1", "2", "2")));
+        assertEquals("intset", redisService.encoding("tags"));
+        assertTrue(redisService.sismember("tags", "2"));
+        assertEquals(1, redisService.srem("tags", List.of("2", "3")));
+        assertFalse(redisService.sismember("tags", "2"));
+
+        Map<String, Double> scores = new LinkedHashMap<>();
+        scores.put("bob", 20.0);
+        scores.put("amy", 10.0);
+        assertEquals(2, redisService.zadd("board", scores));
+        assertEquals(List.of(new ScoredMember("amy", 10), new ScoredMember("bob", 20)),
+                redisService.zrangeByScore("board", "-inf", "+inf"));
+        assertEquals(List.of(new ScoredMember("bob", 20)), redisService.zrangeByScore("board", "(10", "20"));
+        assertEquals(20.0, redisService.zscore("board", "bob"));
+        assertEquals(List.of("board", "jobs", "tags"), redisService.keys("*").stream().sorted().toList());
+    }
+
+    @Test
+    void testWrongTypeIsRejected() {
+        redisService.set("plain", "v", null);
+        redisService.sadd("set", List.of("m"));
+
+        assertThrows(WrongTypeException.class, () -> redisService.hset("plain", Map.of("f", "v")));
+        assertThrows(WrongTypeException.class, () -> redisService.lrange("set", 0, -1));
+        assertThrows(WrongTypeException.class, () -> redisService.get("set"));
+        assertEquals("v", redisService.get("plain")); //unchanged by the failed HSET
+        assertNull(redisService.mget(List.of("set")).get("set"));
+
+        redisService.set("set", "now a string", null);
+        assertEquals("string", redisService.type("set"));
+        assertEquals("none", redisService.type("missing"));
+    }
+
+    @Test
+    void testMemoryUsageAndStatsByEncoding() {
+        redisService.set("n", "1234567", null);
+        redisService.set("text", "hello", null);
+        redisService.set("doc", "{\"id\":1,\"tags\":[\"a\",\"b\"]}".repeat(100), null);
+        redisService.sadd("s", List.of("1", "2"));
+
+        assertEquals("int", redisService.encoding("n"));
+        assertEquals("raw", redisService.encoding("doc"));
+        assertTrue(redisService.memoryUsage("doc") < 1000);
+        assertNull(redisService.memoryUsage("missing"));
+
+        MemoryStats stats = redisService.memoryStats();
+        assertEquals(4, stats.keys());
+        assertEquals(Set.of("string:int", "string:raw", "string:zstd", "set:intset"), stats.encodings().keySet());
+        MemoryStats.EncodingStats compressed = stats.encodings().get("string:zstd");
+        assertEquals(2500, compressed.rawBytes());
+        assertTrue(compressed.storedBytes() < compressed.rawBytes() / 10);
+        assertEquals(5, stats.encodings().get("string:raw").rawBytes());
+    }
+
+    @Test
+    void testExpiredCollectionIsReplaced() {
+        store.save(new KeyValueEntry("old", "[\"stale\"]", System.currentTimeMillis() - 1, ValueType.SET));
+        assertFalse(redisService.sismember("old", "stale"));
+        assertEquals(1, redisService.sadd("old", List.of("fresh")));
+        assertEquals(List.of("fresh"), redisService.smembers("old"));
+        assertNull(store.findById("old").orElseThrow().getExpiryTime());
+    }
+
+    @Test
+    void testConcurrentIncrementsAreNotLost() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        redisService.hincrBy("counters", "hits", 1);
+                        redisService.rpush("log", List.of("x"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals("8000", redisService.hget("counters", "hits"));
+        assertEquals(8000, redisService.lrange("log", 0, -1).size());
+    }
+
+    @Test
+    void testReadersNeverSeeHalfOfAMultiFieldWrite() throws Exception {
+        redisService.hset("pair", Map.of("a", "0", "b", "0"));
+        redisService.sadd("members", List.of("x0", "y0"));
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                for (int i = 1; i <= 20_000; i++) {
+                    redisService.hset("pair", Map.of("a", String.valueOf(i), "b", String.valueOf(i)));
+                    redisService.srem("members", List.of("x" + (i - 1), "y" + (i - 1)));
+                    redisService.sadd("members", List.of("x" + i, "y" + i));
+                }
+                writing.set(false);
+            });
+            Future<?> reader = pool.submit(() -> {
+                while (writing.get()) {
+                    Map<String, String> pair = redisService.hgetAll("pair");
+                    assertEquals(pair.get("a"), pair.get("b"));
+                    List<String> members = redisService.smembers("members");
+                    assertTrue(members.isEmpty() || members.size() == 2, members.toString());
+                }
+            });
+            writer.get();
+            reader.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
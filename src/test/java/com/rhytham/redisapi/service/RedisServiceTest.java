@@ -1,19 +1,29 @@
 package com.rhytham.redisapi.service;
 
+import com.rhytham.redisapi.dto.KeyValueRequest;
 import com.rhytham.redisapi.exception.KeyNotFoundException;
 import com.rhytham.redisapi.model.KeyValueEntry;
 import com.rhytham.redisapi.repository.KeyValueRepository;
+import com.rhytham.redisapi.store.JpaKeyValueStore;
+import com.rhytham.redisapi.store.StoreListener;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.util.List;
@@ -27,7 +37,7 @@ public class RedisServiceTest {
     @BeforeEach
     void setUp(){
         keyValueRepository = mock(KeyValueRepository.class);
-        redisService = new RedisService(keyValueRepository);
+        redisService = new RedisService(new JpaKeyValueStore(keyValueRepository));
     }
 
     @Test
@@ -36,7 +46,6 @@ public class RedisServiceTest {
         String value = "Hello";
         KeyValueEntry entry = new KeyValueEntry(key,value,null);
 
-        when(keyValueRepository.save(any())).thenReturn(entry);
         when(keyValueRepository.findById(key)).thenReturn(Optional.of(entry));
 
         redisService.set(key,value, 0L);
@@ -45,10 +54,62 @@ public class RedisServiceTest {
         assertNotNull(retrieved);
         assertEquals("Hello",retrieved.get("value"));
 
-        verify(keyValueRepository).save(any());
+        verify(keyValueRepository).upsertAll(argThat(entries -> entries.size() == 1));
         verify(keyValueRepository).findById(key);
     }
 
+    @Test
+    void testPopOnMissingKeyReportsNoDelete(){
+        JpaKeyValueStore store = new JpaKeyValueStore(keyValueRepository);
+        redisService = new RedisService(store);
+        List<String> deleted = new ArrayList<>();
+        store.addListener(new StoreListener() {
+            @Override
+            public void onSave(KeyValueEntry entry) {
+            }
+
+            @Override
+            public void onDelete(String key) {
+                deleted.add(key);
+            }
+
+            @Override
+            public void onDeleteAll() {
+            }
+        });
+        Map<String, KeyValueEntry> rows = new HashMap<>();
+        when(keyValueRepository.compute(any(), any(), any())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            UnaryOperator<KeyValueEntry> update = invocation.getArgument(1);
+            KeyValueEntry next = update.apply(rows.get(key));
+            if (next == null) {
+                rows.remove(key);
+            } else {
+                rows.put(key, next);
+            }
+            return next;
+        });
+        redisService.rpush("list", List.of("a"));
+        deleted.clear();
+
+        assertNull(redisService.lpop("missing"));
+        assertEquals(List.of(), deleted);
+        assertEquals("a", redisService.lpop("list"));
+        assertEquals(List.of("list"), deleted);
+    }
+
+    @Test
+    void testCleanupDeletesExpiredKeysInChunks(){
+        redisService = new RedisService(new JpaKeyValueStore(keyValueRepository, 100));
+        when(keyValueRepository.deleteExpiredChunk(anyLong(), eq(100)))
+                .thenReturn(Collections.nCopies(100, "k"))
+                .thenReturn(Collections.nCopies(100, "k"))
+                .thenReturn(Collections.nCopies(37, "k"));
+
+        assertEquals(237, redisService.cleanupExpiredKeys());
+        verify(keyValueRepository, times(3)).deleteExpiredChunk(anyLong(), eq(100));
+    }
+
     @Test
     void testGetEntryThrowExceptionNotFound(){
         when(keyValueRepository.findById("noKey")).thenReturn(Optional.empty());
@@ -61,8 +122,7 @@ public class RedisServiceTest {
         String key = "delKey";
         KeyValueEntry entry = new KeyValueEntry(key,"data",null);
 
-        when(keyValueRepository.findById(key)).thenReturn(Optional.of(entry));
-        doNothing().when(keyValueRepository).deleteById(key);
+        when(keyValueRepository.deleteAllByIdReturningKeys(List.of(key))).thenReturn(List.of(key));
 
         assertTrue(redisService.delete(key));
     }
@@ -133,7 +193,7 @@ public class RedisServiceTest {
 
         List<KeyValueEntry> mockList = List.of(entry1, entry2);
 
-        when(keyValueRepository.findAll()).thenReturn(mockList);
+        when(keyValueRepository.findByKeyGreaterThanOrderByKeyAsc(eq(""), any())).thenReturn(mockList);
 
         List<Map<String, Object>> result = redisService.getAllEntries();
 
@@ -145,4 +205,100 @@ public class RedisServiceTest {
         assertTrue(keys.contains("key1"));
         assertFalse(keys.contains("key2"));
     }
+
+    @Test
+    void testScanWalksKeysetPages() {
+        long past = System.currentTimeMillis() - 1000;
+        when(keyValueRepository.findByKeyGreaterThanOrderByKeyAsc(eq(""), any()))
+                .thenReturn(List.of(new KeyValueEntry("a", "1", null), new KeyValueEntry("b", "2", past)));
+        when(keyValueRepository.findByKeyGreaterThanOrderByKeyAsc(eq("b"), any()))
+                .thenReturn(List.of(new KeyValueEntry("user:1", "3", null)));
+        when(keyValueRepository.deleteExpiredReturningKeys(any(), anyLong())).thenReturn(List.of("b"));
+
+        RedisService.ScanResult first = redisService.scan("0", null, 2);
+        assertEquals(List.of("a"), first.keys()); //expired "b" is skipped and deleted
+        assertNotEquals("0", first.cursor());
+        verify(keyValueRepository).deleteExpiredReturningKeys(eq(List.of("b")), anyLong());
+
+        RedisService.ScanResult second = redisService.scan(first.cursor(), "user:*", 2);
+        assertEquals(List.of("user:1"), second.keys());
+        assertEquals("0", second.cursor());
+    }
+
+    @Test
+    void testScanRejectsForeignCursor() {
+        assertThrows(IllegalArgumentException.class, () -> redisService.scan("not base64!", null, 10));
+        assertThrows(IllegalArgumentException.class, () -> redisService.scan("0", null, 0));
+    }
+
+    @Test
+    void testGetExpiredKeyIsDeletedLazily() {
+        String key = "lazyKey";
+        KeyValueEntry entry = new KeyValueEntry(key, "value", System.currentTimeMillis() - 1000);
+        when(keyValueRepository.findById(key)).thenReturn(Optional.of(entry));
+
+        assertThrows(KeyNotFoundException.class, () -> redisService.get(key));
+        assertFalse(redisService.exists(key));
+
+        verify(keyValueRepository, times(2)).deleteExpiredReturningKeys(eq(List.of(key)), anyLong());
+    }
+
+    @Test
+    void testGetMissingKeyDoesNotIssueDelete() {
+        when(keyValueRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertThrows(KeyNotFoundException.class, () -> redisService.get("missing"));
+
+        verify(keyValueRepository, never()).deleteById(any());
+        verify(keyValueRepository, never()).deleteExpiredReturningKeys(any(), anyLong());
+    }
+
+    @Test
+    void testMsetWritesOneBatch(){
+        KeyValueRequest first = new KeyValueRequest();
+        first.setKey("a");
+        first.setValue("1");
+        KeyValueRequest second = new KeyValueRequest();
+        second.setKey("b");
+        second.setValue("2");
+        second.setTtl(60L);
+
+        redisService.mset(List.of(first, second));
+
+        verify(keyValueRepository).upsertAll(argThat(entries -> entries.size() == 2));
+        verify(keyValueRepository, never()).save(any());
+    }
+
+    @Test
+    void testMgetReturnsValuesInRequestOrder(){
+        when(keyValueRepository.findAllById(any())).thenReturn(List.of(
+                new KeyValueEntry("b", "2", null),
+                new KeyValueEntry("a", "1", null)));
+
+        Map<String, String> values = redisService.mget(List.of("a", "missing", "b"));
+
+        assertEquals(List.of("a", "missing", "b"), List.copyOf(values.keySet()));
+        assertEquals("1", values.get("a"));
+        assertNull(values.get("missing"));
+        assertEquals("2", values.get("b"));
+        verify(keyValueRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void testMgetTreatsExpiredAsMissing(){
+        when(keyValueRepository.findAllById(any())).thenReturn(List.of(
+                new KeyValueEntry("old", "v", System.currentTimeMillis() - 1000)));
+
+        Map<String, String> values = redisService.mget(List.of("old"));
+
+        assertNull(values.get("old"));
+        verify(keyValueRepository).deleteExpiredReturningKeys(eq(List.of("old")), anyLong());
+    }
+
+    @Test
+    void testMdelReturnsDeletedCount(){
+        when(keyValueRepository.deleteAllByIdReturningKeys(any())).thenReturn(List.of("a"));
+
+        assertEquals(1, redisService.mdel(List.of("a", "b")));
+    }
 }
@@ -0,0 +1,107 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.service.RedisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InMemoryKeyValueStoreTest {
+
+    private InMemoryKeyValueStore store;
+    private StoreListener listener;
+
+    @BeforeEach
+    void setUp(){
+        store = new InMemoryKeyValueStore(16);
+        listener = mock(StoreListener.class);
+        store.addListener(listener);
+    }
+
+    @Test
+    void testShardCountRoundedToPowerOfTwo(){
+        assertEquals(16, store.shardCount());
+        assertEquals(32, new InMemoryKeyValueStore(17).shardCount());
+        assertEquals(1, new InMemoryKeyValueStore(1).shardCount());
+    }
+
+    @Test
+    void testSaveFindAndDeleteNotifyListeners(){
+        KeyValueEntry entry = new KeyValueEntry("key1", "value1", null);
+        store.save(entry);
+
+        assertSame(entry, store.findById("key1").orElseThrow());
+        assertEquals(1, store.count());
+        verify(listener).onSave(entry);
+
+        store.deleteById("key1");
+        store.deleteById("key1");
+
+        assertTrue(store.findById("key1").isEmpty());
+        verify(listener, times(1)).onDelete("key1");
+    }
+
+    @Test
+    void testLoadDoesNotNotifyListeners(){
+        store.load(new KeyValueEntry("loaded", "value", null));
+
+        assertTrue(store.findById("loaded").isPresent());
+        verifyNoInteractions(listener);
+    }
+
+    @Test
+    void testDeleteAllExpiredRemovesOnlyExpiredKeys(){
+        long now = System.currentTimeMillis();
+        store.save(new KeyValueEntry("live", "v", now + 10000));
+        store.save(new KeyValueEntry("dead", "v", now - 1000));
+        store.save(new KeyValueEntry("forever", "v", null));
+
+        store.deleteAllExpired(now);
+
+        assertEquals(2, store.count());
+        assertTrue(store.findById("dead").isEmpty());
+        verify(listener).onDelete("dead");
+    }
+
+    @Test
+    void testScanReturnsEveryKeyOnce(){
+        for (int i = 0; i < 500; i++) {
+            store.save(new KeyValueEntry("key" + i, "v", null));
+        }
+        Set<String> seen = new HashSet<>();
+        String cursor = ScanPage.START;
+        int steps = 0;
+        do {
+            ScanPage page = store.scan(cursor, 20);
+            page.entries().forEach(entry -> assertTrue(seen.add(entry.getKey()), "duplicate " + entry.getKey()));
+            cursor = page.cursor();
+            steps++;
+        } while (!cursor.equals(ScanPage.START));
+
+        assertEquals(500, seen.size());
+        assertTrue(steps > 1);
+        assertThrows(IllegalArgumentException.class, () -> store.scan("16", 20));
+    }
+
+    @Test
+    void testRedisServiceReadsServedFromMemory(){
+        RedisService redisService = new RedisService(store);
+        redisService.set("user", "alice", 60L);
+
+        assertEquals("alice", redisService.get("user"));
+        assertTrue(redisService.exists("user"));
+        List<Map<String, Object>> entries = redisService.getAllEntries();
+        assertEquals(1, entries.size());
+
+        redisService.flushAll();
+        assertFalse(redisService.exists("user"));
+        verify(listener).onDeleteAll();
+    }
+}
@@ -0,0 +1,88 @@
+package com.rhytham.redisapi.store;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.repository.KeyValueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class WriteBehindPersisterTest {
+
+    private InMemoryKeyValueStore store;
+    private KeyValueRepository repository;
+    private WriteBehindPersister persister;
+
+    @BeforeEach
+    void setUp(){
+        store = new InMemoryKeyValueStore(4);
+        repository = mock(KeyValueRepository.class);
+        persister = new WriteBehindPersister(store, repository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 2);
+    }
+
+    @Test
+    void testLoadSkipsExpiredRows(){
+        when(repository.findByKeyGreaterThanOrderByKeyAsc(eq(""), any(Limit.class))).thenReturn(List.of(
+                new KeyValueEntry("a", "1", null),
+                new KeyValueEntry("b", "2", System.currentTimeMillis() - 1000)));
+
+        persister.loadAndAttach();
+
+        assertTrue(store.findById("a").isPresent());
+        assertTrue(store.findById("b").isEmpty());
+        assertEquals(0, persister.pendingCount());
+    }
+
+    @Test
+    void testFlushCoalescesWritesAndDeletes(){
+        persister.loadAndAttach();
+        store.save(new KeyValueEntry("k1", "v1", null));
+        store.save(new KeyValueEntry("k1", "v2", null));
+        store.save(new KeyValueEntry("k2", "v", null));
+        store.deleteById("k2");
+
+        assertEquals(2, persister.pendingCount());
+        persister.flush();
+
+        verify(repository).upsertAll(argThat(entries ->
+                entries.size() == 1
+                        && entries.iterator().next().getValue().equals("v2")));
+        verify(repository).deleteAllByIdInBatch(List.of("k2"));
+        assertEquals(0, persister.pendingCount());
+    }
+
+    @Test
+    void testFlushAllDeletesTableBeforeWritingNewKeys(){
+        persister.loadAndAttach();
+        store.save(new KeyValueEntry("old", "v", null));
+        store.deleteAll();
+        store.save(new KeyValueEntry("new", "v", null));
+
+        persister.flush();
+
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).deleteAllInBatch();
+        inOrder.verify(repository).upsertAll(anyList());
+        inOrder.verify(repository).deleteAllByIdInBatch(List.of("old"));
+    }
+
+    @Test
+    void testFailedBatchIsRetried(){
+        persister.loadAndAttach();
+        store.save(new KeyValueEntry("k", "v", null));
+        doThrow(new RuntimeException("db down")).when(repository).upsertAll(anyList());
+
+        persister.flush();
+
+        assertEquals(1, persister.pendingCount());
+    }
+}
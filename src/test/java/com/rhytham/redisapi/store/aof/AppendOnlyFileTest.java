@@ -0,0 +1,169 @@
+package com.rhytham.redisapi.store.aof;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppendOnlyFileTest {
+
+    @TempDir
+    Path dir;
+
+    private AppendOnlyFile aof;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (aof != null) {
+            aof.stop();
+        }
+    }
+
+    private InMemoryKeyValueStore open(AppendOnlyFile.FsyncPolicy policy, long rewriteMinSize) throws IOException {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4);
+        aof = new AppendOnlyFile(store, dir.resolve("appendonly.aof"), policy, rewriteMinSize, 100);
+        aof.start();
+        return store;
+    }
+
+    private InMemoryKeyValueStore reopen(AppendOnlyFile.FsyncPolicy policy) throws Exception {
+        aof.stop();
+        return open(policy, Long.MAX_VALUE);
+    }
+
+    @Test
+    void testReplayRestoresState() throws Exception {
+        InMemoryKeyValueStore store = open(AppendOnlyFile.FsyncPolicy.ALWAYS, Long.MAX_VALUE);
+        store.save(new KeyValueEntry("a", "1", null));
+        store.save(new KeyValueEntry("a", "2", null));
+        store.save(new KeyValueEntry("b", "x", System.currentTimeMillis() + 60_000));
+        store.save(new KeyValueEntry("gone", "x", null));
+        store.deleteById("gone");
+
+        InMemoryKeyValueStore restored = reopen(AppendOnlyFile.FsyncPolicy.ALWAYS);
+
+        assertEquals(2, restored.count());
+        assertEquals("2", restored.findById("a").orElseThrow().getValue());
+        assertNotNull(restored.findById("b").orElseThrow().getExpiryTime());
+        assertTrue(restored.findById("gone").isEmpty());
+    }
+
+    @Test
+    void testTypedValuesReplay() throws Exception {
+        RedisService service = new RedisService(open(AppendOnlyFile.FsyncPolicy.ALWAYS, Long.MAX_VALUE));
+        service.hset("h", Map.of("f", "1"));
+        service.hincrBy("h", "f", 4);
+        service.rpush("l", List.of("a", "b"));
+        service.lpop("l");
+        service.zadd("z", Map.of("m", 1.5));
+        service.sadd("s", List.of("gone"));
+        service.srem("s", List.of("gone"));
+
+        RedisService restored = new RedisService(reopen(AppendOnlyFile.FsyncPolicy.ALWAYS));
+
+        assertEquals("5", restored.hget("h", "f"));
+        assertEquals(List.of("b"), restored.lrange("l", 0, -1));
+        assertEquals(1.5, restored.zscore("z", "m"));
+        assertEquals("none", restored.type("s"));
+    }
+
+    @Test
+    void testFlushAllAndExpiredEntriesAreNotRestored() throws Exception {
+        InMemoryKeyValueStore store = open(AppendOnlyFile.FsyncPolicy.EVERYSEC, Long.MAX_VALUE);
+        store.save(new KeyValueEntry("old", "v", null));
+        store.deleteAll();
+        store.save(new KeyValueEntry("short", "v", System.currentTimeMillis() + 50));
+        store.save(new KeyValueEntry("new", "v", null));
+        Thread.sleep(100);
+
+        InMemoryKeyValueStore restored = reopen(AppendOnlyFile.FsyncPolicy.EVERYSEC);
+
+        assertEquals(1, restored.count());
+        assertTrue(restored.findById("new").isPresent());
+    }
+
+    @Test
+    void testTornTailIsTruncated() throws Exception {
+        InMemoryKeyValueStore store = open(AppendOnlyFile.FsyncPolicy.ALWAYS, Long.MAX_VALUE);
+        store.save(new KeyValueEntry("a", "1", null));
+        store.save(new KeyValueEntry("b", "2", null));
+        aof.stop();
+        Path file = dir.resolve("appendonly.aof");
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        InMemoryKeyValueStore restored = open(AppendOnlyFile.FsyncPolicy.ALWAYS, Long.MAX_VALUE);
+
+        assertEquals(1, restored.count());
+        assertTrue(restored.findById("a").isPresent());
+        assertTrue(Files.size(file) < size - 3);
+        restored.save(new KeyValueEntry("c", "3", null));
+        assertEquals(2, reopen(AppendOnlyFile.FsyncPolicy.ALWAYS).count());
+    }
+
+    @Test
+    void testConcurrentWritersShareFsyncs() throws Exception {
+        InMemoryKeyValueStore store = open(AppendOnlyFile.FsyncPolicy.ALWAYS, Long.MAX_VALUE);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            pool.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    store.save(new KeyValueEntry("k" + thread + ":" + i, "v" + i, null));
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(1600, reopen(AppendOnlyFile.FsyncPolicy.ALWAYS).count());
+    }
+
+    @Test
+    void testRewriteShrinksLogAndKeepsConcurrentWrites() throws Exception {
+        InMemoryKeyValueStore store = open(AppendOnlyFile.FsyncPolicy.ALWAYS, Long.MAX_VALUE);
+        for (int i = 0; i < 2000; i++) {
+            store.save(new KeyValueEntry("hot", "v" + i, null));
+        }
+        store.save(new KeyValueEntry("cold", "v", null));
+        long before = aof.size();
+
+        assertTrue(aof.rewrite());
+        store.save(new KeyValueEntry("during", "v", null));
+        store.deleteById("cold");
+        waitUntilRewritten();
+        store.save(new KeyValueEntry("after", "v", null));
+
+        assertTrue(aof.size() < before / 10);
+        InMemoryKeyValueStore restored = reopen(AppendOnlyFile.FsyncPolicy.ALWAYS);
+        assertEquals("v1999", restored.findById("hot").orElseThrow().getValue());
+        assertTrue(restored.findById("during").isPresent());
+        assertTrue(restored.findById("after").isPresent());
+        assertTrue(restored.findById("cold").isEmpty());
+    }
+
+    private void waitUntilRewritten() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (aof.isRewriting() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(aof.isRewriting());
+    }
+}
@@ -0,0 +1,112 @@
+package com.rhytham.redisapi.store.cache;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.repository.KeyValueRepository;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.JpaKeyValueStore;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingKeyValueStoreTest {
+
+    private KeyValueRepository repository;
+
+    private CachingKeyValueStore storeWith(NearCache cache) {
+        repository = mock(KeyValueRepository.class);
+        return new CachingKeyValueStore(new JpaKeyValueStore(repository), cache);
+    }
+
+    private static NearCache cache(String policy) {
+        return "lru".equals(policy) ? new LruNearCache(100, 0) : new TinyLfuNearCache(100, 0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"lru", "tinylfu"})
+    void testRepeatedReadsHitCache(String policy) {
+        NearCache cache = cache(policy);
+        CachingKeyValueStore store = storeWith(cache);
+        when(repository.findById("k")).thenReturn(Optional.of(new KeyValueEntry("k", "v", null)));
+
+        RedisService redisService = new RedisService(store);
+        assertEquals("v", redisService.get("k"));
+        assertEquals("v", redisService.get("k"));
+        assertTrue(redisService.exists("k"));
+
+        verify(repository, times(1)).findById("k");
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"lru", "tinylfu"})
+    void testMutationsInvalidate(String policy) {
+        CachingKeyValueStore store = storeWith(cache(policy));
+        when(repository.findById("k")).thenReturn(Optional.of(new KeyValueEntry("k", "v", null)));
+        when(repository.updateExpiry(eq("k"), anyLong(), anyLong())).thenReturn(Optional.of(new KeyValueEntry("k", "v2", null)));
+        RedisService redisService = new RedisService(store);
+
+        redisService.get("k");
+        redisService.set("k", "v2", null);
+        redisService.get("k");
+        redisService.expire("k", 60);
+        redisService.get("k");
+        redisService.flushAll();
+        redisService.get("k");
+
+        //every read after a mutation goes back to the repository
+        verify(repository, times(4)).findById("k");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"lru", "tinylfu"})
+    void testEntryDropsOutWhenKeyExpires(String policy) throws InterruptedException {
+        CachingKeyValueStore store = storeWith(cache(policy));
+        when(repository.findById("k"))
+                .thenReturn(Optional.of(new KeyValueEntry("k", "v", System.currentTimeMillis() + 50)))
+                .thenReturn(Optional.empty());
+
+        assertTrue(store.findById("k").isPresent());
+        Thread.sleep(80);
+        assertTrue(store.findById("k").isEmpty());
+    }
+
+    @Test
+    void testIncrementIsOneStatementAndInvalidates() {
+        CachingKeyValueStore store = storeWith(cache("lru"));
+        when(repository.findById("n")).thenReturn(Optional.of(new KeyValueEntry("n", "1", null)));
+        when(repository.incrementBy(eq("n"), eq(1L), anyLong())).thenReturn(Optional.of(new KeyValueEntry("n", "2", null)));
+        RedisService redisService = new RedisService(store);
+
+        redisService.get("n");
+        assertEquals(2, redisService.incrBy("n", 1));
+        redisService.get("n");
+
+        verify(repository, never()).compute(any(), any(), any());
+        verify(repository, times(2)).findById("n");
+    }
+
+    @Test
+    void testLruEvictsLeastRecentlyUsedByBytes() {
+        KeyValueEntry entry = new KeyValueEntry("a", "x".repeat(100), null);
+        long oneEntry = NearCache.weigh(entry);
+        //16 segments, so give every segment room for exactly one entry
+        LruNearCache cache = new LruNearCache(0, oneEntry * 16);
+
+        cache.put(entry);
+        cache.put(new KeyValueEntry("a", "y".repeat(100), null));
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.evictionCount());
+
+        for (int i = 0; i < 200; i++) {
+            cache.put(new KeyValueEntry("key" + i, "x".repeat(100), null));
+        }
+        assertTrue(cache.size() <= 16);
+        assertTrue(cache.evictionCount() > 0);
+    }
+}
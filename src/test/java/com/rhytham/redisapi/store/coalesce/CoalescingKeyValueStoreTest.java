@@ -0,0 +1,130 @@
+package com.rhytham.redisapi.store.coalesce;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.repository.KeyValueRepository;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.JpaKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CoalescingKeyValueStoreTest {
+
+    private final KeyValueRepository repository = mock(KeyValueRepository.class);
+    private CoalescingKeyValueStore store;
+
+    private CoalescingKeyValueStore start(CoalescingKeyValueStore.Ack ack, long windowMs, int batchSize) {
+        store = new CoalescingKeyValueStore(new JpaKeyValueStore(repository), ack, windowMs, batchSize, 1000);
+        store.start();
+        return store;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        store.stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Collection<KeyValueEntry>> upserts() {
+        ArgumentCaptor<Collection<KeyValueEntry>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(repository, atLeastOnce()).upsertAll(batches.capture());
+        return batches.getAllValues();
+    }
+
+    @Test
+    void testRepeatedWritesWithinWindowCostOneRow() throws InterruptedException {
+        RedisService redisService = new RedisService(start(CoalescingKeyValueStore.Ack.ENQUEUE, 60_000, 500));
+        for (int i = 0; i < 100; i++) {
+            redisService.set("counter", Integer.toString(i), null);
+        }
+        redisService.set("other", "x", null);
+        //Read-your-writes while the batch is still open
+        assertEquals("99", redisService.get("counter"));
+        verify(repository, never()).upsertAll(any());
+
+        store.stop();
+        List<Collection<KeyValueEntry>> batches = upserts();
+        assertEquals(1, batches.size());
+        Map<String, String> written = new HashMap<>();
+        batches.get(0).forEach(entry -> written.put(entry.getKey(), entry.getValue()));
+        assertEquals(Map.of("counter", "99", "other", "x"), written);
+        assertEquals(101, store.writeCount());
+        assertEquals(2, store.rowsWrittenCount());
+    }
+
+    @Test
+    void testFlushAckSharesOneCommitAcrossWriters() throws Exception {
+        start(CoalescingKeyValueStore.Ack.FLUSH, 50, 500);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String key = "k" + t;
+            writers.add(executor.submit(() -> store.save(new KeyValueEntry(key, "v", null))));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //Every save returned only after an upsert containing it, and they shared fewer commits than writers
+        int rows = upserts().stream().mapToInt(Collection::size).sum();
+        assertEquals(8, rows);
+        assertTrue(store.flushCount() < 8, "flushes: " + store.flushCount());
+    }
+
+    @Test
+    void testFlushAckSurfacesFailureAndHidesUncommittedWrite() {
+        start(CoalescingKeyValueStore.Ack.FLUSH, 0, 500);
+        doThrow(new DataAccessResourceFailureException("down")).when(repository).upsertAll(any());
+        when(repository.findById("k")).thenReturn(Optional.empty());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> store.save(new KeyValueEntry("k", "v", null)));
+        assertTrue(store.findById("k").isEmpty());
+        assertEquals(0, store.pendingCount());
+    }
+
+    @Test
+    void testEnqueueAckRetriesFailedFlush() throws InterruptedException {
+        start(CoalescingKeyValueStore.Ack.ENQUEUE, 0, 500);
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(repository).upsertAll(any());
+        when(repository.deleteAllByIdReturningKeys(List.of("k"))).thenReturn(List.of("k"));
+
+        store.save(new KeyValueEntry("k", "v", null));
+        assertEquals("v", store.findById("k").orElseThrow().getValue());
+
+        //An operation that needs the row in the database waits for the retried flush
+        assertEquals(1, store.deleteAllById(List.of("k")));
+        verify(repository, times(2)).upsertAll(any());
+        assertEquals(1, store.failedFlushCount());
+        assertEquals(0, store.pendingCount());
+    }
+
+    @Test
+    void testFullBatchFlushesWithoutWaitingForWindow() throws Exception {
+        start(CoalescingKeyValueStore.Ack.FLUSH, 60_000, 10);
+        List<KeyValueEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            entries.add(new KeyValueEntry("k" + i, "v", null));
+        }
+        store.saveAll(entries);
+
+        List<Integer> sizes = upserts().stream().map(Collection::size).toList();
+        assertEquals(List.of(10, 10, 5), sizes);
+    }
+}
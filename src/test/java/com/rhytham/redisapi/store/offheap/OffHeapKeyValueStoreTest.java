@@ -0,0 +1,215 @@
+package com.rhytham.redisapi.store.offheap;
+
+import com.rhytham.redisapi.exception.MaxMemoryException;
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.MemoryStats;
+import com.rhytham.redisapi.store.ScanPage;
+import com.rhytham.redisapi.store.StoreListener;
+import com.rhytham.redisapi.store.offheap.OffHeapKeyValueStore.EvictionPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OffHeapKeyValueStoreTest {
+
+    //One segment with its initial 16-slot index, plus four records in 64-byte chunks
+    private static final long FOUR_KEYS = 16 * 12 + 4 * 64;
+
+    private OffHeapKeyValueStore store;
+    private StoreListener listener;
+
+    @BeforeEach
+    void setUp(){
+        store = new OffHeapKeyValueStore(16, 4096);
+        listener = mock(StoreListener.class);
+        store.addListener(listener);
+    }
+
+    @Test
+    void testSaveFindAndDeleteNotifyListeners(){
+        KeyValueEntry entry = new KeyValueEntry("key1", "value1", 12345L);
+        store.save(entry);
+
+        KeyValueEntry found = store.findById("key1").orElseThrow();
+        assertEquals("value1", found.getValue());
+        assertEquals(12345L, found.getExpiryTime());
+        assertEquals(1, store.count());
+        verify(listener).onSave(entry);
+
+        store.deleteById("key1");
+        store.deleteById("key1");
+
+        assertTrue(store.findById("key1").isEmpty());
+        assertEquals(0, store.count());
+        verify(listener, times(1)).onDelete("key1");
+    }
+
+    @Test
+    void testIndexGrowsAndSurvivesDeletes(){
+        for (int i = 0; i < 2000; i++) {
+            store.save(new KeyValueEntry("key" + i, "value" + i, null));
+        }
+        for (int i = 0; i < 2000; i += 2) {
+            store.deleteById("key" + i);
+        }
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(i % 2 == 1, store.findById("key" + i).isPresent(), "key" + i);
+        }
+        assertEquals("value1999", store.findById("key1999").orElseThrow().getValue());
+        assertEquals(1000, store.count());
+
+        Set<String> seen = new HashSet<>();
+        String cursor = ScanPage.START;
+        do {
+            ScanPage page = store.scan(cursor, 50);
+            page.entries().forEach(entry -> assertTrue(seen.add(entry.getKey()), "duplicate " + entry.getKey()));
+            cursor = page.cursor();
+        } while (!cursor.equals(ScanPage.START));
+        assertEquals(1000, seen.size());
+    }
+
+    @Test
+    void testLargeValuesGetTheirOwnBuffer(){
+        String large = "x".repeat(3000) + "y";
+        store.save(new KeyValueEntry("large", large, null));
+
+        assertEquals(large, store.findById("large").orElseThrow().getValue());
+        store.deleteById("large");
+        assertTrue(store.findById("large").isEmpty());
+    }
+
+    @Test
+    void testUpdateExpiryAndDeleteExpired(){
+        long now = System.currentTimeMillis();
+        store.save(new KeyValueEntry("live", "v", now + 10000));
+        store.save(new KeyValueEntry("dead", "v", now - 1000));
+        store.save(new KeyValueEntry("forever", "v", null));
+
+        assertTrue(store.updateExpiry("forever", now + 5000));
+        assertFalse(store.updateExpiry("dead", now + 5000));
+        assertEquals(now + 5000, store.findById("forever").orElseThrow().getExpiryTime());
+        assertEquals(3, store.stats(now).keysWithExpiry());
+        assertEquals(1, store.stats(now).expiredPending());
+
+        assertEquals(1, store.deleteAllExpired(now));
+        assertEquals(2, store.count());
+        verify(listener).onDelete("dead");
+    }
+
+    @Test
+    void testRedisServiceTypedCommands(){
+        RedisService redisService = new RedisService(store);
+        redisService.set("user", "alice", 60L);
+        assertEquals(5, redisService.incrBy("counter", 5));
+        assertEquals(6, redisService.incrBy("counter", 1));
+        redisService.hset("hash", Map.of("field", "value"));
+        redisService.rpush("list", List.of("a", "b", "c"));
+
+        assertEquals("alice", redisService.get("user"));
+        assertEquals("value", redisService.hget("hash", "field"));
+        assertEquals(List.of("a", "b", "c"), redisService.lrange("list", 0, -1));
+        assertEquals("a", redisService.lpop("list"));
+        assertEquals(List.of("b", "c"), redisService.lrange("list", 0, -1));
+
+        MemoryStats stats = redisService.memoryStats();
+        assertEquals(4, stats.keys());
+        assertEquals(1, stats.encodings().get("string:int").keys());
+        assertEquals(store.usedMemory(), stats.totalBytes());
+        assertEquals("noeviction", stats.allocator().evictionPolicy());
+
+        redisService.flushAll();
+        assertFalse(redisService.exists("user"));
+        assertEquals(0, store.count());
+    }
+
+    @Test
+    void testEmptiedPagesAreReusedByOtherSizeClasses(){
+        for (int i = 0; i < 200; i++) {
+            store.save(new KeyValueEntry("key" + i, "v", null));
+        }
+        long reserved = store.reservedBytes();
+        store.deleteAll();
+        assertEquals(0, store.requestedBytes());
+
+        for (int i = 0; i < 20; i++) {
+            store.save(new KeyValueEntry("key" + i, "v".repeat(300), null));
+        }
+        assertEquals(reserved, store.reservedBytes());
+        assertTrue(store.fragmentationRatio() >= 1.0);
+    }
+
+    @Test
+    void testAllKeysLruEvictsLeastRecentlyUsed() throws InterruptedException {
+        OffHeapKeyValueStore lru = new OffHeapKeyValueStore(1, 4096, FOUR_KEYS, EvictionPolicy.ALLKEYS_LRU, 100);
+        lru.addListener(listener);
+        for (int i = 0; i < 5; i++) {
+            lru.save(new KeyValueEntry("k" + i, "v", null));
+            Thread.sleep(5);
+        }
+        lru.findById("k0");
+        Thread.sleep(5);
+
+        lru.save(new KeyValueEntry("k5", "v", null));
+
+        assertTrue(lru.findById("k1").isEmpty());
+        assertTrue(lru.findById("k0").isPresent());
+        assertTrue(lru.findById("k5").isPresent());
+        assertEquals(1, lru.evictedKeys());
+        verify(listener).onDelete("k1");
+    }
+
+    @Test
+    void testVolatileTtlEvictsSoonestExpiringKey(){
+        long now = System.currentTimeMillis();
+        OffHeapKeyValueStore ttl = new OffHeapKeyValueStore(1, 4096, FOUR_KEYS, EvictionPolicy.VOLATILE_TTL, 100);
+        ttl.save(new KeyValueEntry("p0", "v", null));
+        ttl.save(new KeyValueEntry("p1", "v", null));
+        ttl.save(new KeyValueEntry("later", "v", now + 100_000));
+        ttl.save(new KeyValueEntry("sooner", "v", now + 10_000));
+        ttl.save(new KeyValueEntry("p2", "v", null));
+
+        ttl.save(new KeyValueEntry("new", "v", null));
+        assertTrue(ttl.findById("sooner").isEmpty());
+        ttl.save(new KeyValueEntry("new2", "v", null));
+        assertTrue(ttl.findById("later").isEmpty());
+
+        //Only keys without a TTL are left, so nothing can be evicted
+        assertThrows(MaxMemoryException.class, () -> ttl.save(new KeyValueEntry("new3", "v", null)));
+        assertEquals(2, ttl.evictedKeys());
+    }
+
+    @Test
+    void testNoEvictionRejectsWritesButAllowsReadsDeletesAndExpire(){
+        OffHeapKeyValueStore full = new OffHeapKeyValueStore(1, 4096, FOUR_KEYS, EvictionPolicy.NOEVICTION, 5);
+        for (int i = 0; i < 5; i++) {
+            full.save(new KeyValueEntry("k" + i, "v", null));
+        }
+        RedisService redisService = new RedisService(full);
+
+        assertThrows(MaxMemoryException.class, () -> redisService.set("k5", "v", null));
+        assertThrows(MaxMemoryException.class, () -> redisService.incrBy("k0", 1));
+        assertEquals("v", redisService.get("k0"));
+        assertTrue(redisService.expire("k0", 60));
+        assertTrue(redisService.delete("k1"));
+
+        redisService.set("k5", "v", null);
+        assertEquals(5, full.count());
+        assertEquals(0, full.evictedKeys());
+    }
+
+    @Test
+    void testEvictionPolicyParsesRedisSpelling(){
+        assertEquals(EvictionPolicy.ALLKEYS_LRU, EvictionPolicy.parse("allkeys-lru"));
+        assertEquals(EvictionPolicy.VOLATILE_TTL, EvictionPolicy.parse(" Volatile-TTL "));
+        assertEquals("noeviction", EvictionPolicy.NOEVICTION.label());
+        assertThrows(IllegalArgumentException.class, () -> EvictionPolicy.parse("allkeys-lfu"));
+    }
+}
@@ -0,0 +1,164 @@
+package com.rhytham.redisapi.store.snapshot;
+
+import com.rhytham.redisapi.model.KeyValueEntry;
+import com.rhytham.redisapi.service.RedisService;
+import com.rhytham.redisapi.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTripAcrossManyChunks() throws IOException {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(16);
+        long expiry = System.currentTimeMillis() + 60_000;
+        String padding = "x".repeat(200);
+        for (int i = 0; i < 20_000; i++) {
+            store.save(new KeyValueEntry("key:" + i, padding + i, i % 2 == 0 ? null : expiry));
+        }
+        store.save(new KeyValueEntry("ключ", "значение", null));
+        store.save(new KeyValueEntry("dead", "v", System.currentTimeMillis() - 1));
+        Path path = dir.resolve("dump.snap");
+
+        assertEquals(20_001, SnapshotFile.write(store, path));
+        assertTrue(Files.size(path) > 2 << 20); //several chunks
+
+        InMemoryKeyValueStore restored = new InMemoryKeyValueStore(16);
+        assertEquals(20_001, SnapshotFile.load(path, restored, 4));
+        assertEquals(20_001, restored.count());
+        assertEquals(padding + 7, restored.findById("key:7").orElseThrow().getValue());
+        assertEquals(expiry, restored.findById("key:7").orElseThrow().getExpiryTime());
+        assertNull(restored.findById("key:8").orElseThrow().getExpiryTime());
+        assertEquals("значение", restored.findById("ключ").orElseThrow().getValue());
+        assertEquals(10_000, restored.countWithExpiry());
+    }
+
+    @Test
+    void testTypedValuesRoundTrip() throws IOException {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4);
+        RedisService service = new RedisService(store);
+        service.hset("h", Map.of("f", "v"));
+        service.sadd("s", List.of("1", "2"));
+        service.zadd("z", Map.of("m", 2.0));
+        store.save(new KeyValueEntry("plain", "[\"looks like a list\"]", null));
+        Path path = dir.resolve("dump.snap");
+        SnapshotFile.write(store, path);
+
+        InMemoryKeyValueStore restored = new InMemoryKeyValueStore(4);
+        assertEquals(4, SnapshotFile.load(path, restored, 2));
+        RedisService loaded = new RedisService(restored);
+        assertEquals("v", loaded.hget("h", "f"));
+        assertTrue(loaded.sismember("s", "2"));
+        assertEquals("intset", loaded.encoding("s"));
+        assertEquals(2.0, loaded.zscore("z", "m"));
+        assertEquals("[\"looks like a list\"]", loaded.get("plain"));
+    }
+
+    @Test
+    void testEmptyStore() throws IOException {
+        Path path = dir.resolve("dump.snap");
+        assertEquals(0, SnapshotFile.write(new InMemoryKeyValueStore(4), path));
+        assertEquals(0, SnapshotFile.load(path, new InMemoryKeyValueStore(4), 2));
+    }
+
+    @Test
+    void testCorruptChunkIsRejected() throws IOException {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4);
+        store.save(new KeyValueEntry("a", "value", null));
+        Path path = dir.resolve("dump.snap");
+        SnapshotFile.write(store, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'Z'}), 12 + 12 + 3); //inside the first payload
+        }
+
+        assertThrows(IOException.class, () -> SnapshotFile.load(path, new InMemoryKeyValueStore(4), 2));
+    }
+
+    @Test
+    void testManagerLoadsOnStartupAndTracksChanges() throws Exception {
+        Path path = dir.resolve("dump.snap");
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4);
+        SnapshotManager manager = new SnapshotManager(store, path, 2, true);
+        manager.loadAndAttach();
+        store.save(new KeyValueEntry("a", "1", null));
+        assertEquals(1, manager.changesSinceLastSave());
+
+        assertTrue(manager.bgsave());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (manager.isSaving() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(manager.getLastSave().ok());
+        assertEquals(1, manager.getLastSave().keys());
+        assertEquals(0, manager.changesSinceLastSave());
+        assertFalse(manager.bgsaveIfChanged(1));
+
+        store.save(new KeyValueEntry("b", "2", null));
+        manager.shutdown(); //persistent mode saves pending changes
+
+        InMemoryKeyValueStore restored = new InMemoryKeyValueStore(4);
+        new SnapshotManager(restored, path, 2, true).loadAndAttach();
+        assertEquals(2, restored.count());
+    }
+
+    @Test
+    void testShutdownWaitsParkedForARunningBgsave() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore(4) {
+            @Override
+            public void forEach(Consumer<KeyValueEntry> action) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.forEach(action);
+            }
+        };
+        Path path = dir.resolve("dump.snap");
+        SnapshotManager manager = new SnapshotManager(store, path, 2, true);
+        manager.loadAndAttach();
+        store.save(new KeyValueEntry("a", "1", null));
+        assertTrue(manager.bgsave());
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        store.save(new KeyValueEntry("b", "2", null));
+        Thread stopping = new Thread(manager::shutdown);
+        stopping.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (stopping.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        //Parked on the running save rather than spinning, and not finished while it runs
+        assertEquals(Thread.State.TIMED_WAITING, stopping.getState());
+        assertTrue(manager.isSaving());
+
+        release.countDown();
+        stopping.join(5000);
+        assertFalse(stopping.isAlive());
+        assertFalse(manager.isSaving());
+        assertEquals(0, manager.changesSinceLastSave());
+        InMemoryKeyValueStore restored = new InMemoryKeyValueStore(4);
+        new SnapshotManager(restored, path, 2, true).loadAndAttach();
+        assertEquals(2, restored.count());
+    }
+}